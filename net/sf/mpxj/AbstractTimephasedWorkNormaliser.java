@@ -23,7 +23,7 @@
 
 package net.sf.mpxj;
 
-import java.util.Date;
+import java.util.Calendar;
 import java.util.LinkedList;
 
 import net.sf.mpxj.utility.NumberUtility;
@@ -41,77 +41,126 @@ public abstract class AbstractTimephasedWorkNormaliser implements TimephasedWork
     * @param calendar current calendar
     * @param list list of assignment data
     */
-   @Override public abstract void normalise(ProjectCalendar calendar, LinkedList<TimephasedWork> list);
+   @Override public void normalise(ProjectCalendar calendar, LinkedList<TimephasedWork> list)
+   {
+      TimephasedWorkArray data = new TimephasedWorkArray(list);
+      normalise(calendar, data);
+      list.clear();
+      list.addAll(data.toList());
+   }
+
+   /**
+    * This method converts the internal representation of timephased 
+    * resource assignment data used by MS Project into a standardised
+    * format to make it easy to work with. This variant operates directly
+    * on the compact representation of the data, and is used in preference
+    * to the list based method by TimephasedWorkData.
+    * 
+    * @param calendar current calendar
+    * @param data assignment data
+    */
+   public abstract void normalise(ProjectCalendar calendar, TimephasedWorkArray data);
 
    /**
     * Merges individual days together into time spans where the
     * same work is undertaken each day.
     * 
-    * @param list assignment data
+    * @param data assignment data
     */
-   protected void mergeSameWork(LinkedList<TimephasedWork> list)
+   protected void mergeSameWork(TimephasedWorkArray data)
    {
-      LinkedList<TimephasedWork> result = new LinkedList<TimephasedWork>();
+      TimephasedWorkArray result = new TimephasedWorkArray(data.size());
 
-      TimephasedWork previousAssignment = null;
-      for (TimephasedWork assignment : list)
+      for (int index = 0; index < data.size(); index++)
       {
-         if (previousAssignment == null)
+         if (result.isEmpty())
          {
-            assignment.setAmountPerDay(assignment.getTotalAmount());
-            result.add(assignment);
+            addWithAmountPerDay(result, data, index);
          }
          else
          {
-            Duration previousAssignmentWork = previousAssignment.getAmountPerDay();
-            Duration assignmentWork = assignment.getTotalAmount();
+            int previous = result.size() - 1;
+            double previousAssignmentWork = result.getAmountPerDay(previous);
+            double assignmentWork = data.getTotalAmount(index);
 
-            if (NumberUtility.equals(previousAssignmentWork.getDuration(), assignmentWork.getDuration(), 0.01))
+            if (NumberUtility.equals(previousAssignmentWork, assignmentWork, 0.01))
             {
-               Date assignmentStart = previousAssignment.getStart();
-               Date assignmentFinish = assignment.getFinish();
-               double total = previousAssignment.getTotalAmount().getDuration();
-               total += assignmentWork.getDuration();
-               Duration totalWork = Duration.getInstance(total, TimeUnit.MINUTES);
-
-               TimephasedWork merged = new TimephasedWork();
-               merged.setStart(assignmentStart);
-               merged.setFinish(assignmentFinish);
-               merged.setAmountPerDay(assignmentWork);
-               merged.setTotalAmount(totalWork);
+               long assignmentStart = result.getStart(previous);
+               long assignmentFinish = data.getFinish(index);
+               double total = result.getTotalAmount(previous);
+               total += assignmentWork;
 
                result.removeLast();
-               assignment = merged;
+               result.add(assignmentStart, assignmentFinish, total, TimeUnit.MINUTES, assignmentWork, data.getTotalAmountUnits(index), false);
             }
             else
             {
-               assignment.setAmountPerDay(assignment.getTotalAmount());
+               addWithAmountPerDay(result, data, index);
             }
-            result.add(assignment);
          }
-
-         previousAssignment = assignment;
       }
 
-      list.clear();
-      list.addAll(result);
+      data.setAll(result);
    }
 
    /**
     * Converts assignment duration values from minutes to hours.
     * 
-    * @param list assignment data
+    * @param data assignment data
     */
-   protected void convertToHours(LinkedList<TimephasedWork> list)
+   protected void convertToHours(TimephasedWorkArray data)
    {
-      for (TimephasedWork assignment : list)
+      for (int index = 0; index < data.size(); index++)
       {
-         Duration totalWork = assignment.getTotalAmount();
-         Duration workPerDay = assignment.getAmountPerDay();
-         totalWork = Duration.getInstance(totalWork.getDuration() / 60, TimeUnit.HOURS);
-         workPerDay = Duration.getInstance(workPerDay.getDuration() / 60, TimeUnit.HOURS);
-         assignment.setTotalAmount(totalWork);
-         assignment.setAmountPerDay(workPerDay);
+         data.setTotalAmount(index, data.getTotalAmount(index) / 60, TimeUnit.HOURS);
+         data.setAmountPerDay(index, data.getAmountPerDay(index) / 60, TimeUnit.HOURS);
       }
    }
+
+   /**
+    * Copies an item to the result array, setting its amount per day
+    * to be the same as its total amount.
+    * 
+    * @param result result array
+    * @param data source array
+    * @param index index of the item to copy
+    */
+   protected void addWithAmountPerDay(TimephasedWorkArray result, TimephasedWorkArray data, int index)
+   {
+      double totalAmount = data.getTotalAmount(index);
+      TimeUnit totalAmountUnits = data.getTotalAmountUnits(index);
+      result.add(data.getStart(index), data.getFinish(index), totalAmount, totalAmountUnits, totalAmount, totalAmountUnits, data.getModified(index));
+   }
+
+   /**
+    * Retrieve the start of the day on which a date falls.
+    * 
+    * @param cal Calendar instance used for the calculation
+    * @param date date in milliseconds
+    * @return day start date in milliseconds
+    */
+   protected long getDayStartDate(Calendar cal, long date)
+   {
+      cal.setTimeInMillis(date);
+      cal.set(Calendar.HOUR_OF_DAY, 0);
+      cal.set(Calendar.MINUTE, 0);
+      cal.set(Calendar.SECOND, 0);
+      cal.set(Calendar.MILLISECOND, 0);
+      return (cal.getTimeInMillis());
+   }
+
+   /**
+    * Add a number of days to a date.
+    * 
+    * @param cal Calendar instance used for the calculation
+    * @param date date in milliseconds
+    * @param days number of days to add
+    * @return new date in milliseconds
+    */
+   protected long addDays(Calendar cal, long date, int days)
+   {
+      cal.setTimeInMillis(date);
+      cal.add(Calendar.DAY_OF_YEAR, days);
+      return (cal.getTimeInMillis());
+   }
 }
@@ -0,0 +1,142 @@
+/*
+ * file:       DeferredFieldValues.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2012
+ * date:       18/10/2012
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj;
+
+import java.util.Arrays;
+
+/**
+ * Tracks which fields of a container have yet to be retrieved from
+ * a FieldValueLoader. Each field is loaded at most once: either when
+ * its value is first read, or it is marked as loaded when a value is
+ * written to it before it has been read.
+ *
+ * This class is not synchronized. Containers lock the instance while
+ * checking for and loading a field, and hold it in a volatile field
+ * which is cleared once all fields are loaded. This allows the fields of
+ * an entity to be read from several threads at once. Where only one
+ * field is deferred, containers need only lock the instance when that
+ * field is accessed.
+ */
+final class DeferredFieldValues
+{
+   /**
+    * Constructor.
+    * 
+    * @param loader source of field values
+    * @param fieldCount number of fields in the container
+    */
+   public DeferredFieldValues(FieldValueLoader loader, int fieldCount)
+   {
+      m_loader = loader;
+      m_pending = new long[(fieldCount + 63) / 64];
+      Arrays.fill(m_pending, -1L);
+      m_remaining = fieldCount;
+      m_field = -1;
+   }
+
+   /**
+    * Constructor used when only a single field is to be retrieved
+    * from the loader.
+    * 
+    * @param loader source of the field value
+    * @param fieldCount number of fields in the container
+    * @param field index of the field to be loaded
+    */
+   public DeferredFieldValues(FieldValueLoader loader, int fieldCount, int field)
+   {
+      m_loader = loader;
+      m_pending = new long[(fieldCount + 63) / 64];
+      m_pending[field >> 6] = 1L << field;
+      m_remaining = 1;
+      m_field = field;
+   }
+
+   /**
+    * Determine if a field is retrieved from the loader. This does not
+    * change once the instance has been constructed, so it may be tested
+    * without holding a lock on the instance.
+    * 
+    * @param index field index
+    * @return true if the field is retrieved from the loader
+    */
+   public boolean isDeferred(int index)
+   {
+      return (m_field == -1 || m_field == index);
+   }
+
+   /**
+    * Determine if a field has yet to be loaded.
+    * 
+    * @param index field index
+    * @return true if the field has not been loaded
+    */
+   public boolean isPending(int index)
+   {
+      return ((m_pending[index >> 6] & (1L << index)) != 0);
+   }
+
+   /**
+    * Load a field value, and mark the field as loaded.
+    * 
+    * @param field field type
+    * @param defaultValue value currently held by the container
+    * @return field value
+    */
+   public Object load(FieldType field, Object defaultValue)
+   {
+      setLoaded(field.getValue());
+      return (m_loader.getFieldValue(field, defaultValue));
+   }
+
+   /**
+    * Mark a field as loaded.
+    * 
+    * @param index field index
+    */
+   public void setLoaded(int index)
+   {
+      long mask = 1L << index;
+      int word = index >> 6;
+      if ((m_pending[word] & mask) != 0)
+      {
+         m_pending[word] &= ~mask;
+         --m_remaining;
+      }
+   }
+
+   /**
+    * Determine if all fields have been loaded.
+    * 
+    * @return true if no fields remain to be loaded
+    */
+   public boolean isComplete()
+   {
+      return (m_remaining == 0);
+   }
+
+   private final FieldValueLoader m_loader;
+   private final long[] m_pending;
+   private int m_remaining;
+   private final int m_field;
+}
@@ -0,0 +1,42 @@
+/*
+ * file:       FieldValueLoader.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2012
+ * date:       18/10/2012
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj;
+
+/**
+ * This interface is implemented by classes which supply field values
+ * to a field container on demand. This allows a reader to defer
+ * decoding a field until its value is first requested.
+ */
+public interface FieldValueLoader
+{
+   /**
+    * Retrieve the value of a field. If the loader does not hold a value
+    * for this field, the supplied default value is returned.
+    * 
+    * @param field field type
+    * @param defaultValue value held by the container before the field was loaded
+    * @return field value
+    */
+   public Object getFieldValue(FieldType field, Object defaultValue);
+}
@@ -29,10 +29,8 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.TimeZone;
 
 import net.sf.mpxj.utility.DateUtility;
 import net.sf.mpxj.utility.NumberUtility;
@@ -42,6 +40,10 @@ import net.sf.mpxj.utility.NumberUtility;
  * and calendars derived from base calendars are represented by instances
  * of this class. The class is used to define the working and non-working days
  * of the week. The default calendar defines Monday to Friday as working days.
+ * 
+ * Date calculations may be performed using a calendar from several threads
+ * at once, provided that the calendar and its base calendars are not
+ * modified while this is happening.
  */
 public final class ProjectCalendar extends ProjectCalendarWeek
 {
@@ -93,7 +95,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek
     */
    public ProjectCalendarException addCalendarException(Date fromDate, Date toDate)
    {
-      ProjectCalendarException bce = new ProjectCalendarException(fromDate, toDate);
+      ProjectCalendarException bce = new ProjectCalendarException(this, fromDate, toDate);
       m_exceptions.add(bce);
       m_exceptionsSorted = false;
       clearWorkingDateCache();
@@ -107,10 +109,7 @@ public final class ProjectCalendar extends ProjectCalendarWeek
     */
    public List<ProjectCalendarException> getCalendarExceptions()
    {
-      if (!m_exceptionsSorted)
-      {
-         Collections.sort(m_exceptions);
-      }
+      sortExceptions();
       return (m_exceptions);
    }
 
@@ -251,8 +250,11 @@ public final class ProjectCalendar extends ProjectCalendarWeek
     */
    public Date getStartTime(Date date)
    {
-      Date result = m_startTimeCache.get(date);
-      if (result == null)
+      Date result;
+      ProjectCalendarCache cache = m_startTimeCache;
+      long generation = cache.getGeneration();
+      long cachedResult = cache.get(date.getTime(), 0);
+      if (cachedResult == ProjectCalendarCache.NOT_FOUND)
       {
          ProjectCalendarDateRanges ranges = getRanges(date, null, null);
          if (ranges == null)
@@ -264,7 +266,11 @@ public final class ProjectCalendar extends ProjectCalendarWeek
             result = ranges.getRange(0).getStart();
          }
          result = DateUtility.getCanonicalTime(result);
-         m_startTimeCache.put(new Date(date.getTime()), result);
+         cache.put(date.getTime(), 0, result == null ? NULL_TIME : result.getTime(), generation);
+      }
+      else
+      {
+         result = (cachedResult == NULL_TIME ? null : new Date(cachedResult));
       }
       return result;
    }
@@ -971,50 +977,53 @@ public final class ProjectCalendar extends ProjectCalendarWeek
     */
    public ProjectCalendarException getException(Date date)
    {
-      ProjectCalendarException exception = null;
-      if (!m_exceptions.isEmpty())
-      {
-         if (!m_exceptionsSorted)
-         {
-            Collections.sort(m_exceptions);
-            m_exceptionsSorted = true;
-         }
-
-         int low = 0;
-         int high = m_exceptions.size() - 1;
-         long targetDate = date.getTime();
+      return (getExceptionIndex().getException(date.getTime()));
+   }
 
-         while (low <= high)
+   /**
+    * Retrieves the index used to locate the exceptions which apply to
+    * this calendar, including those inherited from base calendars.
+    * The index is built on demand, and discarded when this calendar or
+    * any of its base calendars are modified.
+    *
+    * @return exception index
+    */
+   private ProjectCalendarExceptionIndex getExceptionIndex()
+   {
+      ProjectCalendarExceptionIndex index = m_exceptionIndex;
+      if (index == null)
+      {
+         synchronized (this)
          {
-            int mid = (low + high) >>> 1;
-            ProjectCalendarException midVal = m_exceptions.get(mid);
-            int cmp = 0 - DateUtility.compare(midVal.getFromDate(), midVal.getToDate(), targetDate);
-
-            if (cmp < 0)
-            {
-               low = mid + 1;
-            }
-            else
+            index = m_exceptionIndex;
+            if (index == null)
             {
-               if (cmp > 0)
-               {
-                  high = mid - 1;
-               }
-               else
-               {
-                  exception = midVal;
-                  break;
-               }
+               ProjectCalendar parent = getParent();
+               sortExceptions();
+               index = new ProjectCalendarExceptionIndex(m_exceptions, parent == null ? null : parent.getExceptionIndex());
+               m_exceptionIndex = index;
             }
          }
       }
+      return (index);
+   }
 
-      if (exception == null && getParent() != null)
+   /**
+    * Ensures that the exceptions defined by this calendar are sorted.
+    */
+   private void sortExceptions()
+   {
+      if (!m_exceptionsSorted)
       {
-         // Check base calendar as well for an exception.
-         exception = getParent().getException(date);
+         synchronized (this)
+         {
+            if (!m_exceptionsSorted)
+            {
+               Collections.sort(m_exceptions);
+               m_exceptionsSorted = true;
+            }
+         }
       }
-      return (exception);
    }
 
    /**
@@ -1043,12 +1052,16 @@ public final class ProjectCalendar extends ProjectCalendarWeek
     */
    public Duration getWork(Date startDate, Date endDate, TimeUnit format)
    {
-      DateRange range = new DateRange(startDate, endDate);
-      Long cachedResult = m_workingDateCache.get(range);
-      long totalTime = 0;
+      long startTime = startDate.getTime();
+      long endTime = endDate.getTime();
+      ProjectCalendarCache cache = m_workingDateCache;
+      long generation = cache.getGeneration();
+      long totalTime = cache.get(startTime, endTime);
 
-      if (cachedResult == null)
+      if (totalTime == ProjectCalendarCache.NOT_FOUND)
       {
+         totalTime = 0;
+
          //
          // We want the start date to be the earliest date, and the end date 
          // to be the latest date. Set a flag here to indicate if we have swapped
@@ -1076,58 +1089,44 @@ public final class ProjectCalendar extends ProjectCalendarWeek
          }
          else
          {
-            //
-            // Find the first working day in the range
-            //
-            Date currentDate = startDate;
-            Calendar cal = Calendar.getInstance();
-            cal.setTime(startDate);
-            Day day = Day.getInstance(cal.get(Calendar.DAY_OF_WEEK));
-            while (isWorkingDate(currentDate, day) == false && currentDate.getTime() < canonicalEndDate.getTime())
+            ProjectCalendarWorkProfile profile = getWorkProfile();
+            Day day = null;
+
+            if (profile == null)
             {
-               cal.add(Calendar.DAY_OF_YEAR, 1);
-               currentDate = cal.getTime();
-               day = day.getNextDay();
+               totalTime += getWorkByDay(startDate, canonicalEndDate);
             }
-
-            if (currentDate.getTime() < canonicalEndDate.getTime())
+            else
             {
                //
-               // Calculate the amount of working time for this day
+               // Find the first working day in the range
                //
-               totalTime += getTotalTime(getRanges(currentDate, null, day), currentDate, true);
+               long startDay = profile.getDayNumber(startDate.getTime());
+               long endDay = profile.getDayNumber(endDate.getTime());
+               long workingDay = profile.getNextWorkingDay(startDay, endDay);
 
-               //
-               // Process each working day until we reach the last day
-               //
-               while (true)
+               if (workingDay < endDay)
                {
-                  cal.add(Calendar.DAY_OF_YEAR, 1);
-                  currentDate = cal.getTime();
-                  day = day.getNextDay();
-
                   //
-                  // We have reached the last day
+                  // Calculate the amount of working time for this day
                   //
-                  if (currentDate.getTime() >= canonicalEndDate.getTime())
+                  Date currentDate = startDate;
+                  if (workingDay != startDay)
                   {
-                     break;
+                     Calendar cal = Calendar.getInstance();
+                     cal.setTime(startDate);
+                     cal.add(Calendar.DAY_OF_YEAR, (int) (workingDay - startDay));
+                     currentDate = cal.getTime();
                   }
+                  totalTime += getTotalTime(getRanges(currentDate, null, profile.getDay(workingDay)), currentDate, true);
 
                   //
-                  // Skip this day if it has no working time
-                  //
-                  ProjectCalendarDateRanges ranges = getRanges(currentDate, null, day);
-                  if (ranges.getRangeCount() == 0)
-                  {
-                     continue;
-                  }
-
+                  // Add the working time for each day until we reach the last day
                   //
-                  // Add the working time for the whole day
-                  //
-                  totalTime += getTotalTime(ranges);
+                  totalTime += profile.getWork(workingDay + 1, endDay);
                }
+
+               day = profile.getDay(endDay);
             }
 
             //
@@ -1145,14 +1144,144 @@ public final class ProjectCalendar extends ProjectCalendarWeek
             totalTime = -totalTime;
          }
 
-         m_workingDateCache.put(range, Long.valueOf(totalTime));
+         cache.put(startTime, endTime, totalTime, generation);
       }
-      else
+
+      return convertFormat(totalTime, format);
+   }
+
+   /**
+    * Calculates the amount of working time between the start date and
+    * the start of the last day in a range by visiting each day in turn.
+    * This is used where the calendar's working week cannot be summarised
+    * in a {@link ProjectCalendarWorkProfile}.
+    * 
+    * @param startDate start date
+    * @param canonicalEndDate start of the last day in the range
+    * @return working time in milliseconds
+    */
+   private long getWorkByDay(Date startDate, Date canonicalEndDate)
+   {
+      long totalTime = 0;
+
+      //
+      // Find the first working day in the range
+      //
+      Date currentDate = startDate;
+      Calendar cal = Calendar.getInstance();
+      cal.setTime(startDate);
+      Day day = Day.getInstance(cal.get(Calendar.DAY_OF_WEEK));
+      while (isWorkingDate(currentDate, day) == false && currentDate.getTime() < canonicalEndDate.getTime())
       {
-         totalTime = cachedResult.longValue();
+         cal.add(Calendar.DAY_OF_YEAR, 1);
+         currentDate = cal.getTime();
+         day = day.getNextDay();
       }
 
-      return convertFormat(totalTime, format);
+      if (currentDate.getTime() < canonicalEndDate.getTime())
+      {
+         //
+         // Calculate the amount of working time for this day
+         //
+         totalTime += getTotalTime(getRanges(currentDate, null, day), currentDate, true);
+
+         //
+         // Process each working day until we reach the last day
+         //
+         while (true)
+         {
+            cal.add(Calendar.DAY_OF_YEAR, 1);
+            currentDate = cal.getTime();
+            day = day.getNextDay();
+
+            //
+            // We have reached the last day
+            //
+            if (currentDate.getTime() >= canonicalEndDate.getTime())
+            {
+               break;
+            }
+
+            //
+            // Skip this day if it has no working time
+            //
+            ProjectCalendarDateRanges ranges = getRanges(currentDate, null, day);
+            if (ranges.getRangeCount() == 0)
+            {
+               continue;
+            }
+
+            //
+            // Add the working time for the whole day
+            //
+            totalTime += getTotalTime(ranges);
+         }
+      }
+
+      return (totalTime);
+   }
+
+   /**
+    * Retrieves the working time profile for this calendar. The profile is
+    * built on demand, and discarded when this calendar or any of its base
+    * calendars are modified, or when the default time zone changes, as
+    * the profile's day numbers depend on it. Null is returned if the
+    * working hours for any day of the week are not yet defined.
+    * 
+    * @return working time profile, or null
+    */
+   private ProjectCalendarWorkProfile getWorkProfile()
+   {
+      TimeZone timeZone = TimeZone.getDefault();
+      ProjectCalendarWorkProfile profile = m_workProfile;
+      if (profile == null || !profile.isValid(timeZone))
+      {
+         synchronized (this)
+         {
+            profile = m_workProfile;
+            if (profile == null || !profile.isValid(timeZone))
+            {
+               profile = null;
+               long[] weekWork = new long[7];
+               boolean[] weekWorking = new boolean[7];
+               boolean complete = true;
+
+               for (Day day : Day.values())
+               {
+                  ProjectCalendarHours hours = null;
+                  ProjectCalendar calendar = this;
+                  while (hours == null && calendar != null)
+                  {
+                     hours = calendar.getCalendarHours(day);
+                     calendar = calendar.getParent();
+                  }
+
+                  if (hours == null)
+                  {
+                     complete = false;
+                     break;
+                  }
+
+                  weekWork[day.getValue() - 1] = getTotalTime(hours);
+                  weekWorking[day.getValue() - 1] = hours.getRangeCount() != 0;
+               }
+
+               if (complete)
+               {
+                  ProjectCalendarExceptionIndex index = getExceptionIndex();
+                  long[] exceptionWork = new long[index.getIntervalCount()];
+                  for (int loop = 0; loop < exceptionWork.length; loop++)
+                  {
+                     exceptionWork[loop] = getTotalTime(index.getIntervalException(loop));
+                  }
+
+                  profile = new ProjectCalendarWorkProfile(timeZone, weekWork, weekWorking, index, exceptionWork);
+                  m_workProfile = profile;
+               }
+            }
+         }
+      }
+      return (profile);
    }
 
    /**
@@ -1672,9 +1801,30 @@ public final class ProjectCalendar extends ProjectCalendarWeek
          }
       }
       // For now just combine the exceptions. Probably overkill (although would be more accurate) to also merge the exceptions.
-      m_exceptions.addAll(taskCalendar.getCalendarExceptions());
-      m_exceptions.addAll(resourceCalendar.getCalendarExceptions());
+      copyCalendarExceptions(taskCalendar);
+      copyCalendarExceptions(resourceCalendar);
       m_exceptionsSorted = false;
+      clearWorkingDateCache();
+   }
+
+   /**
+    * Adds copies of the exceptions from another calendar to this calendar.
+    * The copies belong to this calendar, so changes made to them discard
+    * this calendar's cached data.
+    * 
+    * @param calendar source calendar
+    */
+   private void copyCalendarExceptions(ProjectCalendar calendar)
+   {
+      for (ProjectCalendarException exception : calendar.getCalendarExceptions())
+      {
+         ProjectCalendarException copy = new ProjectCalendarException(this, exception.getFromDate(), exception.getToDate());
+         for (DateRange range : exception)
+         {
+            copy.addRange(range);
+         }
+         m_exceptions.add(copy);
+      }
    }
 
    /**
@@ -1709,11 +1859,48 @@ public final class ProjectCalendar extends ProjectCalendarWeek
       }
    }
 
+   /**
+    * Sets the maximum number of entries held by each of the caches used
+    * to speed up date calculations for this calendar. Setting the size
+    * to zero disables caching. Any existing cached data is discarded.
+    * 
+    * @param size maximum number of entries
+    */
+   public void setCacheSize(int size)
+   {
+      m_workingDateCache = new ProjectCalendarCache(size);
+      m_startTimeCache = new ProjectCalendarCache(size);
+   }
+
+   /**
+    * Retrieves the number of date calculations for this calendar
+    * which have been satisfied from the cache.
+    * 
+    * @return cache hit count
+    */
+   public long getCacheHits()
+   {
+      return (m_workingDateCache.getHits() + m_startTimeCache.getHits());
+   }
+
+   /**
+    * Retrieves the number of date calculations for this calendar
+    * which could not be satisfied from the cache.
+    * 
+    * @return cache miss count
+    */
+   public long getCacheMisses()
+   {
+      return (m_workingDateCache.getMisses() + m_startTimeCache.getMisses());
+   }
+
    /**
     * Utility method to clear cached calendar data.
     */
-   private void clearWorkingDateCache()
+   @Override void clearWorkingDateCache()
    {
+      m_exceptionIndex = null;
+      m_workProfile = null;
       m_workingDateCache.clear();
       m_startTimeCache.clear();
       for (ProjectCalendar calendar : m_derivedCalendars)
@@ -1772,12 +1959,22 @@ public final class ProjectCalendar extends ProjectCalendarWeek
    /**
     * List of exceptions to the base calendar.
     */
-   private List<ProjectCalendarException> m_exceptions = new LinkedList<ProjectCalendarException>();
+   private List<ProjectCalendarException> m_exceptions = new ArrayList<ProjectCalendarException>();
 
    /**
     * Flag indicating if the list of exceptions is sorted.
     */
-   private boolean m_exceptionsSorted;
+   private volatile boolean m_exceptionsSorted;
+
+   /**
+    * Index of exceptions, including those inherited from base calendars.
+    */
+   private volatile ProjectCalendarExceptionIndex m_exceptionIndex;
+
+   /**
+    * Summary of working time used to calculate work across a range of dates.
+    */
+   private volatile ProjectCalendarWorkProfile m_workProfile;
 
    /**
     * This resource to which this calendar is attached.
@@ -1792,8 +1989,8 @@ public final class ProjectCalendar extends ProjectCalendarWeek
    /**
     * Caches used to speed up date calculations.
     */
-   private Map<DateRange, Long> m_workingDateCache = new WeakHashMap<DateRange, Long>();
-   private Map<Date, Date> m_startTimeCache = new WeakHashMap<Date, Date>();
+   private volatile ProjectCalendarCache m_workingDateCache = new ProjectCalendarCache(DEFAULT_CACHE_SIZE);
+   private volatile ProjectCalendarCache m_startTimeCache = new ProjectCalendarCache(DEFAULT_CACHE_SIZE);
 
    /**
     * Work week definitions.
@@ -1813,4 +2010,14 @@ public final class ProjectCalendar extends ProjectCalendarWeek
     * and take an alternative approach.
     */
    private static final int MAX_NONWORKING_DAYS = 1000;
+
+   /**
+    * Default maximum number of entries held by each cache.
+    */
+   public static final int DEFAULT_CACHE_SIZE = 1024;
+
+   /**
+    * Value used to represent a null start time in the start time cache.
+    */
+   private static final long NULL_TIME = Long.MAX_VALUE;
 }
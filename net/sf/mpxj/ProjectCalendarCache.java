@@ -0,0 +1,377 @@
+/*
+ * file:       ProjectCalendarCache.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2012
+ * date:       18/10/2012
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj;
+
+import java.util.Arrays;
+
+/**
+ * Bounded cache used by ProjectCalendar to hold the results of
+ * calculations. Keys are formed from a pair of long values, and values
+ * are long integers, so no objects are allocated when the cache is
+ * read or updated. Once the cache is full, the least recently used
+ * entry is discarded to make room for a new entry. Storage is allocated
+ * when the first entry is added, and grows as entries are added until
+ * the maximum size is reached, so a cache which is rarely used stays small.
+ *
+ * All methods are synchronized. Each call to clear starts a new
+ * generation, and a value calculated before the cache was cleared is
+ * discarded when it is added, so a calculation which overlaps a change to
+ * the underlying data cannot leave a stale value in the cache.
+ */
+final class ProjectCalendarCache
+{
+   /**
+    * Constructor.
+    *
+    * @param size maximum number of entries held by the cache
+    */
+   public ProjectCalendarCache(int size)
+   {
+      m_capacity = size;
+   }
+
+   /**
+    * Retrieve the value associated with a key.
+    *
+    * @param key1 first part of the key
+    * @param key2 second part of the key
+    * @return cached value, or NOT_FOUND
+    */
+   public synchronized long get(long key1, long key2)
+   {
+      long result = NOT_FOUND;
+      int slot = find(key1, key2);
+      if (slot == -1)
+      {
+         ++m_misses;
+      }
+      else
+      {
+         ++m_hits;
+         moveToFront(slot);
+         result = m_values[slot];
+      }
+      return (result);
+   }
+
+   /**
+    * Retrieve the current generation of the cache. This should be read
+    * before calculating a value to be added to the cache.
+    *
+    * @return generation
+    */
+   public synchronized long getGeneration()
+   {
+      return (m_generation);
+   }
+
+   /**
+    * Add a value to the cache, replacing any existing value for this key.
+    * The value is ignored if the cache has been cleared since the
+    * given generation was retrieved.
+    *
+    * @param key1 first part of the key
+    * @param key2 second part of the key
+    * @param value value to cache
+    * @param generation generation retrieved before the value was calculated
+    */
+   public synchronized void put(long key1, long key2, long value, long generation)
+   {
+      if (m_capacity != 0 && generation == m_generation)
+      {
+         int slot = find(key1, key2);
+         if (slot == -1)
+         {
+            if (m_size < m_capacity)
+            {
+               if (m_keys1 == null || m_size == m_keys1.length)
+               {
+                  allocate(m_keys1 == null ? Math.min(m_capacity, INITIAL_SIZE) : Math.min(m_capacity, m_keys1.length * 2));
+               }
+               slot = m_size++;
+            }
+            else
+            {
+               slot = m_tail;
+               unlink(slot);
+               removeFromBucket(slot);
+            }
+
+            m_keys1[slot] = key1;
+            m_keys2[slot] = key2;
+
+            int bucket = getBucket(key1, key2);
+            m_chain[slot] = m_buckets[bucket];
+            m_buckets[bucket] = slot;
+            linkAtFront(slot);
+         }
+         else
+         {
+            moveToFront(slot);
+         }
+
+         m_values[slot] = value;
+      }
+   }
+
+   /**
+    * Remove all entries from the cache. The hit and miss counts
+    * are not reset.
+    */
+   public synchronized void clear()
+   {
+      ++m_generation;
+      if (m_buckets != null && m_size != 0)
+      {
+         Arrays.fill(m_buckets, -1);
+         m_size = 0;
+         m_head = -1;
+         m_tail = -1;
+      }
+   }
+
+   /**
+    * Retrieve the number of entries currently held by the cache.
+    *
+    * @return number of entries
+    */
+   public synchronized int getSize()
+   {
+      return (m_size);
+   }
+
+   /**
+    * Retrieve the number of times a value was found in the cache.
+    *
+    * @return hit count
+    */
+   public synchronized long getHits()
+   {
+      return (m_hits);
+   }
+
+   /**
+    * Retrieve the number of times a value was not found in the cache.
+    *
+    * @return miss count
+    */
+   public synchronized long getMisses()
+   {
+      return (m_misses);
+   }
+
+   /**
+    * Allocate storage for the cache, retaining any existing entries.
+    *
+    * @param size number of entries the storage can hold
+    */
+   private void allocate(int size)
+   {
+      int bucketCount = 1;
+      while (bucketCount < size * 2)
+      {
+         bucketCount <<= 1;
+      }
+
+      if (m_keys1 == null)
+      {
+         m_keys1 = new long[size];
+         m_keys2 = new long[size];
+         m_values = new long[size];
+         m_chain = new int[size];
+         m_previous = new int[size];
+         m_next = new int[size];
+      }
+      else
+      {
+         m_keys1 = Arrays.copyOf(m_keys1, size);
+         m_keys2 = Arrays.copyOf(m_keys2, size);
+         m_values = Arrays.copyOf(m_values, size);
+         m_chain = Arrays.copyOf(m_chain, size);
+         m_previous = Arrays.copyOf(m_previous, size);
+         m_next = Arrays.copyOf(m_next, size);
+      }
+
+      m_buckets = new int[bucketCount];
+      Arrays.fill(m_buckets, -1);
+      for (int slot = 0; slot < m_size; slot++)
+      {
+         int bucket = getBucket(m_keys1[slot], m_keys2[slot]);
+         m_chain[slot] = m_buckets[bucket];
+         m_buckets[bucket] = slot;
+      }
+   }
+
+   /**
+    * Locate the slot holding the given key.
+    *
+    * @param key1 first part of the key
+    * @param key2 second part of the key
+    * @return slot index, or -1 if the key is not present
+    */
+   private int find(long key1, long key2)
+   {
+      int result = -1;
+      if (m_buckets != null)
+      {
+         int slot = m_buckets[getBucket(key1, key2)];
+         while (slot != -1)
+         {
+            if (m_keys1[slot] == key1 && m_keys2[slot] == key2)
+            {
+               result = slot;
+               break;
+            }
+            slot = m_chain[slot];
+         }
+      }
+      return (result);
+   }
+
+   /**
+    * Calculate the hash bucket for a key.
+    *
+    * @param key1 first part of the key
+    * @param key2 second part of the key
+    * @return bucket index
+    */
+   private int getBucket(long key1, long key2)
+   {
+      long hash = (key1 * 0x9E3779B97F4A7C15L) + key2;
+      hash ^= (hash >>> 32);
+      hash *= 0x9E3779B97F4A7C15L;
+      return ((int) (hash >>> 32) & (m_buckets.length - 1));
+   }
+
+   /**
+    * Remove a slot from its hash bucket.
+    *
+    * @param slot slot index
+    */
+   private void removeFromBucket(int slot)
+   {
+      int bucket = getBucket(m_keys1[slot], m_keys2[slot]);
+      int current = m_buckets[bucket];
+      if (current == slot)
+      {
+         m_buckets[bucket] = m_chain[slot];
+      }
+      else
+      {
+         while (m_chain[current] != slot)
+         {
+            current = m_chain[current];
+         }
+         m_chain[current] = m_chain[slot];
+      }
+   }
+
+   /**
+    * Mark a slot as the most recently used.
+    *
+    * @param slot slot index
+    */
+   private void moveToFront(int slot)
+   {
+      if (m_head != slot)
+      {
+         unlink(slot);
+         linkAtFront(slot);
+      }
+   }
+
+   /**
+    * Remove a slot from the list of slots in use order.
+    *
+    * @param slot slot index
+    */
+   private void unlink(int slot)
+   {
+      int previous = m_previous[slot];
+      int next = m_next[slot];
+
+      if (previous == -1)
+      {
+         m_head = next;
+      }
+      else
+      {
+         m_next[previous] = next;
+      }
+
+      if (next == -1)
+      {
+         m_tail = previous;
+      }
+      else
+      {
+         m_previous[next] = previous;
+      }
+   }
+
+   /**
+    * Add a slot to the front of the list of slots in use order.
+    *
+    * @param slot slot index
+    */
+   private void linkAtFront(int slot)
+   {
+      m_previous[slot] = -1;
+      m_next[slot] = m_head;
+      if (m_head != -1)
+      {
+         m_previous[m_head] = slot;
+      }
+      m_head = slot;
+      if (m_tail == -1)
+      {
+         m_tail = slot;
+      }
+   }
+
+   /**
+    * Value returned when a key is not present in the cache.
+    */
+   public static final long NOT_FOUND = Long.MIN_VALUE;
+
+   /**
+    * Number of entries for which storage is first allocated.
+    */
+   private static final int INITIAL_SIZE = 16;
+
+   private final int m_capacity;
+   private int m_size;
+   private int m_head = -1;
+   private int m_tail = -1;
+   private long m_hits;
+   private long m_misses;
+   private long m_generation;
+   private int[] m_buckets;
+   private long[] m_keys1;
+   private long[] m_keys2;
+   private long[] m_values;
+   private int[] m_chain;
+   private int[] m_previous;
+   private int[] m_next;
+}
@@ -40,6 +40,7 @@ public abstract class ProjectCalendarDateRanges implements Iterable<DateRange>
    public void addRange(DateRange range)
    {
       m_ranges.add(range);
+      rangesChanged();
    }
 
    /**
@@ -75,6 +76,7 @@ public abstract class ProjectCalendarDateRanges implements Iterable<DateRange>
    public void setRange(int index, DateRange value)
    {
       m_ranges.set(index, value);
+      rangesChanged();
    }
 
    /**
@@ -84,7 +86,26 @@ public abstract class ProjectCalendarDateRanges implements Iterable<DateRange>
     */
    @Override public Iterator<DateRange> iterator()
    {
-      return (m_ranges.iterator());
+      final Iterator<DateRange> iter = m_ranges.iterator();
+
+      return (new Iterator<DateRange>()
+      {
+         @Override public boolean hasNext()
+         {
+            return (iter.hasNext());
+         }
+
+         @Override public DateRange next()
+         {
+            return (iter.next());
+         }
+
+         @Override public void remove()
+         {
+            iter.remove();
+            rangesChanged();
+         }
+      });
    }
 
    /**
@@ -97,5 +118,12 @@ public abstract class ProjectCalendarDateRanges implements Iterable<DateRange>
       return (m_ranges.size());
    }
 
+   /**
+    * Called when the list of date ranges is modified, allowing
+    * the calendar which owns these ranges to discard any
+    * working time calculations based on them.
+    */
+   protected abstract void rangesChanged();
+
    private LinkedList<DateRange> m_ranges = new LinkedList<DateRange>();
 }
@@ -37,11 +37,13 @@ public final class ProjectCalendarException extends ProjectCalendarDateRanges im
    /**
     * Package private constructor.
     * 
+    * @param calendar calendar to which this exception belongs
     * @param fromDate exception start date
     * @param toDate exception end date
     */
-   ProjectCalendarException(Date fromDate, Date toDate)
+   ProjectCalendarException(ProjectCalendar calendar, Date fromDate, Date toDate)
    {
+      m_calendar = calendar;
       m_fromDate = DateUtility.getDayStartDate(fromDate);
       m_toDate = DateUtility.getDayEndDate(toDate);
    }
@@ -106,6 +108,14 @@ public final class ProjectCalendarException extends ProjectCalendarDateRanges im
       return ((fromTime1 < fromTime2) ? (-1) : ((fromTime1 == fromTime2) ? 0 : 1));
    }
 
+   /**
+    * {@inheritDoc}
+    */
+   @Override protected void rangesChanged()
+   {
+      m_calendar.clearWorkingDateCache();
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -126,6 +136,7 @@ public final class ProjectCalendarException extends ProjectCalendarDateRanges im
       return (sb.toString());
    }
 
+   private ProjectCalendar m_calendar;
    private Date m_fromDate;
    private Date m_toDate;
 }
@@ -0,0 +1,235 @@
+/*
+ * file:       ProjectCalendarExceptionIndex.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2012
+ * date:       18/10/2012
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj;
+
+import java.util.List;
+
+/**
+ * Immutable index of the exceptions which apply to a calendar, including
+ * those inherited from its base calendars. The exceptions are flattened
+ * into a sorted set of non-overlapping intervals, where exceptions defined
+ * by a calendar take precedence over those defined by its base calendar.
+ * This allows the exception for a given date to be located using a single
+ * binary search, regardless of the depth of the calendar hierarchy.
+ */
+final class ProjectCalendarExceptionIndex
+{
+   /**
+    * Constructor.
+    *
+    * @param exceptions exceptions defined by the calendar, sorted by start date
+    * @param parent index for the base calendar, or null if there is no base calendar
+    */
+   public ProjectCalendarExceptionIndex(List<ProjectCalendarException> exceptions, ProjectCalendarExceptionIndex parent)
+   {
+      int parentSize = (parent == null ? 0 : parent.m_size);
+      int capacity = (exceptions.size() * 2) + (parentSize * 2) + 1;
+      long[] start = new long[capacity];
+      long[] end = new long[capacity];
+      ProjectCalendarException[] exception = new ProjectCalendarException[capacity];
+
+      //
+      // Add the calendar's own exceptions. If any overlap, the earlier
+      // exception takes precedence.
+      //
+      int ownSize = 0;
+      for (ProjectCalendarException ex : exceptions)
+      {
+         long exceptionStart = ex.getFromDate().getTime();
+         long exceptionEnd = ex.getToDate().getTime();
+         if (ownSize != 0 && exceptionStart <= end[ownSize - 1])
+         {
+            exceptionStart = end[ownSize - 1] + 1;
+         }
+
+         if (exceptionStart <= exceptionEnd)
+         {
+            start[ownSize] = exceptionStart;
+            end[ownSize] = exceptionEnd;
+            exception[ownSize] = ex;
+            ++ownSize;
+         }
+      }
+
+      //
+      // Merge in the parts of the base calendar's exceptions
+      // which are not hidden by this calendar's exceptions.
+      //
+      int size = 0;
+      if (parentSize == 0)
+      {
+         m_start = start;
+         m_end = end;
+         m_exception = exception;
+         size = ownSize;
+      }
+      else
+      {
+         m_start = new long[capacity];
+         m_end = new long[capacity];
+         m_exception = new ProjectCalendarException[capacity];
+
+         int ownIndex = 0;
+         for (int parentIndex = 0; parentIndex < parentSize; parentIndex++)
+         {
+            long parentStart = parent.m_start[parentIndex];
+            long parentEnd = parent.m_end[parentIndex];
+
+            while (parentStart <= parentEnd)
+            {
+               while (ownIndex < ownSize && end[ownIndex] < parentStart)
+               {
+                  size = add(size, start[ownIndex], end[ownIndex], exception[ownIndex]);
+                  ++ownIndex;
+               }
+
+               if (ownIndex < ownSize && start[ownIndex] <= parentStart)
+               {
+                  parentStart = end[ownIndex] + 1;
+               }
+               else
+               {
+                  long limit = parentEnd;
+                  if (ownIndex < ownSize && start[ownIndex] <= parentEnd)
+                  {
+                     limit = start[ownIndex] - 1;
+                  }
+                  size = add(size, parentStart, limit, parent.m_exception[parentIndex]);
+                  parentStart = limit + 1;
+               }
+            }
+         }
+
+         while (ownIndex < ownSize)
+         {
+            size = add(size, start[ownIndex], end[ownIndex], exception[ownIndex]);
+            ++ownIndex;
+         }
+      }
+
+      m_size = size;
+   }
+
+   /**
+    * Retrieve the exception which applies to the given date.
+    *
+    * @param date target date
+    * @return calendar exception, or null if none match this date
+    */
+   public ProjectCalendarException getException(long date)
+   {
+      ProjectCalendarException result = null;
+      int low = 0;
+      int high = m_size - 1;
+
+      while (low <= high)
+      {
+         int mid = (low + high) >>> 1;
+
+         if (date < m_start[mid])
+         {
+            high = mid - 1;
+         }
+         else
+         {
+            if (date > m_end[mid])
+            {
+               low = mid + 1;
+            }
+            else
+            {
+               result = m_exception[mid];
+               break;
+            }
+         }
+      }
+
+      return (result);
+   }
+
+   /**
+    * Retrieve the number of intervals in the index.
+    *
+    * @return interval count
+    */
+   public int getIntervalCount()
+   {
+      return (m_size);
+   }
+
+   /**
+    * Retrieve the start of an interval.
+    *
+    * @param index interval index
+    * @return interval start
+    */
+   public long getIntervalStart(int index)
+   {
+      return (m_start[index]);
+   }
+
+   /**
+    * Retrieve the end of an interval.
+    *
+    * @param index interval index
+    * @return interval end
+    */
+   public long getIntervalEnd(int index)
+   {
+      return (m_end[index]);
+   }
+
+   /**
+    * Retrieve the exception which applies to an interval.
+    *
+    * @param index interval index
+    * @return calendar exception
+    */
+   public ProjectCalendarException getIntervalException(int index)
+   {
+      return (m_exception[index]);
+   }
+
+   /**
+    * Appends an interval to the index.
+    *
+    * @param size current size of the index
+    * @param start interval start
+    * @param end interval end
+    * @param exception exception which applies to this interval
+    * @return new size of the index
+    */
+   private int add(int size, long start, long end, ProjectCalendarException exception)
+   {
+      m_start[size] = start;
+      m_end[size] = end;
+      m_exception[size] = exception;
+      return (size + 1);
+   }
+
+   private final long[] m_start;
+   private final long[] m_end;
+   private final ProjectCalendarException[] m_exception;
+   private final int m_size;
+}
@@ -76,6 +76,14 @@ public final class ProjectCalendarHours extends ProjectCalendarDateRanges
       m_parentCalendar.attachHoursToDay(this);
    }
 
+   /**
+    * {@inheritDoc}
+    */
+   @Override protected void rangesChanged()
+   {
+      m_parentCalendar.clearWorkingDateCache();
+   }
+
    /**
     * {@inheritDoc}
     */
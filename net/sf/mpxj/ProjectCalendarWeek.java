@@ -168,8 +168,15 @@ public class ProjectCalendarWeek
          if (m_parent == null)
          {
             // Only add default hours for the day that is 'missing' to avoid overwriting real calendar hours
-            addDefaultCalendarHours(day);
-            result = getCalendarHours(day);
+            synchronized (this)
+            {
+               result = getCalendarHours(day);
+               if (result == null)
+               {
+                  addDefaultCalendarHours(day);
+                  result = getCalendarHours(day);
+               }
+            }
          }
          else
          {
@@ -254,6 +261,19 @@ public class ProjectCalendarWeek
       m_hours[hours.getDay().getValue() - 1] = null;
    }
 
+   /**
+    * Called when the working hours defined by this week are modified.
+    * A work week passes this on to the calendar it belongs to, so that
+    * any working time calculations based on these hours are discarded.
+    */
+   void clearWorkingDateCache()
+   {
+      if (m_parent != null)
+      {
+         m_parent.clearWorkingDateCache();
+      }
+   }
+
    /**
     * Retrieve an array representing the days of the week for this calendar.
     *
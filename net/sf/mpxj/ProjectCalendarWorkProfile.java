@@ -0,0 +1,305 @@
+/*
+ * file:       ProjectCalendarWorkProfile.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2012
+ * date:       18/10/2012
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj;
+
+import java.util.TimeZone;
+
+/**
+ * Immutable summary of the working time defined by a calendar, used to
+ * calculate the amount of work across a range of days without visiting
+ * each day in turn. The profile consists of the working time for each
+ * day of the week, together with the calendar's exceptions expressed as
+ * ranges of day numbers. For each exception the difference between the
+ * working time it defines and the working time the normal week would
+ * have provided over the same days is accumulated, so the total working
+ * time for any range of days can be found using the weekly profile,
+ * adjusted by a pair of binary searches into the exceptions.
+ *
+ * Days are numbered from 1/1/1970 in the time zone which was the default
+ * when the profile was built.
+ */
+final class ProjectCalendarWorkProfile
+{
+   /**
+    * Constructor.
+    *
+    * @param timeZone time zone used to calculate day numbers
+    * @param weekWork working time in milliseconds for each day, indexed by Day value - 1
+    * @param weekWorking flags indicating if each day has working hours, indexed by Day value - 1
+    * @param index exception index for the calendar
+    * @param exceptionWork working time in milliseconds for each interval in the exception index
+    */
+   public ProjectCalendarWorkProfile(TimeZone timeZone, long[] weekWork, boolean[] weekWorking, ProjectCalendarExceptionIndex index, long[] exceptionWork)
+   {
+      m_timeZone = timeZone;
+      m_weekWork = weekWork;
+      m_weekWorking = weekWorking;
+
+      long weekTotal = 0;
+      boolean anyWeekWorking = false;
+      for (int loop = 0; loop < 7; loop++)
+      {
+         weekTotal += weekWork[loop];
+         anyWeekWorking |= weekWorking[loop];
+      }
+      m_weekTotal = weekTotal;
+      m_anyWeekWorking = anyWeekWorking;
+
+      int count = index.getIntervalCount();
+      m_startDay = new long[count];
+      m_endDay = new long[count];
+      m_exceptionWork = exceptionWork;
+      m_exceptionWorking = new boolean[count];
+      m_adjustment = new long[count + 1];
+
+      for (int loop = 0; loop < count; loop++)
+      {
+         long startDay = getDayNumber(index.getIntervalStart(loop));
+         long endDay = getDayNumber(index.getIntervalEnd(loop));
+         m_startDay[loop] = startDay;
+         m_endDay[loop] = endDay;
+         m_exceptionWorking[loop] = index.getIntervalException(loop).getRangeCount() != 0;
+         m_adjustment[loop + 1] = m_adjustment[loop] + getAdjustment(loop, startDay, endDay + 1);
+      }
+   }
+
+   /**
+    * Determines if this profile can be used with the given time zone.
+    * Day numbers are calculated using the time zone which was the
+    * default when the profile was built, so the profile must be rebuilt
+    * if the default time zone changes.
+    *
+    * @param timeZone current default time zone
+    * @return true if the profile is valid for this time zone
+    */
+   public boolean isValid(TimeZone timeZone)
+   {
+      return (m_timeZone.equals(timeZone));
+   }
+
+   /**
+    * Retrieve the day number for a date.
+    *
+    * @param date date expressed in milliseconds
+    * @return day number
+    */
+   public long getDayNumber(long date)
+   {
+      long local = date + m_timeZone.getOffset(date);
+      long result = local / MS_PER_DAY;
+      if (local < 0 && (local % MS_PER_DAY) != 0)
+      {
+         --result;
+      }
+      return (result);
+   }
+
+   /**
+    * Retrieve the day of the week on which a given day falls.
+    *
+    * @param dayNumber day number
+    * @return Day instance
+    */
+   public Day getDay(long dayNumber)
+   {
+      return (Day.getInstance(getDayIndex(dayNumber) + 1));
+   }
+
+   /**
+    * Find the first day with working hours, starting from the given day.
+    *
+    * @param dayNumber first day to test
+    * @param limit day at which to stop searching
+    * @return first working day, or the limit if no working day is found
+    */
+   public long getNextWorkingDay(long dayNumber, long limit)
+   {
+      long result = limit;
+
+      while (dayNumber < limit)
+      {
+         int interval = getInterval(dayNumber);
+         if (interval < m_startDay.length && m_startDay[interval] <= dayNumber)
+         {
+            if (m_exceptionWorking[interval])
+            {
+               result = dayNumber;
+               break;
+            }
+            dayNumber = m_endDay[interval] + 1;
+         }
+         else
+         {
+            if (m_weekWorking[getDayIndex(dayNumber)])
+            {
+               result = dayNumber;
+               break;
+            }
+
+            if (m_anyWeekWorking)
+            {
+               ++dayNumber;
+            }
+            else
+            {
+               dayNumber = (interval < m_startDay.length ? m_startDay[interval] : limit);
+            }
+         }
+      }
+
+      return (result);
+   }
+
+   /**
+    * Retrieve the total working time for a range of whole days.
+    *
+    * @param startDay first day in the range
+    * @param endDay day following the last day in the range
+    * @return working time in milliseconds
+    */
+   public long getWork(long startDay, long endDay)
+   {
+      long total = 0;
+
+      if (startDay < endDay)
+      {
+         total = getWeekWork(startDay, endDay);
+
+         int first = getInterval(startDay);
+         int last = getInterval(endDay);
+         if (last < m_startDay.length && m_startDay[last] < endDay)
+         {
+            ++last;
+         }
+
+         if (first < last)
+         {
+            total += m_adjustment[last] - m_adjustment[first];
+
+            if (m_startDay[first] < startDay)
+            {
+               total -= getAdjustment(first, m_startDay[first], startDay);
+            }
+
+            if (m_endDay[last - 1] >= endDay)
+            {
+               total -= getAdjustment(last - 1, endDay, m_endDay[last - 1] + 1);
+            }
+         }
+      }
+
+      return (total);
+   }
+
+   /**
+    * Retrieve the working time for a range of days based on the
+    * normal working week alone.
+    *
+    * @param startDay first day in the range
+    * @param endDay day following the last day in the range
+    * @return working time in milliseconds
+    */
+   private long getWeekWork(long startDay, long endDay)
+   {
+      long days = endDay - startDay;
+      long total = (days / 7) * m_weekTotal;
+      int dayIndex = getDayIndex(startDay);
+      for (int loop = 0; loop < days % 7; loop++)
+      {
+         total += m_weekWork[dayIndex];
+         dayIndex = (dayIndex + 1) % 7;
+      }
+      return (total);
+   }
+
+   /**
+    * Calculates the difference between the working time defined by
+    * an exception and the normal working week for a range of days.
+    *
+    * @param interval exception interval
+    * @param startDay first day in the range
+    * @param endDay day following the last day in the range
+    * @return adjustment in milliseconds
+    */
+   private long getAdjustment(int interval, long startDay, long endDay)
+   {
+      return (((endDay - startDay) * m_exceptionWork[interval]) - getWeekWork(startDay, endDay));
+   }
+
+   /**
+    * Locate the first exception interval which ends on or after the given day.
+    *
+    * @param dayNumber day number
+    * @return interval index, or the number of intervals if there is no such interval
+    */
+   private int getInterval(long dayNumber)
+   {
+      int low = 0;
+      int high = m_endDay.length;
+      while (low < high)
+      {
+         int mid = (low + high) >>> 1;
+         if (m_endDay[mid] < dayNumber)
+         {
+            low = mid + 1;
+         }
+         else
+         {
+            high = mid;
+         }
+      }
+      return (low);
+   }
+
+   /**
+    * Retrieve the index of the day of the week for a day number,
+    * where zero represents Sunday.
+    *
+    * @param dayNumber day number
+    * @return day index
+    */
+   private int getDayIndex(long dayNumber)
+   {
+      // 1/1/1970 was a Thursday
+      int result = (int) ((dayNumber + 4) % 7);
+      if (result < 0)
+      {
+         result += 7;
+      }
+      return (result);
+   }
+
+   private final TimeZone m_timeZone;
+   private final long[] m_weekWork;
+   private final boolean[] m_weekWorking;
+   private final long m_weekTotal;
+   private final boolean m_anyWeekWorking;
+   private final long[] m_startDay;
+   private final long[] m_endDay;
+   private final long[] m_exceptionWork;
+   private final boolean[] m_exceptionWorking;
+   private final long[] m_adjustment;
+
+   private static final long MS_PER_DAY = 24 * 60 * 60 * 1000;
+}
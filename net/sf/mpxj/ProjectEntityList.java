@@ -0,0 +1,523 @@
+/*
+ * file:       ProjectEntityList.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2012
+ * date:       18/10/2012
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Array backed list used by ProjectFile to hold tasks, resources,
+ * resource assignments and calendars. The position of each entity in
+ * the list is tracked, so an entity can be located or removed without
+ * searching the list. Removed entries are marked rather than
+ * immediately removed from the underlying array, and the array is
+ * compacted the next time an entry is accessed by position. This
+ * means that removing a large number of entities costs time
+ * proportional to the size of the list, rather than proportional to
+ * the size of the list for each entity removed. If the list contains
+ * the same entity more than once, or entities which define their own
+ * equality, removal by value searches the list, as ArrayList does.
+ *
+ * @param <T> entity type
+ */
+final class ProjectEntityList<T> extends AbstractList<T> implements RandomAccess
+{
+   /**
+    * {@inheritDoc}
+    */
+   @Override public int size()
+   {
+      return (m_size);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public boolean isEmpty()
+   {
+      return (m_size == 0);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public T get(int index)
+   {
+      checkIndex(index, m_size);
+      compact();
+      return (getItem(index));
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public T set(int index, T item)
+   {
+      checkIndex(index, m_size);
+      compact();
+      T result = getItem(index);
+      untrack(result, index);
+      m_items[index] = item;
+      int position = getPosition(item);
+      if (position != -1 || !hasIdentityEquals(item))
+      {
+         m_duplicates = true;
+      }
+      if (position == -1 || position > index)
+      {
+         m_positions.put(item, Integer.valueOf(index));
+      }
+      return (result);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public boolean add(T item)
+   {
+      ensureCapacity(m_end + 1);
+      m_items[m_end] = item;
+      track(item, m_end);
+      ++m_end;
+      ++m_size;
+      ++modCount;
+      return (true);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void add(int index, T item)
+   {
+      checkIndex(index, m_size + 1);
+      compact();
+      ensureCapacity(m_end + 1);
+      System.arraycopy(m_items, index, m_items, index + 1, m_end - index);
+      m_items[index] = item;
+      ++m_end;
+      ++m_size;
+      ++modCount;
+      updatePositions();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public T remove(int index)
+   {
+      checkIndex(index, m_size);
+      compact();
+      T result = getItem(index);
+      System.arraycopy(m_items, index + 1, m_items, index, m_end - index - 1);
+      --m_end;
+      m_items[m_end] = null;
+      --m_size;
+      ++modCount;
+      updatePositions();
+      return (result);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override protected void removeRange(int fromIndex, int toIndex)
+   {
+      if (fromIndex < toIndex)
+      {
+         compact();
+         System.arraycopy(m_items, toIndex, m_items, fromIndex, m_end - toIndex);
+         int count = toIndex - fromIndex;
+         Arrays.fill(m_items, m_end - count, m_end, null);
+         m_end -= count;
+         m_size -= count;
+         ++modCount;
+         updatePositions();
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public boolean remove(Object item)
+   {
+      //
+      // Once an item has been added more than once, or items which
+      // define their own equality have been added, the recorded
+      // position may not refer to the first matching entry, so
+      // we fall back to searching the list.
+      //
+      boolean result;
+      int position = m_duplicates ? -1 : getPosition(item);
+      if (position == -1)
+      {
+         int index = super.indexOf(item);
+         result = (index != -1);
+         if (result)
+         {
+            remove(index);
+         }
+      }
+      else
+      {
+         m_positions.remove(item);
+         m_items[position] = REMOVED;
+         --m_size;
+         ++m_removed;
+         ++modCount;
+         result = true;
+      }
+      return (result);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public boolean contains(Object item)
+   {
+      return (getPosition(item) != -1 || super.contains(item));
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public void clear()
+   {
+      Arrays.fill(m_items, 0, m_end, null);
+      m_positions.clear();
+      m_duplicates = false;
+      m_end = 0;
+      m_size = 0;
+      m_removed = 0;
+      ++modCount;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public Iterator<T> iterator()
+   {
+      return (new EntityIterator());
+   }
+
+   /**
+    * Retrieve an item from the underlying array.
+    *
+    * @param index array index
+    * @return item
+    */
+   @SuppressWarnings("unchecked") private T getItem(int index)
+   {
+      return ((T) m_items[index]);
+   }
+
+   /**
+    * Retrieve the recorded position of the first occurrence of an item.
+    *
+    * @param item item
+    * @return array index, or -1 if the position of the item is not recorded
+    */
+   private int getPosition(Object item)
+   {
+      int result = -1;
+      Integer position = m_positions.get(item);
+      if (position != null)
+      {
+         int index = position.intValue();
+         if (index < m_end && m_items[index] == item)
+         {
+            result = index;
+         }
+      }
+      return (result);
+   }
+
+   /**
+    * Record the position of an item, unless the item is already
+    * present in the list. The list is flagged as possibly containing
+    * duplicates if the item is already present, or if it defines
+    * its own equality.
+    *
+    * @param item item
+    * @param index array index
+    */
+   private void track(Object item, int index)
+   {
+      if (getPosition(item) == -1)
+      {
+         m_positions.put(item, Integer.valueOf(index));
+         if (!hasIdentityEquals(item))
+         {
+            m_duplicates = true;
+         }
+      }
+      else
+      {
+         m_duplicates = true;
+      }
+   }
+
+   /**
+    * Determine if an item uses the equals method inherited from Object,
+    * in which case the recorded position of the item is also the
+    * position of the first entry equal to it.
+    *
+    * @param item item
+    * @return true if the item is compared by identity
+    */
+   private static boolean hasIdentityEquals(Object item)
+   {
+      boolean result = true;
+      if (item != null)
+      {
+         Class<?> type = item.getClass();
+         Boolean identity = IDENTITY_EQUALS.get(type);
+         if (identity == null)
+         {
+            try
+            {
+               identity = Boolean.valueOf(type.getMethod("equals", Object.class).getDeclaringClass() == Object.class);
+            }
+
+            catch (NoSuchMethodException ex)
+            {
+               identity = Boolean.FALSE;
+            }
+            IDENTITY_EQUALS.put(type, identity);
+         }
+         result = identity.booleanValue();
+      }
+      return (result);
+   }
+
+   /**
+    * Stop recording the position of an item, if it is recorded
+    * at the given position.
+    *
+    * @param item item
+    * @param index array index
+    */
+   private void untrack(Object item, int index)
+   {
+      Integer position = m_positions.get(item);
+      if (position != null && position.intValue() == index)
+      {
+         m_positions.remove(item);
+      }
+   }
+
+   /**
+    * Rebuild the recorded positions of all items.
+    */
+   private void updatePositions()
+   {
+      m_positions.clear();
+      m_duplicates = false;
+      for (int loop = 0; loop < m_end; loop++)
+      {
+         track(m_items[loop], loop);
+      }
+   }
+
+   /**
+    * Remove any entries marked as removed from the underlying array.
+    */
+   private void compact()
+   {
+      if (m_removed != 0)
+      {
+         int target = 0;
+         for (int loop = 0; loop < m_end; loop++)
+         {
+            Object item = m_items[loop];
+            if (item != REMOVED)
+            {
+               m_items[target] = item;
+               ++target;
+            }
+         }
+         Arrays.fill(m_items, target, m_end, null);
+         m_end = target;
+         m_removed = 0;
+         ++m_compactions;
+         updatePositions();
+      }
+   }
+
+   /**
+    * Ensure that the underlying array can hold the required number of items.
+    *
+    * @param capacity required capacity
+    */
+   private void ensureCapacity(int capacity)
+   {
+      if (capacity > m_items.length)
+      {
+         if (m_removed > m_size)
+         {
+            compact();
+         }
+
+         if (capacity > m_items.length)
+         {
+            int newCapacity = Math.max(capacity, (m_items.length * 3) / 2 + 1);
+            m_items = Arrays.copyOf(m_items, newCapacity);
+         }
+      }
+   }
+
+   /**
+    * Validate an index.
+    *
+    * @param index index
+    * @param limit exclusive upper limit
+    */
+   private void checkIndex(int index, int limit)
+   {
+      if (index < 0 || index >= limit)
+      {
+         throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + m_size);
+      }
+   }
+
+   /**
+    * Iterator which skips entries marked as removed, and supports
+    * removal without compacting the underlying array. The iterator
+    * tracks the number of entries before its current position, so that
+    * it can find its place again if the array is compacted by a call
+    * to get or set while iteration is in progress.
+    */
+   private class EntityIterator implements Iterator<T>
+   {
+      /**
+       * {@inheritDoc}
+       */
+      @Override public boolean hasNext()
+      {
+         checkForComodification();
+         checkForCompaction();
+         while (m_next < m_end && m_items[m_next] == REMOVED)
+         {
+            ++m_next;
+         }
+         return (m_next < m_end);
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public T next()
+      {
+         if (!hasNext())
+         {
+            throw new NoSuchElementException();
+         }
+         m_current = m_next;
+         ++m_next;
+         ++m_index;
+         return (getItem(m_current));
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public void remove()
+      {
+         if (m_current == -1)
+         {
+            throw new IllegalStateException();
+         }
+         checkForComodification();
+         checkForCompaction();
+
+         untrack(m_items[m_current], m_current);
+         m_items[m_current] = REMOVED;
+         --m_size;
+         ++m_removed;
+         ++modCount;
+         m_expectedModCount = modCount;
+         m_current = -1;
+         --m_index;
+      }
+
+      /**
+       * If the underlying array has been compacted, recalculate the
+       * iterator's position from the number of entries preceding it.
+       */
+      private void checkForCompaction()
+      {
+         if (m_compactions != m_expectedCompactions)
+         {
+            m_next = m_index;
+            if (m_current != -1)
+            {
+               m_current = m_index - 1;
+            }
+            m_expectedCompactions = m_compactions;
+         }
+      }
+
+      /**
+       * Ensure that the list has not been modified other than
+       * by this iterator.
+       */
+      private void checkForComodification()
+      {
+         if (modCount != m_expectedModCount)
+         {
+            throw new ConcurrentModificationException();
+         }
+      }
+
+      private int m_next;
+      private int m_current = -1;
+      private int m_index;
+      private int m_expectedModCount = modCount;
+      private int m_expectedCompactions = m_compactions;
+   }
+
+   /**
+    * Marker used to identify removed entries.
+    */
+   private static final Object REMOVED = new Object();
+
+   /**
+    * Records which classes use the equals method inherited from Object.
+    */
+   private static final Map<Class<?>, Boolean> IDENTITY_EQUALS = new ConcurrentHashMap<Class<?>, Boolean>();
+
+   private Object[] m_items = new Object[10];
+   private int m_end;
+   private int m_size;
+   private int m_removed;
+   private int m_compactions;
+   private Map<Object, Integer> m_positions = new IdentityHashMap<Object, Integer>();
+   private boolean m_duplicates;
+}
@@ -70,6 +70,10 @@ public final class ProjectFile
    void addTask(Task task)
    {
       m_allTasks.add(task);
+      if (m_incrementalStructureUpdate)
+      {
+         m_structureChangedTasks.add(task);
+      }
    }
 
    /**
@@ -82,6 +86,10 @@ public final class ProjectFile
       Task task = new Task(this, (Task) null);
       m_allTasks.add(task);
       m_childTasks.add(task);
+      if (m_incrementalStructureUpdate)
+      {
+         m_structureChangedTasks.add(task);
+      }
       return (task);
    }
 
@@ -99,6 +107,15 @@ public final class ProjectFile
       m_taskUniqueIDMap.remove(task.getUniqueID());
       m_taskIDMap.remove(task.getID());
 
+      if (m_incrementalStructureUpdate)
+      {
+         int id = NumberUtility.getInt(task.getID());
+         if (id < m_structureChangedID)
+         {
+            m_structureChangedID = id;
+         }
+      }
+
       Task parentTask = task.getParentTask();
       if (parentTask != null)
       {
@@ -112,19 +129,14 @@ public final class ProjectFile
       //
       // Remove all resource assignments
       //
-      Iterator<ResourceAssignment> iter = m_allResourceAssignments.iterator();
-      while (iter.hasNext() == true)
+      for (ResourceAssignment assignment : task.getResourceAssignments())
       {
-         ResourceAssignment assignment = iter.next();
-         if (assignment.getTask() == task)
+         Resource resource = assignment.getResource();
+         if (resource != null)
          {
-            Resource resource = assignment.getResource();
-            if (resource != null)
-            {
-               resource.removeResourceAssignment(assignment);
-            }
-            iter.remove();
+            resource.removeResourceAssignment(assignment);
          }
+         m_allResourceAssignments.remove(assignment);
       }
 
       //
@@ -640,10 +652,7 @@ public final class ProjectFile
     */
    public void removeCalendar(ProjectCalendar calendar)
    {
-      if (m_calendars.contains(calendar))
-      {
-         m_calendars.remove(calendar);
-      }
+      m_calendars.remove(calendar);
 
       Resource resource = calendar.getResource();
       if (resource != null)
@@ -972,80 +981,291 @@ public final class ProjectFile
     * project file from scratch. The method sorts the list of all tasks,
     * then iterates through it creating the parent-child structure defined
     * by the outline level field.
+    * 
+    * If incremental structure updates have been enabled, and the structure
+    * has previously been built, only the tasks from the first task added 
+    * or removed using addTask or removeTask onwards are processed.
     */
    public void updateStructure()
    {
       if (m_allTasks.size() > 1)
       {
          Collections.sort(m_allTasks);
-         m_childTasks.clear();
 
-         Task lastTask = null;
-         int lastLevel = -1;
-
-         for (Task task : m_allTasks)
+         if (m_incrementalStructureUpdate && m_structureValid)
          {
-            task.clearChildTasks();
-            Task parent = null;
-            if (!task.getNull())
+            int changedID = getStructureChangedID();
+            if (changedID != Integer.MAX_VALUE)
             {
-               int level = NumberUtility.getInt(task.getOutlineLevel());
+               updateStructure(getTaskIndex(changedID), changedID);
+            }
+         }
+         else
+         {
+            updateStructure(0, 0);
+         }
+
+         m_structureValid = true;
+         m_structureChangedTasks.clear();
+         m_structureChangedID = Integer.MAX_VALUE;
+      }
+   }
+
+   /**
+    * Recreates the hierarchical structure of the project from the task
+    * at the given position in the sorted list of all tasks onwards.
+    * The tasks before this position are assumed to be unchanged.
+    * A stack holding the most recently processed task and its
+    * ancestors is maintained, allowing the parent of each task to be
+    * determined in a single pass.
+    * 
+    * @param startIndex position of the first task to process
+    * @param changedID lowest ID of the tasks to process
+    */
+   private void updateStructure(int startIndex, int changedID)
+   {
+      List<Task> stack = new ArrayList<Task>();
+      Task lastTask = null;
+      int lastLevel = -1;
+
+      if (startIndex == 0)
+      {
+         m_childTasks.clear();
+      }
+      else
+      {
+         lastTask = prepareStructureUpdate(startIndex, changedID, stack);
+         if (lastTask != null)
+         {
+            lastLevel = NumberUtility.getInt(lastTask.getOutlineLevel());
+         }
+      }
 
-               if (lastTask != null)
+      for (int index = startIndex; index < m_allTasks.size(); index++)
+      {
+         Task task = m_allTasks.get(index);
+         task.clearChildTasks();
+         Task parent = null;
+         if (!task.getNull())
+         {
+            int level = NumberUtility.getInt(task.getOutlineLevel());
+
+            if (lastTask != null)
+            {
+               if (level == lastLevel)
                {
-                  if (level == lastLevel || task.getNull())
+                  stack.remove(stack.size() - 1);
+                  parent = stack.isEmpty() ? null : stack.get(stack.size() - 1);
+               }
+               else
+               {
+                  if (level > lastLevel)
                   {
-                     parent = lastTask.getParentTask();
-                     level = lastLevel;
+                     parent = lastTask;
                   }
                   else
                   {
-                     if (level > lastLevel)
-                     {
-                        parent = lastTask;
-                     }
-                     else
+                     stack.remove(stack.size() - 1);
+                     while (!stack.isEmpty())
                      {
-                        while (level <= lastLevel)
+                        Task ancestor = stack.get(stack.size() - 1);
+                        if (NumberUtility.getInt(ancestor.getOutlineLevel()) < level)
                         {
-                           parent = lastTask.getParentTask();
-
-                           if (parent == null)
-                           {
-                              break;
-                           }
-
-                           lastLevel = NumberUtility.getInt(parent.getOutlineLevel());
-                           lastTask = parent;
+                           parent = ancestor;
+                           break;
                         }
+                        stack.remove(stack.size() - 1);
                      }
                   }
                }
+            }
 
-               lastTask = task;
-               lastLevel = level;
-
-               if (getAutoWBS() || task.getWBS() == null)
-               {
-                  task.generateWBS(parent);
-               }
+            stack.add(task);
+            lastTask = task;
+            lastLevel = level;
 
-               if (getAutoOutlineNumber())
-               {
-                  task.generateOutlineNumber(parent);
-               }
+            if (getAutoWBS() || task.getWBS() == null)
+            {
+               task.generateWBS(parent);
             }
 
-            if (parent == null)
+            if (getAutoOutlineNumber())
             {
-               m_childTasks.add(task);
+               task.generateOutlineNumber(parent);
             }
-            else
+         }
+
+         if (parent == null)
+         {
+            m_childTasks.add(task);
+         }
+         else
+         {
+            parent.addChildTask(task);
+         }
+      }
+   }
+
+   /**
+    * Prepares for an incremental structure update. The tasks to be
+    * reprocessed are detached from their parents, and the stack of
+    * ancestors of the last task which is not being reprocessed is
+    * rebuilt.
+    * 
+    * @param startIndex position of the first task to process
+    * @param changedID lowest ID of the tasks to process
+    * @param stack stack to populate
+    * @return last task which is not being reprocessed
+    */
+   private Task prepareStructureUpdate(int startIndex, int changedID, List<Task> stack)
+   {
+      //
+      // The tasks being reprocessed will be at the end of their parent's
+      // list of child tasks, so we remove them from there.
+      //
+      removeTrailingTasks(m_childTasks, changedID);
+      for (int index = startIndex; index < m_allTasks.size(); index++)
+      {
+         Task parent = m_allTasks.get(index).getParentTask();
+         if (parent != null && NumberUtility.getInt(parent.getID()) < changedID)
+         {
+            List<Task> children = parent.getChildTasks();
+            removeTrailingTasks(children, changedID);
+            parent.setSummary(!children.isEmpty());
+         }
+      }
+
+      //
+      // Find the last task before the start position and its ancestors. 
+      // As these tasks were the last to be processed, each is the last
+      // child of its parent.
+      //
+      Task lastTask = null;
+      for (int index = startIndex - 1; index >= 0; index--)
+      {
+         Task task = m_allTasks.get(index);
+         if (!task.getNull())
+         {
+            lastTask = task;
+            break;
+         }
+      }
+
+      Task task = lastTask;
+      while (task != null)
+      {
+         stack.add(0, task);
+         Task parent = task.getParentTask();
+         if (parent != null)
+         {
+            List<Task> children = parent.getChildTasks();
+            if (children.isEmpty() || children.get(children.size() - 1) != task)
             {
-               parent.addChildTask(task);
+               parent = null;
             }
          }
+         task = parent;
+      }
+
+      return (lastTask);
+   }
+
+   /**
+    * Removes tasks from the end of a list while their IDs are
+    * greater than or equal to the supplied ID.
+    * 
+    * @param list list of tasks
+    * @param changedID lowest ID of the tasks to remove
+    */
+   private void removeTrailingTasks(List<Task> list, int changedID)
+   {
+      int size = list.size();
+      int index = size;
+      while (index > 0 && NumberUtility.getInt(list.get(index - 1).getID()) >= changedID)
+      {
+         --index;
+      }
+
+      if (index < size)
+      {
+         list.subList(index, size).clear();
+      }
+   }
+
+   /**
+    * Determines the lowest ID of the tasks added or removed
+    * since the structure was last updated.
+    * 
+    * @return lowest task ID
+    */
+   private int getStructureChangedID()
+   {
+      int changedID = m_structureChangedID;
+      for (Task task : m_structureChangedTasks)
+      {
+         int id = NumberUtility.getInt(task.getID());
+         if (id < changedID)
+         {
+            changedID = id;
+         }
       }
+      return (changedID);
+   }
+
+   /**
+    * Determines the position of the first task in the sorted list of all
+    * tasks with an ID greater than or equal to the supplied ID.
+    * 
+    * @param id task ID
+    * @return task position
+    */
+   private int getTaskIndex(int id)
+   {
+      int low = 0;
+      int high = m_allTasks.size();
+      while (low < high)
+      {
+         int mid = (low + high) >>> 1;
+         if (NumberUtility.getInt(m_allTasks.get(mid).getID()) < id)
+         {
+            low = mid + 1;
+         }
+         else
+         {
+            high = mid;
+         }
+      }
+      return (low);
+   }
+
+   /**
+    * Used to set whether calls to updateStructure only process the tasks
+    * affected by tasks added or removed using addTask and removeTask since
+    * the structure was last updated. This should only be enabled where
+    * the IDs and outline levels of existing tasks are not being changed.
+    * The first call to updateStructure after this flag is set will
+    * always rebuild the complete structure.
+    * 
+    * @param flag true if incremental structure updates are required
+    */
+   public void setIncrementalStructureUpdate(boolean flag)
+   {
+      if (flag && !m_incrementalStructureUpdate)
+      {
+         m_structureValid = false;
+      }
+      m_incrementalStructureUpdate = flag;
+   }
+
+   /**
+    * Retrieve the flag that determines whether calls to updateStructure
+    * only process the tasks affected by added or removed tasks.
+    * 
+    * @return boolean, default is false
+    */
+   public boolean getIncrementalStructureUpdate()
+   {
+      return (m_incrementalStructureUpdate);
    }
 
    /**
@@ -2173,30 +2393,30 @@ public final class ProjectFile
     * This list holds a reference to all resources defined in the
     * MPX file.
     */
-   private List<Resource> m_allResources = new LinkedList<Resource>();
+   private List<Resource> m_allResources = new ProjectEntityList<Resource>();
 
    /**
     * This list holds a reference to all tasks defined in the
     * MPX file.
     */
-   private List<Task> m_allTasks = new LinkedList<Task>();
+   private List<Task> m_allTasks = new ProjectEntityList<Task>();
 
    /**
     * List holding references to the top level tasks
     * as defined by the outline level.
     */
-   private List<Task> m_childTasks = new LinkedList<Task>();
+   private List<Task> m_childTasks = new ProjectEntityList<Task>();
 
    /**
     * This list holds a reference to all resource assignments defined in the
     * MPX file.
     */
-   private List<ResourceAssignment> m_allResourceAssignments = new LinkedList<ResourceAssignment>();
+   private List<ResourceAssignment> m_allResourceAssignments = new ProjectEntityList<ResourceAssignment>();
 
    /**
     * List holding references to all calendars.
     */
-   private List<ProjectCalendar> m_calendars = new LinkedList<ProjectCalendar>();
+   private List<ProjectCalendar> m_calendars = new ProjectEntityList<ProjectCalendar>();
 
    /**
     * File creation record.
@@ -2241,6 +2461,24 @@ public final class ProjectFile
     */
    private boolean m_autoOutlineNumber = true;
 
+   /**
+    * Indicates whether updateStructure should only process tasks
+    * affected by tasks added or removed since the last update.
+    */
+   private boolean m_incrementalStructureUpdate;
+
+   /**
+    * Indicates whether the task structure has been built by updateStructure.
+    */
+   private boolean m_structureValid;
+
+   /**
+    * Tasks added, and the lowest ID of any task removed, since the
+    * task structure was last updated.
+    */
+   private List<Task> m_structureChangedTasks = new ArrayList<Task>();
+   private int m_structureChangedID = Integer.MAX_VALUE;
+
    /**
     * Indicating whether the unique ID of a task should be
     * calculated on creation, or will be manually set.
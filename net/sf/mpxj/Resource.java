@@ -2253,7 +2253,7 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
     */
    @Override public Object getCachedValue(FieldType field)
    {
-      return (field == null ? null : m_array[field.getValue()]);
+      return (field == null ? null : getFieldValue(field));
    }
 
    /**
@@ -2301,7 +2301,7 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
 
             default:
             {
-               result = m_array[field.getValue()];
+               result = getFieldValue(field);
                break;
             }
          }
@@ -2320,8 +2320,10 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
          int index = field.getValue();
          if (m_eventsEnabled)
          {
-            fireFieldChangeEvent((ResourceField) field, m_array[index], value);
+            fireFieldChangeEvent((ResourceField) field, getFieldValue(field), value);
          }
+
+         setLoaded(index);
          m_array[index] = value;
       }
    }
@@ -2345,35 +2347,35 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
          case COST:
          case BASELINE_COST:
          {
-            m_array[ResourceField.COST_VARIANCE.getValue()] = null;
+            clearCachedValue(ResourceField.COST_VARIANCE);
             break;
          }
 
          case WORK:
          case BASELINE_WORK:
          {
-            m_array[ResourceField.WORK_VARIANCE.getValue()] = null;
+            clearCachedValue(ResourceField.WORK_VARIANCE);
             break;
          }
 
          case BCWP:
          case ACWP:
          {
-            m_array[ResourceField.CV.getValue()] = null;
-            m_array[ResourceField.SV.getValue()] = null;
+            clearCachedValue(ResourceField.CV);
+            clearCachedValue(ResourceField.SV);
             break;
          }
 
          case BCWS:
          {
-            m_array[ResourceField.SV.getValue()] = null;
+            clearCachedValue(ResourceField.SV);
             break;
          }
 
          case PEAK:
          case MAX_UNITS:
          {
-            m_array[ResourceField.OVERALLOCATED.getValue()] = null;
+            clearCachedValue(ResourceField.OVERALLOCATED);
             break;
          }
 
@@ -2429,6 +2431,99 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
       set(field, (value ? Boolean.TRUE : Boolean.FALSE));
    }
 
+   /**
+    * Retrieve a field value, loading it first if required.
+    * 
+    * @param field field type
+    * @return field value
+    */
+   private Object getFieldValue(FieldType field)
+   {
+      int index = field.getValue();
+      Object result;
+      DeferredFieldValues deferredFields = m_deferredFields;
+      if (deferredFields == null || !deferredFields.isDeferred(index))
+      {
+         result = m_array[index];
+      }
+      else
+      {
+         synchronized (deferredFields)
+         {
+            if (deferredFields.isPending(index))
+            {
+               m_array[index] = deferredFields.load(field, m_array[index]);
+               if (deferredFields.isComplete())
+               {
+                  m_deferredFields = null;
+               }
+            }
+            result = m_array[index];
+         }
+      }
+      return (result);
+   }
+
+   /**
+    * Clear a calculated value which is no longer valid.
+    * 
+    * @param field field type
+    */
+   private void clearCachedValue(ResourceField field)
+   {
+      int index = field.getValue();
+      setLoaded(index);
+      m_array[index] = null;
+   }
+
+   /**
+    * Mark a field as loaded, so that a value written to the field
+    * is not replaced by a value from the field value loader.
+    * 
+    * @param index field index
+    */
+   private void setLoaded(int index)
+   {
+      DeferredFieldValues deferredFields = m_deferredFields;
+      if (deferredFields != null && deferredFields.isDeferred(index))
+      {
+         synchronized (deferredFields)
+         {
+            deferredFields.setLoaded(index);
+            if (deferredFields.isComplete())
+            {
+               m_deferredFields = null;
+            }
+         }
+      }
+   }
+
+   /**
+    * Supplies a loader used to retrieve the value of each field of this
+    * resource the first time the field is read. Fields which are written
+    * before they are read are not retrieved from the loader.
+    * 
+    * @param loader field value loader, or null if no further values 
+    * are to be loaded
+    */
+   public void setFieldValueLoader(FieldValueLoader loader)
+   {
+      m_deferredFields = (loader == null ? null : new DeferredFieldValues(loader, m_array.length));
+   }
+
+   /**
+    * Supplies a loader used to retrieve the value of a single field of
+    * this resource the first time the field is read. All other fields
+    * are read directly, without reference to the loader.
+    * 
+    * @param loader field value loader
+    * @param field field to be retrieved from the loader
+    */
+   public void setFieldValueLoader(FieldValueLoader loader, ResourceField field)
+   {
+      m_deferredFields = new DeferredFieldValues(loader, m_array.length, field.getValue());
+   }
+
    /**
     * Disable events firing when fields are updated.
     */
@@ -2916,6 +3011,11 @@ public final class Resource extends ProjectEntity implements Comparable<Resource
    private List<ResourceAssignment> m_assignments = new LinkedList<ResourceAssignment>();
 
    private boolean m_eventsEnabled = true;
+
+   /**
+    * Fields yet to be retrieved from a field value loader.
+    */
+   private volatile DeferredFieldValues m_deferredFields;
    private boolean m_null;
    private boolean m_generic;
    private boolean m_inactive;
@@ -553,6 +553,18 @@ public final class ResourceAssignment extends ProjectEntity implements FieldCont
       return m_timephasedActualWork == null ? null : m_timephasedActualWork.getData();
    }
 
+   /**
+    * Retrieves the timephased breakdown of the completed work for this
+    * resource assignment in its compact form, avoiding the creation
+    * of TimephasedWork instances.
+    * 
+    * @return timephased completed work
+    */
+   public TimephasedWorkArray getTimephasedActualWorkArray()
+   {
+      return m_timephasedActualWork == null ? null : m_timephasedActualWork.getArray();
+   }
+
    /**
     * Sets the timephased breakdown of the completed work for this
     * resource assignment.
@@ -575,6 +587,18 @@ public final class ResourceAssignment extends ProjectEntity implements FieldCont
       return m_timephasedWork == null ? null : m_timephasedWork.getData();
    }
 
+   /**
+    * Retrieves the timephased breakdown of the planned work for this
+    * resource assignment in its compact form, avoiding the creation
+    * of TimephasedWork instances.
+    * 
+    * @return timephased planned work
+    */
+   public TimephasedWorkArray getTimephasedWorkArray()
+   {
+      return m_timephasedWork == null ? null : m_timephasedWork.getArray();
+   }
+
    /**
     * Sets the timephased breakdown of the planned work for this
     * resource assignment.
@@ -1230,6 +1254,19 @@ public final class ResourceAssignment extends ProjectEntity implements FieldCont
       return m_timephasedBaselineWork[index] == null ? null : m_timephasedBaselineWork[index].getData();
    }
 
+   /** 
+    * Retrieve timephased baseline work in its compact form, avoiding the
+    * creation of TimephasedWork instances. Note that index 0 represents 
+    * "Baseline", index 1 represents "Baseline1" and so on.
+    * 
+    * @param index baseline index
+    * @return timephased work, or null if no baseline is present
+    */
+   public TimephasedWorkArray getTimephasedBaselineWorkArray(int index)
+   {
+      return m_timephasedBaselineWork[index] == null ? null : m_timephasedBaselineWork[index].getArray();
+   }
+
    /** 
     * Retrieve timephased baseline cost. Note that index 0 represents "Baseline",
     * index 1 represents "Baseline1" and so on.
@@ -2660,8 +2697,10 @@ public final class ResourceAssignment extends ProjectEntity implements FieldCont
          int index = field.getValue();
          if (m_eventsEnabled)
          {
-            fireFieldChangeEvent((AssignmentField) field, m_array[index], value);
+            fireFieldChangeEvent((AssignmentField) field, getFieldValue(field), value);
          }
+
+         setLoaded(index);
          m_array[index] = value;
       }
    }
@@ -2696,43 +2735,43 @@ public final class ResourceAssignment extends ProjectEntity implements FieldCont
          case START:
          case BASELINE_START:
          {
-            m_array[AssignmentField.START_VARIANCE.getValue()] = null;
+            clearCachedValue(AssignmentField.START_VARIANCE);
             break;
          }
 
          case FINISH:
          case BASELINE_FINISH:
          {
-            m_array[AssignmentField.FINISH_VARIANCE.getValue()] = null;
+            clearCachedValue(AssignmentField.FINISH_VARIANCE);
             break;
          }
 
          case BCWP:
          case ACWP:
          {
-            m_array[AssignmentField.CV.getValue()] = null;
-            m_array[AssignmentField.SV.getValue()] = null;
+            clearCachedValue(AssignmentField.CV);
+            clearCachedValue(AssignmentField.SV);
             break;
          }
 
          case COST:
          case BASELINE_COST:
          {
-            m_array[AssignmentField.COST_VARIANCE.getValue()] = null;
+            clearCachedValue(AssignmentField.COST_VARIANCE);
             break;
          }
 
          case WORK:
          case BASELINE_WORK:
          {
-            m_array[AssignmentField.WORK_VARIANCE.getValue()] = null;
+            clearCachedValue(AssignmentField.WORK_VARIANCE);
             break;
          }
 
          case ACTUAL_OVERTIME_COST:
          case REMAINING_OVERTIME_COST:
          {
-            m_array[AssignmentField.OVERTIME_COST.getValue()] = null;
+            clearCachedValue(AssignmentField.OVERTIME_COST);
             break;
          }
 
@@ -2782,7 +2821,7 @@ public final class ResourceAssignment extends ProjectEntity implements FieldCont
     */
    @Override public Object getCachedValue(FieldType field)
    {
-      return (field == null ? null : m_array[field.getValue()]);
+      return (field == null ? null : getFieldValue(field));
    }
 
    /**
@@ -2794,14 +2833,105 @@ public final class ResourceAssignment extends ProjectEntity implements FieldCont
 
       if (field != null)
       {
-         int fieldValue = field.getValue();
-
-         result = m_array[fieldValue];
+         result = getFieldValue(field);
       }
 
       return (result);
    }
 
+   /**
+    * Retrieve a field value, loading it first if required.
+    * 
+    * @param field field type
+    * @return field value
+    */
+   private Object getFieldValue(FieldType field)
+   {
+      int index = field.getValue();
+      Object result;
+      DeferredFieldValues deferredFields = m_deferredFields;
+      if (deferredFields == null || !deferredFields.isDeferred(index))
+      {
+         result = m_array[index];
+      }
+      else
+      {
+         synchronized (deferredFields)
+         {
+            if (deferredFields.isPending(index))
+            {
+               m_array[index] = deferredFields.load(field, m_array[index]);
+               if (deferredFields.isComplete())
+               {
+                  m_deferredFields = null;
+               }
+            }
+            result = m_array[index];
+         }
+      }
+      return (result);
+   }
+
+   /**
+    * Clear a calculated value which is no longer valid.
+    * 
+    * @param field field type
+    */
+   private void clearCachedValue(AssignmentField field)
+   {
+      int index = field.getValue();
+      setLoaded(index);
+      m_array[index] = null;
+   }
+
+   /**
+    * Mark a field as loaded, so that a value written to the field
+    * is not replaced by a value from the field value loader.
+    * 
+    * @param index field index
+    */
+   private void setLoaded(int index)
+   {
+      DeferredFieldValues deferredFields = m_deferredFields;
+      if (deferredFields != null && deferredFields.isDeferred(index))
+      {
+         synchronized (deferredFields)
+         {
+            deferredFields.setLoaded(index);
+            if (deferredFields.isComplete())
+            {
+               m_deferredFields = null;
+            }
+         }
+      }
+   }
+
+   /**
+    * Supplies a loader used to retrieve the value of each field of this
+    * resource assignment the first time the field is read. Fields which are written
+    * before they are read are not retrieved from the loader.
+    * 
+    * @param loader field value loader, or null if no further values 
+    * are to be loaded
+    */
+   public void setFieldValueLoader(FieldValueLoader loader)
+   {
+      m_deferredFields = (loader == null ? null : new DeferredFieldValues(loader, m_array.length));
+   }
+
+   /**
+    * Supplies a loader used to retrieve the value of a single field of
+    * this resource assignment the first time the field is read. All other fields
+    * are read directly, without reference to the loader.
+    * 
+    * @param loader field value loader
+    * @param field field to be retrieved from the loader
+    */
+   public void setFieldValueLoader(FieldValueLoader loader, AssignmentField field)
+   {
+      m_deferredFields = new DeferredFieldValues(loader, m_array.length, field.getValue());
+   }
+
    /**
     * Disable events firing when fields are updated.
     */
@@ -2825,6 +2955,11 @@ public final class ResourceAssignment extends ProjectEntity implements FieldCont
 
    private boolean m_eventsEnabled = true;
 
+   /**
+    * Fields yet to be retrieved from a field value loader.
+    */
+   private volatile DeferredFieldValues m_deferredFields;
+
    private TimephasedWorkData m_timephasedWork;
    private List<TimephasedCost> m_timephasedCost;
 
@@ -43,36 +43,42 @@ public final class SplitTaskFactory
     */
    public void processSplitData(Task task, List<TimephasedWork> timephasedComplete, List<TimephasedWork> timephasedPlanned)
    {
-      Date splitsComplete = null;
-      TimephasedWork lastComplete = null;
-      TimephasedWork firstPlanned = null;
-      if (!timephasedComplete.isEmpty())
-      {
-         lastComplete = timephasedComplete.get(timephasedComplete.size() - 1);
-         splitsComplete = lastComplete.getFinish();
-      }
+      processSplitData(task, new TimephasedWorkArray(timephasedComplete), new TimephasedWorkArray(timephasedPlanned));
+   }
 
-      if (!timephasedPlanned.isEmpty())
+   /**
+    * Process the timephased resource assignment data to work out the 
+    * split structure of the task.
+    * 
+    * @param task parent task
+    * @param timephasedComplete completed resource assignment work
+    * @param timephasedPlanned planned resource assignment work
+    */
+   public void processSplitData(Task task, TimephasedWorkArray timephasedComplete, TimephasedWorkArray timephasedPlanned)
+   {
+      Date splitsComplete = null;
+      int lastComplete = timephasedComplete.size() - 1;
+      if (lastComplete != -1)
       {
-         firstPlanned = timephasedPlanned.get(0);
+         splitsComplete = getDate(timephasedComplete.getFinish(lastComplete));
       }
 
       LinkedList<DateRange> splits = new LinkedList<DateRange>();
-      TimephasedWork lastAssignment = null;
+      int lastAssignment = -1;
       DateRange lastRange = null;
-      for (TimephasedWork assignment : timephasedComplete)
+      for (int index = 0; index < timephasedComplete.size(); index++)
       {
-         if (lastAssignment != null && lastRange != null && lastAssignment.getTotalAmount().getDuration() != 0 && assignment.getTotalAmount().getDuration() != 0)
+         if (lastAssignment != -1 && lastRange != null && timephasedComplete.getTotalAmount(lastAssignment) != 0 && timephasedComplete.getTotalAmount(index) != 0)
          {
             splits.removeLast();
-            lastRange = new DateRange(lastRange.getStart(), assignment.getFinish());
+            lastRange = new DateRange(lastRange.getStart(), getDate(timephasedComplete.getFinish(index)));
          }
          else
          {
-            lastRange = new DateRange(assignment.getStart(), assignment.getFinish());
+            lastRange = new DateRange(getDate(timephasedComplete.getStart(index)), getDate(timephasedComplete.getFinish(index)));
          }
          splits.add(lastRange);
-         lastAssignment = assignment;
+         lastAssignment = index;
       }
 
       //
@@ -80,35 +86,35 @@ public final class SplitTaskFactory
       // complete split.
       //
       Date splitStart = null;
-      if (lastComplete != null && firstPlanned != null && lastComplete.getTotalAmount().getDuration() != 0 && firstPlanned.getTotalAmount().getDuration() != 0)
+      if (lastComplete != -1 && !timephasedPlanned.isEmpty() && timephasedComplete.getTotalAmount(lastComplete) != 0 && timephasedPlanned.getTotalAmount(0) != 0)
       {
          lastRange = splits.removeLast();
          splitStart = lastRange.getStart();
       }
 
-      lastAssignment = null;
+      lastAssignment = -1;
       lastRange = null;
-      for (TimephasedWork assignment : timephasedPlanned)
+      for (int index = 0; index < timephasedPlanned.size(); index++)
       {
          if (splitStart == null)
          {
-            if (lastAssignment != null && lastRange != null && lastAssignment.getTotalAmount().getDuration() != 0 && assignment.getTotalAmount().getDuration() != 0)
+            if (lastAssignment != -1 && lastRange != null && timephasedPlanned.getTotalAmount(lastAssignment) != 0 && timephasedPlanned.getTotalAmount(index) != 0)
             {
                splits.removeLast();
-               lastRange = new DateRange(lastRange.getStart(), assignment.getFinish());
+               lastRange = new DateRange(lastRange.getStart(), getDate(timephasedPlanned.getFinish(index)));
             }
             else
             {
-               lastRange = new DateRange(assignment.getStart(), assignment.getFinish());
+               lastRange = new DateRange(getDate(timephasedPlanned.getStart(index)), getDate(timephasedPlanned.getFinish(index)));
             }
          }
          else
          {
-            lastRange = new DateRange(splitStart, assignment.getFinish());
+            lastRange = new DateRange(splitStart, getDate(timephasedPlanned.getFinish(index)));
          }
          splits.add(lastRange);
          splitStart = null;
-         lastAssignment = assignment;
+         lastAssignment = index;
       }
 
       //
@@ -126,4 +132,14 @@ public final class SplitTaskFactory
       }
    }
 
+   /**
+    * Convert a date held by TimephasedWorkArray to a Date instance.
+    * 
+    * @param date date in milliseconds, or TimephasedWorkArray.NULL_DATE
+    * @return Date instance
+    */
+   private Date getDate(long date)
+   {
+      return (date == TimephasedWorkArray.NULL_DATE ? null : new Date(date));
+   }
 }
@@ -4367,7 +4367,7 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Field
     */
    @Override public Object getCachedValue(FieldType field)
    {
-      return (field == null ? null : m_array[field.getValue()]);
+      return (field == null ? null : getFieldValue(field));
    }
 
    /**
@@ -4437,7 +4437,7 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Field
 
             default:
             {
-               result = m_array[field.getValue()];
+               result = getFieldValue(field);
                break;
             }
          }
@@ -4456,8 +4456,10 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Field
          int index = field.getValue();
          if (m_eventsEnabled)
          {
-            fireFieldChangeEvent((TaskField) field, m_array[index], value);
+            fireFieldChangeEvent((TaskField) field, getFieldValue(field), value);
          }
+
+         setLoaded(index);
          m_array[index] = value;
       }
    }
@@ -4481,88 +4483,88 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Field
          case START:
          case BASELINE_START:
          {
-            m_array[TaskField.START_VARIANCE.getValue()] = null;
+            clearCachedValue(TaskField.START_VARIANCE);
             break;
          }
 
          case FINISH:
          case BASELINE_FINISH:
          {
-            m_array[TaskField.FINISH_VARIANCE.getValue()] = null;
+            clearCachedValue(TaskField.FINISH_VARIANCE);
             break;
          }
 
          case COST:
          case BASELINE_COST:
          {
-            m_array[TaskField.COST_VARIANCE.getValue()] = null;
+            clearCachedValue(TaskField.COST_VARIANCE);
             break;
          }
 
          case DURATION:
          {
-            m_array[TaskField.DURATION_VARIANCE.getValue()] = null;
-            m_array[TaskField.COMPLETE_THROUGH.getValue()] = null;
+            clearCachedValue(TaskField.DURATION_VARIANCE);
+            clearCachedValue(TaskField.COMPLETE_THROUGH);
             break;
          }
 
          case BASELINE_DURATION:
          {
-            m_array[TaskField.DURATION_VARIANCE.getValue()] = null;
+            clearCachedValue(TaskField.DURATION_VARIANCE);
             break;
          }
 
          case WORK:
          case BASELINE_WORK:
          {
-            m_array[TaskField.WORK_VARIANCE.getValue()] = null;
+            clearCachedValue(TaskField.WORK_VARIANCE);
             break;
          }
 
          case BCWP:
          case ACWP:
          {
-            m_array[TaskField.CV.getValue()] = null;
-            m_array[TaskField.SV.getValue()] = null;
+            clearCachedValue(TaskField.CV);
+            clearCachedValue(TaskField.SV);
             break;
          }
 
          case BCWS:
          {
-            m_array[TaskField.SV.getValue()] = null;
+            clearCachedValue(TaskField.SV);
             break;
          }
 
          case START_SLACK:
          case FINISH_SLACK:
          {
-            m_array[TaskField.TOTAL_SLACK.getValue()] = null;
-            m_array[TaskField.CRITICAL.getValue()] = null;
+            clearCachedValue(TaskField.TOTAL_SLACK);
+            clearCachedValue(TaskField.CRITICAL);
             break;
          }
 
          case EARLY_FINISH:
          case LATE_FINISH:
          {
-            m_array[TaskField.FINISH_SLACK.getValue()] = null;
-            m_array[TaskField.TOTAL_SLACK.getValue()] = null;
-            m_array[TaskField.CRITICAL.getValue()] = null;
+            clearCachedValue(TaskField.FINISH_SLACK);
+            clearCachedValue(TaskField.TOTAL_SLACK);
+            clearCachedValue(TaskField.CRITICAL);
             break;
          }
 
          case EARLY_START:
          case LATE_START:
          {
-            m_array[TaskField.START_SLACK.getValue()] = null;
-            m_array[TaskField.TOTAL_SLACK.getValue()] = null;
-            m_array[TaskField.CRITICAL.getValue()] = null;
+            clearCachedValue(TaskField.START_SLACK);
+            clearCachedValue(TaskField.TOTAL_SLACK);
+            clearCachedValue(TaskField.CRITICAL);
             break;
          }
 
          case ACTUAL_START:
          case PERCENT_COMPLETE:
          {
-            m_array[TaskField.COMPLETE_THROUGH.getValue()] = null;
+            clearCachedValue(TaskField.COMPLETE_THROUGH);
             break;
          }
 
@@ -4675,6 +4677,99 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Field
       return result;
    }
 
+   /**
+    * Retrieve a field value, loading it first if required.
+    * 
+    * @param field field type
+    * @return field value
+    */
+   private Object getFieldValue(FieldType field)
+   {
+      int index = field.getValue();
+      Object result;
+      DeferredFieldValues deferredFields = m_deferredFields;
+      if (deferredFields == null || !deferredFields.isDeferred(index))
+      {
+         result = m_array[index];
+      }
+      else
+      {
+         synchronized (deferredFields)
+         {
+            if (deferredFields.isPending(index))
+            {
+               m_array[index] = deferredFields.load(field, m_array[index]);
+               if (deferredFields.isComplete())
+               {
+                  m_deferredFields = null;
+               }
+            }
+            result = m_array[index];
+         }
+      }
+      return (result);
+   }
+
+   /**
+    * Clear a calculated value which is no longer valid.
+    * 
+    * @param field field type
+    */
+   private void clearCachedValue(TaskField field)
+   {
+      int index = field.getValue();
+      setLoaded(index);
+      m_array[index] = null;
+   }
+
+   /**
+    * Mark a field as loaded, so that a value written to the field
+    * is not replaced by a value from the field value loader.
+    * 
+    * @param index field index
+    */
+   private void setLoaded(int index)
+   {
+      DeferredFieldValues deferredFields = m_deferredFields;
+      if (deferredFields != null && deferredFields.isDeferred(index))
+      {
+         synchronized (deferredFields)
+         {
+            deferredFields.setLoaded(index);
+            if (deferredFields.isComplete())
+            {
+               m_deferredFields = null;
+            }
+         }
+      }
+   }
+
+   /**
+    * Supplies a loader used to retrieve the value of each field of this
+    * task the first time the field is read. Fields which are written
+    * before they are read are not retrieved from the loader.
+    * 
+    * @param loader field value loader, or null if no further values 
+    * are to be loaded
+    */
+   public void setFieldValueLoader(FieldValueLoader loader)
+   {
+      m_deferredFields = (loader == null ? null : new DeferredFieldValues(loader, m_array.length));
+   }
+
+   /**
+    * Supplies a loader used to retrieve the value of a single field of
+    * this task the first time the field is read. All other fields
+    * are read directly, without reference to the loader.
+    * 
+    * @param loader field value loader
+    * @param field field to be retrieved from the loader
+    */
+   public void setFieldValueLoader(FieldValueLoader loader, TaskField field)
+   {
+      m_deferredFields = new DeferredFieldValues(loader, m_array.length, field.getValue());
+   }
+
    /**
     * Disable events firing when fields are updated.
     */
@@ -5225,6 +5320,11 @@ public final class Task extends ProjectEntity implements Comparable<Task>, Field
    };
 
    private boolean m_eventsEnabled = true;
+
+   /**
+    * Fields yet to be retrieved from a field value loader.
+    */
+   private volatile DeferredFieldValues m_deferredFields;
    private boolean m_null;
    private String m_wbsLevel;
    private boolean m_resumeValid;
@@ -0,0 +1,492 @@
+/*
+ * file:       TimephasedWorkArray.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2012
+ * date:       18/10/2012
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Compact representation of a sequence of timephased work items. Rather
+ * than holding a TimephasedWork instance, with its associated Date and
+ * Duration instances, for each item, the start, finish, total amount and
+ * amount per day of each item are held in parallel arrays of primitive
+ * values. A list of TimephasedWork instances can be created from this
+ * data when required.
+ *
+ * Null dates are represented by NULL_DATE, and null amounts are
+ * represented by NaN.
+ */
+public final class TimephasedWorkArray
+{
+   /**
+    * Default constructor.
+    */
+   public TimephasedWorkArray()
+   {
+      this(10);
+   }
+
+   /**
+    * Constructor.
+    *
+    * @param capacity initial capacity
+    */
+   public TimephasedWorkArray(int capacity)
+   {
+      capacity = Math.max(capacity, 1);
+      m_start = new long[capacity];
+      m_finish = new long[capacity];
+      m_totalAmount = new double[capacity];
+      m_amountPerDay = new double[capacity];
+      m_totalAmountUnits = new byte[capacity];
+      m_amountPerDayUnits = new byte[capacity];
+      m_modified = new boolean[capacity];
+   }
+
+   /**
+    * Constructor, populates the array from a list of TimephasedWork instances.
+    *
+    * @param list list of TimephasedWork instances
+    */
+   public TimephasedWorkArray(List<TimephasedWork> list)
+   {
+      this(list.size());
+      for (TimephasedWork item : list)
+      {
+         add(item);
+      }
+   }
+
+   /**
+    * Copy constructor which can be used to scale the data it is copying
+    * by a given factor.
+    *
+    * @param source source data
+    * @param totalFactor total scaling factor
+    * @param perDayFactor per day scaling factor
+    */
+   public TimephasedWorkArray(TimephasedWorkArray source, double totalFactor, double perDayFactor)
+   {
+      m_size = source.m_size;
+      m_start = Arrays.copyOf(source.m_start, Math.max(m_size, 1));
+      m_finish = Arrays.copyOf(source.m_finish, m_start.length);
+      m_totalAmount = Arrays.copyOf(source.m_totalAmount, m_start.length);
+      m_amountPerDay = Arrays.copyOf(source.m_amountPerDay, m_start.length);
+      m_totalAmountUnits = Arrays.copyOf(source.m_totalAmountUnits, m_start.length);
+      m_amountPerDayUnits = Arrays.copyOf(source.m_amountPerDayUnits, m_start.length);
+      m_modified = Arrays.copyOf(source.m_modified, m_start.length);
+
+      for (int loop = 0; loop < m_size; loop++)
+      {
+         m_totalAmount[loop] *= totalFactor;
+         m_amountPerDay[loop] *= perDayFactor;
+      }
+   }
+
+   /**
+    * Retrieve the number of items in the array.
+    *
+    * @return item count
+    */
+   public int size()
+   {
+      return (m_size);
+   }
+
+   /**
+    * Determine if the array is empty.
+    *
+    * @return true if the array is empty
+    */
+   public boolean isEmpty()
+   {
+      return (m_size == 0);
+   }
+
+   /**
+    * Remove all items from the array.
+    */
+   public void clear()
+   {
+      m_size = 0;
+   }
+
+   /**
+    * Remove the last item from the array.
+    */
+   public void removeLast()
+   {
+      if (m_size == 0)
+      {
+         throw new IndexOutOfBoundsException("Array is empty");
+      }
+      --m_size;
+   }
+
+   /**
+    * Add an item to the array.
+    *
+    * @param start start date, or NULL_DATE
+    * @param finish finish date, or NULL_DATE
+    * @param totalAmount total amount, or NaN
+    * @param totalAmountUnits total amount units
+    * @param amountPerDay amount per day, or NaN
+    * @param amountPerDayUnits amount per day units
+    * @param modified modified flag
+    */
+   public void add(long start, long finish, double totalAmount, TimeUnit totalAmountUnits, double amountPerDay, TimeUnit amountPerDayUnits, boolean modified)
+   {
+      if (m_size == m_start.length)
+      {
+         grow();
+      }
+
+      m_start[m_size] = start;
+      m_finish[m_size] = finish;
+      m_totalAmount[m_size] = totalAmount;
+      m_totalAmountUnits[m_size] = getUnitsCode(totalAmount, totalAmountUnits);
+      m_amountPerDay[m_size] = amountPerDay;
+      m_amountPerDayUnits[m_size] = getUnitsCode(amountPerDay, amountPerDayUnits);
+      m_modified[m_size] = modified;
+      ++m_size;
+   }
+
+   /**
+    * Add an item to the array.
+    *
+    * @param item TimephasedWork instance
+    */
+   public void add(TimephasedWork item)
+   {
+      Date start = item.getStart();
+      Date finish = item.getFinish();
+      Duration totalAmount = item.getTotalAmount();
+      Duration amountPerDay = item.getAmountPerDay();
+
+      add(start == null ? NULL_DATE : start.getTime(), finish == null ? NULL_DATE : finish.getTime(), totalAmount == null ? Double.NaN : totalAmount.getDuration(), totalAmount == null ? null : totalAmount.getUnits(), amountPerDay == null ? Double.NaN : amountPerDay.getDuration(), amountPerDay == null ? null : amountPerDay.getUnits(), item.getModified());
+   }
+
+   /**
+    * Add a copy of an item held by another array.
+    *
+    * @param source source array
+    * @param index index of the item in the source array
+    */
+   public void add(TimephasedWorkArray source, int index)
+   {
+      if (m_size == m_start.length)
+      {
+         grow();
+      }
+
+      m_start[m_size] = source.m_start[index];
+      m_finish[m_size] = source.m_finish[index];
+      m_totalAmount[m_size] = source.m_totalAmount[index];
+      m_totalAmountUnits[m_size] = source.m_totalAmountUnits[index];
+      m_amountPerDay[m_size] = source.m_amountPerDay[index];
+      m_amountPerDayUnits[m_size] = source.m_amountPerDayUnits[index];
+      m_modified[m_size] = source.m_modified[index];
+      ++m_size;
+   }
+
+   /**
+    * Replace the contents of this array with the contents of another array.
+    *
+    * @param source source array
+    */
+   public void setAll(TimephasedWorkArray source)
+   {
+      m_size = source.m_size;
+      m_start = source.m_start;
+      m_finish = source.m_finish;
+      m_totalAmount = source.m_totalAmount;
+      m_totalAmountUnits = source.m_totalAmountUnits;
+      m_amountPerDay = source.m_amountPerDay;
+      m_amountPerDayUnits = source.m_amountPerDayUnits;
+      m_modified = source.m_modified;
+   }
+
+   /**
+    * Retrieve the start date of an item.
+    *
+    * @param index item index
+    * @return start date in milliseconds, or NULL_DATE
+    */
+   public long getStart(int index)
+   {
+      checkIndex(index);
+      return (m_start[index]);
+   }
+
+   /**
+    * Set the start date of an item.
+    *
+    * @param index item index
+    * @param start start date in milliseconds, or NULL_DATE
+    */
+   public void setStart(int index, long start)
+   {
+      checkIndex(index);
+      m_start[index] = start;
+   }
+
+   /**
+    * Retrieve the finish date of an item.
+    *
+    * @param index item index
+    * @return finish date in milliseconds, or NULL_DATE
+    */
+   public long getFinish(int index)
+   {
+      checkIndex(index);
+      return (m_finish[index]);
+   }
+
+   /**
+    * Set the finish date of an item.
+    *
+    * @param index item index
+    * @param finish finish date in milliseconds, or NULL_DATE
+    */
+   public void setFinish(int index, long finish)
+   {
+      checkIndex(index);
+      m_finish[index] = finish;
+   }
+
+   /**
+    * Retrieve the total amount of an item.
+    *
+    * @param index item index
+    * @return total amount, or NaN
+    */
+   public double getTotalAmount(int index)
+   {
+      checkIndex(index);
+      return (m_totalAmount[index]);
+   }
+
+   /**
+    * Retrieve the units of the total amount of an item.
+    *
+    * @param index item index
+    * @return total amount units, or null
+    */
+   public TimeUnit getTotalAmountUnits(int index)
+   {
+      checkIndex(index);
+      return (getUnits(m_totalAmountUnits[index]));
+   }
+
+   /**
+    * Set the total amount of an item.
+    *
+    * @param index item index
+    * @param amount total amount, or NaN
+    * @param units total amount units
+    */
+   public void setTotalAmount(int index, double amount, TimeUnit units)
+   {
+      checkIndex(index);
+      m_totalAmount[index] = amount;
+      m_totalAmountUnits[index] = getUnitsCode(amount, units);
+   }
+
+   /**
+    * Retrieve the amount per day of an item.
+    *
+    * @param index item index
+    * @return amount per day, or NaN
+    */
+   public double getAmountPerDay(int index)
+   {
+      checkIndex(index);
+      return (m_amountPerDay[index]);
+   }
+
+   /**
+    * Retrieve the units of the amount per day of an item.
+    *
+    * @param index item index
+    * @return amount per day units, or null
+    */
+   public TimeUnit getAmountPerDayUnits(int index)
+   {
+      checkIndex(index);
+      return (getUnits(m_amountPerDayUnits[index]));
+   }
+
+   /**
+    * Set the amount per day of an item.
+    *
+    * @param index item index
+    * @param amount amount per day, or NaN
+    * @param units amount per day units
+    */
+   public void setAmountPerDay(int index, double amount, TimeUnit units)
+   {
+      checkIndex(index);
+      m_amountPerDay[index] = amount;
+      m_amountPerDayUnits[index] = getUnitsCode(amount, units);
+   }
+
+   /**
+    * Retrieve the modified flag of an item.
+    *
+    * @param index item index
+    * @return modified flag
+    */
+   public boolean getModified(int index)
+   {
+      checkIndex(index);
+      return (m_modified[index]);
+   }
+
+   /**
+    * Set the modified flag of an item.
+    *
+    * @param index item index
+    * @param modified modified flag
+    */
+   public void setModified(int index, boolean modified)
+   {
+      checkIndex(index);
+      m_modified[index] = modified;
+   }
+
+   /**
+    * Create a TimephasedWork instance representing an item.
+    *
+    * @param index item index
+    * @return TimephasedWork instance
+    */
+   public TimephasedWork get(int index)
+   {
+      checkIndex(index);
+      TimephasedWork result = new TimephasedWork();
+      result.setStart(m_start[index] == NULL_DATE ? null : new Date(m_start[index]));
+      result.setFinish(m_finish[index] == NULL_DATE ? null : new Date(m_finish[index]));
+      result.setTotalAmount(getDuration(m_totalAmount[index], m_totalAmountUnits[index]));
+      result.setAmountPerDay(getDuration(m_amountPerDay[index], m_amountPerDayUnits[index]));
+      result.setModified(m_modified[index]);
+      return (result);
+   }
+
+   /**
+    * Create a list of TimephasedWork instances representing the
+    * contents of this array.
+    *
+    * @return list of TimephasedWork instances
+    */
+   public LinkedList<TimephasedWork> toList()
+   {
+      LinkedList<TimephasedWork> result = new LinkedList<TimephasedWork>();
+      for (int loop = 0; loop < m_size; loop++)
+      {
+         result.add(get(loop));
+      }
+      return (result);
+   }
+
+   /**
+    * Increase the capacity of the arrays.
+    */
+   private void grow()
+   {
+      int capacity = (m_start.length * 3) / 2 + 1;
+      m_start = Arrays.copyOf(m_start, capacity);
+      m_finish = Arrays.copyOf(m_finish, capacity);
+      m_totalAmount = Arrays.copyOf(m_totalAmount, capacity);
+      m_amountPerDay = Arrays.copyOf(m_amountPerDay, capacity);
+      m_totalAmountUnits = Arrays.copyOf(m_totalAmountUnits, capacity);
+      m_amountPerDayUnits = Arrays.copyOf(m_amountPerDayUnits, capacity);
+      m_modified = Arrays.copyOf(m_modified, capacity);
+   }
+
+   /**
+    * Validate an index.
+    *
+    * @param index item index
+    */
+   private void checkIndex(int index)
+   {
+      if (index < 0 || index >= m_size)
+      {
+         throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + m_size);
+      }
+   }
+
+   /**
+    * Retrieve the code used to store a time unit.
+    *
+    * @param amount amount to which the units apply
+    * @param units time units
+    * @return units code
+    */
+   private static byte getUnitsCode(double amount, TimeUnit units)
+   {
+      return ((byte) (units == null || Double.isNaN(amount) ? NULL_UNITS : units.getValue()));
+   }
+
+   /**
+    * Retrieve the time unit represented by a code.
+    *
+    * @param code units code
+    * @return time units, or null
+    */
+   private static TimeUnit getUnits(byte code)
+   {
+      return (code == NULL_UNITS ? null : TimeUnit.getInstance(code));
+   }
+
+   /**
+    * Create a Duration instance from an amount and units code.
+    *
+    * @param amount amount
+    * @param code units code
+    * @return Duration instance, or null
+    */
+   private static Duration getDuration(double amount, byte code)
+   {
+      return (code == NULL_UNITS ? null : Duration.getInstance(amount, TimeUnit.getInstance(code)));
+   }
+
+   /**
+    * Value used to represent a null date.
+    */
+   public static final long NULL_DATE = Long.MIN_VALUE;
+
+   private static final byte NULL_UNITS = -1;
+
+   private int m_size;
+   private long[] m_start;
+   private long[] m_finish;
+   private double[] m_totalAmount;
+   private double[] m_amountPerDay;
+   private byte[] m_totalAmountUnits;
+   private byte[] m_amountPerDayUnits;
+   private boolean[] m_modified;
+}
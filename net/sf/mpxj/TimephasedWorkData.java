@@ -27,7 +27,9 @@ import java.util.LinkedList;
 import java.util.List;
 
 /**
- * Class used to manage timephased data.
+ * Class used to manage timephased data. The data is held in a compact
+ * form, and the list of TimephasedWork instances is only created when
+ * it is first requested.
  */
 public class TimephasedWorkData
 {
@@ -41,14 +43,20 @@ public class TimephasedWorkData
     */
    public TimephasedWorkData(ProjectCalendar calendar, TimephasedWorkNormaliser normaliser, List<TimephasedWork> data, boolean raw)
    {
-      if (data instanceof LinkedList<?>)
-      {
-         m_data = (LinkedList<TimephasedWork>) data;
-      }
-      else
-      {
-         m_data = new LinkedList<TimephasedWork>(data);
-      }
+      this(calendar, normaliser, new TimephasedWorkArray(data), raw);
+   }
+
+   /**
+    * Constructor.
+    * 
+    * @param calendar calendar to which the timephased data relates
+    * @param normaliser normaliser used to process this data
+    * @param data timephased data
+    * @param raw flag indicating if this data is raw
+    */
+   public TimephasedWorkData(ProjectCalendar calendar, TimephasedWorkNormaliser normaliser, TimephasedWorkArray data, boolean raw)
+   {
+      m_array = data;
       m_raw = raw;
       m_calendar = calendar;
       m_normaliser = normaliser;
@@ -64,30 +72,75 @@ public class TimephasedWorkData
     */
    public TimephasedWorkData(TimephasedWorkData source, double perDayFactor, double totalFactor)
    {
-      m_data = new LinkedList<TimephasedWork>();
+      TimephasedWorkArray sourceArray = source.m_list == null ? source.m_array : new TimephasedWorkArray(source.m_list);
+      m_array = new TimephasedWorkArray(sourceArray, totalFactor, perDayFactor);
       m_raw = source.m_raw;
       m_calendar = source.m_calendar;
       m_normaliser = source.m_normaliser;
+   }
 
-      for (TimephasedWork sourceItem : source.m_data)
+   /**
+    * Retrieves the timephased data.
+    * 
+    * @return timephased data
+    */
+   public List<TimephasedWork> getData()
+   {
+      if (m_list == null)
       {
-         m_data.add(new TimephasedWork(sourceItem, totalFactor, perDayFactor));
+         if (m_raw)
+         {
+            normalise();
+         }
+         m_list = m_array.toList();
+         m_array = null;
       }
+      return m_list;
    }
 
    /**
-    * Retrieves the timephased data.
+    * Retrieves the timephased data in its compact form, without creating
+    * a list of TimephasedWork instances. The returned data should not
+    * be modified.
     * 
     * @return timephased data
     */
-   public List<TimephasedWork> getData()
+   public TimephasedWorkArray getArray()
    {
-      if (m_raw)
+      TimephasedWorkArray result;
+      if (m_list == null)
+      {
+         if (m_raw)
+         {
+            normalise();
+         }
+         result = m_array;
+      }
+      else
+      {
+         result = new TimephasedWorkArray(m_list);
+      }
+      return result;
+   }
+
+   /**
+    * Normalises the raw data. Normalisers derived from
+    * AbstractTimephasedWorkNormaliser work directly on the compact
+    * form of the data, other implementations are passed a list.
+    */
+   private void normalise()
+   {
+      if (m_normaliser instanceof AbstractTimephasedWorkNormaliser)
+      {
+         ((AbstractTimephasedWorkNormaliser) m_normaliser).normalise(m_calendar, m_array);
+      }
+      else
       {
-         m_normaliser.normalise(m_calendar, m_data);
-         m_raw = false;
+         LinkedList<TimephasedWork> list = new LinkedList<TimephasedWork>(m_array.toList());
+         m_normaliser.normalise(m_calendar, list);
+         m_array = new TimephasedWorkArray(list);
       }
-      return m_data;
+      m_raw = false;
    }
 
    /**
@@ -97,10 +150,11 @@ public class TimephasedWorkData
     */
    boolean hasData()
    {
-      return !m_data.isEmpty();
+      return m_list == null ? !m_array.isEmpty() : !m_list.isEmpty();
    }
 
-   private LinkedList<TimephasedWork> m_data;
+   private TimephasedWorkArray m_array;
+   private List<TimephasedWork> m_list;
    private boolean m_raw;
    private TimephasedWorkNormaliser m_normaliser;
    private ProjectCalendar m_calendar;
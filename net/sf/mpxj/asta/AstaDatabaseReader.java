@@ -31,6 +31,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
@@ -52,6 +53,7 @@ import net.sf.mpxj.ProjectFile;
 import net.sf.mpxj.Task;
 import net.sf.mpxj.listener.ProjectListener;
 import net.sf.mpxj.reader.ProjectReader;
+import net.sf.mpxj.utility.ColumnTable;
 import net.sf.mpxj.utility.NumberUtility;
 
 /**
@@ -285,6 +287,29 @@ public final class AstaDatabaseReader implements ProjectReader
       m_connection = connection;
    }
 
+   /**
+    * Sets the number of rows the JDBC driver should retrieve from the
+    * database each time more rows are needed. A value of zero means that
+    * the driver's default is used.
+    * 
+    * @param fetchSize fetch size
+    */
+   public void setFetchSize(int fetchSize)
+   {
+      m_fetchSize = fetchSize;
+   }
+
+   /**
+    * Retrieves the number of rows the JDBC driver should retrieve from
+    * the database each time more rows are needed.
+    * 
+    * @return fetch size
+    */
+   public int getFetchSize()
+   {
+      return m_fetchSize;
+   }
+
    /**
     * This is a convenience method which reads the first project
     * from the named Asta MDB file using the JDBC-ODBC bridge driver.
@@ -347,6 +372,22 @@ public final class AstaDatabaseReader implements ProjectReader
       throw new UnsupportedOperationException();
    }
 
+   /**
+    * Prepares a query statement, applying the fetch size if one
+    * has been supplied.
+    * 
+    * @param sql query statement
+    * @throws SQLException
+    */
+   private void prepareStatement(String sql) throws SQLException
+   {
+      m_ps = m_connection.prepareStatement(sql);
+      if (m_fetchSize != 0)
+      {
+         m_ps.setFetchSize(m_fetchSize);
+      }
+   }
+
    /**
     * Retrieve a number of rows matching the supplied query. 
     * 
@@ -360,17 +401,9 @@ public final class AstaDatabaseReader implements ProjectReader
 
       try
       {
-         List<Row> result = new LinkedList<Row>();
-
-         m_ps = m_connection.prepareStatement(sql);
+         prepareStatement(sql);
          m_rs = m_ps.executeQuery();
-         populateMetaData();
-         while (m_rs.next())
-         {
-            result.add(new ResultSetRow(m_rs, m_meta));
-         }
-
-         return (result);
+         return (createRows(ColumnTable.read(m_rs, getColumnNames())));
       }
 
       finally
@@ -394,18 +427,10 @@ public final class AstaDatabaseReader implements ProjectReader
 
       try
       {
-         List<Row> result = new LinkedList<Row>();
-
-         m_ps = m_connection.prepareStatement(sql);
+         prepareStatement(sql);
          m_ps.setInt(1, NumberUtility.getInt(var));
          m_rs = m_ps.executeQuery();
-         populateMetaData();
-         while (m_rs.next())
-         {
-            result.add(new ResultSetRow(m_rs, m_meta));
-         }
-
-         return (result);
+         return (createRows(ColumnTable.read(m_rs, getColumnNames())));
       }
 
       finally
@@ -430,19 +455,11 @@ public final class AstaDatabaseReader implements ProjectReader
 
       try
       {
-         List<Row> result = new LinkedList<Row>();
-
-         m_ps = m_connection.prepareStatement(sql);
+         prepareStatement(sql);
          m_ps.setInt(1, NumberUtility.getInt(var1));
          m_ps.setInt(2, NumberUtility.getInt(var2));
          m_rs = m_ps.executeQuery();
-         populateMetaData();
-         while (m_rs.next())
-         {
-            result.add(new ResultSetRow(m_rs, m_meta));
-         }
-
-         return (result);
+         return (createRows(ColumnTable.read(m_rs, getColumnNames())));
       }
 
       finally
@@ -503,22 +520,36 @@ public final class AstaDatabaseReader implements ProjectReader
    }
 
    /**
-    * Retrieves basic meta data from the result set.
+    * Retrieves the column names from the result set meta data.
     * 
+    * @return column names
     * @throws SQLException
     */
-   private void populateMetaData() throws SQLException
+   private String[] getColumnNames() throws SQLException
    {
-      m_meta.clear();
-
       ResultSetMetaData meta = m_rs.getMetaData();
-      int columnCount = meta.getColumnCount() + 1;
-      for (int loop = 1; loop < columnCount; loop++)
+      String[] result = new String[meta.getColumnCount()];
+      for (int loop = 0; loop < result.length; loop++)
+      {
+         result[loop] = meta.getColumnName(loop + 1).toUpperCase();
+      }
+      return (result);
+   }
+
+   /**
+    * Creates a row instance for each row in a table.
+    * 
+    * @param table table
+    * @return list of rows
+    */
+   private List<Row> createRows(ColumnTable table)
+   {
+      List<Row> result = new ArrayList<Row>(table.getSize());
+      for (int loop = 0; loop < table.getSize(); loop++)
       {
-         String name = meta.getColumnName(loop);
-         Integer type = Integer.valueOf(meta.getColumnType(loop));
-         m_meta.put(name, type);
+         result.add(new ColumnRow(table, loop));
       }
+      return (result);
    }
 
    /**
@@ -775,6 +806,6 @@ public final class AstaDatabaseReader implements ProjectReader
    private boolean m_allocatedConnection;
    private PreparedStatement m_ps;
    private ResultSet m_rs;
-   private Map<String, Integer> m_meta = new HashMap<String, Integer>();
+   private int m_fetchSize;
    private List<ProjectListener> m_projectListeners;
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+/*
+ * file:       ColumnRow.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2012
+ * date:       18/10/2012
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.asta;
+
+import net.sf.mpxj.utility.ColumnTable;
+
+/**
+ * Implementation of the Row interface, representing a single row
+ * of a ColumnTable instance.
+ */
+final class ColumnRow extends MapRow
+{
+   /**
+    * Constructor.
+    * 
+    * @param table table containing this row
+    * @param row row index
+    */
+   public ColumnRow(ColumnTable table, int row)
+   {
+      super(null);
+      m_table = table;
+      m_row = row;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override protected Object getObject(String name)
+   {
+      return (m_table.getObject(m_row, name));
+   }
+
+   private final ColumnTable m_table;
+   private final int m_row;
+}
@@ -163,12 +163,13 @@ class MapRow implements Row
    }
 
    /**
-    * Retrieve a value from the map.
+    * Retrieve a value from the map. Subclasses which hold their
+    * data in some other form override this method.
     * 
     * @param name column name
     * @return column value
     */
-   private final Object getObject(String name)
+   protected Object getObject(String name)
    {
       Object result = m_map.get(name);
       return (result);
@@ -71,6 +71,11 @@ public class MPXJTest extends TestSuite
       addTestSuite(MppAssignmentTest.class);
       addTestSuite(TimephasedSegmentTest2.class);
       addTestSuite(CustomerDataTest.class);
+      addTestSuite(PrimaveraDatabaseReaderTest.class);
+      addTestSuite(TimephasedWorkArrayTest.class);
+      addTestSuite(TokenizerTest.class);
+      addTestSuite(ProjectEntityListTest.class);
+      addTestSuite(RTFUtilityTest.class);
    }
 
    /**
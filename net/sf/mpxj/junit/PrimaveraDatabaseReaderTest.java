@@ -0,0 +1,518 @@
+/*
+ * file:       PrimaveraDatabaseReaderTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2012
+ * date:       18/10/2012
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import java.io.ByteArrayOutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Task;
+import net.sf.mpxj.listener.DefaultProjectListener;
+import net.sf.mpxj.mspdi.MSPDIWriter;
+import net.sf.mpxj.primavera.PrimaveraDatabaseReader;
+
+import org.h2.jdbcx.JdbcDataSource;
+
+/**
+ * Tests reading projects from a Primavera database. The tests populate
+ * an in-memory H2 database with a minimal P6 schema, then check that
+ * each of the ways the reader can retrieve data produces the same
+ * projects as a plain sequential read.
+ */
+public class PrimaveraDatabaseReaderTest extends MPXJTestCase
+{
+   /**
+    * {@inheritDoc}
+    */
+   @Override protected void setUp() throws Exception
+   {
+      m_dataSource = new JdbcDataSource();
+      m_dataSource.setURL("jdbc:h2:mem:" + getName() + ";DB_CLOSE_DELAY=-1");
+      m_connection = m_dataSource.getConnection();
+      populateDatabase(m_connection);
+      m_executor = Executors.newFixedThreadPool(4);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override protected void tearDown() throws Exception
+   {
+      m_executor.shutdownNow();
+      Statement statement = m_connection.createStatement();
+      statement.execute("drop all objects");
+      statement.close();
+      m_connection.close();
+   }
+
+   /**
+    * Test reading all projects sequentially.
+    *
+    * @throws Exception
+    */
+   public void testReadAll() throws Exception
+   {
+      List<ProjectFile> projects = createReader().readAll();
+      assertEquals(PROJECT_COUNT, projects.size());
+
+      for (ProjectFile project : projects)
+      {
+         assertEquals(WBS_COUNT + TASK_COUNT, project.getAllTasks().size());
+         assertEquals((TASK_COUNT + 1) / 2, project.getAllResourceAssignments().size());
+
+         String name = project.getProjectHeader().getName();
+         Task task = project.getTaskByUniqueID(Integer.valueOf(getTaskID(Integer.parseInt(name.substring(4)), TASK_COUNT - 1)));
+         assertEquals("Task " + (TASK_COUNT - 1), task.getName());
+         assertEquals(1, task.getPredecessors().size());
+      }
+   }
+
+   /**
+    * Test reading all projects concurrently using an executor.
+    *
+    * @throws Exception
+    */
+   public void testReadAllExecutor() throws Exception
+   {
+      Map<String, String> expected = write(createReader().readAll());
+
+      PrimaveraDatabaseReader reader = createReader();
+      reader.setExecutor(m_executor);
+      assertEquals(expected, write(reader.readAll()));
+   }
+
+   /**
+    * Test reading a single project, using an executor to run the
+    * queries for that project concurrently.
+    *
+    * @throws Exception
+    */
+   public void testReadExecutor() throws Exception
+   {
+      Map<String, String> expected = write(createReader().readAll());
+
+      PrimaveraDatabaseReader reader = createReader();
+      reader.setExecutor(m_executor);
+      List<ProjectFile> projects = new ArrayList<ProjectFile>();
+      for (Integer id : reader.listProjects().keySet())
+      {
+         reader.setProjectID(id.intValue());
+         projects.add(reader.read());
+      }
+      assertEquals(expected, write(projects));
+   }
+
+   /**
+    * Test reading all projects using a fetch size smaller than the
+    * number of rows retrieved by each query.
+    *
+    * @throws Exception
+    */
+   public void testFetchSize() throws Exception
+   {
+      Map<String, String> expected = write(createReader().readAll());
+
+      PrimaveraDatabaseReader reader = createReader();
+      reader.setFetchSize(3);
+      assertEquals(3, reader.getFetchSize());
+      assertEquals(expected, write(reader.readAll()));
+
+      reader.setExecutor(m_executor);
+      assertEquals(expected, write(reader.readAll()));
+   }
+
+   /**
+    * Test that tasks processed as they are retrieved from the database
+    * are announced to listeners in the same order as tasks processed
+    * from a complete set of rows.
+    *
+    * @throws Exception
+    */
+   public void testStreamedTasks() throws Exception
+   {
+      TaskListener streamed = new TaskListener();
+      PrimaveraDatabaseReader reader = createReader();
+      reader.addProjectListener(streamed);
+      reader.setProjectID(1);
+      reader.read();
+      assertEquals(WBS_COUNT + TASK_COUNT, streamed.getTasks().size());
+
+      TaskListener bulk = new TaskListener();
+      reader = createReader();
+      reader.addProjectListener(bulk);
+      reader.setBulkRead(true);
+      reader.readAll();
+      assertEquals(streamed.getTasks(), bulk.getTasks().subList(0, WBS_COUNT + TASK_COUNT));
+   }
+
+   /**
+    * Test reading all projects using bulk queries, with and without
+    * an executor.
+    *
+    * @throws Exception
+    */
+   public void testBulkRead() throws Exception
+   {
+      Map<String, String> expected = write(createReader().readAll());
+
+      PrimaveraDatabaseReader reader = createReader();
+      reader.setBulkRead(true);
+      assertTrue(reader.getBulkRead());
+      assertEquals(expected, write(reader.readAll()));
+
+      reader.setExecutor(m_executor);
+      assertEquals(expected, write(reader.readAll()));
+   }
+
+   /**
+    * Create a reader attached to the test database.
+    *
+    * @return PrimaveraDatabaseReader instance
+    */
+   private PrimaveraDatabaseReader createReader()
+   {
+      PrimaveraDatabaseReader reader = new PrimaveraDatabaseReader();
+      reader.setDataSource(m_dataSource);
+      return (reader);
+   }
+
+   /**
+    * Writes each project as MSPDI, allowing projects read in different
+    * ways to be compared.
+    *
+    * @param projects projects to write
+    * @return MSPDI text keyed by project name
+    * @throws Exception
+    */
+   private Map<String, String> write(List<ProjectFile> projects) throws Exception
+   {
+      Map<String, String> result = new TreeMap<String, String>();
+      for (ProjectFile project : projects)
+      {
+         project.getProjectHeader().setCurrentDate(null);
+         ByteArrayOutputStream os = new ByteArrayOutputStream();
+         new MSPDIWriter().write(project, os);
+         result.put(project.getProjectHeader().getName(), os.toString("UTF-8"));
+      }
+      assertEquals(PROJECT_COUNT, result.size());
+      return (result);
+   }
+
+   /**
+    * Populates the database with a minimal P6 schema. Task rows for
+    * each project are interleaved, as they are in a real database.
+    *
+    * @param connection database connection
+    * @throws Exception
+    */
+   private void populateDatabase(Connection connection) throws Exception
+   {
+      Timestamp created = Timestamp.valueOf("2011-12-01 00:00:00");
+      Timestamp start = Timestamp.valueOf("2012-01-02 08:00:00");
+      Timestamp finish = Timestamp.valueOf("2012-01-20 17:00:00");
+
+      createTable(connection, "prefer", "curr_id integer, create_date timestamp, update_date timestamp, day_hr_cnt integer, week_hr_cnt double, week_start_day_num integer");
+      insert(connection, "prefer", new Object[]
+      {
+         Integer.valueOf(1),
+         created,
+         created,
+         Integer.valueOf(8),
+         Double.valueOf(40),
+         Integer.valueOf(1)
+      });
+
+      createTable(connection, "currtype", "curr_id integer, decimal_digit_cnt integer, curr_symbol varchar(10), decimal_symbol varchar(10), digit_group_symbol varchar(10), pos_curr_fmt_type varchar(10), neg_curr_fmt_type varchar(10), curr_type varchar(40), curr_short_name varchar(10), group_digit_cnt integer, base_exch_rate double");
+      insert(connection, "currtype", new Object[]
+      {
+         Integer.valueOf(1),
+         Integer.valueOf(2),
+         "$",
+         ".",
+         ",",
+         "#1.1",
+         "(#1.1)",
+         "US Dollar",
+         "USD",
+         Integer.valueOf(3),
+         Double.valueOf(1)
+      });
+
+      createTable(connection, "project", "proj_id integer, proj_short_name varchar(40), create_date timestamp, plan_start_date timestamp, plan_end_date timestamp, def_duration_type varchar(40)");
+      for (int projectID = 1; projectID <= PROJECT_COUNT; projectID++)
+      {
+         insert(connection, "project", new Object[]
+         {
+            Integer.valueOf(projectID),
+            "PROJ" + projectID,
+            created,
+            start,
+            Timestamp.valueOf("2012-12-31 17:00:00"),
+            "DT_FixedDUR2"
+         });
+      }
+
+      createTable(connection, "calendar", "clndr_id integer, default_flag varchar(1), clndr_name varchar(40), proj_id integer, base_clndr_id integer, clndr_type varchar(40), day_hr_cnt integer, clndr_data varchar(4000)");
+      insert(connection, "calendar", new Object[]
+      {
+         Integer.valueOf(1),
+         "Y",
+         "Standard",
+         null,
+         null,
+         "CA_Base",
+         Integer.valueOf(8),
+         CALENDAR_DATA
+      });
+
+      createTable(connection, "rsrc", "rsrc_id integer, parent_rsrc_id integer, clndr_id integer, rsrc_name varchar(40), rsrc_short_name varchar(40), rsrc_type varchar(40), email_addr varchar(40), employee_code varchar(40), rsrc_seq_num integer");
+      for (int resourceID = 1; resourceID <= RESOURCE_COUNT; resourceID++)
+      {
+         insert(connection, "rsrc", new Object[]
+         {
+            Integer.valueOf(resourceID),
+            null,
+            Integer.valueOf(1),
+            "Resource " + resourceID,
+            "R" + resourceID,
+            "RT_Labor",
+            "r" + resourceID + "@example.com",
+            "E" + resourceID,
+            Integer.valueOf(resourceID)
+         });
+      }
+
+      createTable(connection, "projwbs", "wbs_id integer, proj_id integer, seq_num integer, wbs_short_name varchar(40), wbs_name varchar(40), parent_wbs_id integer, proj_node_flag varchar(1)");
+      for (int projectID = 1; projectID <= PROJECT_COUNT; projectID++)
+      {
+         for (int index = 0; index < WBS_COUNT; index++)
+         {
+            insert(connection, "projwbs", new Object[]
+            {
+               Integer.valueOf(getWbsID(projectID, index)),
+               Integer.valueOf(projectID),
+               Integer.valueOf(index),
+               "W" + index,
+               "WBS " + projectID + "." + index,
+               Integer.valueOf(index == 0 ? 0 : getWbsID(projectID, 0)),
+               index == 0 ? "Y" : "N"
+            });
+         }
+      }
+
+      createTable(connection, "task", "task_id integer, proj_id integer, wbs_id integer, clndr_id integer, phys_complete_pct double, task_type varchar(40), duration_type varchar(40), priority_type varchar(40), task_code varchar(40), task_name varchar(40), remain_drtn_hr_cnt double, target_drtn_hr_cnt double, act_start_date timestamp, act_end_date timestamp, early_start_date timestamp, early_end_date timestamp, target_start_date timestamp, target_end_date timestamp, cstr_type varchar(40), cstr_date timestamp, total_float_hr_cnt double, free_float_hr_cnt double");
+      for (int index = 0; index < TASK_COUNT; index++)
+      {
+         for (int projectID = 1; projectID <= PROJECT_COUNT; projectID++)
+         {
+            insert(connection, "task", new Object[]
+            {
+               Integer.valueOf(getTaskID(projectID, index)),
+               Integer.valueOf(projectID),
+               Integer.valueOf(getWbsID(projectID, index % WBS_COUNT)),
+               Integer.valueOf(1),
+               Double.valueOf(index * 4),
+               "TT_Task",
+               "DT_FixedDUR2",
+               "PT_Normal",
+               "A" + index,
+               "Task " + index,
+               Double.valueOf(index % 5 * 8),
+               Double.valueOf(8 + index % 5 * 8),
+               null,
+               null,
+               Timestamp.valueOf("2012-01-0" + (2 + index % 5) + " 08:00:00"),
+               Timestamp.valueOf("2012-02-0" + (2 + index % 5) + " 17:00:00"),
+               start,
+               finish,
+               null,
+               null,
+               Double.valueOf(index % 16),
+               Double.valueOf(0)
+            });
+         }
+      }
+
+      createTable(connection, "taskpred", "task_pred_id integer, task_id integer, pred_task_id integer, proj_id integer, pred_proj_id integer, pred_type varchar(40), lag_hr_cnt double");
+      int predecessorID = 1;
+      for (int projectID = 1; projectID <= PROJECT_COUNT; projectID++)
+      {
+         for (int index = 1; index < TASK_COUNT; index++)
+         {
+            insert(connection, "taskpred", new Object[]
+            {
+               Integer.valueOf(predecessorID++),
+               Integer.valueOf(getTaskID(projectID, index)),
+               Integer.valueOf(getTaskID(projectID, index - 1)),
+               Integer.valueOf(projectID),
+               Integer.valueOf(projectID),
+               "PR_FS",
+               Double.valueOf(index % 3)
+            });
+         }
+      }
+
+      createTable(connection, "taskrsrc", "taskrsrc_id integer, task_id integer, proj_id integer, rsrc_id integer, remain_qty double, target_qty double, act_reg_qty double, target_cost double, act_reg_cost double, act_start_date timestamp, act_end_date timestamp, target_start_date timestamp, target_end_date timestamp, target_qty_per_hr double, act_ot_qty double, target_lag_drtn_hr_cnt double");
+      int assignmentID = 1;
+      for (int projectID = 1; projectID <= PROJECT_COUNT; projectID++)
+      {
+         for (int index = 0; index < TASK_COUNT; index += 2)
+         {
+            insert(connection, "taskrsrc", new Object[]
+            {
+               Integer.valueOf(assignmentID++),
+               Integer.valueOf(getTaskID(projectID, index)),
+               Integer.valueOf(projectID),
+               Integer.valueOf(1 + (projectID + index) % RESOURCE_COUNT),
+               Double.valueOf(8),
+               Double.valueOf(16),
+               Double.valueOf(8),
+               Double.valueOf(1000),
+               Double.valueOf(500.5),
+               null,
+               null,
+               start,
+               Timestamp.valueOf("2012-01-04 17:00:00"),
+               Double.valueOf(1),
+               Double.valueOf(0),
+               Double.valueOf(0)
+            });
+         }
+      }
+   }
+
+   /**
+    * Creates a table. Every table is given a delete_date column, which
+    * the reader uses to ignore deleted rows.
+    *
+    * @param connection database connection
+    * @param name table name
+    * @param columns column definitions
+    * @throws Exception
+    */
+   private void createTable(Connection connection, String name, String columns) throws Exception
+   {
+      Statement statement = connection.createStatement();
+      statement.execute("create table " + name + " (" + columns + ", delete_date timestamp)");
+      statement.close();
+   }
+
+   /**
+    * Inserts a row into a table, leaving the delete_date column null.
+    *
+    * @param connection database connection
+    * @param name table name
+    * @param values column values
+    * @throws Exception
+    */
+   private void insert(Connection connection, String name, Object[] values) throws Exception
+   {
+      StringBuilder sql = new StringBuilder("insert into " + name + " values (");
+      for (int index = 0; index < values.length; index++)
+      {
+         sql.append("?,");
+      }
+      sql.append("null)");
+
+      PreparedStatement ps = connection.prepareStatement(sql.toString());
+      for (int index = 0; index < values.length; index++)
+      {
+         ps.setObject(index + 1, values[index]);
+      }
+      ps.executeUpdate();
+      ps.close();
+   }
+
+   /**
+    * Calculates the ID of a WBS entry. WBS IDs are kept clear of the
+    * task IDs, so the reader does not need to renumber any tasks.
+    *
+    * @param projectID parent project ID
+    * @param index WBS index within the project
+    * @return WBS ID
+    */
+   private int getWbsID(int projectID, int index)
+   {
+      return (WBS_ID_BASE + (projectID - 1) * WBS_COUNT + index);
+   }
+
+   /**
+    * Calculates the ID of a task.
+    *
+    * @param projectID parent project ID
+    * @param index task index within the project
+    * @return task ID
+    */
+   private int getTaskID(int projectID, int index)
+   {
+      return ((projectID - 1) * TASK_COUNT + index + 1);
+   }
+
+   /**
+    * Records the names of the tasks announced to a listener.
+    */
+   private static final class TaskListener extends DefaultProjectListener
+   {
+      /**
+       * {@inheritDoc}
+       */
+      @Override public void taskRead(Task task)
+      {
+         m_tasks.add(task.getUniqueID() + " " + task.getName());
+      }
+
+      /**
+       * Retrieve the tasks announced to this listener.
+       *
+       * @return task unique IDs and names
+       */
+      public List<String> getTasks()
+      {
+         return (m_tasks);
+      }
+
+      private List<String> m_tasks = new ArrayList<String>();
+   }
+
+   private JdbcDataSource m_dataSource;
+   private Connection m_connection;
+   private ExecutorService m_executor;
+
+   private static final int PROJECT_COUNT = 4;
+   private static final int WBS_COUNT = 5;
+   private static final int TASK_COUNT = 25;
+   private static final int RESOURCE_COUNT = 6;
+   private static final int WBS_ID_BASE = 1000;
+
+   private static final String CALENDAR_DATA = "(0||CalendarData()((0||DaysOfWeek()((0||1()())(0||2()((0||0(s|08:00|f|12:00)())(0||1(s|13:00|f|17:00)())))(0||3()((0||0(s|08:00|f|12:00)())(0||1(s|13:00|f|17:00)())))(0||4()((0||0(s|08:00|f|12:00)())(0||1(s|13:00|f|17:00)())))(0||5()((0||0(s|08:00|f|12:00)())(0||1(s|13:00|f|17:00)())))(0||6()((0||0(s|08:00|f|12:00)())(0||1(s|13:00|f|17:00)())))(0||7()())))(0||Exceptions()((0||0(d|40909)())(0||1(d|41268)())))))";
+}
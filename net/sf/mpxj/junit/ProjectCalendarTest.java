@@ -26,8 +26,10 @@ package net.sf.mpxj.junit;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Iterator;
 
 import net.sf.mpxj.DateRange;
+import net.sf.mpxj.Day;
 import net.sf.mpxj.Duration;
 import net.sf.mpxj.ProjectCalendar;
 import net.sf.mpxj.ProjectCalendarException;
@@ -35,6 +37,7 @@ import net.sf.mpxj.ProjectFile;
 import net.sf.mpxj.Task;
 import net.sf.mpxj.TimeUnit;
 import net.sf.mpxj.mpp.MPPReader;
+import net.sf.mpxj.utility.DateUtility;
 
 /**
  * This class contains tests used to exercise ProjectCalendar functionality.
@@ -706,4 +709,134 @@ public class ProjectCalendarTest extends MPXJTestCase
       //
       assertNull(cal.getStartTime(df.parse("11/10/2003 00:00")));
    }
+
+   /**
+    * Test that changes made to a calendar after it has been used for
+    * calculations are reflected in subsequent calculations.
+    * 
+    * @throws Exception
+    */
+   public void testChangesAfterQuery() throws Exception
+   {
+      DateFormat df = new SimpleDateFormat("dd/MM/yyyy HH:mm");
+      DateFormat tf = new SimpleDateFormat("HH:mm");
+      ProjectFile file = new ProjectFile();
+      ProjectCalendar cal = file.addDefaultBaseCalendar();
+      Date startDate = df.parse("05/03/2012 00:00");
+      Date endDate = df.parse("02/04/2012 00:00");
+      Date taskStart = df.parse("05/03/2012 08:00");
+      Date tuesday = df.parse("06/03/2012 00:00");
+      Duration duration = Duration.getInstance(16, TimeUnit.HOURS);
+
+      assertEquals(160.0, cal.getWork(startDate, endDate, TimeUnit.HOURS).getDuration(), 0.01);
+      assertEquals("06/03/2012 17:00", df.format(cal.getDate(taskStart, duration, false)));
+      assertEquals("08:00", tf.format(cal.getStartTime(tuesday)));
+
+      //
+      // Remove the afternoon from Mondays
+      //
+      Iterator<DateRange> iter = cal.getCalendarHours(Day.MONDAY).iterator();
+      iter.next();
+      iter.next();
+      iter.remove();
+      assertEquals(144.0, cal.getWork(startDate, endDate, TimeUnit.HOURS).getDuration(), 0.01);
+      assertEquals("07/03/2012 12:00", df.format(cal.getDate(taskStart, duration, false)));
+
+      //
+      // Make a Tuesday non-working, then give it working hours
+      //
+      ProjectCalendarException exception = cal.addCalendarException(tuesday, tuesday);
+      assertEquals(136.0, cal.getWork(startDate, endDate, TimeUnit.HOURS).getDuration(), 0.01);
+      assertEquals("08/03/2012 12:00", df.format(cal.getDate(taskStart, duration, false)));
+      assertNull(cal.getStartTime(tuesday));
+
+      exception.addRange(new DateRange(DateUtility.getTime(8, 0), DateUtility.getTime(12, 0)));
+      assertEquals(140.0, cal.getWork(startDate, endDate, TimeUnit.HOURS).getDuration(), 0.01);
+      assertEquals("07/03/2012 17:00", df.format(cal.getDate(taskStart, duration, false)));
+      assertEquals("08:00", tf.format(cal.getStartTime(tuesday)));
+
+      exception.setRange(0, new DateRange(DateUtility.getTime(10, 0), DateUtility.getTime(12, 0)));
+      assertEquals(138.0, cal.getWork(startDate, endDate, TimeUnit.HOURS).getDuration(), 0.01);
+      assertEquals("08/03/2012 10:00", df.format(cal.getDate(taskStart, duration, false)));
+      assertEquals("10:00", tf.format(cal.getStartTime(tuesday)));
+   }
+
+   /**
+    * Test that changes made to a base calendar after a derived calendar
+    * has been used for calculations are reflected in the derived calendar.
+    * 
+    * @throws Exception
+    */
+   public void testBaseCalendarChanges() throws Exception
+   {
+      DateFormat df = new SimpleDateFormat("dd/MM/yyyy HH:mm");
+      ProjectFile file = new ProjectFile();
+      ProjectCalendar base = file.addDefaultBaseCalendar();
+      ProjectCalendar derived = file.addDefaultDerivedCalendar();
+      derived.setParent(base);
+      Date startDate = df.parse("05/03/2012 00:00");
+      Date endDate = df.parse("02/04/2012 00:00");
+      Date taskStart = df.parse("05/03/2012 08:00");
+      Date tuesday = df.parse("06/03/2012 00:00");
+      Duration duration = Duration.getInstance(40, TimeUnit.HOURS);
+
+      assertEquals(160.0, derived.getWork(startDate, endDate, TimeUnit.HOURS).getDuration(), 0.01);
+      assertEquals("09/03/2012 17:00", df.format(derived.getDate(taskStart, duration, false)));
+
+      //
+      // Remove the working hours from Fridays
+      //
+      Iterator<DateRange> iter = base.getCalendarHours(Day.FRIDAY).iterator();
+      while (iter.hasNext())
+      {
+         iter.next();
+         iter.remove();
+      }
+      assertEquals(128.0, derived.getWork(startDate, endDate, TimeUnit.HOURS).getDuration(), 0.01);
+      assertEquals("12/03/2012 17:00", df.format(derived.getDate(taskStart, duration, false)));
+
+      base.addCalendarException(tuesday, tuesday);
+      assertEquals(120.0, derived.getWork(startDate, endDate, TimeUnit.HOURS).getDuration(), 0.01);
+      assertEquals("13/03/2012 17:00", df.format(derived.getDate(taskStart, duration, false)));
+      assertNull(derived.getStartTime(tuesday));
+   }
+
+   /**
+    * Test that a calendar combining task and resource calendars holds
+    * its own copies of their exceptions, so that changes made to the
+    * copies are reflected in the combined calendar's calculations.
+    * 
+    * @throws Exception
+    */
+   public void testCombinedCalendarChanges() throws Exception
+   {
+      DateFormat df = new SimpleDateFormat("dd/MM/yyyy HH:mm");
+      ProjectFile file = new ProjectFile();
+      ProjectCalendar taskCalendar = file.addDefaultBaseCalendar();
+      ProjectCalendar resourceCalendar = file.addDefaultBaseCalendar();
+      resourceCalendar.setResource(file.addResource());
+      Date wednesday = df.parse("07/03/2012 00:00");
+      ProjectCalendarException taskException = taskCalendar.addCalendarException(wednesday, wednesday);
+      Date startDate = df.parse("05/03/2012 00:00");
+      Date endDate = df.parse("02/04/2012 00:00");
+
+      ProjectCalendar combined = new ProjectCalendar(file, taskCalendar, resourceCalendar);
+      assertEquals(152.0, combined.getWork(startDate, endDate, TimeUnit.HOURS).getDuration(), 0.01);
+      assertNull(combined.getStartTime(wednesday));
+
+      ProjectCalendarException combinedException = combined.getCalendarExceptions().get(0);
+      assertNotSame(taskException, combinedException);
+      assertEquals(taskException.getFromDate(), combinedException.getFromDate());
+      assertEquals(taskException.getToDate(), combinedException.getToDate());
+
+      combinedException.addRange(new DateRange(DateUtility.getTime(8, 0), DateUtility.getTime(12, 0)));
+      assertEquals(156.0, combined.getWork(startDate, endDate, TimeUnit.HOURS).getDuration(), 0.01);
+      assertNotNull(combined.getStartTime(wednesday));
+      assertEquals(152.0, taskCalendar.getWork(startDate, endDate, TimeUnit.HOURS).getDuration(), 0.01);
+
+      taskException.addRange(ProjectCalendar.DEFAULT_WORKING_MORNING);
+      taskException.addRange(ProjectCalendar.DEFAULT_WORKING_AFTERNOON);
+      assertEquals(160.0, taskCalendar.getWork(startDate, endDate, TimeUnit.HOURS).getDuration(), 0.01);
+      assertEquals(156.0, combined.getWork(startDate, endDate, TimeUnit.HOURS).getDuration(), 0.01);
+   }
 }
@@ -0,0 +1,260 @@
+/*
+ * file:       ProjectEntityListTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2012
+ * date:       18/10/2012
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.Resource;
+import net.sf.mpxj.Task;
+
+/**
+ * Tests the lists used by ProjectFile to hold entities, by applying
+ * the same operations to an ArrayList and comparing the results.
+ */
+public class ProjectEntityListTest extends MPXJTestCase
+{
+   /**
+    * Test removing an entity which appears in the list more than once.
+    */
+   public void testDuplicates()
+   {
+      ProjectFile file = new ProjectFile();
+      Task b = file.addTask();
+      Task c = file.addTask();
+
+      List<Task> list = file.getAllTasks();
+      list.clear();
+      List<Task> expected = new ArrayList<Task>();
+
+      for (List<Task> target : getLists(list, expected))
+      {
+         target.add(c);
+         target.add(c);
+         target.add(2, b);
+         target.remove(c);
+         target.add(c);
+         target.remove(c);
+      }
+
+      assertEquals(expected, list);
+      assertEquals(0, list.indexOf(b));
+      assertEquals(1, list.indexOf(c));
+   }
+
+   /**
+    * Test removing resources, which are equal to each other when
+    * they have the same ID.
+    */
+   public void testEquality()
+   {
+      ProjectFile file = new ProjectFile();
+      Resource r1 = file.addResource();
+      Resource r2 = file.addResource();
+      Resource r3 = file.addResource();
+      r1.setID(Integer.valueOf(1));
+      r2.setID(Integer.valueOf(2));
+      r3.setID(Integer.valueOf(1));
+
+      List<Resource> list = file.getAllResources();
+      List<Resource> expected = new ArrayList<Resource>(list);
+      assertTrue(list.remove(r3));
+      assertTrue(expected.remove(r3));
+
+      assertEquals(2, list.size());
+      assertSame(expected.get(0), list.get(0));
+      assertSame(expected.get(1), list.get(1));
+   }
+
+   /**
+    * Test random sequences of operations, using a small set of tasks
+    * so that the lists contain duplicates. Iteration is interleaved
+    * with calls to get and set, which compact the list while the
+    * iterator is in use.
+    */
+   public void testRandomOperations()
+   {
+      ProjectFile file = new ProjectFile();
+      Task[] tasks = new Task[6];
+      for (int loop = 0; loop < tasks.length; loop++)
+      {
+         tasks[loop] = file.addTask();
+      }
+
+      Random random = new Random(1);
+      List<Task> list = file.getAllTasks();
+      for (int loop = 0; loop < 3000; loop++)
+      {
+         list.clear();
+         List<Task> expected = new ArrayList<Task>();
+
+         int count = random.nextInt(30);
+         for (int index = 0; index < count; index++)
+         {
+            Task task = tasks[random.nextInt(tasks.length)];
+            list.add(task);
+            expected.add(task);
+         }
+
+         for (int operation = 0; operation < 40; operation++)
+         {
+            Task task = tasks[random.nextInt(tasks.length)];
+            int index = expected.isEmpty() ? 0 : random.nextInt(expected.size());
+
+            switch (random.nextInt(8))
+            {
+               case 0:
+               {
+                  list.add(task);
+                  expected.add(task);
+                  break;
+               }
+
+               case 1:
+               {
+                  list.add(index, task);
+                  expected.add(index, task);
+                  break;
+               }
+
+               case 2:
+               {
+                  assertEquals(expected.remove(task), list.remove(task));
+                  break;
+               }
+
+               case 3:
+               {
+                  if (!expected.isEmpty())
+                  {
+                     assertSame(expected.remove(index), list.remove(index));
+                  }
+                  break;
+               }
+
+               case 4:
+               {
+                  if (!expected.isEmpty())
+                  {
+                     assertSame(expected.set(index, task), list.set(index, task));
+                  }
+                  break;
+               }
+
+               case 5:
+               {
+                  assertEquals(expected.contains(task), list.contains(task));
+                  assertEquals(expected.indexOf(task), list.indexOf(task));
+                  break;
+               }
+
+               default:
+               {
+                  iterate(random, tasks, list, expected);
+                  break;
+               }
+            }
+
+            assertEquals(expected, list);
+         }
+      }
+   }
+
+   /**
+    * Iterate over both lists, removing some entries through the
+    * iterators, and reading or replacing entries by position
+    * part way through.
+    *
+    * @param random random number generator
+    * @param tasks tasks used to replace entries
+    * @param list list under test
+    * @param expected reference list
+    */
+   private void iterate(Random random, Task[] tasks, List<Task> list, List<Task> expected)
+   {
+      Iterator<Task> iter = list.iterator();
+      Iterator<Task> expectedIter = expected.iterator();
+      while (expectedIter.hasNext())
+      {
+         assertTrue(iter.hasNext());
+         assertSame(expectedIter.next(), iter.next());
+
+         switch (random.nextInt(4))
+         {
+            case 0:
+            {
+               iter.remove();
+               expectedIter.remove();
+               break;
+            }
+
+            case 1:
+            {
+               if (!expected.isEmpty())
+               {
+                  int index = random.nextInt(expected.size());
+                  assertSame(expected.get(index), list.get(index));
+               }
+               break;
+            }
+
+            case 2:
+            {
+               if (!expected.isEmpty())
+               {
+                  int index = random.nextInt(expected.size());
+                  Task task = tasks[random.nextInt(tasks.length)];
+                  assertSame(expected.set(index, task), list.set(index, task));
+               }
+               break;
+            }
+
+            default:
+            {
+               break;
+            }
+         }
+      }
+      assertFalse(iter.hasNext());
+   }
+
+   /**
+    * Retrieve a pair of lists, so the same operations can be
+    * applied to each.
+    *
+    * @param list list under test
+    * @param expected reference list
+    * @return list of lists
+    */
+   private List<List<Task>> getLists(List<Task> list, List<Task> expected)
+   {
+      List<List<Task>> result = new ArrayList<List<Task>>();
+      result.add(list);
+      result.add(expected);
+      return (result);
+   }
+}
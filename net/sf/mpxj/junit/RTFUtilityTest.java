@@ -0,0 +1,107 @@
+/*
+ * file:       RTFUtilityTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2012
+ * date:       18/10/2012
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import net.sf.mpxj.utility.RTFUtility;
+
+/**
+ * Tests the removal of RTF formatting from notes.
+ */
+public class RTFUtilityTest extends MPXJTestCase
+{
+   /**
+    * Test a note in the form written by MS Project.
+    */
+   public void testProjectNote()
+   {
+      String text = "{\\rtf1\\ansi\\ansicpg1252\\deff0\\deflang1033{\\fonttbl{\\f0\\fswiss\\fcharset0 Arial;}}\r\n{\\*\\generator Msftedit 5.41.15.1507;}\\viewkind4\\uc1\\pard\\f0\\fs20 This is a note\\par\r\nSecond line\\par\r\n}\r\n";
+      assertEquals("This is a note\nSecond line\n", m_rtf.strip(text));
+   }
+
+   /**
+    * Test that destination groups which are not part of the document
+    * text are skipped.
+    */
+   public void testDestinations()
+   {
+      assertEquals(" shown  end", m_rtf.strip("{\\rtf1{\\*\\unknown hidden} shown {\\info{\\title T}} end}"));
+      assertEquals("text", m_rtf.strip("{\\rtf1{\\fonttbl{\\f0 Arial;}}{\\colortbl;\\red255\\green0\\blue0;}{\\stylesheet{\\s0 Normal;}}text}"));
+      assertEquals("ab", m_rtf.strip("{\\rtf1 a{\\pict\\wmetafile8 0a0b0c}b}"));
+   }
+
+   /**
+    * Test hex escapes, decoded using the code page of the current language.
+    */
+   public void testHexEscapes()
+   {
+      assertEquals("Caf\u00E9\n", m_rtf.strip("{\\rtf1\\ansi Caf\\'e9\\par}"));
+      assertEquals("\u041F\u0440\u0438\n", m_rtf.strip("{\\rtf1\\deflang1049 \\'cf\\'f0\\'e8\\par}"));
+      assertEquals("\u65E5\u672C", m_rtf.strip("{\\rtf1\\deflang1041 \\'93\\'fa\\'96\\'7b}"));
+   }
+
+   /**
+    * Test Unicode characters, and the skipping of their
+    * alternative representations.
+    */
+   public void testUnicode()
+   {
+      assertEquals("A\u20ACB\u20ACC", m_rtf.strip("{\\rtf1\\uc1 A\\u8364?B\\uc2\\u8364??C}"));
+      assertEquals("\u20ACx", m_rtf.strip("{\\rtf1\\uc1\\u8364\\'80x}"));
+      assertEquals("\uFFFD", m_rtf.strip("{\\rtf1\\u-3?}"));
+      assertEquals("\u20AC?", m_rtf.strip("{\\rtf1{\\uc0\\u8364}?}"));
+   }
+
+   /**
+    * Test escaped characters.
+    */
+   public void testEscapes()
+   {
+      assertEquals("{x} a\\b", m_rtf.strip("{\\rtf1 \\{x\\} a\\\\b}"));
+      assertEquals("a\u00A0b-c", m_rtf.strip("{\\rtf1 a\\~b\\_c}"));
+      assertEquals("a\tb\nc", m_rtf.strip("{\\rtf1 a\\tab b\\line c}"));
+   }
+
+   /**
+    * Test that text without any formatting is unchanged.
+    */
+   public void testPlainText()
+   {
+      assertEquals("", m_rtf.strip(""));
+      assertEquals("Plain text note", m_rtf.strip("Plain text note"));
+   }
+
+   /**
+    * Test that truncated input does not cause an exception.
+    */
+   public void testTruncated()
+   {
+      assertEquals("trunc", m_rtf.strip("{\\rtf1 trunc\\'e"));
+      assertEquals("trunc", m_rtf.strip("{\\rtf1 trunc\\"));
+      assertEquals("trunc\n", m_rtf.strip("{\\rtf1 trunc\\par"));
+      assertEquals("", m_rtf.strip("{\\rtf1{\\*\\generator"));
+      assertEquals("a", m_rtf.strip("{\\rtf1 a\\bin20 xyz"));
+   }
+
+   private RTFUtility m_rtf = new RTFUtility();
+}
@@ -0,0 +1,217 @@
+/*
+ * file:       TimephasedWorkArrayTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2012
+ * date:       18/10/2012
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import net.sf.mpxj.AbstractTimephasedWorkNormaliser;
+import net.sf.mpxj.Duration;
+import net.sf.mpxj.ProjectCalendar;
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.TimeUnit;
+import net.sf.mpxj.TimephasedWork;
+import net.sf.mpxj.TimephasedWorkArray;
+import net.sf.mpxj.TimephasedWorkNormaliser;
+import net.sf.mpxj.mpp.MPPTimephasedBaselineWorkNormaliser;
+import net.sf.mpxj.mpp.MPPTimephasedWorkNormaliser;
+import net.sf.mpxj.mspdi.MSPDITimephasedWorkNormaliser;
+
+/**
+ * Tests the compact representation of timephased work, and the
+ * normalisers which operate on it.
+ */
+public class TimephasedWorkArrayTest extends MPXJTestCase
+{
+   /**
+    * Test that converting a list to an array and back again
+    * preserves every item.
+    */
+   public void testRoundTrip()
+   {
+      Random random = new Random(1);
+      for (int loop = 0; loop < 100; loop++)
+      {
+         List<TimephasedWork> list = createList(random, random.nextInt(3));
+         TimephasedWorkArray data = new TimephasedWorkArray(list);
+         assertEquals(list.size(), data.size());
+         assertEquals(format(list), format(data.toList()));
+
+         TimephasedWorkArray copy = new TimephasedWorkArray(data, 1, 1);
+         assertEquals(format(list), format(copy.toList()));
+      }
+
+      List<TimephasedWork> list = new LinkedList<TimephasedWork>();
+      list.add(new TimephasedWork());
+      assertEquals(format(list), format(new TimephasedWorkArray(list).toList()));
+   }
+
+   /**
+    * Test that the list based and array based normalisation methods
+    * produce the same results, and that these results match those
+    * produced by the original list based normalisers. The digest was
+    * calculated by running the same cases through the normalisers
+    * before they were converted to operate on TimephasedWorkArray.
+    *
+    * @throws Exception
+    */
+   public void testNormalise() throws Exception
+   {
+      ProjectFile file = new ProjectFile();
+      ProjectCalendar calendar = file.addDefaultBaseCalendar();
+      calendar.addCalendarException(getDate(2012, 5, 12, 0, 0), getDate(2012, 5, 13, 23, 59));
+
+      AbstractTimephasedWorkNormaliser[] normalisers =
+      {
+         new MPPTimephasedWorkNormaliser(),
+         new MPPTimephasedBaselineWorkNormaliser(),
+         new MSPDITimephasedWorkNormaliser()
+      };
+
+      Random random = new Random(1);
+      MessageDigest digest = MessageDigest.getInstance("MD5");
+      for (int loop = 0; loop < 2000; loop++)
+      {
+         int index = random.nextInt(normalisers.length);
+         List<TimephasedWork> source = createList(random, index);
+
+         LinkedList<TimephasedWork> list = new LinkedList<TimephasedWork>(source);
+         TimephasedWorkNormaliser normaliser = normalisers[index];
+         normaliser.normalise(calendar, list);
+
+         TimephasedWorkArray data = new TimephasedWorkArray(source);
+         normalisers[index].normalise(calendar, data);
+
+         String result = format(list);
+         assertEquals(result, format(data.toList()));
+         digest.update(("case " + loop + " " + index + "\n" + result).getBytes("UTF-8"));
+      }
+
+      assertEquals(NORMALISED_DIGEST, String.format("%032x", new BigInteger(1, digest.digest())));
+   }
+
+   /**
+    * Create a list of contiguous timephased work items with random
+    * durations and amounts, in the form read from MPP and MSPDI files.
+    *
+    * @param random random number generator
+    * @param type 0 and 1 for MPP data, 2 for MSPDI data
+    * @return list of timephased work items
+    */
+   private List<TimephasedWork> createList(Random random, int type)
+   {
+      List<TimephasedWork> result = new LinkedList<TimephasedWork>();
+      long time = getDate(2012, 5, 1 + random.nextInt(20), 8 + random.nextInt(9), random.nextBoolean() ? 0 : 30).getTime();
+      int count = 1 + random.nextInt(6);
+      for (int loop = 0; loop < count; loop++)
+      {
+         long span = (random.nextInt(4) == 0 ? random.nextInt(10) * HOUR : random.nextInt(12) * DAY + random.nextInt(9) * HOUR);
+         TimephasedWork item = new TimephasedWork();
+         item.setStart(new Date(time));
+         item.setFinish(new Date(time + span));
+         item.setTotalAmount(Duration.getInstance(random.nextInt(5) == 0 ? 0 : random.nextInt(4000), TimeUnit.MINUTES));
+         if (type != 2 || random.nextBoolean())
+         {
+            double[] amountPerDay =
+            {
+               480,
+               240,
+               0,
+               random.nextInt(600)
+            };
+            item.setAmountPerDay(Duration.getInstance(amountPerDay[random.nextInt(amountPerDay.length)], TimeUnit.MINUTES));
+         }
+         item.setModified(random.nextBoolean());
+         result.add(item);
+         time = time + span + (random.nextInt(3) == 0 ? 15 * HOUR : 0);
+      }
+      return (result);
+   }
+
+   /**
+    * Create a date.
+    *
+    * @param year year
+    * @param month zero based month
+    * @param day day of month
+    * @param hour hour of day
+    * @param minute minute
+    * @return Date instance
+    */
+   private Date getDate(int year, int month, int day, int hour, int minute)
+   {
+      Calendar cal = Calendar.getInstance();
+      cal.clear();
+      cal.set(year, month, day, hour, minute);
+      return (cal.getTime());
+   }
+
+   /**
+    * Create a text representation of a list of timephased work items
+    * which is independent of the default time zone.
+    *
+    * @param list list of timephased work items
+    * @return text representation
+    */
+   private String format(List<TimephasedWork> list)
+   {
+      SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+      StringBuilder sb = new StringBuilder();
+      for (TimephasedWork item : list)
+      {
+         sb.append(item.getStart() == null ? "null" : df.format(item.getStart()));
+         sb.append(' ');
+         sb.append(item.getFinish() == null ? "null" : df.format(item.getFinish()));
+         sb.append(' ');
+         sb.append(format(item.getTotalAmount()));
+         sb.append(' ');
+         sb.append(format(item.getAmountPerDay()));
+         sb.append(' ');
+         sb.append(item.getModified());
+         sb.append('\n');
+      }
+      return (sb.toString());
+   }
+
+   /**
+    * Create a text representation of a duration.
+    *
+    * @param duration duration
+    * @return text representation
+    */
+   private String format(Duration duration)
+   {
+      return (duration == null ? "null" : duration.getDuration() + " " + duration.getUnits());
+   }
+
+   private static final long HOUR = 60 * 60 * 1000L;
+   private static final long DAY = 24 * HOUR;
+   private static final String NORMALISED_DIGEST = "45c9da7e5b45d9a4788d7fc62fdfc29a";
+}
@@ -0,0 +1,310 @@
+/*
+ * file:       TokenizerTest.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2012
+ * date:       18/10/2012
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.junit;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+
+import net.sf.mpxj.utility.InputStreamTokenizer;
+import net.sf.mpxj.utility.ReaderTokenizer;
+import net.sf.mpxj.utility.Tokenizer;
+
+/**
+ * Tests the block buffered tokenizer implementations against a simple
+ * reference implementation which reads one character at a time.
+ */
+public class TokenizerTest extends MPXJTestCase
+{
+   /**
+    * Test tokenizing quoted fields, escaped quotes and line endings.
+    *
+    * @throws Exception
+    */
+   public void testTokens() throws Exception
+   {
+      assertEquals("-3:a|-3:b c|10:|-3:d\"e|-3:f|-1:|", tokenize(new ReaderTokenizer(new StringReader("a,\"b c\",\r\n\"d\"\"e\",f")), ','));
+      assertEquals("-3:a,b|-3:c|10:|-1:|", tokenize(new ReaderTokenizer(new StringReader("a,b\tc\r\n")), '\t'));
+   }
+
+   /**
+    * Test that randomly generated input is tokenized identically by
+    * the reference implementation, the stream and reader based
+    * tokenizers, and a tokenizer which only implements the single
+    * character read method. Some inputs are long enough to require
+    * the tokenizer's window to be refilled and enlarged.
+    *
+    * @throws Exception
+    */
+   public void testRandomInput() throws Exception
+   {
+      Random random = new Random(1);
+      String alphabet = "ab,\"\r\n\t";
+      for (int loop = 0; loop < 1000; loop++)
+      {
+         int length = random.nextInt(loop % 10 == 0 ? 40000 : 60);
+         StringBuilder sb = new StringBuilder();
+         for (int index = 0; index < length; index++)
+         {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+         }
+         String text = sb.toString();
+         char delimiter = (loop % 2 == 0 ? ',' : '\t');
+
+         String expected = tokenize(new ReferenceTokenizer(text, delimiter));
+         assertEquals(expected, tokenize(new InputStreamTokenizer(new ByteArrayInputStream(text.getBytes("ISO-8859-1"))), delimiter));
+         assertEquals(expected, tokenize(new ReaderTokenizer(new StringReader(text)), delimiter));
+         assertEquals(expected, tokenize(new CharacterTokenizer(text), delimiter));
+      }
+   }
+
+   /**
+    * Create a text representation of the tokens read by a tokenizer.
+    *
+    * @param tokenizer tokenizer
+    * @param delimiter delimiter character
+    * @return token types and text
+    * @throws IOException
+    */
+   private String tokenize(Tokenizer tokenizer, char delimiter) throws IOException
+   {
+      tokenizer.setDelimiter(delimiter);
+      StringBuilder sb = new StringBuilder();
+      int type;
+      do
+      {
+         type = tokenizer.nextToken();
+         sb.append(type);
+         sb.append(':');
+         sb.append(tokenizer.getToken());
+         sb.append('|');
+      }
+      while (type != Tokenizer.TT_EOF);
+      return (sb.toString());
+   }
+
+   /**
+    * Create a text representation of the tokens read by the
+    * reference tokenizer.
+    *
+    * @param tokenizer reference tokenizer
+    * @return token types and text
+    */
+   private String tokenize(ReferenceTokenizer tokenizer)
+   {
+      StringBuilder sb = new StringBuilder();
+      int type;
+      do
+      {
+         type = tokenizer.nextToken();
+         sb.append(type);
+         sb.append(':');
+         sb.append(tokenizer.getToken());
+         sb.append('|');
+      }
+      while (type != Tokenizer.TT_EOF);
+      return (sb.toString());
+   }
+
+   /**
+    * Tokenizer which only implements the single character read method,
+    * as subclasses written before the block read method was added do.
+    */
+   private static final class CharacterTokenizer extends Tokenizer
+   {
+      /**
+       * Constructor.
+       *
+       * @param text text to tokenize
+       */
+      public CharacterTokenizer(String text)
+      {
+         m_text = text;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override protected int read()
+      {
+         return (m_index < m_text.length() ? m_text.charAt(m_index++) : -1);
+      }
+
+      private String m_text;
+      private int m_index;
+   }
+
+   /**
+    * Reference implementation, which reads one character at a time
+    * and builds each token in a buffer, as the tokenizer did before
+    * it was converted to scan a block buffered window.
+    */
+   private static final class ReferenceTokenizer
+   {
+      /**
+       * Constructor.
+       *
+       * @param text text to tokenize
+       * @param delimiter delimiter character
+       */
+      public ReferenceTokenizer(String text, char delimiter)
+      {
+         m_text = text;
+         m_delimiter = delimiter;
+      }
+
+      /**
+       * Retrieve the next token.
+       *
+       * @return token type
+       */
+      public int nextToken()
+      {
+         int c;
+         int nextc = -1;
+         boolean quoted = false;
+         int result = m_next;
+         m_next = 0;
+         m_buffer.setLength(0);
+
+         while (result == 0)
+         {
+            if (nextc != -1)
+            {
+               c = nextc;
+               nextc = -1;
+            }
+            else
+            {
+               c = read();
+            }
+
+            if (c == Tokenizer.TT_EOF)
+            {
+               if (m_buffer.length() != 0)
+               {
+                  result = Tokenizer.TT_WORD;
+                  m_next = Tokenizer.TT_EOF;
+               }
+               else
+               {
+                  result = Tokenizer.TT_EOF;
+               }
+            }
+            else
+            {
+               if (c == Tokenizer.TT_EOL)
+               {
+                  int length = m_buffer.length();
+                  if (length != 0 && m_buffer.charAt(length - 1) == '\r')
+                  {
+                     --length;
+                     m_buffer.setLength(length);
+                  }
+
+                  if (length == 0)
+                  {
+                     result = Tokenizer.TT_EOL;
+                  }
+                  else
+                  {
+                     result = Tokenizer.TT_WORD;
+                     m_next = Tokenizer.TT_EOL;
+                  }
+               }
+               else
+               {
+                  if (c == '"')
+                  {
+                     if (quoted == false && m_buffer.length() == 0)
+                     {
+                        quoted = true;
+                     }
+                     else
+                     {
+                        if (quoted == false)
+                        {
+                           m_buffer.append((char) c);
+                        }
+                        else
+                        {
+                           nextc = read();
+                           if (nextc == '"')
+                           {
+                              m_buffer.append((char) c);
+                              nextc = -1;
+                           }
+                           else
+                           {
+                              quoted = false;
+                           }
+                        }
+                     }
+                  }
+                  else
+                  {
+                     if (c == m_delimiter && quoted == false)
+                     {
+                        result = Tokenizer.TT_WORD;
+                     }
+                     else
+                     {
+                        m_buffer.append((char) c);
+                     }
+                  }
+               }
+            }
+         }
+
+         return (result);
+      }
+
+      /**
+       * Retrieve the text of the last token.
+       *
+       * @return token text
+       */
+      public String getToken()
+      {
+         return (m_buffer.toString());
+      }
+
+      /**
+       * Read the next character.
+       *
+       * @return next character, or -1 at the end of the text
+       */
+      private int read()
+      {
+         return (m_index < m_text.length() ? m_text.charAt(m_index++) : -1);
+      }
+
+      private String m_text;
+      private char m_delimiter;
+      private int m_index;
+      private int m_next;
+      private StringBuilder m_buffer = new StringBuilder();
+   }
+}
@@ -61,7 +61,7 @@ import net.sf.mpxj.WorkContour;
 import net.sf.mpxj.WorkGroup;
 import net.sf.mpxj.utility.NumberUtility;
 import net.sf.mpxj.utility.Pair;
-import net.sf.mpxj.utility.RTFUtility;
+import net.sf.mpxj.utility.RTFNotesLoader;
 
 /**
  * This class implements retrieval of data from a project database 
@@ -587,11 +587,12 @@ abstract class MPD9AbstractReader
          String notes = row.getString("RES_RTF_NOTES");
          if (notes != null)
          {
+            resource.setNotes(notes);
+
             if (m_preserveNoteFormatting == false)
             {
-               notes = m_rtf.strip(notes);
+               resource.setFieldValueLoader(new RTFNotesLoader(null), ResourceField.NOTES);
             }
-            resource.setNotes(notes);
          }
 
          resource.setResourceCalendar(m_project.getCalendarByUniqueID(row.getInteger("RES_CAL_UID")));
@@ -1044,11 +1045,12 @@ abstract class MPD9AbstractReader
          String notes = row.getString("TASK_RTF_NOTES");
          if (notes != null)
          {
+            task.setNotes(notes);
+
             if (m_preserveNoteFormatting == false)
             {
-               notes = m_rtf.strip(notes);
+               task.setFieldValueLoader(new RTFNotesLoader(null), TaskField.NOTES);
             }
-            task.setNotes(notes);
          }
 
          //
@@ -1198,11 +1200,12 @@ abstract class MPD9AbstractReader
          String notes = row.getString("ASSN_RTF_NOTES");
          if (notes != null)
          {
+            assignment.setNotes(notes);
+
             if (m_preserveNoteFormatting == false)
             {
-               notes = m_rtf.strip(notes);
+               assignment.setFieldValueLoader(new RTFNotesLoader(null), AssignmentField.NOTES);
             }
-            assignment.setNotes(notes);
          }
 
          m_project.fireAssignmentReadEvent(assignment);
@@ -1335,7 +1338,6 @@ abstract class MPD9AbstractReader
 
    private boolean m_preserveNoteFormatting;
    private boolean m_autoWBS = true;
-   private RTFUtility m_rtf = new RTFUtility();
 
    private Map<Integer, ProjectCalendar> m_calendarMap = new HashMap<Integer, ProjectCalendar>();
    private List<Pair<ProjectCalendar, Integer>> m_baseCalendarReferences = new LinkedList<Pair<ProjectCalendar, Integer>>();
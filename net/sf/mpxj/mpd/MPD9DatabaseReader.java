@@ -29,6 +29,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -44,6 +45,7 @@ import net.sf.mpxj.ProjectFile;
 import net.sf.mpxj.SubProject;
 import net.sf.mpxj.Task;
 import net.sf.mpxj.listener.ProjectListener;
+import net.sf.mpxj.utility.ColumnTable;
 import net.sf.mpxj.utility.NumberUtility;
 
 /**
@@ -78,8 +80,8 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
       {
          Map<Integer, String> result = new HashMap<Integer, String>();
 
-         List<ResultSetRow> rows = getRows("SELECT PROJ_ID, PROJ_NAME FROM MSP_PROJECTS");
-         for (ResultSetRow row : rows)
+         List<ColumnRow> rows = getRows("SELECT PROJ_ID, PROJ_NAME FROM MSP_PROJECTS");
+         for (ColumnRow row : rows)
          {
             processProjectListItem(result, row);
          }
@@ -165,7 +167,7 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     */
    private void processProjectHeader() throws SQLException
    {
-      List<ResultSetRow> rows = getRows("SELECT * FROM MSP_PROJECTS WHERE PROJ_ID=?", m_projectID);
+      List<ColumnRow> rows = getRows("SELECT * FROM MSP_PROJECTS WHERE PROJ_ID=?", m_projectID);
       if (rows.isEmpty() == false)
       {
          processProjectHeader(rows.get(0));
@@ -179,7 +181,7 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     */
    private void processCalendars() throws SQLException
    {
-      for (ResultSetRow row : getRows("SELECT * FROM MSP_CALENDARS WHERE PROJ_ID=?", m_projectID))
+      for (ColumnRow row : getRows("SELECT * FROM MSP_CALENDARS WHERE PROJ_ID=?", m_projectID))
       {
          processCalendar(row);
       }
@@ -208,9 +210,9 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     * @param calendar project calendar
     * @param calendarData hours and exception rows for this calendar
     */
-   private void processCalendarData(ProjectCalendar calendar, List<ResultSetRow> calendarData)
+   private void processCalendarData(ProjectCalendar calendar, List<ColumnRow> calendarData)
    {
-      for (ResultSetRow row : calendarData)
+      for (ColumnRow row : calendarData)
       {
          processCalendarData(calendar, row);
       }
@@ -223,7 +225,7 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     */
    private void processResources() throws SQLException
    {
-      for (ResultSetRow row : getRows("SELECT * FROM MSP_RESOURCES WHERE PROJ_ID=?", m_projectID))
+      for (ColumnRow row : getRows("SELECT * FROM MSP_RESOURCES WHERE PROJ_ID=?", m_projectID))
       {
          processResource(row);
       }
@@ -238,7 +240,7 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
    {
       if (m_hasResourceBaselines)
       {
-         for (ResultSetRow row : getRows("SELECT * FROM MSP_RESOURCE_BASELINES WHERE PROJ_ID=?", m_projectID))
+         for (ColumnRow row : getRows("SELECT * FROM MSP_RESOURCE_BASELINES WHERE PROJ_ID=?", m_projectID))
          {
             processResourceBaseline(row);
          }
@@ -252,7 +254,7 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     */
    private void processTasks() throws SQLException
    {
-      for (ResultSetRow row : getRows("SELECT * FROM MSP_TASKS WHERE PROJ_ID=?", m_projectID))
+      for (ColumnRow row : getRows("SELECT * FROM MSP_TASKS WHERE PROJ_ID=?", m_projectID))
       {
          processTask(row);
       }
@@ -267,7 +269,7 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
    {
       if (m_hasTaskBaselines)
       {
-         for (ResultSetRow row : getRows("SELECT * FROM MSP_TASK_BASELINES WHERE PROJ_ID=?", m_projectID))
+         for (ColumnRow row : getRows("SELECT * FROM MSP_TASK_BASELINES WHERE PROJ_ID=?", m_projectID))
          {
             processTaskBaseline(row);
          }
@@ -281,7 +283,7 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     */
    private void processLinks() throws SQLException
    {
-      for (ResultSetRow row : getRows("SELECT * FROM MSP_LINKS WHERE PROJ_ID=?", m_projectID))
+      for (ColumnRow row : getRows("SELECT * FROM MSP_LINKS WHERE PROJ_ID=?", m_projectID))
       {
          processLink(row);
       }
@@ -294,7 +296,7 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     */
    private void processAssignments() throws SQLException
    {
-      for (ResultSetRow row : getRows("SELECT * FROM MSP_ASSIGNMENTS WHERE PROJ_ID=?", m_projectID))
+      for (ColumnRow row : getRows("SELECT * FROM MSP_ASSIGNMENTS WHERE PROJ_ID=?", m_projectID))
       {
          processAssignment(row);
       }
@@ -309,7 +311,7 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
    {
       if (m_hasAssignmentBaselines)
       {
-         for (ResultSetRow row : getRows("SELECT * FROM MSP_ASSIGNMENT_BASELINES WHERE PROJ_ID=?", m_projectID))
+         for (ColumnRow row : getRows("SELECT * FROM MSP_ASSIGNMENT_BASELINES WHERE PROJ_ID=?", m_projectID))
          {
             processAssignmentBaseline(row);
          }
@@ -371,7 +373,7 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     */
    private void processTextFields() throws SQLException
    {
-      for (ResultSetRow row : getRows("SELECT * FROM MSP_TEXT_FIELDS WHERE PROJ_ID=?", m_projectID))
+      for (ColumnRow row : getRows("SELECT * FROM MSP_TEXT_FIELDS WHERE PROJ_ID=?", m_projectID))
       {
          processTextField(row);
       }
@@ -384,7 +386,7 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     */
    private void processNumberFields() throws SQLException
    {
-      for (ResultSetRow row : getRows("SELECT * FROM MSP_NUMBER_FIELDS WHERE PROJ_ID=?", m_projectID))
+      for (ColumnRow row : getRows("SELECT * FROM MSP_NUMBER_FIELDS WHERE PROJ_ID=?", m_projectID))
       {
          processNumberField(row);
       }
@@ -397,7 +399,7 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     */
    private void processFlagFields() throws SQLException
    {
-      for (ResultSetRow row : getRows("SELECT * FROM MSP_FLAG_FIELDS WHERE PROJ_ID=?", m_projectID))
+      for (ColumnRow row : getRows("SELECT * FROM MSP_FLAG_FIELDS WHERE PROJ_ID=?", m_projectID))
       {
          processFlagField(row);
       }
@@ -410,7 +412,7 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     */
    private void processDurationFields() throws SQLException
    {
-      for (ResultSetRow row : getRows("SELECT * FROM MSP_DURATION_FIELDS WHERE PROJ_ID=?", m_projectID))
+      for (ColumnRow row : getRows("SELECT * FROM MSP_DURATION_FIELDS WHERE PROJ_ID=?", m_projectID))
       {
          processDurationField(row);
       }
@@ -423,7 +425,7 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     */
    private void processDateFields() throws SQLException
    {
-      for (ResultSetRow row : getRows("SELECT * FROM MSP_DATE_FIELDS WHERE PROJ_ID=?", m_projectID))
+      for (ColumnRow row : getRows("SELECT * FROM MSP_DATE_FIELDS WHERE PROJ_ID=?", m_projectID))
       {
          processDateField(row);
       }
@@ -436,7 +438,7 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     */
    private void processOutlineCodeFields() throws SQLException
    {
-      for (ResultSetRow row : getRows("SELECT * FROM MSP_CODE_FIELDS WHERE PROJ_ID=?", m_projectID))
+      for (ColumnRow row : getRows("SELECT * FROM MSP_CODE_FIELDS WHERE PROJ_ID=?", m_projectID))
       {
          processOutlineCodeFields(row);
       }
@@ -453,12 +455,28 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
       Integer entityID = parentRow.getInteger("CODE_REF_UID");
       Integer outlineCodeEntityID = parentRow.getInteger("CODE_UID");
 
-      for (ResultSetRow row : getRows("SELECT * FROM MSP_OUTLINE_CODES WHERE CODE_UID=?", outlineCodeEntityID))
+      for (ColumnRow row : getRows("SELECT * FROM MSP_OUTLINE_CODES WHERE CODE_UID=?", outlineCodeEntityID))
       {
          processOutlineCodeField(entityID, row);
       }
    }
 
+   /**
+    * Prepares a query statement, applying the fetch size if one
+    * has been supplied.
+    * 
+    * @param sql query statement
+    * @throws SQLException
+    */
+   private void prepareStatement(String sql) throws SQLException
+   {
+      m_ps = m_connection.prepareStatement(sql);
+      if (m_fetchSize != 0)
+      {
+         m_ps.setFetchSize(m_fetchSize);
+      }
+   }
+
    /**
     * Retrieve a number of rows matching the supplied query. 
     * 
@@ -466,23 +484,15 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     * @return result set
     * @throws SQLException
     */
-   private List<ResultSetRow> getRows(String sql) throws SQLException
+   private List<ColumnRow> getRows(String sql) throws SQLException
    {
       allocateConnection();
 
       try
       {
-         List<ResultSetRow> result = new LinkedList<ResultSetRow>();
-
-         m_ps = m_connection.prepareStatement(sql);
+         prepareStatement(sql);
          m_rs = m_ps.executeQuery();
-         populateMetaData();
-         while (m_rs.next())
-         {
-            result.add(new ResultSetRow(m_rs, m_meta));
-         }
-
-         return (result);
+         return (createRows(ColumnTable.read(m_rs, getColumnNames())));
       }
 
       finally
@@ -500,24 +510,16 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     * @return result set
     * @throws SQLException
     */
-   private List<ResultSetRow> getRows(String sql, Integer var) throws SQLException
+   private List<ColumnRow> getRows(String sql, Integer var) throws SQLException
    {
       allocateConnection();
 
       try
       {
-         List<ResultSetRow> result = new LinkedList<ResultSetRow>();
-
-         m_ps = m_connection.prepareStatement(sql);
+         prepareStatement(sql);
          m_ps.setInt(1, NumberUtility.getInt(var));
          m_rs = m_ps.executeQuery();
-         populateMetaData();
-         while (m_rs.next())
-         {
-            result.add(new ResultSetRow(m_rs, m_meta));
-         }
-
-         return (result);
+         return (createRows(ColumnTable.read(m_rs, getColumnNames())));
       }
 
       finally
@@ -536,25 +538,17 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
     * @return result set
     * @throws SQLException
     */
-   private List<ResultSetRow> getRows(String sql, Integer var1, Integer var2) throws SQLException
+   private List<ColumnRow> getRows(String sql, Integer var1, Integer var2) throws SQLException
    {
       allocateConnection();
 
       try
       {
-         List<ResultSetRow> result = new LinkedList<ResultSetRow>();
-
-         m_ps = m_connection.prepareStatement(sql);
+         prepareStatement(sql);
          m_ps.setInt(1, NumberUtility.getInt(var1));
          m_ps.setInt(2, NumberUtility.getInt(var2));
          m_rs = m_ps.executeQuery();
-         populateMetaData();
-         while (m_rs.next())
-         {
-            result.add(new ResultSetRow(m_rs, m_meta));
-         }
-
-         return (result);
+         return (createRows(ColumnTable.read(m_rs, getColumnNames())));
       }
 
       finally
@@ -616,22 +610,36 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
    }
 
    /**
-    * Retrieves basic meta data from the result set.
+    * Retrieves the column names from the result set meta data.
     * 
+    * @return column names
     * @throws SQLException
     */
-   private void populateMetaData() throws SQLException
+   private String[] getColumnNames() throws SQLException
    {
-      m_meta.clear();
-
       ResultSetMetaData meta = m_rs.getMetaData();
-      int columnCount = meta.getColumnCount() + 1;
-      for (int loop = 1; loop < columnCount; loop++)
+      String[] result = new String[meta.getColumnCount()];
+      for (int loop = 0; loop < result.length; loop++)
       {
-         String name = meta.getColumnName(loop);
-         Integer type = Integer.valueOf(meta.getColumnType(loop));
-         m_meta.put(name, type);
+         result[loop] = meta.getColumnName(loop + 1);
       }
+      return (result);
+   }
+
+   /**
+    * Creates a row instance for each row in a table.
+    * 
+    * @param table table
+    * @return list of rows
+    */
+   private List<ColumnRow> createRows(ColumnTable table)
+   {
+      List<ColumnRow> result = new ArrayList<ColumnRow>(table.getSize());
+      for (int loop = 0; loop < table.getSize(); loop++)
+      {
+         result.add(new ColumnRow(table, loop));
+      }
+      return (result);
    }
 
    /**
@@ -655,6 +663,29 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
       queryDatabaseMetaData();
    }
 
+   /**
+    * Sets the number of rows the JDBC driver should retrieve from the
+    * database each time more rows are needed. A value of zero means that
+    * the driver's default is used.
+    * 
+    * @param fetchSize fetch size
+    */
+   public void setFetchSize(int fetchSize)
+   {
+      m_fetchSize = fetchSize;
+   }
+
+   /**
+    * Retrieves the number of rows the JDBC driver should retrieve from
+    * the database each time more rows are needed.
+    * 
+    * @return fetch size
+    */
+   public int getFetchSize()
+   {
+      return m_fetchSize;
+   }
+
    /**
     * Queries database meta data to check for the existence of 
     * specific tables.
@@ -706,7 +737,7 @@ public final class MPD9DatabaseReader extends MPD9AbstractReader
    private Connection m_connection;
    private PreparedStatement m_ps;
    private ResultSet m_rs;
-   private Map<String, Integer> m_meta = new HashMap<String, Integer>();
+   private int m_fetchSize;
    private List<ProjectListener> m_projectListeners;
    private boolean m_hasResourceBaselines;
    private boolean m_hasTaskBaselines;
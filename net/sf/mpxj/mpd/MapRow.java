@@ -161,7 +161,7 @@ class MapRow implements Row
     * @param name column name
     * @return column value
     */
-   private final Object getObject(String name)
+   protected Object getObject(String name)
    {
       if (m_map.containsKey(name) == false)
       {
@@ -25,10 +25,11 @@ package net.sf.mpxj.mpp;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.util.HashSet;
-import java.util.Map;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.TreeMap;
 
 import net.sf.mpxj.FieldType;
 
@@ -38,6 +39,10 @@ import net.sf.mpxj.FieldType;
  * The meta data allows the size of the Var2Data block to be determined,
  * along with the number of data items it contains, identifiers for each item,
  * and finally the offset of each item within the block.
+ * 
+ * The entries are held in arrays sorted by unique ID and type, allowing
+ * an entry to be located using a binary search without creating
+ * any objects.
  */
 abstract class AbstractVarMeta extends MPPComponent implements VarMeta
 {
@@ -69,12 +74,10 @@ abstract class AbstractVarMeta extends MPPComponent implements VarMeta
     */
    @Override public Integer[] getUniqueIdentifierArray()
    {
-      Integer[] result = new Integer[m_table.size()];
-      int index = 0;
-      for (Integer value : m_table.keySet())
+      Integer[] result = new Integer[m_uniqueIDs.length];
+      for (int index = 0; index < result.length; index++)
       {
-         result[index] = value;
-         ++index;
+         result[index] = Integer.valueOf(m_uniqueIDs[index]);
       }
       return (result);
    }
@@ -87,7 +90,7 @@ abstract class AbstractVarMeta extends MPPComponent implements VarMeta
     */
    @Override public Set<Integer> getUniqueIdentifierSet()
    {
-      return (m_table.keySet());
+      return (new IntegerSet(m_uniqueIDs, 0, m_uniqueIDs.length));
    }
 
    /**
@@ -103,10 +106,13 @@ abstract class AbstractVarMeta extends MPPComponent implements VarMeta
    {
       Integer result = null;
 
-      Map<Integer, Integer> map = m_table.get(id);
-      if (map != null && type != null)
+      if (id != null && type != null)
       {
-         result = map.get(type);
+         int index = getEntryIndex(id.intValue(), type.intValue());
+         if (index != -1)
+         {
+            result = Integer.valueOf(m_entryOffsets[index]);
+         }
       }
 
       return (result);
@@ -127,21 +133,40 @@ abstract class AbstractVarMeta extends MPPComponent implements VarMeta
    /**
     * {@inheritDoc}
     */
-   @Override public Set<Integer> getTypes(Integer id)
+   @Override public int getEntryCount()
    {
-      Set<Integer> result;
+      return (m_entryOffsets.length);
+   }
 
-      Map<Integer, Integer> map = m_table.get(id);
-      if (map != null)
-      {
-         result = map.keySet();
-      }
-      else
+   /**
+    * {@inheritDoc}
+    */
+   @Override public int getEntryIndex(int id, int type)
+   {
+      int result = Arrays.binarySearch(m_keys, getKey(id, type));
+      return (result < 0 ? -1 : result);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public int getEntryOffset(int index)
+   {
+      return (m_entryOffsets[index]);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public Set<Integer> getTypes(Integer id)
+   {
+      int start = getFirstEntryIndex(id.intValue());
+      int end = getFirstEntryIndex(id.intValue() + 1);
+      if (id.intValue() == Integer.MAX_VALUE)
       {
-         result = new HashSet<Integer>();
+         end = m_keys.length;
       }
-
-      return (result);
+      return (new IntegerSet(m_types, start, end));
    }
 
    /**
@@ -149,7 +174,7 @@ abstract class AbstractVarMeta extends MPPComponent implements VarMeta
     */
    @Override public boolean containsKey(Integer key)
    {
-      return m_table.containsKey(key);
+      return (Arrays.binarySearch(m_uniqueIDs, key.intValue()) >= 0);
    }
 
    /**
@@ -179,16 +204,15 @@ abstract class AbstractVarMeta extends MPPComponent implements VarMeta
       pw.println("   Item count: " + m_itemCount);
       pw.println("   Data size: " + m_dataSize);
 
-      for (Integer uniqueID : m_table.keySet())
+      for (int index = 0; index < m_keys.length; index++)
       {
-         pw.println("   Entries for Unique ID: " + uniqueID);
-         Map<Integer, Integer> map = m_table.get(uniqueID);
-         for (Integer type : map.keySet())
+         if (index == 0 || m_ids[index] != m_ids[index - 1])
          {
-            Integer offset = map.get(type);
-            FieldType fieldType = fieldMap == null ? null : fieldMap.getFieldTypeFromVarDataKey(type);
-            pw.println("      Type=" + (fieldType == null ? type : fieldType) + " Offset=" + offset);
+            pw.println("   Entries for Unique ID: " + m_ids[index]);
          }
+         Integer type = Integer.valueOf(m_types[index]);
+         FieldType fieldType = fieldMap == null ? null : fieldMap.getFieldTypeFromVarDataKey(type);
+         pw.println("      Type=" + (fieldType == null ? type : fieldType) + " Offset=" + m_entryOffsets[index]);
       }
 
       pw.println("END: VarMeta");
@@ -198,11 +222,186 @@ abstract class AbstractVarMeta extends MPPComponent implements VarMeta
       return (sw.toString());
    }
 
+   /**
+    * Builds the index used to locate entries. The offset of each item
+    * must already be held in the m_offsets array. Where the same unique
+    * ID and type appear more than once, the last item takes precedence.
+    * 
+    * @param uniqueIDs unique ID of each item
+    * @param types type of each item
+    */
+   protected void buildIndex(int[] uniqueIDs, int[] types)
+   {
+      int itemCount = m_offsets.length;
+      long[] keys = new long[itemCount];
+      for (int loop = 0; loop < itemCount; loop++)
+      {
+         keys[loop] = getKey(uniqueIDs[loop], types[loop]);
+      }
+      Arrays.sort(keys);
+
+      int entryCount = 0;
+      for (int loop = 0; loop < itemCount; loop++)
+      {
+         if (entryCount == 0 || keys[loop] != keys[entryCount - 1])
+         {
+            keys[entryCount] = keys[loop];
+            ++entryCount;
+         }
+      }
+
+      m_keys = Arrays.copyOf(keys, entryCount);
+      m_ids = new int[entryCount];
+      m_types = new int[entryCount];
+      m_entryOffsets = new int[entryCount];
+
+      int uniqueIDCount = 0;
+      for (int loop = 0; loop < entryCount; loop++)
+      {
+         m_ids[loop] = (int) (m_keys[loop] >> 32);
+         m_types[loop] = (int) m_keys[loop] ^ Integer.MIN_VALUE;
+         if (loop == 0 || m_ids[loop] != m_ids[loop - 1])
+         {
+            ++uniqueIDCount;
+         }
+      }
+
+      m_uniqueIDs = new int[uniqueIDCount];
+      uniqueIDCount = 0;
+      for (int loop = 0; loop < entryCount; loop++)
+      {
+         if (loop == 0 || m_ids[loop] != m_ids[loop - 1])
+         {
+            m_uniqueIDs[uniqueIDCount] = m_ids[loop];
+            ++uniqueIDCount;
+         }
+      }
+
+      for (int loop = 0; loop < itemCount; loop++)
+      {
+         m_entryOffsets[Arrays.binarySearch(m_keys, getKey(uniqueIDs[loop], types[loop]))] = m_offsets[loop];
+      }
+   }
+
+   /**
+    * Combines a unique ID and a type into a single value. The values
+    * sort by unique ID, then by type.
+    * 
+    * @param id unique ID
+    * @param type type
+    * @return key
+    */
+   private long getKey(int id, int type)
+   {
+      return (((long) id << 32) | ((type ^ Integer.MIN_VALUE) & 0xFFFFFFFFL));
+   }
+
+   /**
+    * Locate the first entry with a unique ID greater than or
+    * equal to the supplied value.
+    * 
+    * @param id unique ID
+    * @return entry index
+    */
+   private int getFirstEntryIndex(int id)
+   {
+      int low = 0;
+      int high = m_ids.length;
+      while (low < high)
+      {
+         int mid = (low + high) >>> 1;
+         if (m_ids[mid] < id)
+         {
+            low = mid + 1;
+         }
+         else
+         {
+            high = mid;
+         }
+      }
+      return (low);
+   }
+
+   /**
+    * Read only set of Integer values, backed by a sorted range of
+    * an int array.
+    */
+   private static final class IntegerSet extends AbstractSet<Integer>
+   {
+      /**
+       * Constructor.
+       * 
+       * @param values sorted values
+       * @param start index of the first value
+       * @param end index following the last value
+       */
+      public IntegerSet(int[] values, int start, int end)
+      {
+         m_values = values;
+         m_start = start;
+         m_end = end;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public int size()
+      {
+         return (m_end - m_start);
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public boolean contains(Object o)
+      {
+         return (o instanceof Integer && Arrays.binarySearch(m_values, m_start, m_end, ((Integer) o).intValue()) >= 0);
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public Iterator<Integer> iterator()
+      {
+         return (new Iterator<Integer>()
+         {
+            @Override public boolean hasNext()
+            {
+               return (m_index < m_end);
+            }
+
+            @Override public Integer next()
+            {
+               if (m_index >= m_end)
+               {
+                  throw new NoSuchElementException();
+               }
+               return (Integer.valueOf(m_values[m_index++]));
+            }
+
+            @Override public void remove()
+            {
+               throw new UnsupportedOperationException();
+            }
+
+            private int m_index = m_start;
+         });
+      }
+
+      private final int[] m_values;
+      private final int m_start;
+      private final int m_end;
+   }
+
    protected int m_unknown1;
    protected int m_itemCount;
    protected int m_unknown2;
    protected int m_unknown3;
    protected int m_dataSize;
    protected int[] m_offsets;
-   protected Map<Integer, Map<Integer, Integer>> m_table = new TreeMap<Integer, Map<Integer, Integer>>();
+   private long[] m_keys;
+   private int[] m_ids;
+   private int[] m_types;
+   private int[] m_entryOffsets;
+   private int[] m_uniqueIDs;
 }
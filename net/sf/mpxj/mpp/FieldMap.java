@@ -29,17 +29,24 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import net.sf.mpxj.AccrueType;
+import net.sf.mpxj.AssignmentField;
 import net.sf.mpxj.ConstraintType;
+import net.sf.mpxj.DataType;
 import net.sf.mpxj.Duration;
 import net.sf.mpxj.FieldContainer;
 import net.sf.mpxj.FieldType;
+import net.sf.mpxj.FieldValueLoader;
 import net.sf.mpxj.Priority;
 import net.sf.mpxj.ProjectFile;
 import net.sf.mpxj.Rate;
+import net.sf.mpxj.ResourceField;
+import net.sf.mpxj.TaskField;
 import net.sf.mpxj.TaskType;
 import net.sf.mpxj.TimeUnit;
 import net.sf.mpxj.WorkGroup;
@@ -152,7 +159,7 @@ abstract class FieldMap
 
             //System.out.println(MPPUtility.hexdump(data, index, 28, false) + " " + (type instanceof net.sf.mpxj.TaskField ? "TaskField" : type instanceof net.sf.mpxj.ResourceField ? "ResourceField" : "AssignmentField") + " " + type);
 
-            m_map.put(type, new FieldItem(type, location, dataBlockIndex, dataBlockOffset, varDataKey));
+            addItem(new FieldItem(type, location, dataBlockIndex, dataBlockOffset, varDataKey));
          }
 
          index += 28;
@@ -261,7 +268,7 @@ abstract class FieldMap
             if (type != null && type.getClass() == c && type.toString().startsWith("Enterprise Custom Field"))
             {
                int varDataKey = (typeValue & 0xFFFF);
-               m_map.put(type, new FieldItem(type, FieldLocation.VAR_DATA, 0, 0, varDataKey));
+               addItem(new FieldItem(type, FieldLocation.VAR_DATA, 0, 0, varDataKey));
                //System.out.println(type.getClass().getSimpleName() + "." + type + " " + Integer.toHexString(typeValue));
             }
             //System.out.println((type == null ? "?" : type.getClass().getSimpleName() + "." + type) + " " + Integer.toHexString(typeValue));
@@ -336,7 +343,7 @@ abstract class FieldMap
    {
       for (FieldItem item : defaultData)
       {
-         m_map.put(item.getType(), item);
+         addItem(item);
       }
    }
 
@@ -351,14 +358,124 @@ abstract class FieldMap
     */
    public void populateContainer(FieldContainer container, Integer id, byte[][] fixedData, Var2Data varData)
    {
-      //System.out.println(container.getClass().getSimpleName()+": " + id);
+      if (m_planItems == null)
+      {
+         createPlan();
+      }
+
+      FieldItem[] items = m_planItems;
+      FieldItem[] unitsItems = m_planUnitsItems;
+      for (int loop = 0; loop < items.length; loop++)
+      {
+         FieldItem item = items[loop];
+         container.set(item.m_type, item.read(id, fixedData, varData, unitsItems[loop]));
+      }
+   }
+
+   /**
+    * Creates a loader which extracts field data from a set of raw data
+    * blocks on demand, as an alternative to populating a container
+    * immediately. Values held by the enterprise custom field map take
+    * precedence over values held by this map, matching the order in which
+    * the maps are applied by populateContainer.
+    * 
+    * @param enterpriseCustomFieldMap enterprise custom field map, may be null
+    * @param id entity ID
+    * @param fixedData fixed data block
+    * @param varData var data block
+    * @return field value loader
+    */
+   public FieldValueLoader createLoader(final FieldMap enterpriseCustomFieldMap, final Integer id, final byte[][] fixedData, final Var2Data varData)
+   {
+      return (new FieldValueLoader()
+      {
+         @Override public Object getFieldValue(FieldType field, Object defaultValue)
+         {
+            Object result = defaultValue;
+            if (isProjected(field))
+            {
+               FieldItem item = enterpriseCustomFieldMap == null ? null : enterpriseCustomFieldMap.m_map.get(field);
+               if (item != null)
+               {
+                  result = item.read(id, null, varData, item.getUnitsItem());
+               }
+               else
+               {
+                  item = m_map.get(field);
+                  if (item != null)
+                  {
+                     result = item.read(id, fixedData, varData, item.getUnitsItem());
+                  }
+               }
+            }
+            return (result);
+         }
+      });
+   }
+
+   /**
+    * Restricts the fields extracted by this field map to the supplied set.
+    * Fields required to read the structure of the project, for example 
+    * unique IDs, are always extracted. Setting the projection to null
+    * causes all fields to be extracted.
+    * 
+    * @param fields fields to extract, or null for all fields
+    */
+   public void setFieldProjection(Set<FieldType> fields)
+   {
+      m_projection = fields;
+      m_planItems = null;
+      m_planUnitsItems = null;
+   }
+
+   /**
+    * Determine if a field will be extracted by this field map.
+    * 
+    * @param type field type
+    * @return true if the field will be extracted
+    */
+   public boolean isProjected(FieldType type)
+   {
+      return (m_projection == null || m_projection.contains(type) || REQUIRED_FIELDS.contains(type));
+   }
+
+   /**
+    * Creates the plan used to populate containers. This is a flattened 
+    * copy of the field map, in which the item describing the units of 
+    * each duration field has been located in advance, so that no map 
+    * lookups are required when a container is populated.
+    */
+   private void createPlan()
+   {
+      ArrayList<FieldItem> projectedItems = new ArrayList<FieldItem>(m_map.size());
       for (FieldItem item : m_map.values())
       {
-         //System.out.println(item.m_type);
-         Object value = item.read(id, fixedData, varData);
-         //System.out.println(item.m_type.getClass().getSimpleName() + "." + item.m_type +  ": " + value);
-         container.set(item.getType(), value);
+         if (isProjected(item.getType()))
+         {
+            projectedItems.add(item);
+         }
       }
+
+      FieldItem[] items = projectedItems.toArray(new FieldItem[projectedItems.size()]);
+      FieldItem[] unitsItems = new FieldItem[items.length];
+      for (int loop = 0; loop < items.length; loop++)
+      {
+         unitsItems[loop] = items[loop].getUnitsItem();
+      }
+      m_planUnitsItems = unitsItems;
+      m_planItems = items;
+   }
+
+   /**
+    * Add an item to the field map.
+    * 
+    * @param item field item
+    */
+   private void addItem(FieldItem item)
+   {
+      m_map.put(item.getType(), item);
+      m_planItems = null;
+      m_planUnitsItems = null;
    }
 
    /**
@@ -488,6 +605,8 @@ abstract class FieldMap
    public void clear()
    {
       m_map.clear();
+      m_planItems = null;
+      m_planUnitsItems = null;
       Arrays.fill(m_maxFixedDataOffset, 0);
    }
 
@@ -577,6 +696,7 @@ abstract class FieldMap
          m_fixedDataBlockIndex = fixedDataBlockIndex;
          m_fixedDataOffset = fixedDataOffset;
          m_varDataKey = Integer.valueOf(varDataKey);
+         m_dataType = type.getDataType();
       }
 
       /**
@@ -588,6 +708,20 @@ abstract class FieldMap
        * @return field value
        */
       public Object read(Integer id, byte[][] fixedData, Var2Data varData)
+      {
+         return (read(id, fixedData, varData, getUnitsItem()));
+      }
+
+      /**
+       * Reads a single field value.
+       * 
+       * @param id parent entity ID
+       * @param fixedData fixed data block
+       * @param varData var data block
+       * @param unitsItem item describing the units of a duration field
+       * @return field value
+       */
+      Object read(Integer id, byte[][] fixedData, Var2Data varData, FieldItem unitsItem)
       {
          Object result = null;
 
@@ -595,13 +729,13 @@ abstract class FieldMap
          {
             case FIXED_DATA:
             {
-               result = readFixedData(id, fixedData, varData);
+               result = readFixedData(id, fixedData, varData, unitsItem);
                break;
             }
 
             case VAR_DATA:
             {
-               result = readVarData(id, fixedData, varData);
+               result = readVarData(id, fixedData, varData, unitsItem);
                break;
             }
 
@@ -634,9 +768,10 @@ abstract class FieldMap
        * @param id parent entity ID
        * @param fixedData fixed data block
        * @param varData var data block
+       * @param unitsItem item describing the units of a duration field
        * @return field value
        */
-      private Object readFixedData(Integer id, byte[][] fixedData, Var2Data varData)
+      private Object readFixedData(Integer id, byte[][] fixedData, Var2Data varData, FieldItem unitsItem)
       {
          Object result = null;
          if (m_fixedDataBlockIndex < fixedData.length)
@@ -644,7 +779,7 @@ abstract class FieldMap
             byte[] data = fixedData[m_fixedDataBlockIndex];
             if (data != null && m_fixedDataOffset < data.length)
             {
-               switch (m_type.getDataType())
+               switch (m_dataType)
                {
                   case DATE:
                   {
@@ -660,8 +795,7 @@ abstract class FieldMap
 
                   case DURATION:
                   {
-                     FieldType unitsType = m_type.getUnitsType();
-                     TimeUnit units = (TimeUnit) getFieldData(id, unitsType, fixedData, varData);
+                     TimeUnit units = (TimeUnit) (unitsItem == null ? null : unitsItem.read(id, fixedData, varData));
                      if (units == null)
                      {
                         units = getProjectFile().getProjectHeader().getDefaultDurationUnits();
@@ -791,18 +925,18 @@ abstract class FieldMap
        * @param id parent entity ID
        * @param fixedData fixed data block
        * @param varData var data block
+       * @param unitsItem item describing the units of a duration field
        * @return field value
        */
-      private Object readVarData(Integer id, byte[][] fixedData, Var2Data varData)
+      private Object readVarData(Integer id, byte[][] fixedData, Var2Data varData, FieldItem unitsItem)
       {
          Object result = null;
 
-         switch (m_type.getDataType())
+         switch (m_dataType)
          {
             case DURATION:
             {
-               FieldType unitsType = m_type.getUnitsType();
-               TimeUnit units = (TimeUnit) getFieldData(id, unitsType, fixedData, varData);
+               TimeUnit units = (TimeUnit) (unitsItem == null ? null : unitsItem.read(id, fixedData, varData));
                if (units == null)
                {
                   units = TimeUnit.HOURS;
@@ -1060,6 +1194,22 @@ abstract class FieldMap
          return result;
       }
 
+      /**
+       * Retrieve the item describing the units of this field,
+       * if this is a duration field.
+       * 
+       * @return units field item, or null
+       */
+      FieldItem getUnitsItem()
+      {
+         FieldItem result = null;
+         if (m_dataType == DataType.DURATION)
+         {
+            result = m_map.get(m_type.getUnitsType());
+         }
+         return (result);
+      }
+
       /**
        * Retrieve the field type.
        * 
@@ -1194,11 +1344,15 @@ abstract class FieldMap
       private int m_fixedDataBlockIndex;
       private int m_fixedDataOffset;
       private Integer m_varDataKey;
+      private DataType m_dataType;
    }
 
    private ProjectFile m_file;
    protected TimeUnit m_defaultProjectTimeUnits;
    private Map<FieldType, FieldItem> m_map = new HashMap<FieldType, FieldItem>();
+   private FieldItem[] m_planItems;
+   private FieldItem[] m_planUnitsItems;
+   private Set<FieldType> m_projection;
    private int[] m_maxFixedDataOffset = new int[MAX_FIXED_DATA_BLOCKS];
 
    private static final Integer[] TASK_KEYS =
@@ -1224,6 +1378,84 @@ abstract class FieldMap
       Props.ASSIGNMENT_FIELD_MAP2
    };
 
+   /**
+    * Fields which are always extracted, as they are used by the readers
+    * to build the project structure.
+    */
+   private static final Set<FieldType> REQUIRED_FIELDS = new HashSet<FieldType>();
+   static
+   {
+      FieldType[] fields =
+      {
+         TaskField.UNIQUE_ID,
+         TaskField.ID,
+         TaskField.NAME,
+         TaskField.OUTLINE_LEVEL,
+         TaskField.PARENT_TASK_UNIQUE_ID,
+         TaskField.START,
+         TaskField.FINISH,
+         TaskField.DURATION,
+         TaskField.LATE_START,
+         TaskField.LATE_FINISH,
+         TaskField.SCHEDULED_START,
+         TaskField.SCHEDULED_FINISH,
+         TaskField.SCHEDULED_DURATION,
+         TaskField.CONSTRAINT_TYPE,
+         TaskField.TASK_MODE,
+         TaskField.CREATED,
+         TaskField.WBS,
+         TaskField.CALENDAR_UNIQUE_ID,
+         TaskField.IGNORE_RESOURCE_CALENDAR,
+         TaskField.SUBPROJECT_TASK_ID,
+         TaskField.SUBPROJECT_UNIQUE_TASK_ID,
+         TaskField.SUBPROJECT_TASKS_UNIQUEID_OFFSET,
+         TaskField.OUTLINE_CODE1_INDEX,
+         TaskField.OUTLINE_CODE2_INDEX,
+         TaskField.OUTLINE_CODE3_INDEX,
+         TaskField.OUTLINE_CODE4_INDEX,
+         TaskField.OUTLINE_CODE5_INDEX,
+         TaskField.OUTLINE_CODE6_INDEX,
+         TaskField.OUTLINE_CODE7_INDEX,
+         TaskField.OUTLINE_CODE8_INDEX,
+         TaskField.OUTLINE_CODE9_INDEX,
+         TaskField.OUTLINE_CODE10_INDEX,
+
+         ResourceField.UNIQUE_ID,
+         ResourceField.ID,
+         ResourceField.WORKGROUP,
+         ResourceField.STANDARD_RATE,
+         ResourceField.OVERTIME_RATE,
+         ResourceField.COST_PER_USE,
+         ResourceField.OUTLINE_CODE1_INDEX,
+         ResourceField.OUTLINE_CODE2_INDEX,
+         ResourceField.OUTLINE_CODE3_INDEX,
+         ResourceField.OUTLINE_CODE4_INDEX,
+         ResourceField.OUTLINE_CODE5_INDEX,
+         ResourceField.OUTLINE_CODE6_INDEX,
+         ResourceField.OUTLINE_CODE7_INDEX,
+         ResourceField.OUTLINE_CODE8_INDEX,
+         ResourceField.OUTLINE_CODE9_INDEX,
+         ResourceField.OUTLINE_CODE10_INDEX,
+
+         AssignmentField.UNIQUE_ID,
+         AssignmentField.TASK_UNIQUE_ID,
+         AssignmentField.RESOURCE_UNIQUE_ID,
+         AssignmentField.START,
+         AssignmentField.FINISH,
+         AssignmentField.ASSIGNMENT_UNITS,
+         AssignmentField.WORK,
+         AssignmentField.REMAINING_WORK,
+         AssignmentField.OVERTIME_WORK,
+         AssignmentField.VARIABLE_RATE_UNITS,
+         AssignmentField.CREATED
+      };
+
+      for (FieldType field : fields)
+      {
+         REQUIRED_FIELDS.add(field);
+      }
+   }
+
    private static final int VALUE_LIST_MASK = 0x0700;
 
    private static final int MAX_FIXED_DATA_BLOCKS = 2;
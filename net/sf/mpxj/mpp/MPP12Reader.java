@@ -34,12 +34,14 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
 
 import net.sf.mpxj.AssignmentField;
 import net.sf.mpxj.DateRange;
 import net.sf.mpxj.Day;
 import net.sf.mpxj.DayType;
 import net.sf.mpxj.Duration;
+import net.sf.mpxj.FieldValueLoader;
 import net.sf.mpxj.MPPResourceField;
 import net.sf.mpxj.MPPTaskField;
 import net.sf.mpxj.MPXJException;
@@ -63,7 +65,7 @@ import net.sf.mpxj.View;
 import net.sf.mpxj.WorkGroup;
 import net.sf.mpxj.utility.DateUtility;
 import net.sf.mpxj.utility.Pair;
-import net.sf.mpxj.utility.RTFUtility;
+import net.sf.mpxj.utility.RTFNotesLoader;
 
 import org.apache.poi.poifs.filesystem.DirectoryEntry;
 import org.apache.poi.poifs.filesystem.DocumentEntry;
@@ -163,8 +165,50 @@ final class MPP12Reader implements MPPVariantReader
          processCustomValueLists();
          processPropertyData();
          processCalendarData();
-         processResourceData();
-         processTaskData();
+
+         //
+         // Resources, tasks and presentation data are independent of each
+         // other, so may be decoded concurrently if the caller has supplied
+         // an executor. Relations and assignments are linked once all three
+         // sections are complete.
+         //
+         SectionRunner runner = new SectionRunner(reader.getExecutorService());
+         runner.run(new Callable<Void>()
+         {
+            @Override public Void call() throws IOException
+            {
+               processResourceData();
+               return (null);
+            }
+         });
+
+         runner.run(new Callable<Void>()
+         {
+            @Override public Void call() throws IOException
+            {
+               processTaskData();
+               return (null);
+            }
+         });
+
+         if (reader.getReadPresentationData())
+         {
+            runner.run(new Callable<Void>()
+            {
+               @Override public Void call() throws IOException
+               {
+                  processViewPropertyData();
+                  processTableData();
+                  processViewData();
+                  processFilterData();
+                  processGroupData();
+                  return (null);
+               }
+            });
+         }
+
+         runner.await();
+
          processConstraintData();
          processAssignmentData();
 
@@ -178,11 +222,6 @@ final class MPP12Reader implements MPPVariantReader
 
          if (reader.getReadPresentationData())
          {
-            processViewPropertyData();
-            processTableData();
-            processViewData();
-            processFilterData();
-            processGroupData();
             processSavedViewState();
          }
       }
@@ -1329,9 +1368,11 @@ final class MPP12Reader implements MPPVariantReader
    {
       FieldMap fieldMap = new FieldMap12(m_file);
       fieldMap.createTaskFieldMap(m_projectProps);
+      fieldMap.setFieldProjection(m_reader.getFieldProjection());
 
       FieldMap enterpriseCustomFieldMap = new FieldMap12(m_file);
       enterpriseCustomFieldMap.createEnterpriseCustomFieldMap(m_projectProps, TaskField.class);
+      enterpriseCustomFieldMap.setFieldProjection(m_reader.getFieldProjection());
 
       DirectoryEntry taskDir = (DirectoryEntry) m_projectDir.getEntry("TBkndTask");
       VarMeta taskVarMeta = new VarMeta12(new DocumentInputStream(((DocumentEntry) taskDir.getEntry("VarMeta"))));
@@ -1368,8 +1409,6 @@ final class MPP12Reader implements MPPVariantReader
       boolean autoWBS = true;
       LinkedList<Task> externalTasks = new LinkedList<Task>();
       RecurringTaskReader recurringTaskReader = null;
-      RTFUtility rtf = new RTFUtility();
-      String notes;
 
       for (int loop = 0; loop < uniqueid.length; loop++)
       {
@@ -1447,13 +1486,46 @@ final class MPP12Reader implements MPPVariantReader
 
          task.disableEvents();
 
-         fieldMap.populateContainer(task, id, new byte[][]
+         byte[][] fixedData = new byte[][]
          {
             data,
             data2
-         }, taskVarData);
+         };
 
-         enterpriseCustomFieldMap.populateContainer(task, id, null, taskVarData);
+         FieldValueLoader loader = null;
+         if (m_reader.getLazyFieldDecoding())
+         {
+            loader = fieldMap.createLoader(enterpriseCustomFieldMap, id, fixedData, taskVarData);
+         }
+         else
+         {
+            fieldMap.populateContainer(task, id, fixedData, taskVarData);
+            enterpriseCustomFieldMap.populateContainer(task, id, null, taskVarData);
+         }
+
+         //
+         // Notes are held in RTF format, the formatting is removed when they are first read.
+         // If the other fields have already been populated, only the notes are deferred.
+         //
+         if (m_reader.getPreserveNoteFormatting() == false)
+         {
+            if (loader != null)
+            {
+               loader = new RTFNotesLoader(loader);
+            }
+            else
+            {
+               if (task.getNotes().length() != 0)
+               {
+                  task.setFieldValueLoader(new RTFNotesLoader(null), TaskField.NOTES);
+               }
+            }
+         }
+
+         if (loader != null)
+         {
+            task.setFieldValueLoader(loader);
+         }
 
          task.enableEvents();
 
@@ -1562,20 +1634,6 @@ final class MPP12Reader implements MPPVariantReader
             task.setRecurring(true);
          }
 
-         //
-         // Retrieve the task notes.
-         //
-         notes = task.getNotes();
-         if (notes != null)
-         {
-            if (m_reader.getPreserveNoteFormatting() == false)
-            {
-               notes = rtf.strip(notes);
-            }
-
-            task.setNotes(notes);
-         }
-
          //
          // Set the calendar name
          //
@@ -2134,9 +2192,11 @@ final class MPP12Reader implements MPPVariantReader
    {
       FieldMap fieldMap = new FieldMap12(m_file);
       fieldMap.createResourceFieldMap(m_projectProps);
+      fieldMap.setFieldProjection(m_reader.getFieldProjection());
 
       FieldMap enterpriseCustomFieldMap = new FieldMap12(m_file);
       enterpriseCustomFieldMap.createEnterpriseCustomFieldMap(m_projectProps, ResourceField.class);
+      enterpriseCustomFieldMap.setFieldProjection(m_reader.getFieldProjection());
 
       DirectoryEntry rscDir = (DirectoryEntry) m_projectDir.getEntry("TBkndRsc");
       VarMeta rscVarMeta = new VarMeta12(new DocumentInputStream(((DocumentEntry) rscDir.getEntry("VarMeta"))));
@@ -2165,8 +2225,6 @@ final class MPP12Reader implements MPPVariantReader
       byte[] metaData;
       Resource resource;
 
-      RTFUtility rtf = new RTFUtility();
-      String notes;
 
       for (int loop = 0; loop < uniqueid.length; loop++)
       {
@@ -2188,13 +2246,46 @@ final class MPP12Reader implements MPPVariantReader
          resource = m_file.addResource();
 
          resource.disableEvents();
-         fieldMap.populateContainer(resource, id, new byte[][]
+         byte[][] fixedData = new byte[][]
          {
             data,
             data2
-         }, rscVarData);
+         };
+
+         FieldValueLoader loader = null;
+         if (m_reader.getLazyFieldDecoding())
+         {
+            loader = fieldMap.createLoader(enterpriseCustomFieldMap, id, fixedData, rscVarData);
+         }
+         else
+         {
+            fieldMap.populateContainer(resource, id, fixedData, rscVarData);
+            enterpriseCustomFieldMap.populateContainer(resource, id, null, rscVarData);
+         }
+
+         //
+         // Notes are held in RTF format, the formatting is removed when they are first read.
+         // If the other fields have already been populated, only the notes are deferred.
+         //
+         if (m_reader.getPreserveNoteFormatting() == false)
+         {
+            if (loader != null)
+            {
+               loader = new RTFNotesLoader(loader);
+            }
+            else
+            {
+               if (resource.getNotes().length() != 0)
+               {
+                  resource.setFieldValueLoader(new RTFNotesLoader(null), ResourceField.NOTES);
+               }
+            }
+         }
 
-         enterpriseCustomFieldMap.populateContainer(resource, id, null, rscVarData);
+         if (loader != null)
+         {
+            resource.setFieldValueLoader(loader);
+         }
 
          resource.enableEvents();
 
@@ -2242,17 +2333,6 @@ final class MPP12Reader implements MPPVariantReader
          resource.setFlag(19, (metaData[30] & 0x80) != 0);
          resource.setFlag(20, (metaData[31] & 0x01) != 0);
 
-         notes = resource.getNotes();
-         if (notes != null)
-         {
-            if (m_reader.getPreserveNoteFormatting() == false)
-            {
-               notes = rtf.strip(notes);
-            }
-
-            resource.setNotes(notes);
-         }
-
          //
          // Configure the resource calendar
          //
@@ -2292,9 +2372,11 @@ final class MPP12Reader implements MPPVariantReader
    {
       FieldMap fieldMap = new FieldMap12(m_file);
       fieldMap.createAssignmentFieldMap(m_projectProps);
+      fieldMap.setFieldProjection(m_reader.getFieldProjection());
 
       FieldMap enterpriseCustomFieldMap = new FieldMap12(m_file);
       enterpriseCustomFieldMap.createEnterpriseCustomFieldMap(m_projectProps, AssignmentField.class);
+      enterpriseCustomFieldMap.setFieldProjection(m_reader.getFieldProjection());
 
       DirectoryEntry assnDir = (DirectoryEntry) m_projectDir.getEntry("TBkndAssn");
       VarMeta assnVarMeta = new VarMeta12(new DocumentInputStream(((DocumentEntry) assnDir.getEntry("VarMeta"))));
@@ -2305,7 +2387,7 @@ final class MPP12Reader implements MPPVariantReader
       FixedData assnFixedData = new FixedData(assnFixedMeta, getEncryptableInputStream(assnDir, "FixedData"));
       FixedData assnFixedData2 = new FixedData(48, getEncryptableInputStream(assnDir, "Fixed2Data"));
       ResourceAssignmentFactory factory = new ResourceAssignmentFactory();
-      factory.process(m_file, fieldMap, enterpriseCustomFieldMap, m_reader.getUseRawTimephasedData(), m_reader.getPreserveNoteFormatting(), assnVarMeta, assnVarData, assnFixedMeta, assnFixedData, assnFixedData2);
+      factory.process(m_file, fieldMap, enterpriseCustomFieldMap, m_reader.getUseRawTimephasedData(), m_reader.getPreserveNoteFormatting(), m_reader.getLazyFieldDecoding(), assnVarMeta, assnVarData, assnFixedMeta, assnFixedData, assnFixedData2);
    }
 
    /**
@@ -52,14 +52,16 @@ import net.sf.mpxj.Relation;
 import net.sf.mpxj.RelationType;
 import net.sf.mpxj.Resource;
 import net.sf.mpxj.ResourceAssignment;
+import net.sf.mpxj.ResourceField;
 import net.sf.mpxj.Table;
 import net.sf.mpxj.Task;
+import net.sf.mpxj.TaskField;
 import net.sf.mpxj.TaskType;
 import net.sf.mpxj.TimeUnit;
 import net.sf.mpxj.View;
 import net.sf.mpxj.utility.NumberUtility;
 import net.sf.mpxj.utility.Pair;
-import net.sf.mpxj.utility.RTFUtility;
+import net.sf.mpxj.utility.RTFNotesLoader;
 
 import org.apache.poi.poifs.filesystem.DirectoryEntry;
 import org.apache.poi.poifs.filesystem.DocumentEntry;
@@ -389,7 +391,6 @@ final class MPP8Reader implements MPPVariantReader
       Task task;
       boolean autoWBS = true;
       String notes;
-      RTFUtility rtf = new RTFUtility();
       byte[] flags = new byte[3];
       RecurringTaskReader recurringTaskReader = null;
       TimeUnit defaultProjectTimeUnits = m_file.getProjectHeader().getDefaultDurationUnits();
@@ -687,12 +688,12 @@ final class MPP8Reader implements MPPVariantReader
          notes = taskExtData.getString(TASK_NOTES);
          if (notes != null)
          {
+            task.setNotes(notes);
+
             if (m_reader.getPreserveNoteFormatting() == false)
             {
-               notes = rtf.strip(notes);
+               task.setFieldValueLoader(new RTFNotesLoader(null), TaskField.NOTES);
             }
-
-            task.setNotes(notes);
          }
 
          //
@@ -828,7 +829,6 @@ final class MPP8Reader implements MPPVariantReader
       int id;
       Resource resource;
       String notes;
-      RTFUtility rtf = new RTFUtility();
       ProjectCalendar calendar;
 
       for (int loop = 0; loop < resources; loop++)
@@ -1023,12 +1023,12 @@ final class MPP8Reader implements MPPVariantReader
          notes = rscExtData.getString(RESOURCE_NOTES);
          if (notes != null)
          {
+            resource.setNotes(notes);
+
             if (m_reader.getPreserveNoteFormatting() == false)
             {
-               notes = rtf.strip(notes);
+               resource.setFieldValueLoader(new RTFNotesLoader(null), ResourceField.NOTES);
             }
-
-            resource.setNotes(notes);
          }
 
          m_file.fireResourceReadEvent(resource);
@@ -62,7 +62,7 @@ import net.sf.mpxj.View;
 import net.sf.mpxj.utility.DateUtility;
 import net.sf.mpxj.utility.NumberUtility;
 import net.sf.mpxj.utility.Pair;
-import net.sf.mpxj.utility.RTFUtility;
+import net.sf.mpxj.utility.RTFNotesLoader;
 
 import org.apache.poi.poifs.filesystem.DirectoryEntry;
 import org.apache.poi.poifs.filesystem.DocumentEntry;
@@ -1621,6 +1621,7 @@ final class MPP9Reader implements MPPVariantReader
    {
       FieldMap fieldMap = new FieldMap9(m_file);
       fieldMap.createTaskFieldMap(m_projectProps);
+      fieldMap.setFieldProjection(m_reader.getFieldProjection());
 
       DirectoryEntry taskDir = (DirectoryEntry) m_projectDir.getEntry("TBkndTask");
       VarMeta taskVarMeta = new VarMeta9(new DocumentInputStream(((DocumentEntry) taskDir.getEntry("VarMeta"))));
@@ -1645,8 +1646,6 @@ final class MPP9Reader implements MPPVariantReader
       boolean autoWBS = true;
       LinkedList<Task> externalTasks = new LinkedList<Task>();
       RecurringTaskReader recurringTaskReader = null;
-      RTFUtility rtf = new RTFUtility();
-      String notes;
 
       for (int loop = 0; loop < uniqueid.length; loop++)
       {
@@ -1715,6 +1714,14 @@ final class MPP9Reader implements MPPVariantReader
          {
             data
          }, taskVarData);
+
+         //
+         // Notes are held in RTF format, the formatting is removed when they are first read
+         //
+         if (m_reader.getPreserveNoteFormatting() == false && task.getNotes().length() != 0)
+         {
+            task.setFieldValueLoader(new RTFNotesLoader(null), TaskField.NOTES);
+         }
          task.enableEvents();
 
          task.setEffortDriven((metaData[11] & 0x10) != 0);
@@ -1822,21 +1829,6 @@ final class MPP9Reader implements MPPVariantReader
             task.setRecurring(true);
          }
 
-         //
-         // Retrieve the task notes.
-         //
-         //notes = taskVarData.getString(id, TASK_NOTES);
-         notes = task.getNotes();
-         if (notes != null)
-         {
-            if (m_reader.getPreserveNoteFormatting() == false)
-            {
-               notes = rtf.strip(notes);
-            }
-
-            task.setNotes(notes);
-         }
-
          //
          // Set the calendar name
          //
@@ -2368,6 +2360,7 @@ final class MPP9Reader implements MPPVariantReader
    {
       FieldMap fieldMap = new FieldMap9(m_file);
       fieldMap.createResourceFieldMap(m_projectProps);
+      fieldMap.setFieldProjection(m_reader.getFieldProjection());
 
       DirectoryEntry rscDir = (DirectoryEntry) m_projectDir.getEntry("TBkndRsc");
       VarMeta rscVarMeta = new VarMeta9(new DocumentInputStream(((DocumentEntry) rscDir.getEntry("VarMeta"))));
@@ -2387,8 +2380,6 @@ final class MPP9Reader implements MPPVariantReader
       byte[] metaData;
       Resource resource;
 
-      RTFUtility rtf = new RTFUtility();
-      String notes;
 
       for (int loop = 0; loop < uniqueid.length; loop++)
       {
@@ -2410,6 +2401,14 @@ final class MPP9Reader implements MPPVariantReader
          {
             data
          }, rscVarData);
+
+         //
+         // Notes are held in RTF format, the formatting is removed when they are first read
+         //
+         if (m_reader.getPreserveNoteFormatting() == false && resource.getNotes().length() != 0)
+         {
+            resource.setFieldValueLoader(new RTFNotesLoader(null), ResourceField.NOTES);
+         }
          resource.enableEvents();
 
          processHyperlinkData(resource, rscVarData.getByteArray(id, fieldMap.getVarDataKey(ResourceField.HYPERLINK_DATA)));
@@ -2451,17 +2450,6 @@ final class MPP9Reader implements MPPVariantReader
          resource.setFlag(19, (metaData[30] & 0x80) != 0);
          resource.setFlag(20, (metaData[31] & 0x01) != 0);
 
-         notes = resource.getNotes();
-         if (notes != null)
-         {
-            if (m_reader.getPreserveNoteFormatting() == false)
-            {
-               notes = rtf.strip(notes);
-            }
-
-            resource.setNotes(notes);
-         }
-
          //
          // Configure the resource calendar
          //
@@ -2501,6 +2489,7 @@ final class MPP9Reader implements MPPVariantReader
    {
       FieldMap fieldMap = new FieldMap9(m_file);
       fieldMap.createAssignmentFieldMap(m_projectProps);
+      fieldMap.setFieldProjection(m_reader.getFieldProjection());
 
       DirectoryEntry assnDir = (DirectoryEntry) m_projectDir.getEntry("TBkndAssn");
       VarMeta assnVarMeta = new VarMeta9(new DocumentInputStream(((DocumentEntry) assnDir.getEntry("VarMeta"))));
@@ -2514,7 +2503,7 @@ final class MPP9Reader implements MPPVariantReader
       }
 
       ResourceAssignmentFactory factory = new ResourceAssignmentFactory();
-      factory.process(m_file, fieldMap, null, m_reader.getUseRawTimephasedData(), m_reader.getPreserveNoteFormatting(), assnVarMeta, assnVarData, assnFixedMeta, assnFixedData, null);
+      factory.process(m_file, fieldMap, null, m_reader.getUseRawTimephasedData(), m_reader.getPreserveNoteFormatting(), m_reader.getLazyFieldDecoding(), assnVarMeta, assnVarData, assnFixedMeta, assnFixedData, null);
    }
 
    /**
@@ -25,13 +25,12 @@ package net.sf.mpxj.mpp;
 
 import java.util.Calendar;
 import java.util.Date;
-import java.util.LinkedList;
 
 import net.sf.mpxj.AbstractTimephasedWorkNormaliser;
 import net.sf.mpxj.Duration;
 import net.sf.mpxj.ProjectCalendar;
 import net.sf.mpxj.TimeUnit;
-import net.sf.mpxj.TimephasedWork;
+import net.sf.mpxj.TimephasedWorkArray;
 import net.sf.mpxj.utility.DateUtility;
 
 /**
@@ -46,21 +45,16 @@ public abstract class MPPAbstractTimephasedWorkNormaliser extends AbstractTimeph
     * format to make it easy to work with. 
     * 
     * @param calendar current calendar
-    * @param list list of assignment data
+    * @param data assignment data
     */
-   @Override public void normalise(ProjectCalendar calendar, LinkedList<TimephasedWork> list)
+   @Override public void normalise(ProjectCalendar calendar, TimephasedWorkArray data)
    {
-      if (!list.isEmpty())
+      if (!data.isEmpty())
       {
-         //dumpList(list);
-         splitDays(calendar, list);
-         //dumpList(list);
-         mergeSameDay(calendar, list);
-         //dumpList(list);
-         mergeSameWork(list);
-         //dumpList(list);         
-         convertToHours(list);
-         //dumpList(list);
+         splitDays(calendar, data);
+         mergeSameDay(calendar, data);
+         mergeSameWork(data);
+         convertToHours(data);
       }
    }
 
@@ -68,233 +62,159 @@ public abstract class MPPAbstractTimephasedWorkNormaliser extends AbstractTimeph
     * This method breaks down spans of time into individual days.
     * 
     * @param calendar current project calendar
-    * @param list list of assignment data
+    * @param data assignment data
     */
-   private void splitDays(ProjectCalendar calendar, LinkedList<TimephasedWork> list)
+   private void splitDays(ProjectCalendar calendar, TimephasedWorkArray data)
    {
-      LinkedList<TimephasedWork> result = new LinkedList<TimephasedWork>();
+      TimephasedWorkArray result = new TimephasedWorkArray(data.size() * 2);
       boolean remainderInserted = false;
       Calendar cal = Calendar.getInstance();
 
-      for (TimephasedWork assignment : list)
+      for (int index = 0; index < data.size(); index++)
       {
+         long assignmentStart = data.getStart(index);
+         long assignmentFinish = data.getFinish(index);
+         double assignmentWork = data.getTotalAmount(index);
+         TimeUnit assignmentWorkUnits = data.getTotalAmountUnits(index);
+         double assignmentWorkPerDay = data.getAmountPerDay(index);
+         TimeUnit assignmentWorkPerDayUnits = data.getAmountPerDayUnits(index);
+         boolean modified = data.getModified(index);
+
          if (remainderInserted)
          {
-            cal.setTime(assignment.getStart());
-            cal.add(Calendar.DAY_OF_YEAR, 1);
-            assignment.setStart(cal.getTime());
+            assignmentStart = addDays(cal, assignmentStart, 1);
             remainderInserted = false;
          }
 
-         while (assignment != null)
+         while (true)
          {
-            Date startDay = DateUtility.getDayStartDate(assignment.getStart());
-            Date finishDay = DateUtility.getDayStartDate(assignment.getFinish());
+            long startDay = getDayStartDate(cal, assignmentStart);
+            long finishDay = getDayStartDate(cal, assignmentFinish);
 
             // special case - when the finishday time is midnight, it's really the previous day...                 
-            if (assignment.getFinish().getTime() == finishDay.getTime())
+            if (assignmentFinish == finishDay)
             {
-               cal.setTime(finishDay);
-               cal.add(Calendar.DAY_OF_YEAR, -1);
-               finishDay = cal.getTime();
+               finishDay = addDays(cal, finishDay, -1);
             }
 
-            if (startDay.getTime() == finishDay.getTime())
+            if (startDay == finishDay)
             {
-               Duration totalWork = assignment.getTotalAmount();
-               Duration assignmentWork = getAssignmentWork(calendar, assignment);
-               if ((totalWork.getDuration() - assignmentWork.getDuration()) > EQUALITY_DELTA)
+               double splitWork = getAssignmentWork(calendar, assignmentStart, assignmentWorkPerDay);
+               if ((assignmentWork - splitWork) > EQUALITY_DELTA)
                {
-                  assignment.setTotalAmount(assignmentWork);
-                  result.add(assignment);
-                  Duration remainingWork = Duration.getInstance(totalWork.getDuration() - assignmentWork.getDuration(), TimeUnit.MINUTES);
-
-                  cal.setTime(finishDay);
-                  cal.add(Calendar.DAY_OF_YEAR, 1);
-                  Date remainderStart = cal.getTime();
-                  cal.add(Calendar.DAY_OF_YEAR, 1);
-                  Date remainderFinish = cal.getTime();
+                  result.add(assignmentStart, assignmentFinish, splitWork, TimeUnit.MINUTES, assignmentWorkPerDay, assignmentWorkPerDayUnits, modified);
+                  double remainingWork = assignmentWork - splitWork;
 
-                  TimephasedWork remainder = new TimephasedWork();
-                  remainder.setStart(remainderStart);
-                  remainder.setFinish(remainderFinish);
-                  remainder.setTotalAmount(remainingWork);
-                  result.add(remainder);
+                  long remainderStart = addDays(cal, finishDay, 1);
+                  long remainderFinish = addDays(cal, finishDay, 2);
+                  result.add(remainderStart, remainderFinish, remainingWork, TimeUnit.MINUTES, Double.NaN, null, false);
 
                   remainderInserted = true;
                }
                else
                {
-                  result.add(assignment);
+                  result.add(assignmentStart, assignmentFinish, assignmentWork, assignmentWorkUnits, assignmentWorkPerDay, assignmentWorkPerDayUnits, modified);
                }
                break;
             }
 
-            TimephasedWork[] split = splitFirstDay(calendar, assignment);
-            if (split[0] != null)
-            {
-               result.add(split[0]);
-            }
-
-            if (assignment.equals(split[1]))
+            //
+            // Split the first day off of the time span. Retrieve data 
+            // used to calculate the pro-rata work split.
+            //
+            Date splitStart = new Date(assignmentStart);
+            Duration calendarWork = calendar.getWork(splitStart, new Date(assignmentFinish), TimeUnit.MINUTES);
+            if (calendarWork.getDuration() == 0)
             {
                break;
             }
 
-            assignment = split[1];
-         }
-      }
-
-      list.clear();
-      list.addAll(result);
-   }
-
-   /**
-    * This method splits the first day off of a time span.
-    * 
-    * @param calendar current calendar
-    * @param assignment timephased assignment span
-    * @return first day and remainder assignments
-    */
-   private TimephasedWork[] splitFirstDay(ProjectCalendar calendar, TimephasedWork assignment)
-   {
-      TimephasedWork[] result = new TimephasedWork[2];
-
-      //
-      // Retrieve data used to calculate the pro-rata work split
-      //
-      Date assignmentStart = assignment.getStart();
-      Date assignmentFinish = assignment.getFinish();
-      Duration calendarWork = calendar.getWork(assignmentStart, assignmentFinish, TimeUnit.MINUTES);
-      Duration assignmentWork = assignment.getTotalAmount();
-
-      if (calendarWork.getDuration() != 0)
-      {
-         //
-         // Split the first day
-         //
-         Date splitFinish;
-         double splitMinutes;
-         if (calendar.isWorkingDate(assignmentStart))
-         {
-            Date splitStart = assignmentStart;
-            Date splitFinishTime = calendar.getFinishTime(splitStart);
-            splitFinish = DateUtility.setTime(splitStart, splitFinishTime);
+            Date splitFinish;
+            double splitMinutes;
+            if (calendar.isWorkingDate(splitStart))
+            {
+               Date splitFinishTime = calendar.getFinishTime(splitStart);
+               splitFinish = DateUtility.setTime(splitStart, splitFinishTime);
 
-            Duration calendarSplitWork = calendar.getWork(splitStart, splitFinish, TimeUnit.MINUTES);
-            Duration calendarWorkPerDay = calendar.getWork(splitStart, TimeUnit.MINUTES);
-            Duration assignmentWorkPerDay = assignment.getAmountPerDay();
-            Duration splitWork;
+               double calendarSplitWork = calendar.getWork(splitStart, splitFinish, TimeUnit.MINUTES).getDuration();
+               double calendarWorkPerDay = calendar.getWork(splitStart, TimeUnit.MINUTES).getDuration();
+               TimeUnit splitUnits;
 
-            if (calendarSplitWork.getDuration() == calendarWorkPerDay.getDuration())
-            {
+               if (calendarSplitWork == calendarWorkPerDay && calendarSplitWork == assignmentWorkPerDay)
+               {
+                  splitMinutes = assignmentWorkPerDay;
+                  splitUnits = assignmentWorkPerDayUnits;
+               }
+               else
                {
-                  if (calendarSplitWork.getDuration() == assignmentWorkPerDay.getDuration())
-                  {
-                     splitWork = assignmentWorkPerDay;
-                     splitMinutes = splitWork.getDuration();
-                  }
-                  else
-                  {
-                     splitMinutes = assignmentWorkPerDay.getDuration();
-                     splitMinutes *= calendarSplitWork.getDuration();
-                     splitMinutes /= (8 * 60); // this appears to be a fixed value
-                     splitWork = Duration.getInstance(splitMinutes, TimeUnit.MINUTES);
-                  }
+                  splitMinutes = assignmentWorkPerDay;
+                  splitMinutes *= calendarSplitWork;
+                  splitMinutes /= (8 * 60); // this appears to be a fixed value
+                  splitUnits = TimeUnit.MINUTES;
                }
+
+               result.add(assignmentStart, splitFinish.getTime(), splitMinutes, splitUnits, Double.NaN, null, false);
             }
             else
             {
-               splitMinutes = assignmentWorkPerDay.getDuration();
-               splitMinutes *= calendarSplitWork.getDuration();
-               splitMinutes /= (8 * 60); // this appears to be a fixed value
-               splitWork = Duration.getInstance(splitMinutes, TimeUnit.MINUTES);
+               splitFinish = splitStart;
+               splitMinutes = 0;
             }
 
-            TimephasedWork split = new TimephasedWork();
-            split.setStart(splitStart);
-            split.setFinish(splitFinish);
-            split.setTotalAmount(splitWork);
-
-            result[0] = split;
-         }
-         else
-         {
-            splitFinish = assignmentStart;
-            splitMinutes = 0;
-         }
+            //
+            // Split the remainder
+            //
+            long remainderStart = calendar.getNextWorkStart(splitFinish).getTime();
+            if (remainderStart > assignmentFinish)
+            {
+               break;
+            }
 
-         //
-         // Split the remainder
-         //
-         Date splitStart = calendar.getNextWorkStart(splitFinish);
-         splitFinish = assignmentFinish;
-         TimephasedWork split;
-         if (splitStart.getTime() > splitFinish.getTime())
-         {
-            split = null;
-         }
-         else
-         {
-            splitMinutes = assignmentWork.getDuration() - splitMinutes;
-            Duration splitWork = Duration.getInstance(splitMinutes, TimeUnit.MINUTES);
+            double remainderWork = assignmentWork - splitMinutes;
+            if (remainderStart == assignmentStart && assignmentWorkUnits == TimeUnit.MINUTES && remainderWork == assignmentWork)
+            {
+               break;
+            }
 
-            split = new TimephasedWork();
-            split.setStart(splitStart);
-            split.setFinish(splitFinish);
-            split.setTotalAmount(splitWork);
-            split.setAmountPerDay(assignment.getAmountPerDay());
+            assignmentStart = remainderStart;
+            assignmentWork = remainderWork;
+            assignmentWorkUnits = TimeUnit.MINUTES;
+            modified = false;
          }
-
-         result[1] = split;
       }
-      return result;
+
+      data.setAll(result);
    }
 
    /**
     * This method merges together assignment data for the same day.
     * 
     * @param calendar current calendar
-    * @param list assignment data
+    * @param data assignment data
     */
-   protected abstract void mergeSameDay(ProjectCalendar calendar, LinkedList<TimephasedWork> list);
+   protected abstract void mergeSameDay(ProjectCalendar calendar, TimephasedWorkArray data);
 
    /**
     * Retrieves the pro-rata work carried out on a given day.
     * 
     * @param calendar current calendar
-    * @param assignment current assignment.
-    * @return assignment work duration
+    * @param assignmentStart assignment start date
+    * @param assignmentWorkPerDay assignment work per day in minutes
+    * @return assignment work in minutes
     */
-   private Duration getAssignmentWork(ProjectCalendar calendar, TimephasedWork assignment)
+   private double getAssignmentWork(ProjectCalendar calendar, long assignmentStart, double assignmentWorkPerDay)
    {
-      Date assignmentStart = assignment.getStart();
-
-      Date splitStart = assignmentStart;
+      Date splitStart = new Date(assignmentStart);
       Date splitFinishTime = calendar.getFinishTime(splitStart);
       Date splitFinish = DateUtility.setTime(splitStart, splitFinishTime);
 
-      Duration calendarSplitWork = calendar.getWork(splitStart, splitFinish, TimeUnit.MINUTES);
-      Duration assignmentWorkPerDay = assignment.getAmountPerDay();
-      Duration splitWork;
+      double calendarSplitWork = calendar.getWork(splitStart, splitFinish, TimeUnit.MINUTES).getDuration();
 
-      double splitMinutes = assignmentWorkPerDay.getDuration();
-      splitMinutes *= calendarSplitWork.getDuration();
+      double splitMinutes = assignmentWorkPerDay;
+      splitMinutes *= calendarSplitWork;
       splitMinutes /= (8 * 60); // this appears to be a fixed value
-      splitWork = Duration.getInstance(splitMinutes, TimeUnit.MINUTES);
-      return splitWork;
+      return splitMinutes;
    }
 
-   /*
-      private void dumpList(LinkedList<TimephasedWork> list)
-      {
-         System.out.println();
-         for (TimephasedWork assignment : list)
-         {
-            System.out.println(assignment);
-         }
-      }
-   */
-
    private static final double EQUALITY_DELTA = 0.1;
 }
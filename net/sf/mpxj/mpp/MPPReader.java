@@ -30,8 +30,11 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import net.sf.mpxj.DateRange;
+import net.sf.mpxj.FieldType;
 import net.sf.mpxj.MPXJException;
 import net.sf.mpxj.ProjectFile;
 import net.sf.mpxj.Relation;
@@ -278,6 +281,98 @@ public final class MPPReader extends AbstractProjectReader
       m_readPresentationData = readPresentationData;
    }
 
+   /**
+    * Retrieves a flag which indicates whether task, resource and assignment
+    * fields are decoded when they are first read, rather than when the
+    * file is read.
+    * 
+    * @return lazy field decoding flag
+    */
+   public boolean getLazyFieldDecoding()
+   {
+      return m_lazyFieldDecoding;
+   }
+
+   /**
+    * Setting this flag to true defers decoding task, resource and 
+    * assignment fields until each field is first read. This saves time
+    * when only a small number of fields will be read from a large file.
+    * Note that the raw data for each entity is retained until all of its
+    * fields have been read or set, and that fields are decoded using the
+    * project header settings in force at the time they are read.
+    * Fields may be read from several threads at once, for example from
+    * project listeners called by an executor, as each field is decoded
+    * under a lock held by the entity. As with any entity, the fields
+    * must not be modified while other threads are reading them.
+    * Where a file format does not support this option, fields are
+    * decoded when the file is read.
+    * 
+    * @param lazyFieldDecoding set to true to defer field decoding
+    */
+   public void setLazyFieldDecoding(boolean lazyFieldDecoding)
+   {
+      m_lazyFieldDecoding = lazyFieldDecoding;
+   }
+
+   /**
+    * Retrieves the set of task, resource and assignment fields which
+    * will be read from the MPP file.
+    * 
+    * @return set of fields, or null if all fields will be read
+    */
+   public Set<FieldType> getFieldProjection()
+   {
+      return m_fieldProjection;
+   }
+
+   /**
+    * Restricts the task, resource and assignment fields read from the 
+    * MPP file to the supplied set. Fields which are not in the set are not
+    * decoded, which saves time when only a few fields are required.
+    * Notes are only processed if the NOTES field is included, and
+    * timephased data is only processed for the timephased assignment
+    * fields which are included. Timephased data which has not been read
+    * is absent, rather than empty: the corresponding ResourceAssignment
+    * getTimephased methods return null. The planned timephased work, the
+    * work contour and task splits are derived from both TIMEPHASED_WORK
+    * and TIMEPHASED_ACTUAL_WORK, so they are only set if both fields
+    * are included. Fields used to build the structure of
+    * the project, such as unique IDs, start and finish dates, are always
+    * read. By default all fields are read.
+    * 
+    * @param fields set of fields to read, or null to read all fields
+    */
+   public void setFieldProjection(Set<FieldType> fields)
+   {
+      m_fieldProjection = fields;
+   }
+
+   /**
+    * Retrieves the executor used to decode independent sections of
+    * an MPP file concurrently.
+    * 
+    * @return executor, or null if sections are decoded sequentially
+    */
+   public ExecutorService getExecutorService()
+   {
+      return m_executorService;
+   }
+
+   /**
+    * Supplying an executor allows the resources, tasks and presentation
+    * data in MPP12 and MPP14 files to be decoded concurrently. Once these
+    * sections are complete, relations and assignments are linked on the 
+    * calling thread. Note that when an executor is used, project listeners
+    * may be called from the executor's threads, and the executor is not 
+    * shut down by this class. By default sections are decoded sequentially.
+    * 
+    * @param executorService executor, or null to decode sections sequentially
+    */
+   public void setExecutorService(ExecutorService executorService)
+   {
+      m_executorService = executorService;
+   }
+
    /**
     * Set the read password for this Project file. This is needed in order to
     * be allowed to read a read-protected Project file.
@@ -342,6 +437,21 @@ public final class MPPReader extends AbstractProjectReader
     */
    private boolean m_readPresentationData = true;
 
+   /**
+    * Flag used to indicate that field values should be decoded on demand.
+    */
+   private boolean m_lazyFieldDecoding;
+
+   /**
+    * Fields to be read, or null if all fields are to be read.
+    */
+   private Set<FieldType> m_fieldProjection;
+
+   /**
+    * Executor used to decode sections concurrently, or null.
+    */
+   private ExecutorService m_executorService;
+
    private String m_readPassword;
    private String m_writePassword;
    private List<ProjectListener> m_projectListeners;
@@ -23,14 +23,11 @@
 
 package net.sf.mpxj.mpp;
 
-import java.util.Date;
-import java.util.LinkedList;
+import java.util.Calendar;
 
-import net.sf.mpxj.Duration;
 import net.sf.mpxj.ProjectCalendar;
 import net.sf.mpxj.TimeUnit;
-import net.sf.mpxj.TimephasedWork;
-import net.sf.mpxj.utility.DateUtility;
+import net.sf.mpxj.TimephasedWorkArray;
 
 /**
  * Normalise timephased resource assignment data from an MPP file. 
@@ -41,50 +38,41 @@ public class MPPTimephasedBaselineWorkNormaliser extends MPPAbstractTimephasedWo
     * This method merges together assignment data for the same day.
     * 
     * @param calendar current calendar
-    * @param list assignment data
+    * @param data assignment data
     */
-   @Override protected void mergeSameDay(ProjectCalendar calendar, LinkedList<TimephasedWork> list)
+   @Override protected void mergeSameDay(ProjectCalendar calendar, TimephasedWorkArray data)
    {
-      LinkedList<TimephasedWork> result = new LinkedList<TimephasedWork>();
+      TimephasedWorkArray result = new TimephasedWorkArray(data.size());
+      Calendar cal = Calendar.getInstance();
 
-      TimephasedWork previousAssignment = null;
-      for (TimephasedWork assignment : list)
+      for (int index = 0; index < data.size(); index++)
       {
-         if (previousAssignment == null)
+         if (result.isEmpty())
          {
-            assignment.setAmountPerDay(assignment.getTotalAmount());
-            result.add(assignment);
+            addWithAmountPerDay(result, data, index);
          }
          else
          {
-            Date previousAssignmentStart = previousAssignment.getStart();
-            Date previousAssignmentStartDay = DateUtility.getDayStartDate(previousAssignmentStart);
-            Date assignmentStart = assignment.getStart();
-            Date assignmentStartDay = DateUtility.getDayStartDate(assignmentStart);
+            int previous = result.size() - 1;
+            long previousAssignmentStart = result.getStart(previous);
+            long previousAssignmentStartDay = getDayStartDate(cal, previousAssignmentStart);
+            long assignmentStartDay = getDayStartDate(cal, data.getStart(index));
 
-            if (previousAssignmentStartDay.getTime() == assignmentStartDay.getTime())
+            if (previousAssignmentStartDay == assignmentStartDay)
             {
-               result.removeLast();
-
-               double work = previousAssignment.getTotalAmount().getDuration();
-               work += assignment.getTotalAmount().getDuration();
-               Duration totalWork = Duration.getInstance(work, TimeUnit.MINUTES);
+               double work = result.getTotalAmount(previous);
+               work += data.getTotalAmount(index);
 
-               TimephasedWork merged = new TimephasedWork();
-               merged.setStart(previousAssignment.getStart());
-               merged.setFinish(assignment.getFinish());
-               merged.setTotalAmount(totalWork);
-               assignment = merged;
+               result.removeLast();
+               result.add(previousAssignmentStart, data.getFinish(index), work, TimeUnit.MINUTES, work, TimeUnit.MINUTES, false);
+            }
+            else
+            {
+               addWithAmountPerDay(result, data, index);
             }
-
-            assignment.setAmountPerDay(assignment.getTotalAmount());
-            result.add(assignment);
          }
-
-         previousAssignment = assignment;
       }
 
-      list.clear();
-      list.addAll(result);
+      data.setAll(result);
    }
 }
@@ -23,14 +23,12 @@
 
 package net.sf.mpxj.mpp;
 
+import java.util.Calendar;
 import java.util.Date;
-import java.util.LinkedList;
 
-import net.sf.mpxj.Duration;
 import net.sf.mpxj.ProjectCalendar;
 import net.sf.mpxj.TimeUnit;
-import net.sf.mpxj.TimephasedWork;
-import net.sf.mpxj.utility.DateUtility;
+import net.sf.mpxj.TimephasedWorkArray;
 
 /**
  * Normalise timephased resource assignment data from an MPP file. 
@@ -41,82 +39,83 @@ public class MPPTimephasedWorkNormaliser extends MPPAbstractTimephasedWorkNormal
     * This method merges together assignment data for the same day.
     * 
     * @param calendar current calendar
-    * @param list assignment data
+    * @param data assignment data
     */
-   @Override protected void mergeSameDay(ProjectCalendar calendar, LinkedList<TimephasedWork> list)
+   @Override protected void mergeSameDay(ProjectCalendar calendar, TimephasedWorkArray data)
    {
-      LinkedList<TimephasedWork> result = new LinkedList<TimephasedWork>();
+      TimephasedWorkArray result = new TimephasedWorkArray(data.size());
+      Calendar cal = Calendar.getInstance();
+      boolean hasPrevious = false;
 
-      TimephasedWork previousAssignment = null;
-      for (TimephasedWork assignment : list)
+      for (int index = 0; index < data.size(); index++)
       {
-         if (previousAssignment == null)
+         if (!hasPrevious)
          {
-            assignment.setAmountPerDay(assignment.getTotalAmount());
-            result.add(assignment);
+            addWithAmountPerDay(result, data, index);
          }
          else
          {
-            Date previousAssignmentStart = previousAssignment.getStart();
-            Date previousAssignmentStartDay = DateUtility.getDayStartDate(previousAssignmentStart);
-            Date assignmentStart = assignment.getStart();
-            Date assignmentStartDay = DateUtility.getDayStartDate(assignmentStart);
+            int previous = result.size() - 1;
+            long previousAssignmentStart = result.getStart(previous);
+            long previousAssignmentStartDay = getDayStartDate(cal, previousAssignmentStart);
+            long assignmentStart = data.getStart(index);
+            long assignmentStartDay = getDayStartDate(cal, assignmentStart);
+            boolean merged = false;
 
-            if (previousAssignmentStartDay.getTime() == assignmentStartDay.getTime())
+            if (previousAssignmentStartDay == assignmentStartDay)
             {
-               Duration previousAssignmentWork = previousAssignment.getTotalAmount();
-               Duration assignmentWork = assignment.getTotalAmount();
+               double previousAssignmentWork = result.getTotalAmount(previous);
+               double assignmentWork = data.getTotalAmount(index);
 
-               if (previousAssignmentWork.getDuration() != 0 && assignmentWork.getDuration() == 0)
+               if (previousAssignmentWork != 0 && assignmentWork == 0)
                {
                   continue;
                }
 
-               Date previousAssignmentFinish = previousAssignment.getFinish();
+               long previousAssignmentFinish = result.getFinish(previous);
 
-               if (previousAssignmentFinish.getTime() == assignmentStart.getTime() || calendar.getNextWorkStart(previousAssignmentFinish).getTime() == assignmentStart.getTime())
+               if (previousAssignmentFinish == assignmentStart || calendar.getNextWorkStart(new Date(previousAssignmentFinish)).getTime() == assignmentStart)
                {
-                  result.removeLast();
-
-                  if (previousAssignmentWork.getDuration() != 0 && assignmentWork.getDuration() != 0)
+                  if (previousAssignmentWork != 0 && assignmentWork != 0)
                   {
-                     double work = previousAssignment.getTotalAmount().getDuration();
-                     work += assignment.getTotalAmount().getDuration();
-                     Duration totalWork = Duration.getInstance(work, TimeUnit.MINUTES);
-
-                     TimephasedWork merged = new TimephasedWork();
-                     merged.setStart(previousAssignment.getStart());
-                     merged.setFinish(assignment.getFinish());
-                     merged.setTotalAmount(totalWork);
-                     assignment = merged;
+                     double work = previousAssignmentWork + assignmentWork;
+                     result.removeLast();
+                     result.add(previousAssignmentStart, data.getFinish(index), work, TimeUnit.MINUTES, work, TimeUnit.MINUTES, false);
                   }
                   else
                   {
-                     if (assignmentWork.getDuration() == 0)
+                     if (assignmentWork == 0)
+                     {
+                        result.setAmountPerDay(previous, previousAssignmentWork, result.getTotalAmountUnits(previous));
+                     }
+                     else
                      {
-                        assignment = previousAssignment;
+                        result.removeLast();
+                        addWithAmountPerDay(result, data, index);
                      }
                   }
+                  merged = true;
                }
             }
 
-            assignment.setAmountPerDay(assignment.getTotalAmount());
-            result.add(assignment);
+            if (!merged)
+            {
+               addWithAmountPerDay(result, data, index);
+            }
          }
 
-         Duration calendarWork = calendar.getWork(assignment.getStart(), assignment.getFinish(), TimeUnit.MINUTES);
-         Duration assignmentWork = assignment.getTotalAmount();
-         if (calendarWork.getDuration() == 0 && assignmentWork.getDuration() == 0)
+         int last = result.size() - 1;
+         double calendarWork = calendar.getWork(new Date(result.getStart(last)), new Date(result.getFinish(last)), TimeUnit.MINUTES).getDuration();
+         if (calendarWork == 0 && result.getTotalAmount(last) == 0)
          {
             result.removeLast();
          }
          else
          {
-            previousAssignment = assignment;
+            hasPrevious = true;
          }
       }
 
-      list.clear();
-      list.addAll(result);
+      data.setAll(result);
    }
 }
@@ -30,7 +30,9 @@ import java.io.InputStream;
 import java.text.DecimalFormat;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.TimeZone;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import net.sf.mpxj.CurrencySymbolPosition;
 import net.sf.mpxj.Duration;
@@ -403,13 +405,14 @@ final class MPPUtility
    public static final Date getTime(byte[] data, int offset)
    {
       int time = getShort(data, offset) / 10;
-      Calendar cal = Calendar.getInstance();
-      cal.setTime(EPOCH_DATE);
-      cal.set(Calendar.HOUR_OF_DAY, (time / 60));
-      cal.set(Calendar.MINUTE, (time % 60));
-      cal.set(Calendar.SECOND, 0);
-      cal.set(Calendar.MILLISECOND, 0);
-      return (cal.getTime());
+      TimeZone tz = TimeZone.getDefault();
+      TimeCache cache = TIME_CACHE;
+      if (cache == null || !cache.matches(tz))
+      {
+         cache = new TimeCache(tz);
+         TIME_CACHE = cache;
+      }
+      return (new Date(cache.getTime(time)));
    }
 
    /**
@@ -619,6 +622,38 @@ final class MPPUtility
       return (buffer.toString());
    }
 
+   /**
+    * Reads a string of single byte characters from the input array.
+    * This method assumes that the string finishes either at the
+    * end of the array, or when char zero is encountered, or
+    * when a string of a certain length in bytes has been read.
+    * Reading begins at the supplied offset into the array.
+    *
+    * @param data byte array of data
+    * @param offset offset into the array
+    * @param length length in bytes of the string
+    * @return string value
+    */
+   public static final String getString(byte[] data, int offset, int length)
+   {
+      StringBuffer buffer = new StringBuffer();
+      char c;
+
+      for (int loop = 0; loop < length && offset + loop < data.length; loop++)
+      {
+         c = (char) data[offset + loop];
+
+         if (c == 0)
+         {
+            break;
+         }
+
+         buffer.append(c);
+      }
+
+      return (buffer.toString());
+   }
+
    /**
     * Reads a duration value. This method relies on the fact that
     * the units of the duration have been specified elsewhere.
@@ -1534,6 +1569,68 @@ final class MPPUtility
       return EPOCH_DATE;
    }
 
+   /**
+    * Time values are stored as a number of minutes since midnight, applied
+    * to the epoch date. As there are relatively few possible values, the
+    * millisecond value for each is calculated once for the current time zone
+    * and cached, avoiding the need to create a Calendar instance each time
+    * a time is read. The values are held in an AtomicLongArray, so each
+    * value is read and written atomically and is visible to other threads
+    * once written. The cache may therefore be shared between threads:
+    * concurrent updates can only result in the same value being calculated
+    * more than once. Zero marks a value which has not been calculated, as
+    * no time applied to the epoch date can have this value.
+    */
+   private static final class TimeCache
+   {
+      /**
+       * Constructor.
+       * 
+       * @param tz time zone
+       */
+      public TimeCache(TimeZone tz)
+      {
+         m_timeZone = tz;
+      }
+
+      /**
+       * Determines if this cache can be used for the supplied time zone.
+       * 
+       * @param tz time zone
+       * @return true if this cache can be used
+       */
+      public boolean matches(TimeZone tz)
+      {
+         return (m_timeZone.getID().equals(tz.getID()) && m_timeZone.hasSameRules(tz));
+      }
+
+      /**
+       * Retrieve the time value for a number of minutes since midnight.
+       * 
+       * @param time minutes since midnight
+       * @return time value in milliseconds
+       */
+      public long getTime(int time)
+      {
+         long result = m_times.get(time);
+         if (result == 0)
+         {
+            Calendar cal = Calendar.getInstance(m_timeZone);
+            cal.setTime(EPOCH_DATE);
+            cal.set(Calendar.HOUR_OF_DAY, (time / 60));
+            cal.set(Calendar.MINUTE, (time % 60));
+            cal.set(Calendar.SECOND, 0);
+            cal.set(Calendar.MILLISECOND, 0);
+            result = cal.getTimeInMillis();
+            m_times.set(time, result);
+         }
+         return (result);
+      }
+
+      private final TimeZone m_timeZone;
+      private final AtomicLongArray m_times = new AtomicLongArray((0xFFFF / 10) + 1);
+   }
+
    /**
     * Epoch date for MPP date calculation is 31/12/1983. This constant
     * is that date expressed in milliseconds using the Java date epoch.
@@ -1545,6 +1642,11 @@ final class MPPUtility
     */
    private static Date EPOCH_DATE = DateUtility.getTimestampFromLong(EPOCH);
 
+   /**
+    * Cached time values for the default time zone.
+    */
+   private static volatile TimeCache TIME_CACHE;
+
    /**
     * Number of milliseconds per day.
     */
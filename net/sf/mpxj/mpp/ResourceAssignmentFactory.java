@@ -23,11 +23,11 @@
 
 package net.sf.mpxj.mpp;
 
-import java.util.List;
 import java.util.Set;
 
 import net.sf.mpxj.AssignmentField;
 import net.sf.mpxj.Duration;
+import net.sf.mpxj.FieldValueLoader;
 import net.sf.mpxj.ProjectCalendar;
 import net.sf.mpxj.ProjectFile;
 import net.sf.mpxj.Resource;
@@ -38,11 +38,12 @@ import net.sf.mpxj.Task;
 import net.sf.mpxj.TimeUnit;
 import net.sf.mpxj.TimephasedCostNormaliser;
 import net.sf.mpxj.TimephasedWork;
+import net.sf.mpxj.TimephasedWorkArray;
 import net.sf.mpxj.TimephasedWorkData;
 import net.sf.mpxj.TimephasedWorkNormaliser;
 import net.sf.mpxj.WorkContour;
 import net.sf.mpxj.utility.NumberUtility;
-import net.sf.mpxj.utility.RTFUtility;
+import net.sf.mpxj.utility.RTFNotesLoader;
 
 /**
  * Common implementation detail to extract resource assignment data from 
@@ -58,13 +59,14 @@ public class ResourceAssignmentFactory
     * @param enterpriseCustomFieldMap enterprise custom field map
     * @param useRawTimephasedData use raw timephased data flag
     * @param preserveNoteFormatting preserve note formatting flag
+    * @param lazyFieldDecoding decode fields on demand flag
     * @param assnVarMeta var meta
     * @param assnVarData var data
     * @param assnFixedMeta fixed meta
     * @param assnFixedData fixed data
     * @param assnFixedData2 fixed data
     */
-   public void process(ProjectFile file, FieldMap fieldMap, FieldMap enterpriseCustomFieldMap, boolean useRawTimephasedData, boolean preserveNoteFormatting, VarMeta assnVarMeta, Var2Data assnVarData, FixedMeta assnFixedMeta, FixedData assnFixedData, FixedData assnFixedData2)
+   public void process(ProjectFile file, FieldMap fieldMap, FieldMap enterpriseCustomFieldMap, boolean useRawTimephasedData, boolean preserveNoteFormatting, boolean lazyFieldDecoding, VarMeta assnVarMeta, Var2Data assnVarData, FixedMeta assnFixedMeta, FixedData assnFixedData, FixedData assnFixedData2)
    {
       Set<Integer> set = assnVarMeta.getUniqueIdentifierSet();
       int count = assnFixedMeta.getItemCount();
@@ -74,7 +76,6 @@ public class ResourceAssignmentFactory
       TimephasedWorkNormaliser baselineWorkNormaliser = new MPPTimephasedBaselineWorkNormaliser();
       TimephasedCostNormaliser baselineCostNormaliser = new MPPTimephasedBaselineCostNormaliser();
       ProjectCalendar baselineCalendar = file.getBaselineCalendar();
-      RTFUtility rtf = new RTFUtility();
 
       //System.out.println(assnFixedMeta);
       //System.out.println(assnFixedData);
@@ -120,15 +121,49 @@ public class ResourceAssignmentFactory
 
          assignment.disableEvents();
 
-         fieldMap.populateContainer(assignment, varDataId, new byte[][]
+         byte[][] fixedData = new byte[][]
          {
             data,
             data2
-         }, assnVarData);
+         };
 
-         if (enterpriseCustomFieldMap != null)
+         FieldValueLoader loader = null;
+         if (lazyFieldDecoding)
          {
-            enterpriseCustomFieldMap.populateContainer(assignment, varDataId, null, assnVarData);
+            loader = fieldMap.createLoader(enterpriseCustomFieldMap, varDataId, fixedData, assnVarData);
+         }
+         else
+         {
+            fieldMap.populateContainer(assignment, varDataId, fixedData, assnVarData);
+
+            if (enterpriseCustomFieldMap != null)
+            {
+               enterpriseCustomFieldMap.populateContainer(assignment, varDataId, null, assnVarData);
+            }
+         }
+
+         //
+         // Notes are held in RTF format, the formatting is removed when they are first read.
+         // If the other fields have already been populated, only the notes are deferred.
+         //
+         if (!preserveNoteFormatting)
+         {
+            if (loader != null)
+            {
+               loader = new RTFNotesLoader(loader);
+            }
+            else
+            {
+               if (assignment.getNotes().length() != 0)
+               {
+                  assignment.setFieldValueLoader(new RTFNotesLoader(null), AssignmentField.NOTES);
+               }
+            }
+         }
+
+         if (loader != null)
+         {
+            assignment.setFieldValueLoader(loader);
          }
 
          assignment.enableEvents();
@@ -189,17 +224,6 @@ public class ResourceAssignmentFactory
             }
          }
 
-         String notes = assignment.getNotes();
-         if (notes != null)
-         {
-            if (!preserveNoteFormatting)
-            {
-               notes = rtf.strip(notes);
-            }
-
-            assignment.setNotes(notes);
-         }
-
          Task task = file.getTaskByUniqueID(assignment.getTaskUniqueID());
          if (task != null)
          {
@@ -223,51 +247,70 @@ public class ResourceAssignmentFactory
                calendar = file.getCalendar();
             }
 
-            assignment.setTimephasedBaselineWork(0, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE_WORK)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineWork(1, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE1_WORK)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineWork(2, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE2_WORK)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineWork(3, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE3_WORK)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineWork(4, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE4_WORK)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineWork(5, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE5_WORK)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineWork(6, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE6_WORK)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineWork(7, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE7_WORK)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineWork(8, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE8_WORK)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineWork(9, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE9_WORK)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineWork(10, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE10_WORK)), !useRawTimephasedData));
-
-            assignment.setTimephasedBaselineCost(0, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE_COST)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineCost(1, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE1_COST)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineCost(2, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE2_COST)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineCost(3, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE3_COST)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineCost(4, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE4_COST)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineCost(5, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE5_COST)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineCost(6, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE6_COST)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineCost(7, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE7_COST)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineCost(8, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE8_COST)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineCost(9, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE9_COST)), !useRawTimephasedData));
-            assignment.setTimephasedBaselineCost(10, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_BASELINE10_COST)), !useRawTimephasedData));
-
-            byte[] timephasedActualWorkData = assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_ACTUAL_WORK));
-            byte[] timephasedWorkData = assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_WORK));
-            byte[] timephasedActualOvertimeWorkData = assnVarData.getByteArray(varDataId, fieldMap.getVarDataKey(AssignmentField.TIMEPHASED_ACTUAL_OVERTIME_WORK));
-
-            List<TimephasedWork> timephasedActualWork = timephasedFactory.getCompleteWork(calendar, assignment.getStart(), timephasedActualWorkData);
-            List<TimephasedWork> timephasedWork = timephasedFactory.getPlannedWork(calendar, assignment.getStart(), assignment.getUnits().doubleValue(), timephasedWorkData, timephasedActualWork);
-            List<TimephasedWork> timephasedActualOvertimeWork = timephasedFactory.getCompleteWork(calendar, assignment.getStart(), timephasedActualOvertimeWorkData);
-
-            assignment.setActualStart(timephasedActualWork.isEmpty() ? null : assignment.getStart());
+            assignment.setTimephasedBaselineWork(0, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, getTimephasedData(fieldMap, assnVarData, varDataId, AssignmentField.TIMEPHASED_BASELINE_WORK), !useRawTimephasedData));
+            assignment.setTimephasedBaselineWork(1, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, getTimephasedData(fieldMap, assnVarData, varDataId, AssignmentField.TIMEPHASED_BASELINE1_WORK), !useRawTimephasedData));
+            assignment.setTimephasedBaselineWork(2, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, getTimephasedData(fieldMap, assnVarData, varDataId, AssignmentField.TIMEPHASED_BASELINE2_WORK), !useRawTimephasedData));
+            assignment.setTimephasedBaselineWork(3, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, getTimephasedData(fieldMap, assnVarData, varDataId, AssignmentField.TIMEPHASED_BASELINE3_WORK), !useRawTimephasedData));
+            assignment.setTimephasedBaselineWork(4, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, getTimephasedData(fieldMap, assnVarData, varDataId, AssignmentField.TIMEPHASED_BASELINE4_WORK), !useRawTimephasedData));
+            assignment.setTimephasedBaselineWork(5, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, getTimephasedData(fieldMap, assnVarData, varDataId, AssignmentField.TIMEPHASED_BASELINE5_WORK), !useRawTimephasedData));
+            assignment.setTimephasedBaselineWork(6, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, getTimephasedData(fieldMap, assnVarData, varDataId, AssignmentField.TIMEPHASED_BASELINE6_WORK), !useRawTimephasedData));
+            assignment.setTimephasedBaselineWork(7, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, getTimephasedData(fieldMap, assnVarData, varDataId, AssignmentField.TIMEPHASED_BASELINE7_WORK), !useRawTimephasedData));
+            assignment.setTimephasedBaselineWork(8, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, getTimephasedData(fieldMap, assnVarData, varDataId, AssignmentField.TIMEPHASED_BASELINE8_WORK), !useRawTimephasedData));
+            assignment.setTimephasedBaselineWork(9, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, getTimephasedData(fieldMap, assnVarData, varDataId, AssignmentField.TIMEPHASED_BASELINE9_WORK), !useRawTimephasedData));
+            assignment.setTimephasedBaselineWork(10, timephasedFactory.getBaselineWork(assignment, baselineCalendar, baselineWorkNormaliser, getTimephasedData(fieldMap, assnVarData, varDataId, AssignmentField.TIMEPHASED_BASELINE10_WORK), !useRawTimephasedData));
+
+            assignment.setTimephasedBaselineCost(0, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, getTimephasedData(fieldMap, assnVarData, varDataId, AssignmentField.TIMEPHASED_BASELINE_COST), !useRawTimephasedData));
+            assignment.setTimephasedBaselineCost(1, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, getTimephasedData(fieldMap, assnVarData, varDataId, AssignmentField.TIMEPHASED_BASELINE1_COST), !useRawTimephasedData));
+            assignment.setTimephasedBaselineCost(2, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, getTimephasedData(fieldMap, assnVarData, varDataId, AssignmentField.TIMEPHASED_BASELINE2_COST), !useRawTimephasedData));
+            assignment.setTimephasedBaselineCost(3, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, getTimephasedData(fieldMap, assnVarData, varDataId, AssignmentField.TIMEPHASED_BASELINE3_COST), !useRawTimephasedData));
+            assignment.setTimephasedBaselineCost(4, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, getTimephasedData(fieldMap, assnVarData, varDataId, AssignmentField.TIMEPHASED_BASELINE4_COST), !useRawTimephasedData));
+            assignment.setTimephasedBaselineCost(5, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, getTimephasedData(fieldMap, assnVarData, varDataId, AssignmentField.TIMEPHASED_BASELINE5_COST), !useRawTimephasedData));
+            assignment.setTimephasedBaselineCost(6, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, getTimephasedData(fieldMap, assnVarData, varDataId, AssignmentField.TIMEPHASED_BASELINE6_COST), !useRawTimephasedData));
+            assignment.setTimephasedBaselineCost(7, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, getTimephasedData(fieldMap, assnVarData, varDataId, AssignmentField.TIMEPHASED_BASELINE7_COST), !useRawTimephasedData));
+            assignment.setTimephasedBaselineCost(8, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, getTimephasedData(fieldMap, assnVarData, varDataId, AssignmentField.TIMEPHASED_BASELINE8_COST), !useRawTimephasedData));
+            assignment.setTimephasedBaselineCost(9, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, getTimephasedData(fieldMap, assnVarData, varDataId, AssignmentField.TIMEPHASED_BASELINE9_COST), !useRawTimephasedData));
+            assignment.setTimephasedBaselineCost(10, timephasedFactory.getBaselineCost(baselineCalendar, baselineCostNormaliser, getTimephasedData(fieldMap, assnVarData, varDataId, AssignmentField.TIMEPHASED_BASELINE10_COST), !useRawTimephasedData));
+
+            byte[] timephasedActualWorkData = getTimephasedData(fieldMap, assnVarData, varDataId, AssignmentField.TIMEPHASED_ACTUAL_WORK);
+            byte[] timephasedWorkData = getTimephasedData(fieldMap, assnVarData, varDataId, AssignmentField.TIMEPHASED_WORK);
+            byte[] timephasedActualOvertimeWorkData = getTimephasedData(fieldMap, assnVarData, varDataId, AssignmentField.TIMEPHASED_ACTUAL_OVERTIME_WORK);
+
+            TimephasedWorkArray timephasedActualWork = timephasedFactory.getCompleteWork(calendar, assignment.getStart(), timephasedActualWorkData);
+            TimephasedWorkArray timephasedWork = timephasedFactory.getPlannedWork(calendar, assignment.getStart(), assignment.getUnits().doubleValue(), timephasedWorkData, timephasedActualWork);
+            TimephasedWorkArray timephasedActualOvertimeWork = timephasedFactory.getCompleteWork(calendar, assignment.getStart(), timephasedActualOvertimeWorkData);
+
+            boolean actualWorkProjected = fieldMap.isProjected(AssignmentField.TIMEPHASED_ACTUAL_WORK);
+            boolean workProjected = actualWorkProjected && fieldMap.isProjected(AssignmentField.TIMEPHASED_WORK);
+
+            if (actualWorkProjected)
+            {
+               assignment.setActualStart(timephasedActualWork.isEmpty() ? null : assignment.getStart());
+               assignment.setTimephasedActualWork(new TimephasedWorkData(calendar, normaliser, timephasedActualWork, !useRawTimephasedData));
+            }
             assignment.setActualFinish((assignment.getRemainingWork().getDuration() == 0 && resource != null) ? assignment.getFinish() : null);
 
-            if (task.getSplits() != null && task.getSplits().isEmpty())
+            //
+            // Planned work is derived from both the planned and the complete
+            // timephased data, so if either has not been read we leave
+            // the planned work, splits and default timephased data unset
+            // rather than presenting values which do not reflect the file.
+            //
+            if (workProjected)
             {
-               splitFactory.processSplitData(task, timephasedActualWork, timephasedWork);
-            }
+               if (task.getSplits() != null && task.getSplits().isEmpty())
+               {
+                  splitFactory.processSplitData(task, timephasedActualWork, timephasedWork);
+               }
 
-            createTimephasedData(file, assignment, timephasedWork, timephasedActualWork);
+               createTimephasedData(file, assignment, timephasedWork, timephasedActualWork);
 
-            assignment.setTimephasedWork(new TimephasedWorkData(calendar, normaliser, timephasedWork, !useRawTimephasedData));
-            assignment.setTimephasedActualWork(new TimephasedWorkData(calendar, normaliser, timephasedActualWork, !useRawTimephasedData));
-            assignment.setTimephasedActualOvertimeWork(new TimephasedWorkData(calendar, normaliser, timephasedActualOvertimeWork, !useRawTimephasedData));
+               assignment.setTimephasedWork(new TimephasedWorkData(calendar, normaliser, timephasedWork, !useRawTimephasedData));
+            }
+
+            if (fieldMap.isProjected(AssignmentField.TIMEPHASED_ACTUAL_OVERTIME_WORK))
+            {
+               assignment.setTimephasedActualOvertimeWork(new TimephasedWorkData(calendar, normaliser, timephasedActualOvertimeWork, !useRawTimephasedData));
+            }
 
             if (timephasedWorkData != null)
             {
@@ -293,6 +336,21 @@ public class ResourceAssignmentFactory
       }
    }
 
+   /**
+    * Retrieve the raw timephased data for an assignment. If the field is
+    * not being read, null is returned and the data is not processed.
+    * 
+    * @param fieldMap assignment field map
+    * @param varData var data
+    * @param varDataId var data ID for this assignment
+    * @param field timephased data field
+    * @return raw timephased data
+    */
+   private byte[] getTimephasedData(FieldMap fieldMap, Var2Data varData, Integer varDataId, AssignmentField field)
+   {
+      return (fieldMap.isProjected(field) ? varData.getByteArray(varDataId, fieldMap.getVarDataKey(field)) : null);
+   }
+
    /**
     * Extract assignment hyperlink data. 
     * 
@@ -335,7 +393,7 @@ public class ResourceAssignmentFactory
     * @param timephasedPlanned planned timephased data
     * @param timephasedComplete complete timephased data
     */
-   private void createTimephasedData(ProjectFile file, ResourceAssignment assignment, List<TimephasedWork> timephasedPlanned, List<TimephasedWork> timephasedComplete)
+   private void createTimephasedData(ProjectFile file, ResourceAssignment assignment, TimephasedWorkArray timephasedPlanned, TimephasedWorkArray timephasedComplete)
    {
       if (timephasedPlanned.isEmpty() && timephasedComplete.isEmpty())
       {
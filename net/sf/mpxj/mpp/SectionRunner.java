@@ -0,0 +1,167 @@
+/*
+ * file:       SectionRunner.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2012
+ * date:       18/10/2012
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.mpp;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import net.sf.mpxj.MPXJException;
+
+/**
+ * Runs independent sections of an MPP file on an executor, allowing them 
+ * to be decoded concurrently. If no executor is supplied, each section is
+ * run immediately on the calling thread.
+ */
+final class SectionRunner
+{
+   /**
+    * Constructor.
+    * 
+    * @param executor executor used to run sections, or null to run sections immediately
+    */
+   public SectionRunner(ExecutorService executor)
+   {
+      m_executor = executor;
+   }
+
+   /**
+    * Run a section, either immediately or by submitting it to the executor.
+    * 
+    * @param section section to run
+    * @throws MPXJException
+    * @throws IOException
+    */
+   public void run(Callable<Void> section) throws MPXJException, IOException
+   {
+      if (m_executor == null)
+      {
+         try
+         {
+            section.call();
+         }
+
+         catch (Exception ex)
+         {
+            rethrow(ex);
+         }
+      }
+      else
+      {
+         m_futures.add(m_executor.submit(section));
+      }
+   }
+
+   /**
+    * Wait for all submitted sections to complete. This method always waits
+    * for every section, even if one of them fails, so that no section is 
+    * still running when the caller continues. The first failure is then 
+    * reported to the caller.
+    * 
+    * @throws MPXJException
+    * @throws IOException
+    */
+   public void await() throws MPXJException, IOException
+   {
+      Throwable failure = null;
+      boolean interrupted = false;
+
+      for (Future<Void> future : m_futures)
+      {
+         boolean complete = false;
+         while (!complete)
+         {
+            try
+            {
+               future.get();
+               complete = true;
+            }
+
+            catch (InterruptedException ex)
+            {
+               interrupted = true;
+            }
+
+            catch (ExecutionException ex)
+            {
+               if (failure == null)
+               {
+                  failure = ex.getCause();
+               }
+               complete = true;
+            }
+         }
+      }
+      m_futures.clear();
+
+      if (interrupted)
+      {
+         Thread.currentThread().interrupt();
+      }
+
+      if (failure != null)
+      {
+         rethrow(failure);
+      }
+   }
+
+   /**
+    * Rethrow an exception raised by a section.
+    * 
+    * @param ex exception
+    * @throws MPXJException
+    * @throws IOException
+    */
+   private void rethrow(Throwable ex) throws MPXJException, IOException
+   {
+      if (ex instanceof IOException)
+      {
+         throw (IOException) ex;
+      }
+
+      if (ex instanceof MPXJException)
+      {
+         throw (MPXJException) ex;
+      }
+
+      if (ex instanceof RuntimeException)
+      {
+         throw (RuntimeException) ex;
+      }
+
+      if (ex instanceof Error)
+      {
+         throw (Error) ex;
+      }
+
+      throw new MPXJException(MPXJException.READ_ERROR, (Exception) ex);
+   }
+
+   private final ExecutorService m_executor;
+   private final List<Future<Void>> m_futures = new ArrayList<Future<Void>>();
+}
@@ -25,7 +25,6 @@ package net.sf.mpxj.mpp;
 
 import java.util.Date;
 import java.util.LinkedList;
-import java.util.List;
 
 import net.sf.mpxj.Duration;
 import net.sf.mpxj.ProjectCalendar;
@@ -34,35 +33,36 @@ import net.sf.mpxj.TimeUnit;
 import net.sf.mpxj.TimephasedCost;
 import net.sf.mpxj.TimephasedCostData;
 import net.sf.mpxj.TimephasedCostNormaliser;
-import net.sf.mpxj.TimephasedWork;
+import net.sf.mpxj.TimephasedWorkArray;
 import net.sf.mpxj.TimephasedWorkData;
 import net.sf.mpxj.TimephasedWorkNormaliser;
 
 /**
- * This class contains methods to create lists of TimephasedWork
+ * This class contains methods to create TimephasedWork
  * and TimephasedCost instances.
  */
 final class TimephasedDataFactory
 {
    /**
     * Given a block of data representing completed work, this method will
-    * retrieve a set of TimephasedWork instances which represent
-    * the day by day work carried out for a specific resource assignment.
+    * retrieve the timephased work items which represent the day by day 
+    * work carried out for a specific resource assignment. Each block is
+    * decoded directly into the compact representation of the data, without
+    * creating intermediate TimephasedWork instances.
     *
     * @param calendar calendar on which date calculations are based
     * @param startDate assignment start date 
     * @param data completed work data block
-    * @return list of TimephasedWork instances
+    * @return timephased work items
     */
-   public List<TimephasedWork> getCompleteWork(ProjectCalendar calendar, Date startDate, byte[] data)
+   public TimephasedWorkArray getCompleteWork(ProjectCalendar calendar, Date startDate, byte[] data)
    {
-      LinkedList<TimephasedWork> list = new LinkedList<TimephasedWork>();
+      TimephasedWorkArray list = new TimephasedWorkArray();
 
       if (data != null && data.length > 0)
       {
          int blockCount = MPPUtility.getShort(data, 0);
          double previousCumulativeWork = 0;
-         TimephasedWork previousAssignment = null;
 
          int index = 32;
          int currentBlock = 0;
@@ -76,11 +76,10 @@ final class TimephasedDataFactory
             double assignmentDuration = currentCumulativeWork - previousCumulativeWork;
             previousCumulativeWork = currentCumulativeWork;
             assignmentDuration /= 1000;
-            Duration totalWork = Duration.getInstance(assignmentDuration, TimeUnit.MINUTES);
             time = (long) MPPUtility.getDouble(data, index + 12);
             time /= 125;
             time *= 6;
-            Duration workPerDay = Duration.getInstance(time, TimeUnit.MINUTES);
+            double workPerDay = time;
 
             Date start;
             if (startWork.getDuration() == 0)
@@ -92,39 +91,23 @@ final class TimephasedDataFactory
                start = calendar.getDate(startDate, startWork, true);
             }
 
-            TimephasedWork assignment = new TimephasedWork();
-            assignment.setStart(start);
-            assignment.setAmountPerDay(workPerDay);
-            assignment.setTotalAmount(totalWork);
-
-            if (previousAssignment != null)
+            if (!list.isEmpty())
             {
-               Date finish = calendar.getDate(startDate, startWork, false);
-               previousAssignment.setFinish(finish);
-               if (previousAssignment.getStart().getTime() == previousAssignment.getFinish().getTime())
-               {
-                  list.removeLast();
-               }
+               setPreviousFinish(list, calendar.getDate(startDate, startWork, false));
             }
 
-            list.add(assignment);
-            previousAssignment = assignment;
+            list.add(getTime(start), TimephasedWorkArray.NULL_DATE, assignmentDuration, TimeUnit.MINUTES, workPerDay, TimeUnit.MINUTES, false);
 
             index += 20;
             ++currentBlock;
          }
 
-         if (previousAssignment != null)
+         if (!list.isEmpty())
          {
             double time = MPPUtility.getInt(data, 24);
             time /= 80;
             Duration finishWork = Duration.getInstance(time, TimeUnit.MINUTES);
-            Date finish = calendar.getDate(startDate, finishWork, false);
-            previousAssignment.setFinish(finish);
-            if (previousAssignment.getStart().getTime() == previousAssignment.getFinish().getTime())
-            {
-               list.removeLast();
-            }
+            setPreviousFinish(list, calendar.getDate(startDate, finishWork, false));
          }
       }
 
@@ -133,19 +116,21 @@ final class TimephasedDataFactory
 
    /**
     * Given a block of data representing planned work, this method will
-    * retrieve a set of TimephasedWork instances which represent
-    * the day by day work planned for a specific resource assignment.
+    * retrieve the timephased work items which represent the day by day 
+    * work planned for a specific resource assignment. Each block is
+    * decoded directly into the compact representation of the data, without
+    * creating intermediate TimephasedWork instances.
     *
     * @param calendar calendar on which date calculations are based
     * @param startDate assignment start date
     * @param units assignment units 
     * @param data planned work data block
-    * @param timephasedComplete list of complete work 
-    * @return list of TimephasedWork instances 
+    * @param timephasedComplete complete work 
+    * @return timephased work items 
     */
-   public List<TimephasedWork> getPlannedWork(ProjectCalendar calendar, Date startDate, double units, byte[] data, List<TimephasedWork> timephasedComplete)
+   public TimephasedWorkArray getPlannedWork(ProjectCalendar calendar, Date startDate, double units, byte[] data, TimephasedWorkArray timephasedComplete)
    {
-      LinkedList<TimephasedWork> list = new LinkedList<TimephasedWork>();
+      TimephasedWorkArray list = new TimephasedWorkArray();
 
       if (data != null && data.length > 0)
       {
@@ -154,30 +139,23 @@ final class TimephasedDataFactory
          {
             if (!timephasedComplete.isEmpty() && units != 0)
             {
-               TimephasedWork lastComplete = timephasedComplete.get(timephasedComplete.size() - 1);
+               Date lastCompleteFinish = getDate(timephasedComplete.getFinish(timephasedComplete.size() - 1));
 
-               Date startWork = calendar.getNextWorkStart(lastComplete.getFinish());
+               Date startWork = calendar.getNextWorkStart(lastCompleteFinish);
                double time = MPPUtility.getDouble(data, 16);
                time /= 1000;
-               Duration totalWork = Duration.getInstance(time, TimeUnit.MINUTES);
+               double totalWork = time;
                Duration adjustedTotalWork = Duration.getInstance((time * 100) / units, TimeUnit.MINUTES);
                Date finish = calendar.getDate(startWork, adjustedTotalWork, false);
 
                time = MPPUtility.getDouble(data, 8);
                time /= 2000;
                time *= 6;
-               Duration workPerDay = Duration.getInstance(time, TimeUnit.MINUTES);
+               double workPerDay = time;
 
-               TimephasedWork assignment = new TimephasedWork();
-               assignment.setStart(startWork);
-               assignment.setAmountPerDay(workPerDay);
-               assignment.setModified(false);
-               assignment.setFinish(finish);
-               assignment.setTotalAmount(totalWork);
-
-               if (assignment.getStart().getTime() != assignment.getFinish().getTime())
+               if (startWork.getTime() != finish.getTime())
                {
-                  list.add(assignment);
+                  list.add(startWork.getTime(), finish.getTime(), totalWork, TimeUnit.MINUTES, workPerDay, TimeUnit.MINUTES, false);
                }
             }
          }
@@ -187,13 +165,11 @@ final class TimephasedDataFactory
 
             if (!timephasedComplete.isEmpty())
             {
-               TimephasedWork lastComplete = timephasedComplete.get(timephasedComplete.size() - 1);
-               offset = lastComplete.getFinish();
+               offset = getDate(timephasedComplete.getFinish(timephasedComplete.size() - 1));
             }
 
             int index = 40;
             double previousCumulativeWork = 0;
-            TimephasedWork previousAssignment = null;
             int currentBlock = 0;
 
             while (currentBlock < blockCount && index + 28 <= data.length)
@@ -214,51 +190,33 @@ final class TimephasedDataFactory
                double currentCumulativeWork = MPPUtility.getDouble(data, index + 4);
                double assignmentDuration = currentCumulativeWork - previousCumulativeWork;
                assignmentDuration /= 1000;
-               Duration totalWork = Duration.getInstance(assignmentDuration, TimeUnit.MINUTES);
                previousCumulativeWork = currentCumulativeWork;
 
                time = MPPUtility.getDouble(data, index + 12);
                time /= 2000;
                time *= 6;
-               Duration workPerDay = Duration.getInstance(time, TimeUnit.MINUTES);
+               double workPerDay = time;
 
                int modifiedFlag = MPPUtility.getShort(data, index + 22);
                boolean modified = (modifiedFlag == 0 && currentBlock != 0) || ((modifiedFlag & 0x3000) != 0);
 
-               TimephasedWork assignment = new TimephasedWork();
-               assignment.setStart(start);
-               assignment.setAmountPerDay(workPerDay);
-               assignment.setModified(modified);
-               assignment.setTotalAmount(totalWork);
-
-               if (previousAssignment != null)
+               if (!list.isEmpty())
                {
-                  Date finish = calendar.getDate(offset, blockDuration, false);
-                  previousAssignment.setFinish(finish);
-                  if (previousAssignment.getStart().getTime() == previousAssignment.getFinish().getTime())
-                  {
-                     list.removeLast();
-                  }
+                  setPreviousFinish(list, calendar.getDate(offset, blockDuration, false));
                }
 
-               list.add(assignment);
-               previousAssignment = assignment;
+               list.add(getTime(start), TimephasedWorkArray.NULL_DATE, assignmentDuration, TimeUnit.MINUTES, workPerDay, TimeUnit.MINUTES, modified);
 
                index += 28;
                ++currentBlock;
             }
 
-            if (previousAssignment != null)
+            if (!list.isEmpty())
             {
                double time = MPPUtility.getInt(data, 24);
                time /= 80;
                Duration blockDuration = Duration.getInstance(time, TimeUnit.MINUTES);
-               Date finish = calendar.getDate(offset, blockDuration, false);
-               previousAssignment.setFinish(finish);
-               if (previousAssignment.getStart().getTime() == previousAssignment.getFinish().getTime())
-               {
-                  list.removeLast();
-               }
+               setPreviousFinish(list, calendar.getDate(offset, blockDuration, false));
             }
          }
       }
@@ -267,18 +225,18 @@ final class TimephasedDataFactory
    }
 
    /**
-    * Test the list of TimephasedWork instances to see
-    * if any of them have been modified. 
+    * Test the timephased work items to see if any of them 
+    * have been modified. 
     * 
-    * @param list list of TimephasedWork instances
+    * @param list timephased work items
     * @return boolean flag
     */
-   public boolean getWorkModified(List<TimephasedWork> list)
+   public boolean getWorkModified(TimephasedWorkArray list)
    {
       boolean result = false;
-      for (TimephasedWork assignment : list)
+      for (int index = 0; index < list.size(); index++)
       {
-         result = assignment.getModified();
+         result = list.getModified(index);
          if (result)
          {
             break;
@@ -305,16 +263,14 @@ final class TimephasedDataFactory
 
       if (data != null && data.length > 0)
       {
-         LinkedList<TimephasedWork> list = null;
+         TimephasedWorkArray list = null;
 
-         //System.out.println(MPPUtility.hexdump(data, false));
          int index = 8; // 8 byte header
          int blockSize = 40;
          double previousCumulativeWorkPerformedInMinutes = 0;
 
          Date blockStartDate = MPPUtility.getTimestampFromTenths(data, index + 36);
          index += blockSize;
-         TimephasedWork work = null;
 
          while (index + blockSize <= data.length)
          {
@@ -331,20 +287,13 @@ final class TimephasedDataFactory
                double normalWorkPerDayInMinutes = 480;
                double overtimeWorkPerDayInMinutes = normalWorkPerDayInMinutes * overtimeFactor;
 
-               work = new TimephasedWork();
-               work.setFinish(MPPUtility.getTimestampFromTenths(data, index + 16));
-               work.setStart(blockStartDate);
-               work.setTotalAmount(Duration.getInstance(workThisPeriodInMinutes, TimeUnit.MINUTES));
-               work.setAmountPerDay(Duration.getInstance(normalWorkPerDayInMinutes + overtimeWorkPerDayInMinutes, TimeUnit.MINUTES));
-
                previousCumulativeWorkPerformedInMinutes = cumulativeWorkInMinutes;
 
                if (list == null)
                {
-                  list = new LinkedList<TimephasedWork>();
+                  list = new TimephasedWorkArray();
                }
-               list.add(work);
-               //System.out.println(work);
+               list.add(getTime(blockStartDate), getTime(MPPUtility.getTimestampFromTenths(data, index + 16)), workThisPeriodInMinutes, TimeUnit.MINUTES, normalWorkPerDayInMinutes + overtimeWorkPerDayInMinutes, TimeUnit.MINUTES, false);
             }
             blockStartDate = MPPUtility.getTimestampFromTenths(data, index + 36);
             index += blockSize;
@@ -352,10 +301,7 @@ final class TimephasedDataFactory
 
          if (list != null)
          {
-            if (work != null)
-            {
-               work.setFinish(assignment.getFinish());
-            }
+            list.setFinish(list.size() - 1, getTime(assignment.getFinish()));
             result = new TimephasedWorkData(calendar, normaliser, list, raw);
          }
       }
@@ -363,6 +309,45 @@ final class TimephasedDataFactory
       return result;
    }
 
+   /**
+    * Sets the finish date of the last timephased work item, removing
+    * the item if its start and finish dates are the same.
+    * 
+    * @param list timephased work items
+    * @param finish finish date
+    */
+   private void setPreviousFinish(TimephasedWorkArray list, Date finish)
+   {
+      int previous = list.size() - 1;
+      list.setFinish(previous, getTime(finish));
+      if (list.getStart(previous) == list.getFinish(previous))
+      {
+         list.removeLast();
+      }
+   }
+
+   /**
+    * Convert a Date instance to the representation used by TimephasedWorkArray.
+    * 
+    * @param date Date instance
+    * @return date in milliseconds, or TimephasedWorkArray.NULL_DATE
+    */
+   private long getTime(Date date)
+   {
+      return (date == null ? TimephasedWorkArray.NULL_DATE : date.getTime());
+   }
+
+   /**
+    * Convert a date held by TimephasedWorkArray to a Date instance.
+    * 
+    * @param date date in milliseconds, or TimephasedWorkArray.NULL_DATE
+    * @return Date instance
+    */
+   private Date getDate(long date)
+   {
+      return (date == TimephasedWorkArray.NULL_DATE ? null : new Date(date));
+   }
+
    /**
     * Extracts baseline cost from the MPP file for a specific baseline.
     * Returns null if no baseline cost is present, otherwise returns
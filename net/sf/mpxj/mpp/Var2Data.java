@@ -23,18 +23,24 @@
 
 package net.sf.mpxj.mpp;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.Arrays;
 import java.util.Date;
-import java.util.TreeMap;
 
 /**
  * This class represents a block of variable data. Each block of
  * data is represented by a 4 byte size, followed by the data itself.
  * Each Var2Data block should be associated with a MetaData block
  * which describes the layout of the data in the Var2Data block.
+ * 
+ * The block is read into a single buffer, and each data item is
+ * represented by its position and length within this buffer. Values
+ * are decoded directly from the buffer, so individual items are only
+ * copied when a byte array is requested.
  */
 final class Var2Data extends MPPComponent
 {
@@ -50,25 +56,65 @@ final class Var2Data extends MPPComponent
       throws IOException
    {
       m_meta = meta;
-      byte[] data;
 
-      int itemCount = m_meta.getItemCount();
+      is.reset();
+      m_buffer = new byte[is.available()];
+      is.read(m_buffer);
 
-      int itemOffset;
+      //
+      // Build a sorted list of the distinct item offsets, and 
+      // determine the position and size of the data for each item.
+      //
+      int itemCount = m_meta.getItemCount();
+      int[] offsets = new int[itemCount];
+      for (int loop = 0; loop < itemCount; loop++)
+      {
+         offsets[loop] = meta.getOffset(loop);
+      }
+      Arrays.sort(offsets);
 
+      int count = 0;
       for (int loop = 0; loop < itemCount; loop++)
       {
-         itemOffset = meta.getOffset(loop);
-         is.reset();
-         is.skip(itemOffset);
+         if (count == 0 || offsets[loop] != offsets[count - 1])
+         {
+            offsets[count] = offsets[loop];
+            ++count;
+         }
+      }
 
-         int size = readInt(is);
+      m_offsets = Arrays.copyOf(offsets, count);
+      m_start = new int[count];
+      m_size = new int[count];
 
-         data = readByteArray(is, size);
+      for (int loop = 0; loop < count; loop++)
+      {
+         // a negative offset reads from the start of the block
+         int itemOffset = Math.max(m_offsets[loop], 0);
+         if (itemOffset > m_buffer.length - 4)
+         {
+            throw new EOFException();
+         }
 
-         m_map.put(Integer.valueOf(itemOffset), data);
+         int size = MPPUtility.getInt(m_buffer, itemOffset);
+         if (size < 0 || size > m_buffer.length - (itemOffset + 4))
+         {
+            throw new EOFException();
+         }
+
+         m_start[loop] = itemOffset + 4;
+         m_size[loop] = size;
       }
 
+      //
+      // Map each entry in the meta data to its data item.
+      //
+      int entryCount = meta.getEntryCount();
+      m_entryItems = new int[entryCount];
+      for (int loop = 0; loop < entryCount; loop++)
+      {
+         m_entryItems[loop] = Arrays.binarySearch(m_offsets, meta.getEntryOffset(loop));
+      }
    }
 
    /**
@@ -85,7 +131,7 @@ final class Var2Data extends MPPComponent
 
       if (offset != null)
       {
-         result = m_map.get(offset);
+         result = getByteArray(Arrays.binarySearch(m_offsets, offset.intValue()));
       }
 
       return (result);
@@ -101,7 +147,7 @@ final class Var2Data extends MPPComponent
     */
    public byte[] getByteArray(Integer id, Integer type)
    {
-      return (getByteArray(m_meta.getOffset(id, type)));
+      return (getByteArray(getItem(id, type)));
    }
 
    /**
@@ -118,11 +164,7 @@ final class Var2Data extends MPPComponent
 
       if (offset != null)
       {
-         byte[] value = m_map.get(offset);
-         if (value != null)
-         {
-            result = MPPUtility.getUnicodeString(value);
-         }
+         result = getUnicodeString(Arrays.binarySearch(m_offsets, offset.intValue()));
       }
 
       return (result);
@@ -138,7 +180,7 @@ final class Var2Data extends MPPComponent
     */
    public String getUnicodeString(Integer id, Integer type)
    {
-      return (getUnicodeString(m_meta.getOffset(id, type)));
+      return (getUnicodeString(getItem(id, type)));
    }
 
    /**
@@ -153,15 +195,10 @@ final class Var2Data extends MPPComponent
    {
       Date result = null;
 
-      Integer offset = m_meta.getOffset(id, type);
-
-      if (offset != null)
+      int item = getItem(id, type);
+      if (item >= 0 && m_size[item] >= 4)
       {
-         byte[] value = m_map.get(offset);
-         if (value != null && value.length >= 4)
-         {
-            result = MPPUtility.getTimestamp(value);
-         }
+         result = MPPUtility.getTimestamp(m_buffer, m_start[item]);
       }
 
       return (result);
@@ -181,11 +218,7 @@ final class Var2Data extends MPPComponent
 
       if (offset != null)
       {
-         byte[] value = m_map.get(offset);
-         if (value != null)
-         {
-            result = MPPUtility.getString(value);
-         }
+         result = getString(Arrays.binarySearch(m_offsets, offset.intValue()));
       }
 
       return (result);
@@ -201,7 +234,7 @@ final class Var2Data extends MPPComponent
     */
    public String getString(Integer id, Integer type)
    {
-      return (getString(m_meta.getOffset(id, type)));
+      return (getString(getItem(id, type)));
    }
 
    /**
@@ -216,16 +249,10 @@ final class Var2Data extends MPPComponent
    {
       int result = 0;
 
-      Integer offset = m_meta.getOffset(id, type);
-
-      if (offset != null)
+      int item = getItem(id, type);
+      if (item >= 0 && m_size[item] >= 2)
       {
-         byte[] value = m_map.get(offset);
-
-         if (value != null && value.length >= 2)
-         {
-            result = MPPUtility.getShort(value);
-         }
+         result = MPPUtility.getShort(m_buffer, m_start[item]);
       }
 
       return (result);
@@ -243,16 +270,10 @@ final class Var2Data extends MPPComponent
    {
       int result = 0;
 
-      Integer offset = m_meta.getOffset(id, type);
-
-      if (offset != null)
+      int item = getItem(id, type);
+      if (item >= 0 && m_size[item] >= 1)
       {
-         byte[] value = m_map.get(offset);
-
-         if (value != null)
-         {
-            result = MPPUtility.getByte(value);
-         }
+         result = MPPUtility.getByte(m_buffer, m_start[item]);
       }
 
       return (result);
@@ -268,21 +289,7 @@ final class Var2Data extends MPPComponent
     */
    public int getInt(Integer id, Integer type)
    {
-      int result = 0;
-
-      Integer offset = m_meta.getOffset(id, type);
-
-      if (offset != null)
-      {
-         byte[] value = m_map.get(offset);
-
-         if (value != null && value.length >= 4)
-         {
-            result = MPPUtility.getInt(value);
-         }
-      }
-
-      return (result);
+      return (getInt(id, 0, type));
    }
 
    /**
@@ -300,16 +307,10 @@ final class Var2Data extends MPPComponent
    {
       int result = 0;
 
-      Integer metaOffset = m_meta.getOffset(id, type);
-
-      if (metaOffset != null)
+      int item = getItem(id, type);
+      if (item >= 0 && m_size[item] >= offset + 4)
       {
-         byte[] value = m_map.get(metaOffset);
-
-         if (value != null && value.length >= offset + 4)
-         {
-            result = MPPUtility.getInt(value, offset);
-         }
+         result = MPPUtility.getInt(m_buffer, m_start[item] + offset);
       }
 
       return (result);
@@ -327,16 +328,10 @@ final class Var2Data extends MPPComponent
    {
       long result = 0;
 
-      Integer offset = m_meta.getOffset(id, type);
-
-      if (offset != null)
+      int item = getItem(id, type);
+      if (item >= 0 && m_size[item] >= 8)
       {
-         byte[] value = m_map.get(offset);
-
-         if (value != null && value.length >= 8)
-         {
-            result = MPPUtility.getLong(value);
-         }
+         result = MPPUtility.getLong(m_buffer, m_start[item]);
       }
 
       return (result);
@@ -378,10 +373,10 @@ final class Var2Data extends MPPComponent
       PrintWriter pw = new PrintWriter(sw);
 
       pw.println("BEGIN Var2Data");
-      for (Integer offset : m_map.keySet())
+      for (int item = 0; item < m_offsets.length; item++)
       {
-         byte[] data = m_map.get(offset);
-         pw.println("   Data at offset: " + offset + " size: " + data.length);
+         byte[] data = getByteArray(item);
+         pw.println("   Data at offset: " + m_offsets[item] + " size: " + data.length);
          pw.println(MPPUtility.hexdump(data, true, 16, "   "));
       }
 
@@ -407,7 +402,7 @@ final class Var2Data extends MPPComponent
       for (Integer type : m_meta.getTypes(id))
       {
          Integer offset = m_meta.getOffset(id, type);
-         byte[] data = m_map.get(offset);
+         byte[] data = getByteArray(getItem(id, type));
          pw.println("   Data at offset: " + offset + " size: " + data.length);
          pw.println(MPPUtility.hexdump(data, true, 16, "   "));
       }
@@ -418,9 +413,106 @@ final class Var2Data extends MPPComponent
    }
 
    /**
-    * Map containing data items indexed by offset.
+    * Locate the data item for the given unique ID and type.
+    * 
+    * @param id unique ID of entity to which this data belongs
+    * @param type data type identifier
+    * @return item index, or a negative value if the item is not present
+    */
+   private int getItem(Integer id, Integer type)
+   {
+      int result = -1;
+
+      if (id != null && type != null)
+      {
+         int entry = m_meta.getEntryIndex(id.intValue(), type.intValue());
+         if (entry != -1)
+         {
+            result = m_entryItems[entry];
+         }
+      }
+
+      return (result);
+   }
+
+   /**
+    * Retrieve a copy of the data for an item.
+    * 
+    * @param item item index
+    * @return byte array, or null if the item is not present
+    */
+   private byte[] getByteArray(int item)
+   {
+      byte[] result = null;
+
+      if (item >= 0)
+      {
+         result = MPPUtility.cloneSubArray(m_buffer, m_start[item], m_size[item]);
+      }
+
+      return (result);
+   }
+
+   /**
+    * Retrieve the data for an item as a string of two byte characters.
+    * 
+    * @param item item index
+    * @return string value, or null if the item is not present
+    */
+   private String getUnicodeString(int item)
+   {
+      String result = null;
+
+      if (item >= 0)
+      {
+         result = MPPUtility.getUnicodeString(m_buffer, m_start[item], m_size[item] & ~1);
+      }
+
+      return (result);
+   }
+
+   /**
+    * Retrieve the data for an item as a string of single byte characters.
+    * 
+    * @param item item index
+    * @return string value, or null if the item is not present
+    */
+   private String getString(int item)
+   {
+      String result = null;
+
+      if (item >= 0)
+      {
+         result = MPPUtility.getString(m_buffer, m_start[item], m_size[item]);
+      }
+
+      return (result);
+   }
+
+   /**
+    * Buffer holding the complete block.
+    */
+   private byte[] m_buffer;
+
+   /**
+    * Sorted offsets of the data items in the block.
+    */
+   private int[] m_offsets;
+
+   /**
+    * Position of the data for each item in the buffer.
+    */
+   private int[] m_start;
+
+   /**
+    * Size of the data for each item.
+    */
+   private int[] m_size;
+
+   /**
+    * Data item for each entry in the meta data.
     */
-   private TreeMap<Integer, byte[]> m_map = new TreeMap<Integer, byte[]>();
+   private int[] m_entryItems;
 
    /**
     * Reference to the meta data associated with this block.
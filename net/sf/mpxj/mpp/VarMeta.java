@@ -80,6 +80,32 @@ interface VarMeta
     */
    public int getOffset(int index);
 
+   /**
+    * Retrieves the number of distinct unique ID and type 
+    * combinations in the block.
+    * 
+    * @return number of entries
+    */
+   public int getEntryCount();
+
+   /**
+    * Retrieves the index of the entry for a given unique ID and type.
+    * 
+    * @param id unique identifier of an entity
+    * @param type data type identifier
+    * @return entry index, or -1 if no entry is present
+    */
+   public int getEntryIndex(int id, int type);
+
+   /**
+    * Retrieves the offset in the Var2Data block of the data
+    * for an entry.
+    * 
+    * @param index entry index
+    * @return offset of the entry
+    */
+   public int getEntryOffset(int index);
+
    /**
     * Retrieves a set containing the types defined
     * in the var data for a given ID.
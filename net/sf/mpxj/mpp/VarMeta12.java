@@ -25,8 +25,6 @@ package net.sf.mpxj.mpp;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Map;
-import java.util.TreeMap;
 
 /**
  * This class reads in the data from a VarMeta block. This block contains
@@ -57,29 +55,19 @@ final class VarMeta12 extends AbstractVarMeta
       m_unknown3 = readInt(is);
       m_dataSize = readInt(is);
 
-      Integer uniqueID;
-      Integer type;
-      Integer offset;
-      Map<Integer, Integer> map;
       m_offsets = new int[m_itemCount];
+      int[] uniqueIDs = new int[m_itemCount];
+      int[] types = new int[m_itemCount];
 
       for (int loop = 0; loop < m_itemCount; loop++)
       {
-         uniqueID = Integer.valueOf(readInt(is));
-         offset = Integer.valueOf(readInt(is));
-         type = Integer.valueOf(readShort(is));
+         uniqueIDs[loop] = readInt(is);
+         m_offsets[loop] = readInt(is);
+         types[loop] = readShort(is);
          readShort(is); // unknown 2 bytes
-
-         map = m_table.get(uniqueID);
-         if (map == null)
-         {
-            map = new TreeMap<Integer, Integer>();
-            m_table.put(uniqueID, map);
-         }
-
-         map.put(type, offset);
-         m_offsets[loop] = offset.intValue();
       }
+
+      buildIndex(uniqueIDs, types);
    }
 
    private static final int MAGIC = 0xFADFADBA;
@@ -25,8 +25,6 @@ package net.sf.mpxj.mpp;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Map;
-import java.util.TreeMap;
 
 /**
  * This class reads in the data from a VarMeta block. This block contains
@@ -57,11 +55,9 @@ final class VarMeta9 extends AbstractVarMeta
       m_unknown3 = readInt(is);
       m_dataSize = readInt(is);
 
-      Integer uniqueID;
-      Integer type;
-      Integer offset;
-      Map<Integer, Integer> map;
       m_offsets = new int[m_itemCount];
+      int[] uniqueIDs = new int[m_itemCount];
+      int[] types = new int[m_itemCount];
 
       //
       // There appears to be some Microsoft weirdness here. The unique ID
@@ -74,20 +70,12 @@ final class VarMeta9 extends AbstractVarMeta
       for (int loop = 0; loop < m_itemCount; loop++)
       {
          is.read(uniqueIDArray, 0, 3);
-         uniqueID = Integer.valueOf(MPPUtility.getInt(uniqueIDArray));
-
-         type = Integer.valueOf(readByte(is));
-         offset = Integer.valueOf(readInt(is));
-
-         map = m_table.get(uniqueID);
-         if (map == null)
-         {
-            map = new TreeMap<Integer, Integer>();
-            m_table.put(uniqueID, map);
-         }
-         map.put(type, offset);
-         m_offsets[loop] = offset.intValue();
+         uniqueIDs[loop] = MPPUtility.getInt(uniqueIDArray);
+         types[loop] = readByte(is);
+         m_offsets[loop] = readInt(is);
       }
+
+      buildIndex(uniqueIDs, types);
    }
 
    private static final int MAGIC = 0xFADFADBA;
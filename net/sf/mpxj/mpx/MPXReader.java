@@ -24,9 +24,12 @@
 package net.sf.mpxj.mpx;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.LinkedList;
@@ -138,9 +141,22 @@ public final class MPXReader extends AbstractProjectReader
          // Read the file creation record. At this point we are reading
          // directly from an input stream so no character set decoding is
          // taking place. We assume that any text in this record will not
-         // require decoding.
+         // require decoding. The tokenizer reads ahead in blocks, so we
+         // extract the bytes making up this record first, to leave the
+         // remainder of the stream in place for the reader created below.
          //
-         Tokenizer tk = new InputStreamTokenizer(bis);
+         ByteArrayOutputStream header = new ByteArrayOutputStream();
+         int c;
+         while ((c = bis.read()) != -1)
+         {
+            header.write(c);
+            if (c == Tokenizer.TT_EOL)
+            {
+               break;
+            }
+         }
+
+         Tokenizer tk = new InputStreamTokenizer(new ByteArrayInputStream(header.toByteArray()));
          tk.setDelimiter(m_delimiter);
 
          Record record;
@@ -166,9 +182,10 @@ public final class MPXReader extends AbstractProjectReader
          //
          // Read the remainder of the records
          //
+         List<String> fields = new ArrayList<String>();
          while (tk.getType() != Tokenizer.TT_EOF)
          {
-            record = new Record(m_locale, tk, m_formats);
+            record = new Record(m_locale, tk, m_formats, fields);
             number = record.getRecordNumber();
 
             if (number != null)
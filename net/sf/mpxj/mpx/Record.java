@@ -25,9 +25,10 @@ package net.sf.mpxj.mpx;
 
 import java.io.IOException;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Locale;
 
 import net.sf.mpxj.AccrueType;
@@ -60,6 +61,24 @@ final class Record
     */
    Record(Locale locale, Tokenizer tk, MPXJFormats formats)
       throws MPXJException
+   {
+      this(locale, tk, formats, new ArrayList<String>());
+   }
+
+   /**
+    * This constructor takes a stream of tokens and extracts the
+    * fields of an individual record from those tokens. The caller
+    * supplies a list used to collect the fields as they are read,
+    * allowing the same list to be reused for each record.
+    *
+    * @param locale target locale
+    * @param tk tokenizer providing the input stream of tokens
+    * @param formats formats used when parsing data
+    * @param fields list used to collect field values
+    * @throws MPXJException normally thrown when parsing fails
+    */
+   Record(Locale locale, Tokenizer tk, MPXJFormats formats, List<String> fields)
+      throws MPXJException
    {
       try
       {
@@ -67,17 +86,17 @@ final class Record
 
          m_formats = formats;
 
-         LinkedList<String> list = new LinkedList<String>();
-
-         while (tk.nextToken() == Tokenizer.TT_WORD)
+         if (tk.nextToken() == Tokenizer.TT_WORD)
          {
-            list.add(tk.getToken());
-         }
+            m_recordNumber = tk.getToken();
 
-         if (list.size() > 0)
-         {
-            m_recordNumber = list.remove(0);
-            m_fields = list.toArray(new String[list.size()]);
+            fields.clear();
+            while (tk.nextToken() == Tokenizer.TT_WORD)
+            {
+               fields.add(tk.getToken());
+            }
+
+            m_fields = fields.toArray(new String[fields.size()]);
          }
       }
 
@@ -23,8 +23,11 @@
 
 package net.sf.mpxj.mspdi;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
@@ -39,9 +42,18 @@ import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.ValidationEvent;
 import javax.xml.bind.ValidationEventHandler;
+import javax.xml.namespace.QName;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
 import javax.xml.transform.sax.SAXSource;
 
 import net.sf.mpxj.AssignmentField;
@@ -136,12 +148,6 @@ public final class MSPDIReader extends AbstractProjectReader
          m_projectFile.setAutoCalendarUniqueID(false);
          m_projectFile.setAutoAssignmentUniqueID(false);
 
-         SAXParserFactory factory = SAXParserFactory.newInstance();
-         factory.setNamespaceAware(true);
-         SAXParser saxParser = factory.newSAXParser();
-         XMLReader xmlReader = saxParser.getXMLReader();
-         SAXSource doc = new SAXSource(xmlReader, new InputSource(stream));
-
          if (CONTEXT == null)
          {
             throw CONTEXT_EXCEPTION;
@@ -164,16 +170,30 @@ public final class MSPDIReader extends AbstractProjectReader
             });
          }
 
-         Project project = (Project) unmarshaller.unmarshal(doc);
-
          HashMap<BigInteger, ProjectCalendar> calendarMap = new HashMap<BigInteger, ProjectCalendar>();
+         Project project;
 
-         readProjectHeader(project);
-         readProjectExtendedAttributes(project);
-         readCalendars(project, calendarMap);
-         readResources(project, calendarMap);
-         readTasks(project);
-         readAssignments(project);
+         if (m_streamingInput == true)
+         {
+            project = readProjectStream(stream, unmarshaller, calendarMap);
+         }
+         else
+         {
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            SAXParser saxParser = factory.newSAXParser();
+            XMLReader xmlReader = saxParser.getXMLReader();
+            SAXSource doc = new SAXSource(xmlReader, new InputSource(stream));
+
+            project = (Project) unmarshaller.unmarshal(doc);
+
+            readProjectHeader(project);
+            readProjectExtendedAttributes(project);
+            readCalendars(project, calendarMap);
+            readResources(project, calendarMap);
+            readTasks(project);
+            readAssignments(project);
+         }
 
          //
          // Ensure that the unique ID counters are correct
@@ -207,12 +227,316 @@ public final class MSPDIReader extends AbstractProjectReader
          throw new MPXJException("Failed to parse file", ex);
       }
 
+      catch (XMLStreamException ex)
+      {
+         throw new MPXJException("Failed to parse file", ex);
+      }
+
       finally
       {
          m_projectFile = null;
       }
    }
 
+   /**
+    * This method reads an MSPDI file using a pull parser. Rather than
+    * unmarshalling the complete document, each calendar, task, resource
+    * and assignment element is unmarshalled individually as it is
+    * encountered, and is discarded once it has been added to the project.
+    * The project header elements which precede these collections are
+    * small, so these are buffered and unmarshalled as a Project instance
+    * containing no collection data. Collections are processed in document
+    * order, so the order in which listener events are fired may differ
+    * from that seen when the complete document is unmarshalled.
+    *
+    * @param stream input stream
+    * @param unmarshaller JAXB unmarshaller
+    * @param calendarMap Map of calendar UIDs to names
+    * @return Project instance holding project header data
+    */
+   private Project readProjectStream(InputStream stream, Unmarshaller unmarshaller, HashMap<BigInteger, ProjectCalendar> calendarMap) throws XMLStreamException, JAXBException
+   {
+      XMLEventReader reader = XMLInputFactory.newInstance().createXMLEventReader(stream);
+      Project project = readProjectStreamHeader(reader, unmarshaller);
+
+      readProjectHeader(project);
+      readProjectExtendedAttributes(project);
+
+      boolean calendarsRead = false;
+      boolean tasksRead = false;
+
+      while (reader.hasNext())
+      {
+         XMLEvent event = reader.peek();
+         if (!event.isStartElement())
+         {
+            reader.nextEvent();
+            continue;
+         }
+
+         String name = event.asStartElement().getName().getLocalPart();
+
+         if (!calendarsRead && !name.equals("Calendars"))
+         {
+            readCalendarsStream(reader, unmarshaller, calendarMap, false);
+            calendarsRead = true;
+         }
+
+         if (!tasksRead && name.equals("Assignments"))
+         {
+            readTasksStream(reader, unmarshaller, false);
+            tasksRead = true;
+         }
+
+         if (name.equals("Calendars"))
+         {
+            readCalendarsStream(reader, unmarshaller, calendarMap, true);
+            calendarsRead = true;
+         }
+         else
+         {
+            if (name.equals("Tasks"))
+            {
+               readTasksStream(reader, unmarshaller, true);
+               tasksRead = true;
+            }
+            else
+            {
+               if (name.equals("Resources"))
+               {
+                  reader.nextEvent();
+                  while (nextChildElement(reader))
+                  {
+                     readResource(unmarshaller.unmarshal(reader, Project.Resources.Resource.class).getValue(), calendarMap);
+                  }
+               }
+               else
+               {
+                  if (name.equals("Assignments"))
+                  {
+                     reader.nextEvent();
+                     SplitTaskFactory splitFactory = new SplitTaskFactory();
+                     TimephasedWorkNormaliser normaliser = new MSPDITimephasedWorkNormaliser();
+                     while (nextChildElement(reader))
+                     {
+                        readAssignment(unmarshaller.unmarshal(reader, Project.Assignments.Assignment.class).getValue(), splitFactory, normaliser);
+                     }
+                  }
+                  else
+                  {
+                     skipElement(reader);
+                  }
+               }
+            }
+         }
+      }
+
+      if (!calendarsRead)
+      {
+         readCalendarsStream(reader, unmarshaller, calendarMap, false);
+      }
+
+      if (!tasksRead)
+      {
+         readTasksStream(reader, unmarshaller, false);
+      }
+
+      reader.close();
+
+      return (project);
+   }
+
+   /**
+    * Reads the elements which appear before the first calendar, task,
+    * resource or assignment collection, and unmarshals them to create a
+    * Project instance holding project header data. On return the reader
+    * is positioned at the start of the first collection, or at the end
+    * of the root element if no collections are present.
+    *
+    * @param reader event reader
+    * @param unmarshaller JAXB unmarshaller
+    * @return Project instance
+    */
+   private Project readProjectStreamHeader(XMLEventReader reader, Unmarshaller unmarshaller) throws XMLStreamException, JAXBException
+   {
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      XMLEventWriter writer = XMLOutputFactory.newInstance().createXMLEventWriter(buffer, "UTF-8");
+      XMLEventFactory factory = XMLEventFactory.newInstance();
+      QName root = null;
+      int depth = 0;
+
+      writer.add(factory.createStartDocument("UTF-8"));
+
+      while (reader.hasNext())
+      {
+         XMLEvent event = reader.peek();
+         if (event.isStartDocument())
+         {
+            reader.nextEvent();
+            continue;
+         }
+
+         if (event.isStartElement())
+         {
+            StartElement element = event.asStartElement();
+            if (root == null)
+            {
+               root = element.getName();
+            }
+            else
+            {
+               if (depth == 1 && COLLECTION_ELEMENTS.contains(element.getName().getLocalPart()))
+               {
+                  break;
+               }
+            }
+            ++depth;
+         }
+         else
+         {
+            if (event.isEndElement())
+            {
+               if (depth == 1)
+               {
+                  break;
+               }
+               --depth;
+            }
+         }
+
+         writer.add(reader.nextEvent());
+      }
+
+      if (root == null)
+      {
+         throw new XMLStreamException("Missing root element");
+      }
+
+      writer.add(factory.createEndElement(root, null));
+      writer.add(factory.createEndDocument());
+      writer.close();
+
+      return ((Project) unmarshaller.unmarshal(new ByteArrayInputStream(buffer.toByteArray())));
+   }
+
+   /**
+    * Reads the calendars collection from an event reader. Once all
+    * calendars have been read, base calendar references are resolved
+    * and the default project calendar is set.
+    *
+    * @param reader event reader
+    * @param unmarshaller JAXB unmarshaller
+    * @param map Map of calendar UIDs to names
+    * @param present true if the reader is positioned at the calendars collection
+    */
+   private void readCalendarsStream(XMLEventReader reader, Unmarshaller unmarshaller, HashMap<BigInteger, ProjectCalendar> map, boolean present) throws XMLStreamException, JAXBException
+   {
+      LinkedList<Pair<ProjectCalendar, BigInteger>> baseCalendars = new LinkedList<Pair<ProjectCalendar, BigInteger>>();
+
+      if (present)
+      {
+         reader.nextEvent();
+         while (nextChildElement(reader))
+         {
+            readCalendar(unmarshaller.unmarshal(reader, Project.Calendars.Calendar.class).getValue(), map, baseCalendars);
+         }
+      }
+
+      updateBaseCalendarNames(baseCalendars, map);
+      updateProjectCalendar(map);
+   }
+
+   /**
+    * Reads the tasks collection from an event reader. Predecessor links
+    * are retained until all tasks have been read, the remainder of each
+    * task's data is discarded once the task has been added to the project.
+    *
+    * @param reader event reader
+    * @param unmarshaller JAXB unmarshaller
+    * @param present true if the reader is positioned at the tasks collection
+    */
+   private void readTasksStream(XMLEventReader reader, Unmarshaller unmarshaller, boolean present) throws XMLStreamException, JAXBException
+   {
+      if (present)
+      {
+         List<Pair<Integer, List<Project.Tasks.Task.PredecessorLink>>> predecessors = new LinkedList<Pair<Integer, List<Project.Tasks.Task.PredecessorLink>>>();
+
+         reader.nextEvent();
+         while (nextChildElement(reader))
+         {
+            Project.Tasks.Task task = unmarshaller.unmarshal(reader, Project.Tasks.Task.class).getValue();
+            readTask(task);
+
+            if (!task.getPredecessorLink().isEmpty())
+            {
+               predecessors.add(new Pair<Integer, List<Project.Tasks.Task.PredecessorLink>>(task.getUID(), task.getPredecessorLink()));
+            }
+         }
+
+         for (Pair<Integer, List<Project.Tasks.Task.PredecessorLink>> pair : predecessors)
+         {
+            readPredecessors(pair.getFirst(), pair.getSecond());
+         }
+      }
+
+      m_projectFile.updateStructure();
+   }
+
+   /**
+    * Advances the reader to the next child element of the current element.
+    * Returns false, having consumed the end of the current element, if
+    * there are no further child elements.
+    *
+    * @param reader event reader
+    * @return true if the reader is positioned at a child element
+    */
+   private boolean nextChildElement(XMLEventReader reader) throws XMLStreamException
+   {
+      boolean result = false;
+      while (reader.hasNext())
+      {
+         XMLEvent event = reader.peek();
+         if (event.isStartElement())
+         {
+            result = true;
+            break;
+         }
+
+         reader.nextEvent();
+         if (event.isEndElement())
+         {
+            break;
+         }
+      }
+      return (result);
+   }
+
+   /**
+    * Skips the element at the current position of the reader, including
+    * any child elements.
+    *
+    * @param reader event reader
+    */
+   private void skipElement(XMLEventReader reader) throws XMLStreamException
+   {
+      int depth = 0;
+      while (reader.hasNext())
+      {
+         XMLEvent event = reader.nextEvent();
+         if (event.isStartElement())
+         {
+            ++depth;
+         }
+         else
+         {
+            if (event.isEndElement() && --depth == 0)
+            {
+               break;
+            }
+         }
+      }
+   }
+
    /**
     * This method extracts project header data from an MSPDI file.
     *
@@ -305,6 +629,17 @@ public final class MSPDIReader extends AbstractProjectReader
          updateBaseCalendarNames(baseCalendars, map);
       }
 
+      updateProjectCalendar(map);
+   }
+
+   /**
+    * Sets the default project calendar using the calendar unique ID
+    * stored in the project header.
+    *
+    * @param map Map of calendar UIDs to names
+    */
+   private void updateProjectCalendar(HashMap<BigInteger, ProjectCalendar> map)
+   {
       try
       {
          ProjectHeader header = m_projectFile.getProjectHeader();
@@ -1197,13 +1532,23 @@ public final class MSPDIReader extends AbstractProjectReader
     */
    private void readPredecessors(Project.Tasks.Task task)
    {
-      Integer uid = task.getUID();
+      readPredecessors(task.getUID(), task.getPredecessorLink());
+   }
+
+   /**
+    * This method extracts predecessor data for a task from an MSPDI file.
+    *
+    * @param uid task unique ID
+    * @param links predecessor data
+    */
+   private void readPredecessors(Integer uid, List<Project.Tasks.Task.PredecessorLink> links)
+   {
       if (uid != null)
       {
          Task currTask = m_projectFile.getTaskByUniqueID(uid);
          if (currTask != null)
          {
-            for (Project.Tasks.Task.PredecessorLink link : task.getPredecessorLink())
+            for (Project.Tasks.Task.PredecessorLink link : links)
             {
                readPredecessor(currTask, link);
             }
@@ -1538,6 +1883,38 @@ public final class MSPDIReader extends AbstractProjectReader
       return (m_compatibleInput);
    }
 
+   /**
+    * Sets a flag indicating that this class will read the MSPDI file
+    * using a pull parser, processing calendars, tasks, resources and
+    * assignments one at a time rather than unmarshalling the complete
+    * file into memory before processing it. This reduces the memory
+    * required to read large files.
+    * 
+    * Note that when streaming, each collection is processed in the order
+    * in which it appears in the file. MSPDI files normally list tasks
+    * before resources, so project listeners will receive task read
+    * events before resource read events, whereas the default mode reads
+    * all resources before any tasks. The resulting ProjectFile is the
+    * same in both modes.
+    *
+    * @param flag streaming input flag
+    */
+   public void setStreamingInput(boolean flag)
+   {
+      m_streamingInput = flag;
+   }
+
+   /**
+    * Retrieves a flag indicating that this class will read the MSPDI file
+    * using a pull parser.
+    *
+    * @return Boolean flag
+    */
+   public boolean getStreamingInput()
+   {
+      return (m_streamingInput);
+   }
+
    /**
     * Cached context to minimise construction cost.
     */
@@ -1570,7 +1947,10 @@ public final class MSPDIReader extends AbstractProjectReader
       }
    }
 
+   private static final Set<String> COLLECTION_ELEMENTS = new HashSet<String>(Arrays.asList("Calendars", "Tasks", "Resources", "Assignments"));
+
    private boolean m_compatibleInput = true;
+   private boolean m_streamingInput;
 
    private ProjectFile m_projectFile;
    private List<ProjectListener> m_projectListeners;
@@ -25,13 +25,11 @@ package net.sf.mpxj.mspdi;
 
 import java.util.Calendar;
 import java.util.Date;
-import java.util.LinkedList;
 
 import net.sf.mpxj.AbstractTimephasedWorkNormaliser;
-import net.sf.mpxj.Duration;
 import net.sf.mpxj.ProjectCalendar;
 import net.sf.mpxj.TimeUnit;
-import net.sf.mpxj.TimephasedWork;
+import net.sf.mpxj.TimephasedWorkArray;
 import net.sf.mpxj.utility.DateUtility;
 import net.sf.mpxj.utility.NumberUtility;
 
@@ -47,231 +45,180 @@ public class MSPDITimephasedWorkNormaliser extends AbstractTimephasedWorkNormali
     * format to make it easy to work with. 
     * 
     * @param calendar current calendar
-    * @param list list of assignment data
+    * @param data assignment data
     */
-   @Override public void normalise(ProjectCalendar calendar, LinkedList<TimephasedWork> list)
+   @Override public void normalise(ProjectCalendar calendar, TimephasedWorkArray data)
    {
-      //dumpList("raw", result);
-      splitDays(calendar, list);
-      //dumpList("split days", result);
-      mergeSameDay(calendar, list);
-      //dumpList("mergeSameDay", result);
-      mergeSameWork(list);
-      //dumpList("mergeSameWork", result);
-      validateSameDay(calendar, list);
-      convertToHours(list);
+      splitDays(calendar, data);
+      mergeSameDay(calendar, data);
+      mergeSameWork(data);
+      validateSameDay(calendar, data);
+      convertToHours(data);
    }
 
-   /*
-      private void dumpList(String label, LinkedList<TimephasedWork> list)
-      {
-         System.out.println(label);
-         for (TimephasedWork assignment : list)
-         {
-            System.out.println(assignment);
-         }
-      }
-      */
-
    /**
     * This method breaks down spans of time into individual days.
     * 
     * @param calendar current project calendar
-    * @param list list of assignment data
+    * @param data assignment data
     */
-   private void splitDays(ProjectCalendar calendar, LinkedList<TimephasedWork> list)
+   private void splitDays(ProjectCalendar calendar, TimephasedWorkArray data)
    {
-      LinkedList<TimephasedWork> result = new LinkedList<TimephasedWork>();
+      TimephasedWorkArray result = new TimephasedWorkArray(data.size() * 2);
       Calendar cal = Calendar.getInstance();
 
-      for (TimephasedWork assignment : list)
+      for (int index = 0; index < data.size(); index++)
       {
-         while (assignment != null)
+         long assignmentStart = data.getStart(index);
+         long assignmentFinish = data.getFinish(index);
+         double assignmentWork = data.getTotalAmount(index);
+         TimeUnit assignmentWorkUnits = data.getTotalAmountUnits(index);
+         double assignmentWorkPerDay = data.getAmountPerDay(index);
+         TimeUnit assignmentWorkPerDayUnits = data.getAmountPerDayUnits(index);
+         boolean modified = data.getModified(index);
+
+         while (true)
          {
-            Date startDay = DateUtility.getDayStartDate(assignment.getStart());
-            Date finishDay = DateUtility.getDayStartDate(assignment.getFinish());
+            long startDay = getDayStartDate(cal, assignmentStart);
+            long finishDay = getDayStartDate(cal, assignmentFinish);
 
             // special case - when the finishday time is midnight, it's really the previous day...                 
-            if (assignment.getFinish().getTime() == finishDay.getTime())
+            if (assignmentFinish == finishDay)
             {
-               cal.setTime(finishDay);
-               cal.add(Calendar.DAY_OF_YEAR, -1);
-               finishDay = cal.getTime();
+               finishDay = addDays(cal, finishDay, -1);
             }
 
-            if (startDay.getTime() == finishDay.getTime())
+            if (startDay == finishDay)
             {
-               result.add(assignment);
+               result.add(assignmentStart, assignmentFinish, assignmentWork, assignmentWorkUnits, assignmentWorkPerDay, assignmentWorkPerDayUnits, modified);
                break;
             }
 
-            TimephasedWork[] split = splitFirstDay(calendar, assignment);
-            if (split[0] != null)
+            //
+            // Split the first day off of the time span. Retrieve data 
+            // used to calculate the pro-rata work split.
+            //
+            Date splitStart = new Date(assignmentStart);
+            double calendarWork = calendar.getWork(splitStart, new Date(assignmentFinish), TimeUnit.MINUTES).getDuration();
+            if (calendarWork == 0)
             {
-               result.add(split[0]);
+               break;
             }
-            assignment = split[1];
-         }
-      }
-
-      list.clear();
-      list.addAll(result);
-   }
 
-   /**
-    * This method splits the first day off of a time span.
-    * 
-    * @param calendar current calendar
-    * @param assignment timephased assignment span
-    * @return first day and remainder assignments
-    */
-   private TimephasedWork[] splitFirstDay(ProjectCalendar calendar, TimephasedWork assignment)
-   {
-      TimephasedWork[] result = new TimephasedWork[2];
-
-      //
-      // Retrieve data used to calculate the pro-rata work split
-      //
-      Date assignmentStart = assignment.getStart();
-      Date assignmentFinish = assignment.getFinish();
-      Duration calendarWork = calendar.getWork(assignmentStart, assignmentFinish, TimeUnit.MINUTES);
-      Duration assignmentWork = assignment.getTotalAmount();
-
-      if (calendarWork.getDuration() != 0)
-      {
-         //
-         // Split the first day
-         //
-         Date splitFinish;
-         double splitMinutes;
-         if (calendar.isWorkingDate(assignmentStart))
-         {
-            Date splitStart = assignmentStart;
-            Date splitFinishTime = calendar.getFinishTime(splitStart);
-            splitFinish = DateUtility.setTime(splitStart, splitFinishTime);
-            splitMinutes = calendar.getWork(splitStart, splitFinish, TimeUnit.MINUTES).getDuration();
-
-            splitMinutes *= assignmentWork.getDuration();
-            splitMinutes /= calendarWork.getDuration();
-            splitMinutes = NumberUtility.truncate(splitMinutes, 2);
-
-            Duration splitWork = Duration.getInstance(splitMinutes, TimeUnit.MINUTES);
+            Date splitFinish;
+            double splitMinutes;
+            if (calendar.isWorkingDate(splitStart))
+            {
+               Date splitFinishTime = calendar.getFinishTime(splitStart);
+               splitFinish = DateUtility.setTime(splitStart, splitFinishTime);
+               splitMinutes = calendar.getWork(splitStart, splitFinish, TimeUnit.MINUTES).getDuration();
 
-            TimephasedWork split = new TimephasedWork();
-            split.setStart(splitStart);
-            split.setFinish(splitFinish);
-            split.setTotalAmount(splitWork);
+               splitMinutes *= assignmentWork;
+               splitMinutes /= calendarWork;
+               splitMinutes = NumberUtility.truncate(splitMinutes, 2);
 
-            result[0] = split;
-         }
-         else
-         {
-            splitFinish = assignmentStart;
-            splitMinutes = 0;
-         }
+               result.add(assignmentStart, splitFinish.getTime(), splitMinutes, TimeUnit.MINUTES, Double.NaN, null, false);
+            }
+            else
+            {
+               splitFinish = splitStart;
+               splitMinutes = 0;
+            }
 
-         //
-         // Split the remainder
-         //
-         Date splitStart = calendar.getNextWorkStart(splitFinish);
-         splitFinish = assignmentFinish;
-         TimephasedWork split;
-         if (splitStart.getTime() > splitFinish.getTime())
-         {
-            split = null;
-         }
-         else
-         {
-            splitMinutes = assignmentWork.getDuration() - splitMinutes;
-            Duration splitWork = Duration.getInstance(splitMinutes, TimeUnit.MINUTES);
+            //
+            // Split the remainder
+            //
+            long remainderStart = calendar.getNextWorkStart(splitFinish).getTime();
+            if (remainderStart > assignmentFinish)
+            {
+               break;
+            }
 
-            split = new TimephasedWork();
-            split.setStart(splitStart);
-            split.setFinish(splitFinish);
-            split.setTotalAmount(splitWork);
+            assignmentStart = remainderStart;
+            assignmentWork = assignmentWork - splitMinutes;
+            assignmentWorkUnits = TimeUnit.MINUTES;
+            assignmentWorkPerDay = Double.NaN;
+            assignmentWorkPerDayUnits = null;
+            modified = false;
          }
-
-         result[1] = split;
       }
-      return result;
+
+      data.setAll(result);
    }
 
    /**
     * This method merges together assignment data for the same day.
     * 
     * @param calendar current calendar
-    * @param list assignment data
+    * @param data assignment data
     */
-   private void mergeSameDay(ProjectCalendar calendar, LinkedList<TimephasedWork> list)
+   private void mergeSameDay(ProjectCalendar calendar, TimephasedWorkArray data)
    {
-      LinkedList<TimephasedWork> result = new LinkedList<TimephasedWork>();
+      TimephasedWorkArray result = new TimephasedWorkArray(data.size());
+      Calendar cal = Calendar.getInstance();
+      boolean hasPrevious = false;
 
-      TimephasedWork previousAssignment = null;
-      for (TimephasedWork assignment : list)
+      for (int index = 0; index < data.size(); index++)
       {
-         if (previousAssignment == null)
+         if (!hasPrevious)
          {
-            assignment.setAmountPerDay(assignment.getTotalAmount());
-            result.add(assignment);
+            addWithAmountPerDay(result, data, index);
          }
          else
          {
-            Date previousAssignmentStart = previousAssignment.getStart();
-            Date previousAssignmentStartDay = DateUtility.getDayStartDate(previousAssignmentStart);
-            Date assignmentStart = assignment.getStart();
-            Date assignmentStartDay = DateUtility.getDayStartDate(assignmentStart);
+            int previous = result.size() - 1;
+            long previousAssignmentStart = result.getStart(previous);
+            long previousAssignmentStartDay = getDayStartDate(cal, previousAssignmentStart);
+            long assignmentStartDay = getDayStartDate(cal, data.getStart(index));
 
-            if (previousAssignmentStartDay.getTime() == assignmentStartDay.getTime())
+            if (previousAssignmentStartDay == assignmentStartDay)
             {
-               Duration previousAssignmentWork = previousAssignment.getTotalAmount();
-               Duration assignmentWork = assignment.getTotalAmount();
+               double previousAssignmentWork = result.getTotalAmount(previous);
+               double assignmentWork = data.getTotalAmount(index);
 
-               if (previousAssignmentWork.getDuration() != 0 && assignmentWork.getDuration() == 0)
+               if (previousAssignmentWork != 0 && assignmentWork == 0)
                {
                   continue;
                }
 
-               result.removeLast();
-
-               if (previousAssignmentWork.getDuration() != 0 && assignmentWork.getDuration() != 0)
+               if (previousAssignmentWork != 0 && assignmentWork != 0)
                {
-                  double work = previousAssignment.getTotalAmount().getDuration();
-                  work += assignment.getTotalAmount().getDuration();
-                  Duration totalWork = Duration.getInstance(work, TimeUnit.MINUTES);
-
-                  TimephasedWork merged = new TimephasedWork();
-                  merged.setStart(previousAssignment.getStart());
-                  merged.setFinish(assignment.getFinish());
-                  merged.setTotalAmount(totalWork);
-                  assignment = merged;
+                  double work = previousAssignmentWork + assignmentWork;
+                  result.removeLast();
+                  result.add(previousAssignmentStart, data.getFinish(index), work, TimeUnit.MINUTES, work, TimeUnit.MINUTES, false);
                }
                else
                {
-                  if (assignmentWork.getDuration() == 0)
+                  if (assignmentWork == 0)
                   {
-                     assignment = previousAssignment;
+                     result.setAmountPerDay(previous, previousAssignmentWork, result.getTotalAmountUnits(previous));
+                  }
+                  else
+                  {
+                     result.removeLast();
+                     addWithAmountPerDay(result, data, index);
                   }
                }
             }
-
-            assignment.setAmountPerDay(assignment.getTotalAmount());
-            result.add(assignment);
+            else
+            {
+               addWithAmountPerDay(result, data, index);
+            }
          }
 
-         Duration calendarWork = calendar.getWork(assignment.getStart(), assignment.getFinish(), TimeUnit.MINUTES);
-         Duration assignmentWork = assignment.getTotalAmount();
-         if (calendarWork.getDuration() == 0 && assignmentWork.getDuration() == 0)
+         int last = result.size() - 1;
+         double calendarWork = calendar.getWork(new Date(result.getStart(last)), new Date(result.getFinish(last)), TimeUnit.MINUTES).getDuration();
+         if (calendarWork == 0 && result.getTotalAmount(last) == 0)
          {
             result.removeLast();
          }
          else
          {
-            previousAssignment = assignment;
+            hasPrevious = true;
          }
       }
 
-      list.clear();
-      list.addAll(result);
+      data.setAll(result);
    }
 
    /**
@@ -279,26 +226,26 @@ public class MSPDITimephasedWorkNormaliser extends AbstractTimephasedWorkNormali
     * working times for a given day.
     * 
     * @param calendar current calendar
-    * @param list assignment data
+    * @param data assignment data
     */
-   private void validateSameDay(ProjectCalendar calendar, LinkedList<TimephasedWork> list)
+   private void validateSameDay(ProjectCalendar calendar, TimephasedWorkArray data)
    {
-      for (TimephasedWork assignment : list)
+      for (int index = 0; index < data.size(); index++)
       {
-         Date assignmentStart = assignment.getStart();
+         Date assignmentStart = new Date(data.getStart(index));
          Date calendarStartTime = calendar.getStartTime(assignmentStart);
          Date assignmentStartTime = DateUtility.getCanonicalTime(assignmentStart);
-         Date assignmentFinish = assignment.getFinish();
+         Date assignmentFinish = new Date(data.getFinish(index));
          Date calendarFinishTime = calendar.getFinishTime(assignmentFinish);
          Date assignmentFinishTime = DateUtility.getCanonicalTime(assignmentFinish);
-         double totalWork = assignment.getTotalAmount().getDuration();
+         double totalWork = data.getTotalAmount(index);
 
          if (assignmentStartTime != null && calendarStartTime != null)
          {
             if ((totalWork == 0 && assignmentStartTime.getTime() != calendarStartTime.getTime()) || (assignmentStartTime.getTime() < calendarStartTime.getTime()))
             {
                assignmentStart = DateUtility.setTime(assignmentStart, calendarStartTime);
-               assignment.setStart(assignmentStart);
+               data.setStart(index, assignmentStart.getTime());
             }
          }
 
@@ -307,7 +254,7 @@ public class MSPDITimephasedWorkNormaliser extends AbstractTimephasedWorkNormali
             if ((totalWork == 0 && assignmentFinishTime.getTime() != calendarFinishTime.getTime()) || (assignmentFinishTime.getTime() > calendarFinishTime.getTime()))
             {
                assignmentFinish = DateUtility.setTime(assignmentFinish, calendarFinishTime);
-               assignment.setFinish(assignmentFinish);
+               data.setFinish(index, assignmentFinish.getTime());
             }
          }
       }
@@ -26,11 +26,13 @@ package net.sf.mpxj.mspdi;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.math.BigInteger;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -139,6 +141,32 @@ public final class MSPDIWriter extends AbstractProjectWriter
       return m_writeTimphasedData;
    }
 
+   /**
+    * Sets a flag to control whether tasks, resources and assignments are
+    * converted to their MSPDI representation one at a time as the file
+    * is written, rather than building the complete MSPDI document in
+    * memory before writing it. The output is identical in either case.
+    * The default is false.
+    * 
+    * @param flag boolean flag
+    */
+   public void setStreamingOutput(boolean flag)
+   {
+      m_streamingOutput = flag;
+   }
+
+   /**
+    * Retrieves the flag which controls whether tasks, resources and
+    * assignments are converted to their MSPDI representation one at 
+    * a time as the file is written. The default is false.
+    * 
+    * @return boolean flag
+    */
+   public boolean getStreamingOutput()
+   {
+      return m_streamingOutput;
+   }
+
    /**
     * Set the save version to use when generating an MSPDI file.
     * 
@@ -184,6 +212,16 @@ public final class MSPDIWriter extends AbstractProjectWriter
          m_factory = new ObjectFactory();
          Project project = m_factory.createProject();
 
+         //
+         // When streaming, the extended attribute definitions are written
+         // before the tasks and resources, so we need to determine which
+         // attributes are in use up front.
+         //
+         if (m_streamingOutput)
+         {
+            collectExtendedAttributes();
+         }
+
          writeProjectHeader(project);
          writeCalendars(project);
          writeResources(project);
@@ -659,13 +697,26 @@ public final class MSPDIWriter extends AbstractProjectWriter
     */
    private void writeResources(Project project)
    {
-      Project.Resources resources = m_factory.createProjectResources();
-      project.setResources(resources);
-      List<Project.Resources.Resource> list = resources.getResource();
-
-      for (Resource resource : m_projectFile.getAllResources())
+      if (m_streamingOutput)
+      {
+         project.setResources(new StreamingResources(new StreamingList<Resource, Project.Resources.Resource>(m_projectFile.getAllResources())
+         {
+            @Override protected Project.Resources.Resource convert(Resource item)
+            {
+               return (writeResource(item));
+            }
+         }));
+      }
+      else
       {
-         list.add(writeResource(resource));
+         Project.Resources resources = m_factory.createProjectResources();
+         project.setResources(resources);
+         List<Project.Resources.Resource> list = resources.getResource();
+
+         for (Resource resource : m_projectFile.getAllResources())
+         {
+            list.add(writeResource(resource));
+         }
       }
    }
 
@@ -911,6 +962,37 @@ public final class MSPDIWriter extends AbstractProjectWriter
       return write;
    }
 
+   /**
+    * Determines which task and resource extended attributes will be
+    * written, without creating the MSPDI task and resource elements.
+    */
+   private void collectExtendedAttributes()
+   {
+      for (Task task : m_projectFile.getAllTasks())
+      {
+         for (int loop = 0; loop < ExtendedAttributeTaskFields.FIELD_ARRAY.length; loop++)
+         {
+            TaskField mpxFieldID = ExtendedAttributeTaskFields.FIELD_ARRAY[loop];
+            if (writeExtendedAttribute(task.getCachedValue(mpxFieldID), mpxFieldID))
+            {
+               m_taskExtendedAttributes.add(mpxFieldID);
+            }
+         }
+      }
+
+      for (Resource resource : m_projectFile.getAllResources())
+      {
+         for (int loop = 0; loop < ExtendedAttributeResourceFields.FIELD_ARRAY.length; loop++)
+         {
+            ResourceField mpxFieldID = ExtendedAttributeResourceFields.FIELD_ARRAY[loop];
+            if (writeExtendedAttribute(resource.getCachedValue(mpxFieldID), mpxFieldID))
+            {
+               m_resourceExtendedAttributes.add(mpxFieldID);
+            }
+         }
+      }
+   }
+
    /**
     * Writes a resource's cost rate tables.
     * 
@@ -1008,13 +1090,26 @@ public final class MSPDIWriter extends AbstractProjectWriter
     */
    private void writeTasks(Project project)
    {
-      Project.Tasks tasks = m_factory.createProjectTasks();
-      project.setTasks(tasks);
-      List<Project.Tasks.Task> list = tasks.getTask();
-
-      for (Task task : m_projectFile.getAllTasks())
+      if (m_streamingOutput)
+      {
+         project.setTasks(new StreamingTasks(new StreamingList<Task, Project.Tasks.Task>(m_projectFile.getAllTasks())
+         {
+            @Override protected Project.Tasks.Task convert(Task item)
+            {
+               return (writeTask(item));
+            }
+         }));
+      }
+      else
       {
-         list.add(writeTask(task));
+         Project.Tasks tasks = m_factory.createProjectTasks();
+         project.setTasks(tasks);
+         List<Project.Tasks.Task> list = tasks.getTask();
+
+         for (Task task : m_projectFile.getAllTasks())
+         {
+            list.add(writeTask(task));
+         }
       }
    }
 
@@ -1412,14 +1507,7 @@ public final class MSPDIWriter extends AbstractProjectWriter
     */
    private void writeAssignments(Project project)
    {
-      Project.Assignments assignments = m_factory.createProjectAssignments();
-      project.setAssignments(assignments);
-      List<Project.Assignments.Assignment> list = assignments.getAssignment();
-
-      for (ResourceAssignment assignment : m_projectFile.getAllResourceAssignments())
-      {
-         list.add(writeAssignment(assignment));
-      }
+      List<ResourceAssignment> assignments = new ArrayList<ResourceAssignment>(m_projectFile.getAllResourceAssignments());
 
       //
       // Check to see if we have any tasks that have a percent complete value
@@ -1454,11 +1542,33 @@ public final class MSPDIWriter extends AbstractProjectWriter
             dummy.setActualWork(Duration.getInstance(actualWork, durationUnits));
             dummy.setRemainingWork(Duration.getInstance(remainingWork, durationUnits));
 
-            list.add(writeAssignment(dummy));
+            assignments.add(dummy);
          }
       }
 
       m_projectFile.setAutoAssignmentUniqueID(autoUniqueID);
+
+      if (m_streamingOutput)
+      {
+         project.setAssignments(new StreamingAssignments(new StreamingList<ResourceAssignment, Project.Assignments.Assignment>(assignments)
+         {
+            @Override protected Project.Assignments.Assignment convert(ResourceAssignment item)
+            {
+               return (writeAssignment(item));
+            }
+         }));
+      }
+      else
+      {
+         Project.Assignments xmlAssignments = m_factory.createProjectAssignments();
+         project.setAssignments(xmlAssignments);
+         List<Project.Assignments.Assignment> list = xmlAssignments.getAssignment();
+
+         for (ResourceAssignment assignment : assignments)
+         {
+            list.add(writeAssignment(assignment));
+         }
+      }
    }
 
    /**
@@ -1899,6 +2009,127 @@ public final class MSPDIWriter extends AbstractProjectWriter
       }
    }
 
+   /**
+    * List implementation which creates each MSPDI element on demand as
+    * the marshaller iterates through it. Once marshalled, an element
+    * can be discarded, so the complete document is never held in memory.
+    *
+    * @param <S> MPXJ entity type
+    * @param <T> MSPDI element type
+    */
+   private abstract static class StreamingList<S, T> extends AbstractList<T>
+   {
+      /**
+       * Constructor.
+       * 
+       * @param source MPXJ entities to convert
+       */
+      public StreamingList(List<S> source)
+      {
+         m_source = source;
+      }
+
+      /**
+       * Creates the MSPDI element representing an MPXJ entity.
+       * 
+       * @param item MPXJ entity
+       * @return MSPDI element
+       */
+      protected abstract T convert(S item);
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public T get(int index)
+      {
+         return (convert(m_source.get(index)));
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public int size()
+      {
+         return (m_source.size());
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public Iterator<T> iterator()
+      {
+         final Iterator<S> iter = m_source.iterator();
+
+         return (new Iterator<T>()
+         {
+            @Override public boolean hasNext()
+            {
+               return (iter.hasNext());
+            }
+
+            @Override public T next()
+            {
+               return (convert(iter.next()));
+            }
+
+            @Override public void remove()
+            {
+               throw new UnsupportedOperationException();
+            }
+         });
+      }
+
+      private final List<S> m_source;
+   }
+
+   /**
+    * Tasks collection backed by a streaming list.
+    */
+   private static final class StreamingTasks extends Project.Tasks
+   {
+      /**
+       * Constructor.
+       * 
+       * @param list streaming list
+       */
+      public StreamingTasks(List<Project.Tasks.Task> list)
+      {
+         task = list;
+      }
+   }
+
+   /**
+    * Resources collection backed by a streaming list.
+    */
+   private static final class StreamingResources extends Project.Resources
+   {
+      /**
+       * Constructor.
+       * 
+       * @param list streaming list
+       */
+      public StreamingResources(List<Project.Resources.Resource> list)
+      {
+         resource = list;
+      }
+   }
+
+   /**
+    * Assignments collection backed by a streaming list.
+    */
+   private static final class StreamingAssignments extends Project.Assignments
+   {
+      /**
+       * Constructor.
+       * 
+       * @param list streaming list
+       */
+      public StreamingAssignments(List<Project.Assignments.Assignment> list)
+      {
+         assignment = list;
+      }
+   }
+
    private ObjectFactory m_factory;
 
    private ProjectFile m_projectFile;
@@ -1913,6 +2144,8 @@ public final class MSPDIWriter extends AbstractProjectWriter
 
    private boolean m_writeTimphasedData;
 
+   private boolean m_streamingOutput;
+
    private SaveVersion m_saveVersion = SaveVersion.Project2002;
 
    private static final BigInteger BIGINTEGER_ZERO = BigInteger.valueOf(0);
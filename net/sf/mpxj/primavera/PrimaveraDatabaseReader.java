@@ -30,10 +30,20 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.sql.DataSource;
 
@@ -43,6 +53,7 @@ import net.sf.mpxj.ProjectFile;
 import net.sf.mpxj.ProjectHeader;
 import net.sf.mpxj.listener.ProjectListener;
 import net.sf.mpxj.reader.ProjectReader;
+import net.sf.mpxj.utility.ColumnTable;
 import net.sf.mpxj.utility.NumberUtility;
 
 /**
@@ -76,7 +87,7 @@ public final class PrimaveraDatabaseReader implements ProjectReader
       {
          Map<Integer, String> result = new HashMap<Integer, String>();
 
-         List<Row> rows = getRows("select proj_id, proj_short_name from " + m_schema + "project where delete_date is null");
+         List<Row> rows = getRows(getQuery(PROJECT_LIST_QUERY));
          for (Row row : rows)
          {
             Integer id = row.getInteger("proj_id");
@@ -103,6 +114,15 @@ public final class PrimaveraDatabaseReader implements ProjectReader
    {
       try
       {
+         //
+         // Queries can only be run concurrently if we can allocate
+         // a separate connection for each one.
+         //
+         if (m_executor != null && m_dataSource != null && m_connection == null)
+         {
+            submitQueries();
+         }
+
          m_reader = new PrimaveraReader();
          ProjectFile project = m_reader.getProject();
          project.addProjectListeners(m_projectListeners);
@@ -127,40 +147,329 @@ public final class PrimaveraDatabaseReader implements ProjectReader
 
       finally
       {
-         if (m_allocatedConnection && m_connection != null)
+         cancelQueries();
+         releaseConnection();
+      }
+   }
+
+   /**
+    * Convenience method which allows all projects in the database to
+    * be read in a single operation.
+    * 
+    * @return list of ProjectFile instances
+    * @throws MPXJException
+    */
+   public List<ProjectFile> readAll() throws MPXJException
+   {
+      if (m_bulkRead)
+      {
+         return (readAllBulk());
+      }
+
+      List<ProjectFile> result = new LinkedList<ProjectFile>();
+      Map<Integer, String> projects = listProjects();
+
+      //
+      // Projects can only be read concurrently if we can allocate
+      // a separate connection for each one.
+      //
+      if (m_executor == null || m_dataSource == null || m_connection != null)
+      {
+         for (Integer id : projects.keySet())
          {
-            try
+            setProjectID(id.intValue());
+            result.add(read());
+         }
+      }
+      else
+      {
+         final AtomicBoolean cancelled = new AtomicBoolean();
+         List<Future<ProjectFile>> futures = new ArrayList<Future<ProjectFile>>(projects.size());
+         for (Integer id : projects.keySet())
+         {
+            final PrimaveraDatabaseReader reader = new PrimaveraDatabaseReader();
+            reader.m_projectListeners = m_projectListeners;
+            reader.setDataSource(m_dataSource);
+            reader.m_schema = m_schema;
+            reader.m_fetchSize = m_fetchSize;
+            reader.setProjectID(id.intValue());
+
+            futures.add(m_executor.submit(new Callable<ProjectFile>()
             {
-               m_connection.close();
-            }
+               @Override public ProjectFile call() throws MPXJException
+               {
+                  return (cancelled.get() ? null : reader.read());
+               }
+            }));
+         }
+
+         result.addAll(getProjects(futures, cancelled));
+      }
+
+      return result;
+   }
+
+   /**
+    * Reads all projects in the database by running a single query for
+    * each table, rather than a set of queries for each project. The rows
+    * retrieved are divided up by project ID, and each project is then
+    * built from its own rows. If an executor has been supplied, the
+    * projects are built concurrently.
+    * 
+    * @return list of ProjectFile instances
+    * @throws MPXJException
+    */
+   private List<ProjectFile> readAllBulk() throws MPXJException
+   {
+      final Map<Integer, List<Row>> projectRows;
+      final List<Row> preferenceRows;
+      final List<Row> calendarRows;
+      final List<Row> resourceRows;
+      final Map<Integer, List<Row>> wbsRows;
+      final Map<Integer, List<Row>> taskRows;
+      final Map<Integer, List<Row>> predecessorRows;
+      final Map<Integer, List<Row>> assignmentRows;
+
+      try
+      {
+         projectRows = getRowsByProject(getQuery(BULK_PROJECT_QUERY));
+         preferenceRows = getRows(getQuery(PREFERENCES_QUERY));
+         calendarRows = getRows(getQuery(BULK_CALENDAR_QUERY));
+         resourceRows = getRows(getQuery(BULK_RESOURCE_QUERY));
+         wbsRows = getRowsByProject(getQuery(BULK_WBS_QUERY));
+         taskRows = getRowsByProject(getQuery(BULK_TASK_QUERY));
+         predecessorRows = getRowsByProject(getQuery(BULK_PREDECESSOR_QUERY));
+         assignmentRows = getRowsByProject(getQuery(BULK_ASSIGNMENT_QUERY));
+      }
+
+      catch (SQLException ex)
+      {
+         throw new MPXJException(MPXJException.READ_ERROR, ex);
+      }
 
-            catch (SQLException ex)
+      finally
+      {
+         releaseConnection();
+      }
+
+      List<ProjectFile> result = new LinkedList<ProjectFile>();
+      if (m_executor == null)
+      {
+         for (Integer id : projectRows.keySet())
+         {
+            result.add(createProject(id, projectRows.get(id), preferenceRows, calendarRows, resourceRows, getRows(wbsRows, id), getRows(taskRows, id), getRows(predecessorRows, id), getRows(assignmentRows, id)));
+         }
+      }
+      else
+      {
+         final AtomicBoolean cancelled = new AtomicBoolean();
+         List<Future<ProjectFile>> futures = new ArrayList<Future<ProjectFile>>(projectRows.size());
+         for (final Integer id : projectRows.keySet())
+         {
+            futures.add(m_executor.submit(new Callable<ProjectFile>()
             {
-               // silently ignore errors on close
-            }
+               @Override public ProjectFile call()
+               {
+                  if (cancelled.get())
+                  {
+                     return (null);
+                  }
+                  return createProject(id, projectRows.get(id), preferenceRows, calendarRows, resourceRows, getRows(wbsRows, id), getRows(taskRows, id), getRows(predecessorRows, id), getRows(assignmentRows, id));
+               }
+            }));
+         }
 
-            m_connection = null;
+         result.addAll(getProjects(futures, cancelled));
+      }
+
+      return result;
+   }
+
+   /**
+    * Builds a project from rows which have already been retrieved from
+    * the database. The calendar and resource rows cover all projects,
+    * and are filtered here to select those used by this project.
+    * 
+    * @param projectID project ID
+    * @param project project rows
+    * @param preferences preference rows
+    * @param calendars calendar rows
+    * @param resources resource rows
+    * @param wbs WBS rows
+    * @param tasks task rows
+    * @param predecessors predecessor rows
+    * @param assignments assignment rows
+    * @return ProjectFile instance
+    */
+   private ProjectFile createProject(Integer projectID, List<Row> project, List<Row> preferences, List<Row> calendars, List<Row> resources, List<Row> wbs, List<Row> tasks, List<Row> predecessors, List<Row> assignments)
+   {
+      PrimaveraReader reader = new PrimaveraReader();
+      ProjectFile file = reader.getProject();
+      file.addProjectListeners(m_projectListeners);
+
+      reader.processProjectHeader(project);
+      processPreferences(reader, preferences);
+
+      List<Row> projectCalendars = new ArrayList<Row>();
+      for (Row row : calendars)
+      {
+         Integer id = row.getInteger("proj_id");
+         if (id == null || id.equals(projectID))
+         {
+            projectCalendars.add(row);
+         }
+      }
+      reader.processCalendars(projectCalendars);
+
+      Set<Integer> resourceIDs = new HashSet<Integer>();
+      for (Row row : assignments)
+      {
+         resourceIDs.add(row.getInteger("rsrc_id"));
+      }
+
+      List<Row> projectResources = new ArrayList<Row>();
+      for (Row row : resources)
+      {
+         if (resourceIDs.contains(row.getInteger("rsrc_id")))
+         {
+            projectResources.add(row);
          }
       }
+      reader.processResources(projectResources);
+
+      reader.processTasks(wbs, tasks);
+      reader.processPredecessors(predecessors);
+      reader.processAssignments(assignments);
+
+      file.updateStructure();
+
+      return (file);
    }
 
    /**
-    * Convenience method which allows all projects in the database to
-    * be read in a single operation.
+    * Retrieve the rows for a single project.
+    * 
+    * @param rows rows divided up by project ID
+    * @param projectID project ID
+    * @return list of rows
+    */
+   private List<Row> getRows(Map<Integer, List<Row>> rows, Integer projectID)
+   {
+      List<Row> result = rows.get(projectID);
+      if (result == null)
+      {
+         result = Collections.emptyList();
+      }
+      return (result);
+   }
+
+   /**
+    * Runs a query which retrieves rows for several projects, and divides
+    * the rows up by project ID. The order of the rows for each project
+    * matches the order in which they were retrieved.
     * 
+    * @param sql query statement
+    * @return rows divided up by project ID
+    * @throws SQLException
+    */
+   private Map<Integer, List<Row>> getRowsByProject(String sql) throws SQLException
+   {
+      Map<Integer, List<Row>> result = new LinkedHashMap<Integer, List<Row>>();
+      for (Row row : getRows(sql))
+      {
+         Integer id = row.getInteger("proj_id");
+         List<Row> rows = result.get(id);
+         if (rows == null)
+         {
+            rows = new ArrayList<Row>();
+            result.put(id, rows);
+         }
+         rows.add(row);
+      }
+      return (result);
+   }
+
+   /**
+    * Waits for the projects being read by the executor to complete.
+    * If one of them fails, projects which have not yet started are
+    * cancelled, and this method waits for those already running before
+    * reporting the first failure, so that no project is still running
+    * when the caller continues.
+    * 
+    * @param futures pending projects
+    * @param cancelled flag which prevents projects from starting once set
     * @return list of ProjectFile instances
     * @throws MPXJException
     */
-   public List<ProjectFile> readAll() throws MPXJException
+   private List<ProjectFile> getProjects(List<Future<ProjectFile>> futures, AtomicBoolean cancelled) throws MPXJException
    {
       List<ProjectFile> result = new LinkedList<ProjectFile>();
-      Map<Integer, String> projects = listProjects();
-      for (Integer id : projects.keySet())
+      ExecutionException failure = null;
+      InterruptedException interrupted = null;
+
+      for (Future<ProjectFile> future : futures)
       {
-         setProjectID(id.intValue());
-         result.add(read());
+         boolean complete = false;
+         while (!complete)
+         {
+            try
+            {
+               ProjectFile project = future.get();
+               if (!cancelled.get())
+               {
+                  result.add(project);
+               }
+               complete = true;
+            }
+
+            catch (InterruptedException ex)
+            {
+               interrupted = ex;
+               cancelled.set(true);
+            }
+
+            catch (ExecutionException ex)
+            {
+               if (failure == null)
+               {
+                  failure = ex;
+               }
+               cancelled.set(true);
+               complete = true;
+            }
+         }
       }
-      return result;
+
+      if (interrupted != null)
+      {
+         Thread.currentThread().interrupt();
+      }
+
+      if (failure != null)
+      {
+         //
+         // Pass on the exceptions raised by the read method unchanged,
+         // matching the behaviour when projects are read sequentially.
+         //
+         if (failure.getCause() instanceof MPXJException)
+         {
+            throw (MPXJException) failure.getCause();
+         }
+
+         if (failure.getCause() instanceof RuntimeException)
+         {
+            throw (RuntimeException) failure.getCause();
+         }
+
+         throw new MPXJException(MPXJException.READ_ERROR, failure);
+      }
+
+      if (interrupted != null)
+      {
+         throw new MPXJException(MPXJException.READ_ERROR, interrupted);
+      }
+
+      return (result);
    }
 
    /**
@@ -173,24 +482,35 @@ public final class PrimaveraDatabaseReader implements ProjectReader
       //
       // Process common attributes
       //
-      List<Row> rows = getRows("select * from " + m_schema + "project where proj_id=?", m_projectID);
+      List<Row> rows = getRows(getQuery(PROJECT_QUERY), m_projectID);
       m_reader.processProjectHeader(rows);
 
       //
       // Process PMDB-specific attributes
       //
-      rows = getRows("select * from " + m_schema + "prefer join " + m_schema + "currtype on currtype.curr_id =prefer.curr_id where prefer.delete_date is null");
+      rows = getRows(getQuery(PREFERENCES_QUERY));
+      processPreferences(m_reader, rows);
+   }
+
+   /**
+    * Process the PMDB-specific project attributes.
+    * 
+    * @param reader reader for the project being read
+    * @param rows preference rows
+    */
+   private void processPreferences(PrimaveraReader reader, List<Row> rows)
+   {
       if (!rows.isEmpty())
       {
          Row row = rows.get(0);
-         ProjectHeader ph = m_reader.getProject().getProjectHeader();
+         ProjectHeader ph = reader.getProject().getProjectHeader();
          ph.setCreationDate(row.getDate("create_date"));
          ph.setLastSaved(row.getDate("update_date"));
          ph.setMinutesPerDay(Integer.valueOf(row.getInt("day_hr_cnt") * 60));
          ph.setMinutesPerWeek(Double.valueOf(row.getDouble("week_hr_cnt").doubleValue() * 60));
          ph.setWeekStartDay(Day.getInstance(row.getInt("week_start_day_num")));
 
-         m_reader.processDefaultCurrency(row);
+         reader.processDefaultCurrency(row);
       }
    }
 
@@ -201,20 +521,31 @@ public final class PrimaveraDatabaseReader implements ProjectReader
     */
    private void processResources() throws SQLException
    {
-      List<Row> rows = getRows("select * from " + m_schema + "rsrc where delete_date is null and rsrc_id in (select rsrc_id from " + m_schema + "taskrsrc t where proj_id=? and delete_date is null) order by rsrc_seq_num", m_projectID);
+      List<Row> rows = getRows(getQuery(RESOURCE_QUERY), m_projectID);
       m_reader.processResources(rows);
    }
 
    /**
-    * Process tasks.
+    * Process tasks. Task rows are processed as they are retrieved,
+    * rather than being read in full before processing.
     * 
     * @throws SQLException
     */
    private void processTasks() throws SQLException
    {
-      List<Row> wbs = getRows("select * from " + m_schema + "projwbs where proj_id=? and delete_date is null order by parent_wbs_id,seq_num", m_projectID);
-      List<Row> tasks = getRows("select * from " + m_schema + "task where proj_id=? and delete_date is null", m_projectID);
-      m_reader.processTasks(wbs, tasks);
+      List<Row> wbs = getRows(getQuery(WBS_QUERY), m_projectID);
+      m_reader.processWbs(wbs);
+
+      allocateConnection();
+      query(m_connection, new ColumnTable.RowHandler()
+      {
+         @Override public void processRow(ColumnTable table, int row)
+         {
+            m_reader.processTask(new ColumnRow(table, row));
+         }
+      }, getQuery(TASK_QUERY), m_projectID);
+
+      m_reader.completeTasks();
    }
 
    /**
@@ -224,7 +555,7 @@ public final class PrimaveraDatabaseReader implements ProjectReader
     */
    private void processPredecessors() throws SQLException
    {
-      List<Row> rows = getRows("select * from " + m_schema + "taskpred where proj_id=? and delete_date is null", m_projectID);
+      List<Row> rows = getRows(getQuery(PREDECESSOR_QUERY), m_projectID);
       m_reader.processPredecessors(rows);
    }
 
@@ -235,7 +566,7 @@ public final class PrimaveraDatabaseReader implements ProjectReader
     */
    private void processCalendars() throws SQLException
    {
-      List<Row> rows = getRows("select * from " + m_schema + "calendar where (proj_id is null or proj_id=?) and delete_date is null", m_projectID);
+      List<Row> rows = getRows(getQuery(CALENDAR_QUERY), m_projectID);
       m_reader.processCalendars(rows);
    }
 
@@ -246,7 +577,7 @@ public final class PrimaveraDatabaseReader implements ProjectReader
     */
    private void processAssignments() throws SQLException
    {
-      List<Row> rows = getRows("select * from " + m_schema + "taskrsrc where proj_id=? and delete_date is null", m_projectID);
+      List<Row> rows = getRows(getQuery(ASSIGNMENT_QUERY), m_projectID);
       m_reader.processAssignments(rows);
    }
 
@@ -260,6 +591,87 @@ public final class PrimaveraDatabaseReader implements ProjectReader
       m_projectID = Integer.valueOf(projectID);
    }
 
+   /**
+    * Sets the executor used by readAll to read each project in the
+    * database concurrently. Each project is read using its own 
+    * connection, so this requires a DataSource to have been supplied
+    * rather than a Connection. If no executor is supplied, projects
+    * are read sequentially. Note that when an executor is used, project
+    * listeners may be called from multiple threads.
+    * 
+    * When a single project is read, the executor is used to run the
+    * queries for each table concurrently, again using a separate
+    * connection for each query. The rows retrieved are still processed
+    * in order by the calling thread.
+    * 
+    * @param executor executor service
+    */
+   public void setExecutor(ExecutorService executor)
+   {
+      m_executor = executor;
+   }
+
+   /**
+    * Retrieves the executor used by readAll to read each project
+    * in the database concurrently.
+    * 
+    * @return executor service
+    */
+   public ExecutorService getExecutor()
+   {
+      return m_executor;
+   }
+
+   /**
+    * Determines how readAll retrieves data from the database. By default
+    * each project is read using its own set of queries. When bulk reading
+    * is enabled, a single query is run for each table, retrieving the rows
+    * for all projects at once. This reduces the number of round trips to
+    * the database, at the cost of holding the rows for every project in
+    * memory until all of the projects have been built. When an executor is
+    * also supplied, it is used to build the projects concurrently from the
+    * rows retrieved, so a DataSource is not required.
+    * 
+    * @param bulkRead true if readAll should use bulk reading
+    */
+   public void setBulkRead(boolean bulkRead)
+   {
+      m_bulkRead = bulkRead;
+   }
+
+   /**
+    * Retrieves a flag indicating if readAll uses bulk reading.
+    * 
+    * @return true if readAll uses bulk reading
+    */
+   public boolean getBulkRead()
+   {
+      return m_bulkRead;
+   }
+
+   /**
+    * Sets the number of rows the JDBC driver should retrieve from the
+    * database each time more rows are needed. A value of zero means that
+    * the driver's default is used.
+    * 
+    * @param fetchSize fetch size
+    */
+   public void setFetchSize(int fetchSize)
+   {
+      m_fetchSize = fetchSize;
+   }
+
+   /**
+    * Retrieves the number of rows the JDBC driver should retrieve from
+    * the database each time more rows are needed.
+    * 
+    * @return fetch size
+    */
+   public int getFetchSize()
+   {
+      return m_fetchSize;
+   }
+
    /**
     * Set the data source. A DataSource or a Connection can be supplied
     * to this class to allow connection to the database.
@@ -307,72 +719,183 @@ public final class PrimaveraDatabaseReader implements ProjectReader
    }
 
    /**
-    * Retrieve a number of rows matching the supplied query. 
+    * Retrieve a number of rows matching the supplied query. If the query
+    * has already been submitted to the executor, this method waits for
+    * it to complete.
     * 
     * @param sql query statement
+    * @param vars bind variable values
     * @return result set
     * @throws SQLException
     */
-   private List<Row> getRows(String sql) throws SQLException
+   private List<Row> getRows(String sql, Integer... vars) throws SQLException
    {
-      allocateConnection();
+      List<Row> result;
+      Future<List<Row>> pending = m_pending == null ? null : m_pending.remove(sql);
+      if (pending == null)
+      {
+         allocateConnection();
+         result = createRows(query(m_connection, null, sql, vars));
+      }
+      else
+      {
+         result = getRows(pending);
+      }
+      return (result);
+   }
 
+   /**
+    * Waits for a query submitted to the executor to complete.
+    * 
+    * @param pending pending query
+    * @return rows
+    * @throws SQLException
+    */
+   private List<Row> getRows(Future<List<Row>> pending) throws SQLException
+   {
       try
       {
-         List<Row> result = new LinkedList<Row>();
+         return (pending.get());
+      }
 
-         m_ps = m_connection.prepareStatement(sql);
-         m_rs = m_ps.executeQuery();
-         populateMetaData();
-         while (m_rs.next())
+      catch (InterruptedException ex)
+      {
+         Thread.currentThread().interrupt();
+         throw new SQLException(ex);
+      }
+
+      catch (ExecutionException ex)
+      {
+         if (ex.getCause() instanceof SQLException)
          {
-            result.add(new ResultSetRow(m_rs, m_meta));
+            throw (SQLException) ex.getCause();
          }
 
-         return (result);
-      }
+         if (ex.getCause() instanceof RuntimeException)
+         {
+            throw (RuntimeException) ex.getCause();
+         }
 
-      finally
-      {
-         releaseConnection();
+         throw new SQLException(ex.getCause());
       }
    }
 
    /**
-    * Retrieve a number of rows matching the supplied query 
-    * which takes a single parameter.
+    * Runs a query, reading the results into a table. If a row handler
+    * is supplied, each row is passed to the handler as it is retrieved.
     * 
+    * @param connection database connection
+    * @param handler optional row handler
     * @param sql query statement
-    * @param var bind variable value
-    * @return result set
+    * @param vars bind variable values
+    * @return table
     * @throws SQLException
     */
-   private List<Row> getRows(String sql, Integer var) throws SQLException
+   private ColumnTable query(Connection connection, ColumnTable.RowHandler handler, String sql, Integer... vars) throws SQLException
    {
-      allocateConnection();
+      PreparedStatement ps = null;
+      ResultSet rs = null;
 
       try
       {
-         List<Row> result = new LinkedList<Row>();
+         ps = connection.prepareStatement(sql);
+         if (m_fetchSize != 0)
+         {
+            ps.setFetchSize(m_fetchSize);
+         }
 
-         m_ps = m_connection.prepareStatement(sql);
-         m_ps.setInt(1, NumberUtility.getInt(var));
-         m_rs = m_ps.executeQuery();
-         populateMetaData();
-         while (m_rs.next())
+         for (int loop = 0; loop < vars.length; loop++)
          {
-            result.add(new ResultSetRow(m_rs, m_meta));
+            ps.setInt(loop + 1, NumberUtility.getInt(vars[loop]));
          }
 
-         return (result);
+         rs = ps.executeQuery();
+         return (ColumnTable.read(rs, getColumnNames(rs), handler));
       }
 
       finally
       {
-         releaseConnection();
+         releaseStatement(ps, rs);
       }
    }
 
+   /**
+    * Submits the queries used to read a project to the executor. Each
+    * query runs using its own connection. The task query is not
+    * submitted, as task rows are processed as they are retrieved.
+    */
+   private void submitQueries()
+   {
+      m_pending = new HashMap<String, Future<List<Row>>>();
+      submitQuery(getQuery(PROJECT_QUERY), m_projectID);
+      submitQuery(getQuery(PREFERENCES_QUERY));
+      submitQuery(getQuery(CALENDAR_QUERY), m_projectID);
+      submitQuery(getQuery(RESOURCE_QUERY), m_projectID);
+      submitQuery(getQuery(WBS_QUERY), m_projectID);
+      submitQuery(getQuery(PREDECESSOR_QUERY), m_projectID);
+      submitQuery(getQuery(ASSIGNMENT_QUERY), m_projectID);
+   }
+
+   /**
+    * Submits a single query to the executor.
+    * 
+    * @param sql query statement
+    * @param vars bind variable values
+    */
+   private void submitQuery(final String sql, final Integer... vars)
+   {
+      m_pending.put(sql, m_executor.submit(new Callable<List<Row>>()
+      {
+         @Override public List<Row> call() throws SQLException
+         {
+            Connection connection = m_dataSource.getConnection();
+            try
+            {
+               return (createRows(query(connection, null, sql, vars)));
+            }
+
+            finally
+            {
+               try
+               {
+                  connection.close();
+               }
+
+               catch (SQLException ex)
+               {
+                  // silently ignore errors on close
+               }
+            }
+         }
+      }));
+   }
+
+   /**
+    * Cancels any queries submitted to the executor which have not been used.
+    */
+   private void cancelQueries()
+   {
+      if (m_pending != null)
+      {
+         for (Future<List<Row>> pending : m_pending.values())
+         {
+            pending.cancel(true);
+         }
+         m_pending = null;
+      }
+   }
+
+   /**
+    * Builds a query statement for the current schema.
+    * 
+    * @param template query template
+    * @return query statement
+    */
+   private String getQuery(String template)
+   {
+      return (template.replace("${schema}", m_schema));
+   }
+
    /**
     * Allocates a database connection.
     * 
@@ -388,16 +911,15 @@ public final class PrimaveraDatabaseReader implements ProjectReader
    }
 
    /**
-    * Releases a database connection, and cleans up any resources
-    * associated with that connection.
+    * Closes the database connection, if it was allocated by this class.
     */
    private void releaseConnection()
    {
-      if (m_rs != null)
+      if (m_allocatedConnection && m_connection != null)
       {
          try
          {
-            m_rs.close();
+            m_connection.close();
          }
 
          catch (SQLException ex)
@@ -405,42 +927,77 @@ public final class PrimaveraDatabaseReader implements ProjectReader
             // silently ignore errors on close
          }
 
-         m_rs = null;
+         m_connection = null;
       }
+   }
 
-      if (m_ps != null)
+   /**
+    * Cleans up the resources associated with a query.
+    * 
+    * @param ps prepared statement
+    * @param rs result set
+    */
+   private void releaseStatement(PreparedStatement ps, ResultSet rs)
+   {
+      if (rs != null)
       {
          try
          {
-            m_ps.close();
+            rs.close();
          }
 
          catch (SQLException ex)
          {
             // silently ignore errors on close
          }
+      }
 
-         m_ps = null;
+      if (ps != null)
+      {
+         try
+         {
+            ps.close();
+         }
+
+         catch (SQLException ex)
+         {
+            // silently ignore errors on close
+         }
       }
    }
 
    /**
-    * Retrieves basic meta data from the result set.
+    * Retrieves the column names from the result set meta data.
     * 
+    * @param rs result set
+    * @return column names
     * @throws SQLException
     */
-   private void populateMetaData() throws SQLException
+   private String[] getColumnNames(ResultSet rs) throws SQLException
    {
-      m_meta.clear();
+      ResultSetMetaData meta = rs.getMetaData();
+      String[] result = new String[meta.getColumnCount()];
+      for (int loop = 0; loop < result.length; loop++)
+      {
+         result[loop] = meta.getColumnName(loop + 1).toLowerCase();
+      }
+      return (result);
+   }
 
-      ResultSetMetaData meta = m_rs.getMetaData();
-      int columnCount = meta.getColumnCount() + 1;
-      for (int loop = 1; loop < columnCount; loop++)
+   /**
+    * Creates a row instance for each row in a table.
+    * 
+    * @param table table
+    * @return list of rows
+    */
+   private List<Row> createRows(ColumnTable table)
+   {
+      List<Row> result = new ArrayList<Row>(table.getSize());
+      for (int loop = 0; loop < table.getSize(); loop++)
       {
-         String name = meta.getColumnName(loop).toLowerCase();
-         Integer type = Integer.valueOf(meta.getColumnType(loop));
-         m_meta.put(name, type);
+         result.add(new ColumnRow(table, loop));
       }
+      return (result);
    }
 
    /**
@@ -473,8 +1030,28 @@ public final class PrimaveraDatabaseReader implements ProjectReader
    private DataSource m_dataSource;
    private Connection m_connection;
    private boolean m_allocatedConnection;
-   private PreparedStatement m_ps;
-   private ResultSet m_rs;
-   private Map<String, Integer> m_meta = new HashMap<String, Integer>();
    private List<ProjectListener> m_projectListeners;
+   private ExecutorService m_executor;
+   private int m_fetchSize;
+   private Map<String, Future<List<Row>>> m_pending;
+   private boolean m_bulkRead;
+
+   private static final String PROJECT_LIST_QUERY = "select proj_id, proj_short_name from ${schema}project where delete_date is null";
+   private static final String PROJECT_QUERY = "select * from ${schema}project where proj_id=?";
+   private static final String PREFERENCES_QUERY = "select * from ${schema}prefer join ${schema}currtype on currtype.curr_id =prefer.curr_id where prefer.delete_date is null";
+   private static final String RESOURCE_QUERY = "select * from ${schema}rsrc where delete_date is null and rsrc_id in (select rsrc_id from ${schema}taskrsrc t where proj_id=? and delete_date is null) order by rsrc_seq_num";
+   private static final String WBS_QUERY = "select * from ${schema}projwbs where proj_id=? and delete_date is null order by parent_wbs_id,seq_num";
+   private static final String TASK_QUERY = "select * from ${schema}task where proj_id=? and delete_date is null";
+   private static final String PREDECESSOR_QUERY = "select * from ${schema}taskpred where proj_id=? and delete_date is null";
+   private static final String CALENDAR_QUERY = "select * from ${schema}calendar where (proj_id is null or proj_id=?) and delete_date is null";
+   private static final String ASSIGNMENT_QUERY = "select * from ${schema}taskrsrc where proj_id=? and delete_date is null";
+
+   private static final String BULK_PROJECT_QUERY = "select * from ${schema}project where delete_date is null";
+   private static final String BULK_PROJECTS = "select proj_id from ${schema}project where delete_date is null";
+   private static final String BULK_CALENDAR_QUERY = "select * from ${schema}calendar where (proj_id is null or proj_id in (" + BULK_PROJECTS + ")) and delete_date is null";
+   private static final String BULK_RESOURCE_QUERY = "select * from ${schema}rsrc where delete_date is null and rsrc_id in (select rsrc_id from ${schema}taskrsrc t where proj_id in (" + BULK_PROJECTS + ") and delete_date is null) order by rsrc_seq_num";
+   private static final String BULK_WBS_QUERY = "select * from ${schema}projwbs where proj_id in (" + BULK_PROJECTS + ") and delete_date is null order by parent_wbs_id,seq_num";
+   private static final String BULK_TASK_QUERY = "select * from ${schema}task where proj_id in (" + BULK_PROJECTS + ") and delete_date is null";
+   private static final String BULK_PREDECESSOR_QUERY = "select * from ${schema}taskpred where proj_id in (" + BULK_PROJECTS + ") and delete_date is null";
+   private static final String BULK_ASSIGNMENT_QUERY = "select * from ${schema}taskrsrc where proj_id in (" + BULK_PROJECTS + ") and delete_date is null";
 }
\ No newline at end of file
@@ -284,7 +284,25 @@ final class PrimaveraReader
     */
    public void processTasks(List<Row> wbs, List<Row> tasks/*, List<Row> wbsmemos, List<Row> taskmemos*/)
    {
-      Set<Integer> uniqueIDs = new HashSet<Integer>();
+      processWbs(wbs);
+      for (Row row : tasks)
+      {
+         processTask(row);
+      }
+      completeTasks();
+   }
+
+   /**
+    * Process WBS entries. This is the first step in processing tasks,
+    * and must be followed by a call to processTask for each task row,
+    * then a call to completeTasks. This allows task rows to be processed
+    * one at a time, as they are retrieved.
+    * 
+    * @param wbs WBS task data
+    */
+   public void processWbs(List<Row> wbs)
+   {
+      m_taskUniqueIDs = new HashSet<Integer>();
 
       //
       // Read WBS entries and create tasks
@@ -294,7 +312,7 @@ final class PrimaveraReader
       {
          Task task = m_project.addTask();
          Integer uniqueID = row.getInteger("wbs_id");
-         uniqueIDs.add(uniqueID);
+         m_taskUniqueIDs.add(uniqueID);
 
          task.setUniqueID(uniqueID);
          task.setName(row.getString("wbs_name"));
@@ -353,94 +371,104 @@ final class PrimaveraReader
          }
       }
 
-      //
-      // Read Task entries and create tasks
-      //
-      int nextID = 1;
+      m_nextTaskID = 1;
       m_clashMap.clear();
-      for (Row row : tasks)
-      {
-         Integer uniqueID = row.getInteger("task_id");
-         if (uniqueIDs.contains(uniqueID))
-         {
-            while (uniqueIDs.contains(Integer.valueOf(nextID)))
-            {
-               ++nextID;
-            }
-            Integer newUniqueID = Integer.valueOf(nextID);
-            m_clashMap.put(uniqueID, newUniqueID);
-            uniqueID = newUniqueID;
-         }
-         uniqueIDs.add(uniqueID);
+   }
 
-         Task task;
-         Integer parentTaskID = row.getInteger("wbs_id");
-         Task parentTask = m_project.getTaskByUniqueID(parentTaskID);
-         if (parentTask == null)
-         {
-            task = m_project.addTask();
-         }
-         else
+   /**
+    * Process a single task row.
+    * 
+    * @param row task data
+    */
+   public void processTask(Row row)
+   {
+      Integer uniqueID = row.getInteger("task_id");
+      if (m_taskUniqueIDs.contains(uniqueID))
+      {
+         while (m_taskUniqueIDs.contains(Integer.valueOf(m_nextTaskID)))
          {
-            task = parentTask.addTask();
+            ++m_nextTaskID;
          }
+         Integer newUniqueID = Integer.valueOf(m_nextTaskID);
+         m_clashMap.put(uniqueID, newUniqueID);
+         uniqueID = newUniqueID;
+      }
+      m_taskUniqueIDs.add(uniqueID);
 
-         task.setUniqueID(uniqueID);
-         task.setPercentageComplete(row.getDouble("phys_complete_pct"));
-         task.setName(row.getString("task_name"));
-         task.setRemainingDuration(row.getDuration("remain_drtn_hr_cnt"));
-         task.setActualWork(row.getDuration("act_work_qty"));
-         task.setRemainingWork(row.getDuration("remain_work_qty"));
-         task.setBaselineWork(row.getDuration("target_work_qty"));
-         task.setBaselineDuration(row.getDuration("target_drtn_hr_cnt"));
-         task.setConstraintDate(row.getDate("cstr_date"));
-         task.setActualStart(row.getDate("act_start_date"));
-         task.setActualFinish(row.getDate("act_end_date"));
-         task.setLateStart(row.getDate("late_start_date"));
-         task.setLateFinish(row.getDate("late_end_date"));
-         task.setFinish(row.getDate("expect_end_date"));
-         task.setEarlyStart(row.getDate("early_start_date"));
-         task.setEarlyFinish(row.getDate("early_end_date"));
-         task.setBaselineStart(row.getDate("target_start_date"));
-         task.setBaselineFinish(row.getDate("target_end_date"));
-         task.setConstraintType(CONSTRAINT_TYPE_MAP.get(row.getString("cstr_type")));
-         task.setPriority(PRIORITY_MAP.get(row.getString("priority_type")));
-         task.setCreateDate(row.getDate("create_date"));
-         task.setType(TASK_TYPE_MAP.get(row.getString("duration_type")));
-         //task.setNotes(getNotes(taskmemos, "task_id", uniqueID.intValue(), "task_memo"));
-         task.setMilestone(BooleanUtility.getBoolean(MILESTONE_MAP.get(row.getString("task_type"))));
-         task.setFreeSlack(row.getDuration("free_float_hr_cnt"));
-         task.setTotalSlack(row.getDuration("total_float_hr_cnt"));
-         task.setText(1, row.getString("task_code"));
+      Task task;
+      Integer parentTaskID = row.getInteger("wbs_id");
+      Task parentTask = m_project.getTaskByUniqueID(parentTaskID);
+      if (parentTask == null)
+      {
+         task = m_project.addTask();
+      }
+      else
+      {
+         task = parentTask.addTask();
+      }
 
-         //
-         // The Primavera field names listed below come from Oracle 
-         // documentation, but do not appear in the XER file or
-         // in the TASK table.
-         // 
-         //task.setDuration(val); total_drtn_hr_cnt ?
-         //task.setActualDuration(val); act_drtn_hr_cnt ?                   
-         //task.setStart(val); start_date ?         
-         //task.setFinish(date); finish_date ?
-         //task.setPercentageComplete(val); // drtn_complete_pct ?
-         //task.setWork(val); // total_work_qty ?
-         //task.setCost(); // EAC ?
-         //task.setFixedCost(val); // total_expense_cost ?
-         //task.setBaselineCost(val); // bac ?
-         //task.setActualCost(val); // acwp ?
-         //task.setRemainingCost(val); // etc ?
-
-         Integer calId = row.getInteger("clndr_id");
-         ProjectCalendar cal = m_calMap.get(calId);
-         task.setCalendar(cal);
-
-         populateField(task, TaskField.START, TaskField.BASELINE_START, TaskField.ACTUAL_START);
-         populateField(task, TaskField.FINISH, TaskField.BASELINE_FINISH, TaskField.ACTUAL_FINISH);
-         populateField(task, TaskField.WORK, TaskField.BASELINE_WORK, TaskField.ACTUAL_WORK);
+      task.setUniqueID(uniqueID);
+      task.setPercentageComplete(row.getDouble("phys_complete_pct"));
+      task.setName(row.getString("task_name"));
+      task.setRemainingDuration(row.getDuration("remain_drtn_hr_cnt"));
+      task.setActualWork(row.getDuration("act_work_qty"));
+      task.setRemainingWork(row.getDuration("remain_work_qty"));
+      task.setBaselineWork(row.getDuration("target_work_qty"));
+      task.setBaselineDuration(row.getDuration("target_drtn_hr_cnt"));
+      task.setConstraintDate(row.getDate("cstr_date"));
+      task.setActualStart(row.getDate("act_start_date"));
+      task.setActualFinish(row.getDate("act_end_date"));
+      task.setLateStart(row.getDate("late_start_date"));
+      task.setLateFinish(row.getDate("late_end_date"));
+      task.setFinish(row.getDate("expect_end_date"));
+      task.setEarlyStart(row.getDate("early_start_date"));
+      task.setEarlyFinish(row.getDate("early_end_date"));
+      task.setBaselineStart(row.getDate("target_start_date"));
+      task.setBaselineFinish(row.getDate("target_end_date"));
+      task.setConstraintType(CONSTRAINT_TYPE_MAP.get(row.getString("cstr_type")));
+      task.setPriority(PRIORITY_MAP.get(row.getString("priority_type")));
+      task.setCreateDate(row.getDate("create_date"));
+      task.setType(TASK_TYPE_MAP.get(row.getString("duration_type")));
+      //task.setNotes(getNotes(taskmemos, "task_id", uniqueID.intValue(), "task_memo"));
+      task.setMilestone(BooleanUtility.getBoolean(MILESTONE_MAP.get(row.getString("task_type"))));
+      task.setFreeSlack(row.getDuration("free_float_hr_cnt"));
+      task.setTotalSlack(row.getDuration("total_float_hr_cnt"));
+      task.setText(1, row.getString("task_code"));
 
-         m_project.fireTaskReadEvent(task);
-      }
+      //
+      // The Primavera field names listed below come from Oracle 
+      // documentation, but do not appear in the XER file or
+      // in the TASK table.
+      // 
+      //task.setDuration(val); total_drtn_hr_cnt ?
+      //task.setActualDuration(val); act_drtn_hr_cnt ?                   
+      //task.setStart(val); start_date ?         
+      //task.setFinish(date); finish_date ?
+      //task.setPercentageComplete(val); // drtn_complete_pct ?
+      //task.setWork(val); // total_work_qty ?
+      //task.setCost(); // EAC ?
+      //task.setFixedCost(val); // total_expense_cost ?
+      //task.setBaselineCost(val); // bac ?
+      //task.setActualCost(val); // acwp ?
+      //task.setRemainingCost(val); // etc ?
+
+      Integer calId = row.getInteger("clndr_id");
+      ProjectCalendar cal = m_calMap.get(calId);
+      task.setCalendar(cal);
+
+      populateField(task, TaskField.START, TaskField.BASELINE_START, TaskField.ACTUAL_START);
+      populateField(task, TaskField.FINISH, TaskField.BASELINE_FINISH, TaskField.ACTUAL_FINISH);
+      populateField(task, TaskField.WORK, TaskField.BASELINE_WORK, TaskField.ACTUAL_WORK);
+
+      m_project.fireTaskReadEvent(task);
+   }
 
+   /**
+    * Completes the processing of tasks, once all task rows have been read.
+    */
+   public void completeTasks()
+   {
+      m_taskUniqueIDs = null;
       updateStructure();
    }
 
@@ -622,6 +650,8 @@ final class PrimaveraReader
 
    private ProjectFile m_project;
    private Map<Integer, Integer> m_clashMap = new HashMap<Integer, Integer>();
+   private Set<Integer> m_taskUniqueIDs;
+   private int m_nextTaskID;
    private Map<Integer, ProjectCalendar> m_calMap = new HashMap<Integer, ProjectCalendar>();
    private DateFormat m_calendarTimeFormat = new SimpleDateFormat("HH:mm");
 
@@ -31,20 +31,27 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import net.sf.mpxj.MPXJException;
 import net.sf.mpxj.ProjectFile;
 import net.sf.mpxj.listener.ProjectListener;
 import net.sf.mpxj.reader.AbstractProjectReader;
+import net.sf.mpxj.utility.ColumnTable;
+import net.sf.mpxj.utility.ColumnTable.ColumnType;
 import net.sf.mpxj.utility.InputStreamTokenizer;
 import net.sf.mpxj.utility.MPXJNumberFormat;
-import net.sf.mpxj.utility.NumberUtility;
 import net.sf.mpxj.utility.Tokenizer;
 
 /**
@@ -74,6 +81,83 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       m_projectID = Integer.valueOf(projectID);
    }
 
+   /**
+    * Sets the executor used by readAll to extract each project in the
+    * file concurrently. If no executor is supplied, projects are
+    * extracted sequentially. Note that when an executor is used, project
+    * listeners may be called from multiple threads.
+    * 
+    * @param executor executor service
+    */
+   public void setExecutor(ExecutorService executor)
+   {
+      m_executor = executor;
+   }
+
+   /**
+    * Retrieves the executor used by readAll to extract each project
+    * in the file concurrently.
+    * 
+    * @return executor service
+    */
+   public ExecutorService getExecutor()
+   {
+      return m_executor;
+   }
+
+   /**
+    * Restricts the tables and columns retained when the XER file is read.
+    * Each key in the map is the name of a table to be read, and the
+    * associated value is the set of column names to retain for that table,
+    * or null if all columns are to be retained. Rows from tables which are
+    * not named are skipped as they are read, and values in columns which
+    * are not named are discarded without being converted, which reduces
+    * the time and memory needed to read large files. Columns which are
+    * not retained will return null values when the project is built.
+    * 
+    * The project and currtype tables are always read in full, and the
+    * proj_id column is always retained, as these are required to
+    * identify projects and parse currency values. Passing null restores
+    * the default behaviour, where every table used to build a project
+    * is read in full.
+    * 
+    * @param filter map of table names to column names
+    */
+   public void setTableFilter(Map<String, Set<String>> filter)
+   {
+      if (filter == null)
+      {
+         m_tableFilter = null;
+      }
+      else
+      {
+         m_tableFilter = new HashMap<String, Set<String>>();
+         for (Map.Entry<String, Set<String>> entry : filter.entrySet())
+         {
+            Set<String> columns = null;
+            if (entry.getValue() != null)
+            {
+               columns = new HashSet<String>();
+               for (String column : entry.getValue())
+               {
+                  columns.add(column.toLowerCase());
+               }
+            }
+            m_tableFilter.put(entry.getKey().toLowerCase(), columns);
+         }
+      }
+   }
+
+   /**
+    * Retrieves the tables and columns retained when the XER file is read.
+    * 
+    * @return map of table names to column names, or null if no filter is set
+    */
+   public Map<String, Set<String>> getTableFilter()
+   {
+      return m_tableFilter;
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -82,35 +166,24 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       try
       {
          m_tables = new HashMap<String, List<Row>>();
+         m_indexes = new HashMap<String, Map<Integer, List<Row>>>();
          m_numberFormat = new MPXJNumberFormat();
 
          processFile(is);
 
-         m_reader = new PrimaveraReader();
-         ProjectFile project = m_reader.getProject();
-         project.addProjectListeners(m_projectListeners);
-
          processProjectID();
-         processProjectHeader();
-         processCalendars();
-         processResources();
-         processTasks();
-         processPredecessors();
-         processAssignments();
-
-         m_reader = null;
-         project.updateStructure();
-
-         return (project);
+         return readProject(m_projectID);
       }
 
       finally
       {
-         m_reader = null;
          m_tables = null;
+         m_indexes = null;
          m_currentTableName = null;
          m_currentTable = null;
-         m_currentFieldNames = null;
+         m_currentData = null;
+         m_currentColumns = null;
+         m_currentFieldTypes = null;
          m_defaultCurrencyName = null;
          m_currencyMap.clear();
          m_numberFormat = null;
@@ -120,7 +193,9 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
 
    /**
     * This is a convenience method which allows all projects in an
-    * XER file to be read in a single pass.
+    * XER file to be read in a single pass. If an executor has been
+    * supplied, the projects are extracted concurrently. The projects
+    * are returned in the order in which they appear in the file.
     * 
     * @param is input stream
     * @return list of ProjectFile instances
@@ -132,30 +207,45 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       {
          List<ProjectFile> result = new LinkedList<ProjectFile>();
          m_tables = new HashMap<String, List<Row>>();
+         m_indexes = new HashMap<String, Map<Integer, List<Row>>>();
          m_numberFormat = new MPXJNumberFormat();
 
          processFile(is);
 
          List<Row> rows = getRows("project", null, null);
-         for (Row row : rows)
+         if (m_executor == null)
          {
-            setProjectID(row.getInt("proj_id"));
-
-            m_reader = new PrimaveraReader();
-            ProjectFile project = m_reader.getProject();
-            project.addProjectListeners(m_projectListeners);
-
-            processProjectHeader();
-            processCalendars();
-            processResources();
-            processTasks();
-            processPredecessors();
-            processAssignments();
+            for (Row row : rows)
+            {
+               result.add(readProject(row.getInteger("proj_id")));
+            }
+         }
+         else
+         {
+            //
+            // Build the indexes up front, so that the tables
+            // are only read by the concurrent tasks.
+            //
+            for (String tableName : PROJECT_TABLES)
+            {
+               getRows(tableName, "proj_id", null);
+            }
 
-            m_reader = null;
-            project.updateStructure();
+            final AtomicBoolean cancelled = new AtomicBoolean();
+            List<Future<ProjectFile>> futures = new ArrayList<Future<ProjectFile>>(rows.size());
+            for (Row row : rows)
+            {
+               final Integer projectID = row.getInteger("proj_id");
+               futures.add(m_executor.submit(new Callable<ProjectFile>()
+               {
+                  @Override public ProjectFile call()
+                  {
+                     return (cancelled.get() ? null : readProject(projectID));
+                  }
+               }));
+            }
 
-            result.add(project);
+            result.addAll(getProjects(futures, cancelled));
          }
 
          return result;
@@ -163,11 +253,13 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
 
       finally
       {
-         m_reader = null;
          m_tables = null;
+         m_indexes = null;
          m_currentTableName = null;
          m_currentTable = null;
-         m_currentFieldNames = null;
+         m_currentData = null;
+         m_currentColumns = null;
+         m_currentFieldTypes = null;
          m_defaultCurrencyName = null;
          m_currencyMap.clear();
          m_numberFormat = null;
@@ -175,6 +267,110 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       }
    }
 
+   /**
+    * Waits for the projects being read by the executor to complete.
+    * If one of them fails, projects which have not yet started are
+    * cancelled, and this method waits for those already running before
+    * reporting the first failure, so that no project is still running
+    * when the caller continues.
+    * 
+    * @param futures pending projects
+    * @param cancelled flag which prevents projects from starting once set
+    * @return list of ProjectFile instances
+    * @throws MPXJException
+    */
+   private List<ProjectFile> getProjects(List<Future<ProjectFile>> futures, AtomicBoolean cancelled) throws MPXJException
+   {
+      List<ProjectFile> result = new LinkedList<ProjectFile>();
+      ExecutionException failure = null;
+      InterruptedException interrupted = null;
+
+      for (Future<ProjectFile> future : futures)
+      {
+         boolean complete = false;
+         while (!complete)
+         {
+            try
+            {
+               ProjectFile project = future.get();
+               if (!cancelled.get())
+               {
+                  result.add(project);
+               }
+               complete = true;
+            }
+
+            catch (InterruptedException ex)
+            {
+               interrupted = ex;
+               cancelled.set(true);
+            }
+
+            catch (ExecutionException ex)
+            {
+               if (failure == null)
+               {
+                  failure = ex;
+               }
+               cancelled.set(true);
+               complete = true;
+            }
+         }
+      }
+
+      if (interrupted != null)
+      {
+         Thread.currentThread().interrupt();
+      }
+
+      if (failure != null)
+      {
+         //
+         // Unchecked exceptions are passed on unchanged, matching
+         // the behaviour when projects are extracted sequentially.
+         //
+         if (failure.getCause() instanceof RuntimeException)
+         {
+            throw (RuntimeException) failure.getCause();
+         }
+
+         throw new MPXJException(MPXJException.READ_ERROR, failure);
+      }
+
+      if (interrupted != null)
+      {
+         throw new MPXJException(MPXJException.READ_ERROR, interrupted);
+      }
+
+      return (result);
+   }
+
+   /**
+    * Extracts a single project from the tables read from the XER file.
+    * This method only reads the tables, so it can be called
+    * concurrently for different projects.
+    * 
+    * @param projectID ID of the project to extract
+    * @return ProjectFile instance
+    */
+   private ProjectFile readProject(Integer projectID)
+   {
+      PrimaveraReader reader = new PrimaveraReader();
+      ProjectFile project = reader.getProject();
+      project.addProjectListeners(m_projectListeners);
+
+      processProjectHeader(reader, projectID);
+      processCalendars(reader);
+      processResources(reader);
+      processTasks(reader, projectID);
+      processPredecessors(reader, projectID);
+      processAssignments(reader, projectID);
+
+      project.updateStructure();
+
+      return (project);
+   }
+
    /**
     * Reads the XER file table and row structure ready for processing.
     *
@@ -277,6 +473,7 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       try
       {
          m_tables = new HashMap<String, List<Row>>();
+         m_indexes = new HashMap<String, Map<Integer, List<Row>>>();
          processFile(is);
 
          Map<Integer, String> result = new HashMap<Integer, String>();
@@ -295,78 +492,98 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       finally
       {
          m_tables = null;
+         m_indexes = null;
          m_currentTable = null;
-         m_currentFieldNames = null;
+         m_currentData = null;
+         m_currentColumns = null;
+         m_currentFieldTypes = null;
       }
    }
 
    /**
     * Process project header.
+    * 
+    * @param reader Primavera reader
+    * @param projectID project ID
     */
-   private void processProjectHeader()
+   private void processProjectHeader(PrimaveraReader reader, Integer projectID)
    {
       //
       // Process common attributes
       //
-      List<Row> rows = getRows("project", "proj_id", m_projectID);
-      m_reader.processProjectHeader(rows);
+      List<Row> rows = getRows("project", "proj_id", projectID);
+      reader.processProjectHeader(rows);
 
       //
       // Process XER-specific attributes
       //
       if (m_defaultCurrencyData != null)
       {
-         m_reader.processDefaultCurrency(m_defaultCurrencyData);
+         reader.processDefaultCurrency(m_defaultCurrencyData);
       }
    }
 
    /**
     * Process project calendars.
+    * 
+    * @param reader Primavera reader
     */
-   private void processCalendars()
+   private void processCalendars(PrimaveraReader reader)
    {
       List<Row> rows = getRows("calendar", null, null);
-      m_reader.processCalendars(rows);
+      reader.processCalendars(rows);
    }
 
    /**
     * Process resources.
+    * 
+    * @param reader Primavera reader
     */
-   private void processResources()
+   private void processResources(PrimaveraReader reader)
    {
       List<Row> rows = getRows("rsrc", null, null);
-      m_reader.processResources(rows);
+      reader.processResources(rows);
    }
 
    /**
     * Process tasks.
+    * 
+    * @param reader Primavera reader
+    * @param projectID project ID
     */
-   private void processTasks()
+   private void processTasks(PrimaveraReader reader, Integer projectID)
    {
-      List<Row> wbs = getRows("projwbs", "proj_id", m_projectID);
-      List<Row> tasks = getRows("task", "proj_id", m_projectID);
-      //List<Row> wbsmemos = getRows("wbsmemo", "proj_id", m_projectID);
-      //List<Row> taskmemos = getRows("taskmemo", "proj_id", m_projectID);
+      List<Row> wbs = getRows("projwbs", "proj_id", projectID);
+      List<Row> tasks = getRows("task", "proj_id", projectID);
+      //List<Row> wbsmemos = getRows("wbsmemo", "proj_id", projectID);
+      //List<Row> taskmemos = getRows("taskmemo", "proj_id", projectID);
+      wbs = new ArrayList<Row>(wbs);
       Collections.sort(wbs, WBS_ROW_COMPARATOR);
-      m_reader.processTasks(wbs, tasks/*, wbsmemos, taskmemos*/);
+      reader.processTasks(wbs, tasks/*, wbsmemos, taskmemos*/);
    }
 
    /**
     * Process predecessors.
+    * 
+    * @param reader Primavera reader
+    * @param projectID project ID
     */
-   private void processPredecessors()
+   private void processPredecessors(PrimaveraReader reader, Integer projectID)
    {
-      List<Row> rows = getRows("taskpred", "proj_id", m_projectID);
-      m_reader.processPredecessors(rows);
+      List<Row> rows = getRows("taskpred", "proj_id", projectID);
+      reader.processPredecessors(rows);
    }
 
    /**
     * Process resource assignments.
+    * 
+    * @param reader Primavera reader
+    * @param projectID project ID
     */
-   private void processAssignments()
+   private void processAssignments(PrimaveraReader reader, Integer projectID)
    {
-      List<Row> rows = getRows("taskrsrc", "proj_id", m_projectID);
-      m_reader.processAssignments(rows);
+      List<Row> rows = getRows("taskrsrc", "proj_id", projectID);
+      reader.processAssignments(rows);
    }
 
    /**
@@ -379,9 +596,40 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
    private void readRecord(Tokenizer tk, List<String> record) throws IOException
    {
       record.clear();
-      while (tk.nextToken() == Tokenizer.TT_WORD)
+      if (tk.nextToken() == Tokenizer.TT_WORD)
       {
-         record.add(tk.getToken());
+         String type = tk.getToken();
+         record.add(type);
+
+         //
+         // Data rows from tables we are skipping are discarded without
+         // retrieving the token text, and the text of columns we are not
+         // retaining is replaced by null.
+         //
+         if (type.equals("%R") && (m_skipTable || m_currentColumns == null))
+         {
+            while (tk.nextToken() == Tokenizer.TT_WORD)
+            {
+               // skip
+            }
+         }
+         else
+         {
+            int[] columns = type.equals("%R") ? m_currentColumns : null;
+            int index = 1;
+            while (tk.nextToken() == Tokenizer.TT_WORD)
+            {
+               if (columns != null && (index >= columns.length || columns[index] == -1))
+               {
+                  record.add(null);
+               }
+               else
+               {
+                  record.add(tk.getToken());
+               }
+               ++index;
+            }
+         }
       }
    }
 
@@ -414,14 +662,17 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
          case TABLE:
          {
             m_currentTableName = record.get(1).toLowerCase();
-            m_skipTable = !REQUIRED_TABLES.contains(m_currentTableName);
+            m_skipTable = !isRequiredTable(m_currentTableName);
+            m_currentData = null;
+            m_currentColumns = null;
+            m_currentFieldTypes = null;
             if (m_skipTable)
             {
                m_currentTable = null;
             }
             else
             {
-               m_currentTable = new LinkedList<Row>();
+               m_currentTable = new ArrayList<Row>();
                m_tables.put(m_currentTableName, m_currentTable);
             }
             break;
@@ -429,17 +680,9 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
 
          case FIELDS:
          {
-            if (m_skipTable)
-            {
-               m_currentFieldNames = null;
-            }
-            else
+            if (!m_skipTable)
             {
-               m_currentFieldNames = record.toArray(new String[record.size()]);
-               for (int loop = 0; loop < m_currentFieldNames.length; loop++)
-               {
-                  m_currentFieldNames[loop] = m_currentFieldNames[loop].toLowerCase();
-               }
+               processFields(record);
             }
             break;
          }
@@ -448,101 +691,22 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
          {
             if (!m_skipTable)
             {
-               Map<String, Object> map = new HashMap<String, Object>();
-               for (int loop = 1; loop < record.size(); loop++)
+               int index = m_currentData.addRow();
+               int count = Math.min(record.size(), m_currentColumns.length);
+               for (int loop = 1; loop < count; loop++)
                {
-                  String fieldName = m_currentFieldNames[loop];
-                  String fieldValue = record.get(loop);
-                  FieldType fieldType = FIELD_TYPE_MAP.get(fieldName);
-                  if (fieldType == null)
-                  {
-                     fieldType = FieldType.STRING;
-                  }
-
-                  Object objectValue;
-                  if (fieldValue.length() == 0)
+                  int column = m_currentColumns[loop];
+                  if (column != -1)
                   {
-                     objectValue = null;
-                  }
-                  else
-                  {
-                     switch (fieldType)
+                     String fieldValue = record.get(loop);
+                     if (fieldValue.length() != 0)
                      {
-                        case DATE:
-                        {
-                           try
-                           {
-                              objectValue = m_df.parseObject(fieldValue);
-                           }
-
-                           catch (ParseException ex)
-                           {
-                              throw new MPXJException(MPXJException.INVALID_DATE, ex);
-                           }
-
-                           break;
-                        }
-
-                        case CURRENCY:
-                        {
-                           try
-                           {
-                              objectValue = Double.valueOf(m_numberFormat.parse(fieldValue).doubleValue());
-                           }
-
-                           catch (ParseException ex)
-                           {
-                              throw new MPXJException(MPXJException.INVALID_NUMBER, ex);
-                           }
-                           break;
-                        }
-
-                        case DOUBLE:
-                        {
-                           try
-                           {
-                              objectValue = Double.valueOf(m_numberFormat.parse(fieldValue).doubleValue());
-                           }
-
-                           catch (ParseException ex)
-                           {
-                              throw new MPXJException(MPXJException.INVALID_NUMBER, ex);
-                           }
-                           break;
-                        }
-
-                        case DURATION:
-                        {
-                           try
-                           {
-                              objectValue = Double.valueOf(m_numberFormat.parse(fieldValue).doubleValue());
-                           }
-
-                           catch (ParseException ex)
-                           {
-                              throw new MPXJException(MPXJException.INVALID_NUMBER, ex);
-                           }
-                           break;
-                        }
-
-                        case INTEGER:
-                        {
-                           objectValue = Integer.valueOf(fieldValue);
-                           break;
-                        }
-
-                        default:
-                        {
-                           objectValue = fieldValue;
-                           break;
-                        }
+                        processField(index, column, m_currentFieldTypes[loop], fieldValue);
                      }
                   }
-
-                  map.put(fieldName, objectValue);
                }
 
-               Row currentRow = new MapRow(map);
+               Row currentRow = new ColumnRow(m_currentData, index);
                m_currentTable.add(currentRow);
 
                //
@@ -573,6 +737,140 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       return done;
    }
 
+   /**
+    * Sets up the columns of the current table from the field names record.
+    * 
+    * @param record field names record
+    */
+   private void processFields(List<String> record)
+   {
+      Set<String> requiredColumns = getRequiredColumns(m_currentTableName);
+      int size = record.size();
+      List<String> names = new ArrayList<String>(size);
+      List<ColumnType> types = new ArrayList<ColumnType>(size);
+      m_currentColumns = new int[size];
+      m_currentFieldTypes = new FieldType[size];
+      m_currentColumns[0] = -1;
+
+      for (int loop = 1; loop < size; loop++)
+      {
+         String fieldName = record.get(loop).toLowerCase();
+         if (requiredColumns == null || requiredColumns.contains(fieldName) || fieldName.equals("proj_id"))
+         {
+            FieldType fieldType = FIELD_TYPE_MAP.get(fieldName);
+            if (fieldType == null)
+            {
+               fieldType = FieldType.STRING;
+            }
+
+            m_currentColumns[loop] = names.size();
+            m_currentFieldTypes[loop] = fieldType;
+            names.add(fieldName);
+            types.add(fieldType.getColumnType());
+         }
+         else
+         {
+            m_currentColumns[loop] = -1;
+         }
+      }
+
+      m_currentData = new ColumnTable(names.toArray(new String[names.size()]), types.toArray(new ColumnType[types.size()]));
+   }
+
+   /**
+    * Converts a field value and stores it in the current table.
+    * 
+    * @param index row index
+    * @param column column index
+    * @param fieldType field type
+    * @param fieldValue field value
+    * @throws MPXJException
+    */
+   private void processField(int index, int column, FieldType fieldType, String fieldValue) throws MPXJException
+   {
+      switch (fieldType)
+      {
+         case DATE:
+         {
+            try
+            {
+               m_currentData.setDate(index, column, (Date) m_df.parseObject(fieldValue));
+            }
+
+            catch (ParseException ex)
+            {
+               throw new MPXJException(MPXJException.INVALID_DATE, ex);
+            }
+
+            break;
+         }
+
+         case CURRENCY:
+         case DOUBLE:
+         case DURATION:
+         {
+            try
+            {
+               m_currentData.setDouble(index, column, m_numberFormat.parse(fieldValue).doubleValue());
+            }
+
+            catch (ParseException ex)
+            {
+               throw new MPXJException(MPXJException.INVALID_NUMBER, ex);
+            }
+            break;
+         }
+
+         case INTEGER:
+         {
+            m_currentData.setInt(index, column, Integer.parseInt(fieldValue));
+            break;
+         }
+
+         default:
+         {
+            m_currentData.setString(index, column, fieldValue);
+            break;
+         }
+      }
+   }
+
+   /**
+    * Determine if rows from a table should be retained.
+    * 
+    * @param tableName table name
+    * @return true if the table's rows should be retained
+    */
+   private boolean isRequiredTable(String tableName)
+   {
+      boolean result;
+      if (m_tableFilter == null)
+      {
+         result = REQUIRED_TABLES.contains(tableName);
+      }
+      else
+      {
+         result = m_tableFilter.containsKey(tableName) || ALWAYS_REQUIRED_TABLES.contains(tableName);
+      }
+      return result;
+   }
+
+   /**
+    * Retrieve the names of the columns to be retained for a table.
+    * 
+    * @param tableName table name
+    * @return set of column names, or null if all columns are retained
+    */
+   private Set<String> getRequiredColumns(String tableName)
+   {
+      Set<String> result = null;
+      if (m_tableFilter != null && !ALWAYS_REQUIRED_TABLES.contains(tableName))
+      {
+         result = m_tableFilter.get(tableName);
+      }
+      return result;
+   }
+
    /**
     * Extract any useful attributes from the header record.
     * 
@@ -586,7 +884,8 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
    /**
     * Filters a list of rows from the named table. If a column name and a value
     * are supplied, then use this to filter the rows. If no column name is
-    * supplied, then return all rows. 
+    * supplied, then return all rows. The list returned is shared between
+    * callers, so it cannot be modified.
     * 
     * @param tableName table name
     * @param columnName filter column name
@@ -599,42 +898,82 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       List<Row> table = m_tables.get(tableName);
       if (table == null)
       {
-         result = EMPTY_TABLE;
+         result = Collections.emptyList();
       }
       else
       {
          if (columnName == null)
          {
-            result = table;
+            result = Collections.unmodifiableList(table);
          }
          else
          {
-            result = new LinkedList<Row>();
-            for (Row row : table)
+            result = getIndex(tableName, columnName, table).get(id);
+            if (result == null)
             {
-               if (NumberUtility.equals(id, row.getInteger(columnName)))
-               {
-                  result.add(row);
-               }
+               result = Collections.emptyList();
+            }
+            else
+            {
+               result = Collections.unmodifiableList(result);
             }
          }
       }
       return result;
    }
-   private PrimaveraReader m_reader;
+
+   /**
+    * Retrieves an index which groups the rows of a table by the value
+    * of the named column. The index is built the first time it is requested,
+    * and reused for subsequent requests, so that filtering the rows 
+    * for each project in a multi-project file does not require a
+    * scan of the complete table.
+    * 
+    * @param tableName table name
+    * @param columnName index column name
+    * @param table table rows
+    * @return index of column values to rows
+    */
+   private Map<Integer, List<Row>> getIndex(String tableName, String columnName, List<Row> table)
+   {
+      String key = tableName + "." + columnName;
+      Map<Integer, List<Row>> index = m_indexes.get(key);
+      if (index == null)
+      {
+         index = new HashMap<Integer, List<Row>>();
+         for (Row row : table)
+         {
+            Integer value = row.getInteger(columnName);
+            List<Row> rows = index.get(value);
+            if (rows == null)
+            {
+               rows = new ArrayList<Row>();
+               index.put(value, rows);
+            }
+            rows.add(row);
+         }
+         m_indexes.put(key, index);
+      }
+      return index;
+   }
+
    private Integer m_projectID;
    boolean m_skipTable;
    private Map<String, List<Row>> m_tables;
+   private Map<String, Map<Integer, List<Row>>> m_indexes;
    private String m_currentTableName;
    private List<Row> m_currentTable;
-   private String[] m_currentFieldNames;
+   private ColumnTable m_currentData;
+   private int[] m_currentColumns;
+   private FieldType[] m_currentFieldTypes;
+   private Map<String, Set<String>> m_tableFilter;
    private String m_defaultCurrencyName;
    private Map<String, MPXJNumberFormat> m_currencyMap = new HashMap<String, MPXJNumberFormat>();
    private MPXJNumberFormat m_numberFormat;
    private Row m_defaultCurrencyData;
    private DateFormat m_df = new SimpleDateFormat("yyyy-MM-dd HH:mm");
-   private static final List<Row> EMPTY_TABLE = new LinkedList<Row>();
    private List<ProjectListener> m_projectListeners;
+   private ExecutorService m_executor;
 
    /**
     * Represents expected record types.
@@ -653,12 +992,34 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
     */
    private enum FieldType
    {
-      STRING,
-      INTEGER,
-      DOUBLE,
-      DATE,
-      DURATION,
-      CURRENCY
+      STRING(ColumnType.STRING),
+      INTEGER(ColumnType.INTEGER),
+      DOUBLE(ColumnType.DOUBLE),
+      DATE(ColumnType.DATE),
+      DURATION(ColumnType.DOUBLE),
+      CURRENCY(ColumnType.DOUBLE);
+
+      /**
+       * Constructor.
+       * 
+       * @param columnType type used to store values of this type
+       */
+      private FieldType(ColumnType columnType)
+      {
+         m_columnType = columnType;
+      }
+
+      /**
+       * Retrieve the type used to store values of this type.
+       * 
+       * @return column type
+       */
+      public ColumnType getColumnType()
+      {
+         return m_columnType;
+      }
+
+      private final ColumnType m_columnType;
    }
 
    /**
@@ -761,5 +1122,27 @@ public final class PrimaveraXERFileReader extends AbstractProjectReader
       REQUIRED_TABLES.add("currtype");
    }
 
+   /**
+    * Tables which are always read in full, regardless of the table filter.
+    */
+   private static final Set<String> ALWAYS_REQUIRED_TABLES = new HashSet<String>();
+   static
+   {
+      ALWAYS_REQUIRED_TABLES.add("project");
+      ALWAYS_REQUIRED_TABLES.add("currtype");
+   }
+
+   /**
+    * Tables filtered by project ID when extracting a project.
+    */
+   private static final String[] PROJECT_TABLES =
+   {
+      "project",
+      "projwbs",
+      "task",
+      "taskpred",
+      "taskrsrc"
+   };
+
    private static final WbsRowComparator WBS_ROW_COMPARATOR = new WbsRowComparator();
 }
@@ -0,0 +1,398 @@
+/*
+ * file:       MpxjBatchConvert.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2012
+ * date:       18/10/2012
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.sample;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.sf.mpxj.ProjectFile;
+import net.sf.mpxj.reader.ProjectReader;
+import net.sf.mpxj.reader.ProjectReaderUtility;
+import net.sf.mpxj.writer.ProjectWriter;
+import net.sf.mpxj.writer.ProjectWriterUtility;
+
+/**
+ * This utility converts a batch of project files from one format to another
+ * within a single JVM, avoiding the start up costs incurred when converting
+ * one file per invocation of MpxjConvert. The input is either a directory,
+ * in which case every file with an extension supported by
+ * ProjectReaderUtility is converted, or a manifest file listing one input
+ * file name per line. Files are converted using a fixed size pool of
+ * worker threads, and a tab separated summary is written to standard
+ * output, giving the output file name, the read and write times, the input
+ * and output file sizes, and the number of bytes allocated while reading
+ * each file. Example command line:
+ *
+ * MpxjBatchConvert c:\projects c:\converted xml 4
+ *
+ * Each output file is named after its input file, with the extension
+ * replaced. Where this would give two input files the same output file,
+ * for example a.mpp and a.mpx, or files with the same name in different
+ * directories, the input file's extension is retained, and a number is
+ * added if necessary to make the name unique.
+ *
+ * The allocation figures are measured for the worker thread reading the
+ * file, so they are not affected by other conversions running at the same
+ * time. They are reported as -1 if the JVM does not support this.
+ */
+public final class MpxjBatchConvert
+{
+   /**
+    * Main method.
+    *
+    * @param args array of command line arguments
+    */
+   public static void main(String[] args)
+   {
+      try
+      {
+         if (args.length < 3 || args.length > 4)
+         {
+            System.out.println("Usage: MpxjBatchConvert <input directory or manifest file> <output directory> <output file extension> [thread count]");
+         }
+         else
+         {
+            int threads = args.length == 4 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+            MpxjBatchConvert convert = new MpxjBatchConvert();
+            convert.process(args[0], args[1], args[2], threads, System.out);
+         }
+      }
+
+      catch (Exception ex)
+      {
+         ex.printStackTrace(System.out);
+      }
+   }
+
+   /**
+    * Convert a batch of project files.
+    *
+    * @param input input directory or manifest file name
+    * @param outputDirectory output directory name
+    * @param outputExtension extension used to determine the output file type
+    * @param threads number of worker threads
+    * @param summary stream to which the summary is written
+    * @throws Exception
+    */
+   public void process(String input, String outputDirectory, String outputExtension, int threads, PrintStream summary) throws Exception
+   {
+      List<File> files = getInputFiles(new File(input));
+      File outputDir = new File(outputDirectory);
+      if (!outputDir.isDirectory() && !outputDir.mkdirs())
+      {
+         throw new IOException("Unable to create output directory: " + outputDirectory);
+      }
+
+      ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+      long start = System.currentTimeMillis();
+      List<Result> results = new ArrayList<Result>(files.size());
+
+      try
+      {
+         List<Future<Result>> futures = new ArrayList<Future<Result>>(files.size());
+         Set<String> outputNames = new HashSet<String>();
+         for (File file : files)
+         {
+            File output = getOutputFile(file, outputDir, outputExtension, outputNames);
+            futures.add(pool.submit(new Conversion(file, output)));
+         }
+
+         for (Future<Result> future : futures)
+         {
+            try
+            {
+               results.add(future.get());
+            }
+
+            catch (ExecutionException ex)
+            {
+               throw new Exception(ex.getCause());
+            }
+         }
+      }
+
+      finally
+      {
+         pool.shutdown();
+      }
+
+      long elapsed = System.currentTimeMillis() - start;
+      writeSummary(summary, results, elapsed);
+   }
+
+   /**
+    * Retrieve the list of files to convert.
+    *
+    * @param input input directory or manifest file
+    * @return list of files
+    * @throws IOException
+    */
+   private List<File> getInputFiles(File input) throws IOException
+   {
+      List<File> result = new ArrayList<File>();
+
+      if (input.isDirectory())
+      {
+         Set<String> extensions = ProjectReaderUtility.getSupportedFileExtensions();
+         File[] files = input.listFiles();
+         Arrays.sort(files);
+         for (File file : files)
+         {
+            String name = file.getName();
+            int index = name.lastIndexOf('.');
+            if (file.isFile() && index != -1 && extensions.contains(name.substring(index + 1).toUpperCase()))
+            {
+               result.add(file);
+            }
+         }
+      }
+      else
+      {
+         BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(input)));
+         try
+         {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+               line = line.trim();
+               if (line.length() != 0 && !line.startsWith("#"))
+               {
+                  result.add(new File(line));
+               }
+            }
+         }
+
+         finally
+         {
+            reader.close();
+         }
+      }
+
+      return (result);
+   }
+
+   /**
+    * Choose the output file for an input file. The output file name is
+    * formed by replacing the input file's extension. If another input
+    * file has already been given this name, the input file's extension
+    * is retained, and a number is added if the name is still in use.
+    * Names are compared ignoring case, so the result is the same on
+    * case insensitive file systems.
+    *
+    * @param input input file
+    * @param outputDir output directory
+    * @param outputExtension output file extension
+    * @param outputNames output file names already in use
+    * @return output file
+    */
+   private File getOutputFile(File input, File outputDir, String outputExtension, Set<String> outputNames)
+   {
+      String inputName = input.getName();
+      String name = inputName;
+      int index = name.lastIndexOf('.');
+      if (index != -1)
+      {
+         name = name.substring(0, index);
+      }
+
+      String outputName = name + "." + outputExtension;
+      if (outputNames.contains(outputName.toLowerCase()))
+      {
+         outputName = inputName + "." + outputExtension;
+         int count = 1;
+         while (outputNames.contains(outputName.toLowerCase()))
+         {
+            ++count;
+            outputName = inputName + "." + count + "." + outputExtension;
+         }
+      }
+      outputNames.add(outputName.toLowerCase());
+
+      return (new File(outputDir, outputName));
+   }
+
+   /**
+    * Write the summary of the conversion as tab separated values.
+    *
+    * @param summary output stream
+    * @param results per file results
+    * @param elapsed total elapsed time in milliseconds
+    */
+   private void writeSummary(PrintStream summary, List<Result> results, long elapsed)
+   {
+      summary.println("file\toutputFile\tstatus\treadMs\twriteMs\tinputBytes\toutputBytes\tallocatedBytes\tmessage");
+
+      int failed = 0;
+      for (Result result : results)
+      {
+         summary.print(result.m_input.getPath());
+         summary.print('\t');
+         summary.print(result.m_output.getPath());
+         summary.print('\t');
+         summary.print(result.m_error == null ? "OK" : "FAILED");
+         summary.print('\t');
+         summary.print(result.m_readTime);
+         summary.print('\t');
+         summary.print(result.m_writeTime);
+         summary.print('\t');
+         summary.print(result.m_inputBytes);
+         summary.print('\t');
+         summary.print(result.m_outputBytes);
+         summary.print('\t');
+         summary.print(result.m_allocatedBytes);
+         summary.print('\t');
+         summary.println(result.m_error == null ? "" : result.m_error.toString().replace('\t', ' ').replace('\n', ' '));
+
+         if (result.m_error != null)
+         {
+            ++failed;
+         }
+      }
+
+      summary.println("# files=" + results.size() + " failed=" + failed + " elapsedMs=" + elapsed);
+   }
+
+   /**
+    * Retrieve the total number of bytes allocated by the current thread.
+    * Unlike the overall heap usage, this is not affected by work carried
+    * out by other threads.
+    *
+    * @return allocated bytes, or -1 if this is not supported by the JVM
+    */
+   static long getAllocatedBytes()
+   {
+      long result = -1;
+      ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (bean instanceof com.sun.management.ThreadMXBean)
+      {
+         com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+         if (threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled())
+         {
+            result = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+         }
+      }
+      return (result);
+   }
+
+   /**
+    * Converts a single file. A new reader and writer is created for each
+    * file, as these are not thread safe, but any static infrastructure
+    * they use, such as JAXB contexts, is shared between conversions.
+    */
+   private static final class Conversion implements Callable<Result>
+   {
+      /**
+       * Constructor.
+       *
+       * @param input input file
+       * @param output output file
+       */
+      public Conversion(File input, File output)
+      {
+         m_input = input;
+         m_output = output;
+      }
+
+      /**
+       * {@inheritDoc}
+       */
+      @Override public Result call()
+      {
+         Result result = new Result(m_input, m_output);
+         result.m_inputBytes = m_input.length();
+
+         try
+         {
+            long allocated = getAllocatedBytes();
+            long start = System.currentTimeMillis();
+            ProjectReader reader = ProjectReaderUtility.getProjectReader(m_input.getPath());
+            ProjectFile projectFile = reader.read(m_input);
+            result.m_readTime = System.currentTimeMillis() - start;
+            if (allocated != -1)
+            {
+               result.m_allocatedBytes = getAllocatedBytes() - allocated;
+            }
+
+            start = System.currentTimeMillis();
+            ProjectWriter writer = ProjectWriterUtility.getProjectWriter(m_output.getPath());
+            writer.write(projectFile, m_output);
+            result.m_writeTime = System.currentTimeMillis() - start;
+            result.m_outputBytes = m_output.length();
+         }
+
+         catch (Exception ex)
+         {
+            result.m_error = ex;
+         }
+
+         return (result);
+      }
+
+      private final File m_input;
+      private final File m_output;
+   }
+
+   /**
+    * Metrics recorded for a single file.
+    */
+   private static final class Result
+   {
+      /**
+       * Constructor.
+       *
+       * @param input input file
+       * @param output output file
+       */
+      public Result(File input, File output)
+      {
+         m_input = input;
+         m_output = output;
+      }
+
+      final File m_input;
+      final File m_output;
+      long m_readTime;
+      long m_writeTime;
+      long m_inputBytes;
+      long m_outputBytes;
+      long m_allocatedBytes = -1;
+      Exception m_error;
+   }
+}
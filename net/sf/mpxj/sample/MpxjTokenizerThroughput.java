@@ -0,0 +1,179 @@
+/*
+ * file:       MpxjTokenizerThroughput.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2012
+ * date:       18/10/2012
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.sample;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+import net.sf.mpxj.utility.InputStreamTokenizer;
+import net.sf.mpxj.utility.ReaderTokenizer;
+import net.sf.mpxj.utility.Tokenizer;
+
+/**
+ * This utility measures the rate at which the tokenizers used by the
+ * MPX and XER readers process a file. The file is read into memory once,
+ * then tokenized repeatedly using both the stream and reader based
+ * tokenizers, so that the figures reported do not include the cost of
+ * reading from disk. The first pass of each tokenizer warms up the JVM
+ * and is not included in the averages. Example command line:
+ *
+ * MpxjTokenizerThroughput c:\projects\export.xer 20 tab
+ *
+ * The delimiter is either a single character, or "tab". If it is omitted,
+ * a tab is used for files with the extension XER, and a comma otherwise.
+ */
+public final class MpxjTokenizerThroughput
+{
+   /**
+    * Main method.
+    *
+    * @param args array of command line arguments
+    */
+   public static void main(String[] args)
+   {
+      try
+      {
+         if (args.length < 1 || args.length > 3)
+         {
+            System.out.println("Usage: MpxjTokenizerThroughput <input file name> [iterations] [delimiter]");
+         }
+         else
+         {
+            int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+            char delimiter;
+            if (args.length > 2)
+            {
+               delimiter = args[2].equalsIgnoreCase("tab") ? '\t' : args[2].charAt(0);
+            }
+            else
+            {
+               delimiter = args[0].toUpperCase().endsWith(".XER") ? '\t' : ',';
+            }
+
+            MpxjTokenizerThroughput throughput = new MpxjTokenizerThroughput();
+            throughput.process(args[0], Math.max(1, iterations), delimiter);
+         }
+      }
+
+      catch (Exception ex)
+      {
+         ex.printStackTrace(System.out);
+      }
+   }
+
+   /**
+    * Tokenize a file repeatedly and report the throughput.
+    *
+    * @param inputFile input file name
+    * @param iterations number of timed passes for each tokenizer
+    * @param delimiter delimiter character
+    * @throws Exception
+    */
+   public void process(String inputFile, int iterations, char delimiter) throws Exception
+   {
+      byte[] data = readFile(inputFile);
+      System.out.println("File size " + data.length + " bytes, " + iterations + " iterations.");
+
+      for (int type = 0; type < 2; type++)
+      {
+         String name = (type == 0 ? "InputStreamTokenizer" : "ReaderTokenizer");
+         long tokens = tokenize(data, type, delimiter);
+         long totalTime = 0;
+
+         for (int loop = 0; loop < iterations; loop++)
+         {
+            long start = System.nanoTime();
+            tokenize(data, type, delimiter);
+            totalTime += System.nanoTime() - start;
+         }
+
+         double seconds = totalTime / 1000000000.0 / iterations;
+         double megabytes = data.length / (1024.0 * 1024.0);
+         System.out.println(name + ": " + tokens + " tokens, " + String.format("%.2f", Double.valueOf(seconds * 1000)) + "ms per pass, " + String.format("%.1f", Double.valueOf(megabytes / seconds)) + " MB/s");
+      }
+   }
+
+   /**
+    * Read the whole of a file into memory.
+    *
+    * @param inputFile input file name
+    * @return file content
+    * @throws IOException
+    */
+   private byte[] readFile(String inputFile) throws IOException
+   {
+      InputStream is = new FileInputStream(inputFile);
+      try
+      {
+         ByteArrayOutputStream os = new ByteArrayOutputStream();
+         byte[] buffer = new byte[65536];
+         int length;
+         while ((length = is.read(buffer)) != -1)
+         {
+            os.write(buffer, 0, length);
+         }
+         return (os.toByteArray());
+      }
+
+      finally
+      {
+         is.close();
+      }
+   }
+
+   /**
+    * Tokenize the file content once.
+    *
+    * @param data file content
+    * @param type 0 for the stream based tokenizer, 1 for the reader based tokenizer
+    * @param delimiter delimiter character
+    * @return number of tokens read
+    * @throws IOException
+    */
+   private long tokenize(byte[] data, int type, char delimiter) throws IOException
+   {
+      InputStream is = new ByteArrayInputStream(data);
+      Tokenizer tokenizer;
+      if (type == 0)
+      {
+         tokenizer = new InputStreamTokenizer(is);
+      }
+      else
+      {
+         tokenizer = new ReaderTokenizer(new InputStreamReader(is, "ISO-8859-1"));
+      }
+      tokenizer.setDelimiter(delimiter);
+
+      long count = 0;
+      while (tokenizer.nextToken() != Tokenizer.TT_EOF)
+      {
+         ++count;
+      }
+      return (count);
+   }
+}
@@ -0,0 +1,675 @@
+/*
+ * file:       ColumnTable.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2012
+ * date:       18/10/2012
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.utility;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds the rows of a table with the values of each column stored in
+ * a typed array, rather than holding a map of column names to values
+ * for each row. Numeric, boolean and date values are held as primitives,
+ * and column names are resolved to column indexes once for the whole
+ * table. The readers which retrieve tabular data from databases and
+ * from XER files use this class to hold their rows, exposing each row
+ * to the rest of the reader as a lightweight view onto the table.
+ */
+public final class ColumnTable
+{
+   /**
+    * Constructor.
+    * 
+    * @param names column names
+    * @param types column types
+    */
+   public ColumnTable(String[] names, ColumnType[] types)
+   {
+      m_types = types;
+      m_columns = new Object[types.length];
+      m_present = new BitSet[types.length];
+
+      for (int loop = 0; loop < types.length; loop++)
+      {
+         m_index.put(names[loop], Integer.valueOf(loop));
+         m_columns[loop] = allocate(types[loop], m_capacity);
+         if (types[loop].isPrimitive())
+         {
+            m_present[loop] = new BitSet();
+         }
+      }
+   }
+
+   /**
+    * Reads all of the remaining rows from a result set into a new table.
+    * The caller supplies the name to be used for each column in the
+    * result set, allowing the case of the names to be normalised. Where
+    * more than one column has the same name, the first column with that
+    * name is used, matching the behaviour of the JDBC methods which
+    * retrieve values by column name.
+    * 
+    * @param rs result set
+    * @param names column names, in result set column order
+    * @return new table
+    * @throws SQLException
+    */
+   public static ColumnTable read(ResultSet rs, String[] names) throws SQLException
+   {
+      return (read(rs, names, null));
+   }
+
+   /**
+    * Reads all of the remaining rows from a result set, as described
+    * above. If a handler is supplied, each row is passed to the handler
+    * as soon as it has been read, and is then discarded, so the table
+    * only ever holds the current row. This allows large results to be
+    * processed as they are retrieved from the database.
+    * 
+    * @param rs result set
+    * @param names column names, in result set column order
+    * @param handler optional row handler
+    * @return new table
+    * @throws SQLException
+    */
+   public static ColumnTable read(ResultSet rs, String[] names, RowHandler handler) throws SQLException
+   {
+      ResultSetMetaData meta = rs.getMetaData();
+      Map<String, Integer> ordinals = new HashMap<String, Integer>();
+      int[] sqlTypes = new int[names.length];
+      String[] columnNames = new String[names.length];
+      ColumnType[] columnTypes = new ColumnType[names.length];
+      int count = 0;
+
+      for (int loop = 0; loop < names.length; loop++)
+      {
+         if (!ordinals.containsKey(names[loop]))
+         {
+            ordinals.put(names[loop], Integer.valueOf(loop + 1));
+            sqlTypes[count] = meta.getColumnType(loop + 1);
+            columnNames[count] = names[loop];
+            columnTypes[count] = getColumnType(sqlTypes[count]);
+            ++count;
+         }
+      }
+
+      int[] columnOrdinals = new int[count];
+      for (int loop = 0; loop < count; loop++)
+      {
+         columnOrdinals[loop] = ordinals.get(columnNames[loop]).intValue();
+      }
+
+      ColumnTable table = new ColumnTable(Arrays.copyOf(columnNames, count), Arrays.copyOf(columnTypes, count));
+      while (rs.next())
+      {
+         if (handler != null)
+         {
+            table.clear();
+         }
+
+         int row = table.addRow();
+         for (int loop = 0; loop < count; loop++)
+         {
+            table.readValue(rs, row, loop, columnOrdinals[loop], sqlTypes[loop], columnNames[loop]);
+         }
+
+         if (handler != null)
+         {
+            handler.processRow(table, row);
+         }
+      }
+
+      return (table);
+   }
+
+   /**
+    * Adds a new row to the table. All of the values in the new row are null.
+    * 
+    * @return row index
+    */
+   public int addRow()
+   {
+      if (m_size == m_capacity)
+      {
+         m_capacity = m_capacity * 2;
+         for (int loop = 0; loop < m_columns.length; loop++)
+         {
+            Object column = allocate(m_types[loop], m_capacity);
+            System.arraycopy(m_columns[loop], 0, column, 0, m_size);
+            m_columns[loop] = column;
+         }
+      }
+
+      return (m_size++);
+   }
+
+   /**
+    * Removes all rows from the table.
+    */
+   public void clear()
+   {
+      for (int loop = 0; loop < m_columns.length; loop++)
+      {
+         if (m_types[loop].isPrimitive())
+         {
+            m_present[loop].clear();
+         }
+         else
+         {
+            Arrays.fill((Object[]) m_columns[loop], 0, m_size, null);
+         }
+      }
+      m_size = 0;
+   }
+
+   /**
+    * Retrieve the number of rows in the table.
+    * 
+    * @return row count
+    */
+   public int getSize()
+   {
+      return (m_size);
+   }
+
+   /**
+    * Retrieve the index of a column.
+    * 
+    * @param name column name
+    * @return column index, or -1 if the table has no column with this name
+    */
+   public int getColumnIndex(String name)
+   {
+      Integer index = m_index.get(name);
+      return (index == null ? -1 : index.intValue());
+   }
+
+   /**
+    * Set a string value.
+    * 
+    * @param row row index
+    * @param column column index
+    * @param value column value
+    */
+   public void setString(int row, int column, String value)
+   {
+      ((String[]) m_columns[column])[row] = value;
+   }
+
+   /**
+    * Set an integer value.
+    * 
+    * @param row row index
+    * @param column column index
+    * @param value column value
+    */
+   public void setInt(int row, int column, int value)
+   {
+      ((int[]) m_columns[column])[row] = value;
+      m_present[column].set(row);
+   }
+
+   /**
+    * Set a long value.
+    * 
+    * @param row row index
+    * @param column column index
+    * @param value column value
+    */
+   public void setLong(int row, int column, long value)
+   {
+      ((long[]) m_columns[column])[row] = value;
+      m_present[column].set(row);
+   }
+
+   /**
+    * Set a double value.
+    * 
+    * @param row row index
+    * @param column column index
+    * @param value column value
+    */
+   public void setDouble(int row, int column, double value)
+   {
+      ((double[]) m_columns[column])[row] = value;
+      m_present[column].set(row);
+   }
+
+   /**
+    * Set a boolean value.
+    * 
+    * @param row row index
+    * @param column column index
+    * @param value column value
+    */
+   public void setBoolean(int row, int column, boolean value)
+   {
+      ((boolean[]) m_columns[column])[row] = value;
+      m_present[column].set(row);
+   }
+
+   /**
+    * Set a date value.
+    * 
+    * @param row row index
+    * @param column column index
+    * @param value column value
+    */
+   public void setDate(int row, int column, Date value)
+   {
+      ((long[]) m_columns[column])[row] = value.getTime();
+      m_present[column].set(row);
+   }
+
+   /**
+    * Set an object value.
+    * 
+    * @param row row index
+    * @param column column index
+    * @param value column value
+    */
+   public void setObject(int row, int column, Object value)
+   {
+      ((Object[]) m_columns[column])[row] = value;
+   }
+
+   /**
+    * Retrieve a value as an object.
+    * 
+    * @param row row index
+    * @param name column name
+    * @return column value, or null if the column is not present or has no value
+    */
+   public Object getObject(int row, String name)
+   {
+      Integer index = m_index.get(name);
+      return (index == null ? null : getObject(row, index.intValue()));
+   }
+
+   /**
+    * Retrieve a value as an object.
+    * 
+    * @param row row index
+    * @param column column index
+    * @return column value, or null if the column has no value
+    */
+   public Object getObject(int row, int column)
+   {
+      Object result = null;
+      ColumnType type = m_types[column];
+
+      if (!type.isPrimitive())
+      {
+         result = ((Object[]) m_columns[column])[row];
+      }
+      else
+      {
+         if (m_present[column].get(row))
+         {
+            switch (type)
+            {
+               case INTEGER:
+               {
+                  result = Integer.valueOf(((int[]) m_columns[column])[row]);
+                  break;
+               }
+
+               case LONG:
+               {
+                  result = Long.valueOf(((long[]) m_columns[column])[row]);
+                  break;
+               }
+
+               case DOUBLE:
+               {
+                  result = Double.valueOf(((double[]) m_columns[column])[row]);
+                  break;
+               }
+
+               case BOOLEAN:
+               {
+                  result = Boolean.valueOf(((boolean[]) m_columns[column])[row]);
+                  break;
+               }
+
+               default:
+               {
+                  result = new Date(((long[]) m_columns[column])[row]);
+                  break;
+               }
+            }
+         }
+      }
+
+      return (result);
+   }
+
+   /**
+    * Reads a single value from the current row of a result set.
+    * 
+    * @param rs result set
+    * @param row row index
+    * @param column column index
+    * @param ordinal result set column index
+    * @param sqlType SQL type of the column
+    * @param name column name
+    * @throws SQLException
+    */
+   private void readValue(ResultSet rs, int row, int column, int ordinal, int sqlType, String name) throws SQLException
+   {
+      switch (sqlType)
+      {
+         case Types.BIT:
+         case Types.BOOLEAN:
+         {
+            boolean value = rs.getBoolean(ordinal);
+            if (!rs.wasNull())
+            {
+               setBoolean(row, column, value);
+            }
+            break;
+         }
+
+         case Types.CHAR:
+         case Types.VARCHAR:
+         case Types.LONGVARCHAR:
+         case Types.CLOB:
+         case Types.NCHAR:
+         case Types.NVARCHAR:
+         case Types.LONGNVARCHAR:
+         {
+            setString(row, column, rs.getString(ordinal));
+            break;
+         }
+
+         case Types.DATE:
+         {
+            Date value = rs.getDate(ordinal);
+            if (value != null)
+            {
+               setDate(row, column, value);
+            }
+            break;
+         }
+
+         case Types.TIMESTAMP:
+         {
+            Timestamp value = rs.getTimestamp(ordinal);
+            if (value != null)
+            {
+               setDate(row, column, value);
+            }
+            break;
+         }
+
+         case Types.DOUBLE:
+         case Types.NUMERIC:
+         {
+            double value = rs.getDouble(ordinal);
+            if (!rs.wasNull())
+            {
+               setDouble(row, column, value);
+            }
+            break;
+         }
+
+         case Types.INTEGER:
+         case Types.SMALLINT:
+         {
+            int value = rs.getInt(ordinal);
+            if (!rs.wasNull())
+            {
+               setInt(row, column, value);
+            }
+            break;
+         }
+
+         case Types.BIGINT:
+         {
+            long value = rs.getLong(ordinal);
+            if (!rs.wasNull())
+            {
+               setLong(row, column, value);
+            }
+            break;
+         }
+
+         case Types.VARBINARY:
+         case Types.LONGVARBINARY:
+         case Types.BLOB:
+         {
+            setObject(row, column, rs.getBytes(ordinal));
+            break;
+         }
+
+         case Types.OTHER:
+         case Types.ROWID:
+         {
+            setObject(row, column, rs.getObject(ordinal));
+            break;
+         }
+
+         default:
+         {
+            throw new IllegalArgumentException("Unsupported SQL type: " + sqlType + " for column " + name);
+         }
+      }
+
+      //
+      // The null flag takes precedence over the value returned.
+      //
+      if (rs.wasNull() && !m_types[column].isPrimitive())
+      {
+         setObject(row, column, null);
+      }
+   }
+
+   /**
+    * Determine the column type used to hold values of an SQL type.
+    * Unsupported types are held as objects, and are rejected when
+    * a row is read.
+    * 
+    * @param sqlType SQL type
+    * @return column type
+    */
+   private static ColumnType getColumnType(int sqlType)
+   {
+      ColumnType result;
+
+      switch (sqlType)
+      {
+         case Types.BIT:
+         case Types.BOOLEAN:
+         {
+            result = ColumnType.BOOLEAN;
+            break;
+         }
+
+         case Types.CHAR:
+         case Types.VARCHAR:
+         case Types.LONGVARCHAR:
+         case Types.CLOB:
+         case Types.NCHAR:
+         case Types.NVARCHAR:
+         case Types.LONGNVARCHAR:
+         {
+            result = ColumnType.STRING;
+            break;
+         }
+
+         case Types.DATE:
+         case Types.TIMESTAMP:
+         {
+            result = ColumnType.DATE;
+            break;
+         }
+
+         case Types.DOUBLE:
+         case Types.NUMERIC:
+         {
+            result = ColumnType.DOUBLE;
+            break;
+         }
+
+         case Types.INTEGER:
+         case Types.SMALLINT:
+         {
+            result = ColumnType.INTEGER;
+            break;
+         }
+
+         case Types.BIGINT:
+         {
+            result = ColumnType.LONG;
+            break;
+         }
+
+         default:
+         {
+            result = ColumnType.OBJECT;
+            break;
+         }
+      }
+
+      return (result);
+   }
+
+   /**
+    * Allocate the array used to hold the values of a column.
+    * 
+    * @param type column type
+    * @param capacity array size
+    * @return new array
+    */
+   private static Object allocate(ColumnType type, int capacity)
+   {
+      Object result;
+
+      switch (type)
+      {
+         case INTEGER:
+         {
+            result = new int[capacity];
+            break;
+         }
+
+         case LONG:
+         case DATE:
+         {
+            result = new long[capacity];
+            break;
+         }
+
+         case DOUBLE:
+         {
+            result = new double[capacity];
+            break;
+         }
+
+         case BOOLEAN:
+         {
+            result = new boolean[capacity];
+            break;
+         }
+
+         case STRING:
+         {
+            result = new String[capacity];
+            break;
+         }
+
+         default:
+         {
+            result = new Object[capacity];
+            break;
+         }
+      }
+
+      return (result);
+   }
+
+   /**
+    * Callback used to process rows as they are read from a result set.
+    */
+   public interface RowHandler
+   {
+      /**
+       * Process a single row. The row is only valid for the
+       * duration of this call.
+       * 
+       * @param table table containing the row
+       * @param row row index
+       */
+      public void processRow(ColumnTable table, int row);
+   }
+
+   /**
+    * Column data types.
+    */
+   public enum ColumnType
+   {
+      STRING(false),
+      INTEGER(true),
+      LONG(true),
+      DOUBLE(true),
+      BOOLEAN(true),
+      DATE(true),
+      OBJECT(false);
+
+      /**
+       * Constructor.
+       * 
+       * @param primitive true if values are held in a primitive array
+       */
+      private ColumnType(boolean primitive)
+      {
+         m_primitive = primitive;
+      }
+
+      /**
+       * Determine if values of this type are held in a primitive array.
+       * 
+       * @return true if values are held in a primitive array
+       */
+      public boolean isPrimitive()
+      {
+         return (m_primitive);
+      }
+
+      private final boolean m_primitive;
+   }
+
+   private final ColumnType[] m_types;
+   private final Object[] m_columns;
+   private final BitSet[] m_present;
+   private final Map<String, Integer> m_index = new HashMap<String, Integer>();
+   private int m_size;
+   private int m_capacity = 16;
+}
@@ -236,24 +236,41 @@ public final class DateUtility
    public static Date getTimestampFromLong(long timestamp)
    {
       TimeZone tz = TimeZone.getDefault();
-      Date result = new Date(timestamp - tz.getRawOffset());
-
-      if (tz.inDaylightTime(result) == true)
+      TimestampAdjustments adjustments = TIMESTAMP_ADJUSTMENTS;
+      if (adjustments == null || !adjustments.matches(tz))
       {
-         int savings;
+         adjustments = new TimestampAdjustments(tz);
+         TIMESTAMP_ADJUSTMENTS = adjustments;
+      }
+      return (new Date(timestamp - adjustments.getAdjustment(timestamp)));
+   }
+
+   /**
+    * Calculates the adjustment required to convert a timestamp expressed
+    * as a long integer into a Date instance, taking account of the time
+    * zone and any daylight savings time.
+    * 
+    * @param tz time zone
+    * @param timestamp timestamp expressed as a long integer
+    * @return adjustment in milliseconds
+    */
+   static long getTimestampAdjustment(TimeZone tz, long timestamp)
+   {
+      long adjustment = tz.getRawOffset();
 
+      if (tz.inDaylightTime(new Date(timestamp - adjustment)) == true)
+      {
          if (HAS_DST_SAVINGS == true)
          {
-            savings = tz.getDSTSavings();
+            adjustment += tz.getDSTSavings();
          }
          else
          {
-            savings = DEFAULT_DST_SAVINGS;
+            adjustment += DEFAULT_DST_SAVINGS;
          }
-
-         result = new Date(result.getTime() - savings);
       }
-      return (result);
+
+      return (adjustment);
    }
 
    /**
@@ -320,12 +337,12 @@ public final class DateUtility
    /** 
     * First date supported by Microsoft Project: January 01 00:00:00 1984. 
     */
-   public static final Date FIRST_DATE = DateUtility.getTimestampFromLong(441763200000L);
+   public static final Date FIRST_DATE = new Date(441763200000L - getTimestampAdjustment(TimeZone.getDefault(), 441763200000L));
 
    /** 
     * Last date supported by Microsoft Project: Friday December 31 23:59:00 2049. 
     */
-   public static final Date LAST_DATE = DateUtility.getTimestampFromLong(2524607946000L);
+   public static final Date LAST_DATE = new Date(2524607946000L - getTimestampAdjustment(TimeZone.getDefault(), 2524607946000L));
 
    /**
     * Default value to use for DST savings if we are using a version
@@ -333,6 +350,11 @@ public final class DateUtility
     */
    private static final int DEFAULT_DST_SAVINGS = 3600000;
 
+   /**
+    * Cached timestamp adjustments for the default time zone.
+    */
+   private static volatile TimestampAdjustments TIMESTAMP_ADJUSTMENTS;
+
    private static Date CANONICAL_EPOCH = getCanonicalTime(getDayStartDate(new Date()));
 
    /**
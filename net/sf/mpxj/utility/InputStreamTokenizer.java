@@ -28,7 +28,9 @@ import java.io.InputStream;
 
 /**
  * This class implements a tokenizer as per the underlying Tokenizer class,
- * with characters being read from an InputStream instance.
+ * with characters being read from an InputStream instance. Bytes are
+ * read from the stream in blocks, so the stream will generally have been
+ * read beyond the end of the last token returned.
  */
 public final class InputStreamTokenizer extends Tokenizer
 {
@@ -50,5 +52,19 @@ public final class InputStreamTokenizer extends Tokenizer
       return (m_stream.read());
    }
 
+   /**
+    * {@inheritDoc}
+    */
+   @Override protected int read(char[] buffer, int offset, int length) throws IOException
+   {
+      int result = m_stream.read(m_bytes, 0, Math.min(length, m_bytes.length));
+      for (int loop = 0; loop < result; loop++)
+      {
+         buffer[offset + loop] = (char) (m_bytes[loop] & 0xFF);
+      }
+      return (result);
+   }
+
    private InputStream m_stream;
+   private byte[] m_bytes = new byte[8192];
 }
@@ -0,0 +1,67 @@
+/*
+ * file:       RTFNotesLoader.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2012
+ * date:       18/10/2012
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.utility;
+
+import net.sf.mpxj.AssignmentField;
+import net.sf.mpxj.FieldType;
+import net.sf.mpxj.FieldValueLoader;
+import net.sf.mpxj.ResourceField;
+import net.sf.mpxj.TaskField;
+
+/**
+ * Field value loader used to remove the RTF formatting from task, resource
+ * and assignment notes when they are first read, rather than when the 
+ * project is read. All other field values are supplied unchanged, either 
+ * from an underlying loader, or from the value already held by the 
+ * container.
+ */
+public final class RTFNotesLoader implements FieldValueLoader
+{
+   /**
+    * Constructor.
+    * 
+    * @param loader underlying loader, or null if the container holds the raw values
+    */
+   public RTFNotesLoader(FieldValueLoader loader)
+   {
+      m_loader = loader;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override public Object getFieldValue(FieldType field, Object defaultValue)
+   {
+      Object result = (m_loader == null ? defaultValue : m_loader.getFieldValue(field, defaultValue));
+      if (result != null && (field == TaskField.NOTES || field == ResourceField.NOTES || field == AssignmentField.NOTES))
+      {
+         result = RTF.strip((String) result);
+      }
+      return (result);
+   }
+
+   private final FieldValueLoader m_loader;
+
+   private static final RTFUtility RTF = new RTFUtility();
+}
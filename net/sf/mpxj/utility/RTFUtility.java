@@ -23,12 +23,11 @@
 
 package net.sf.mpxj.utility;
 
-import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.HashSet;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 /**
  * This class is used to collect together utility functions for manipulating
@@ -38,301 +37,478 @@ public final class RTFUtility
 {
    /**
     * This method removes all RTF formatting from a given piece of text.
+    * The text is processed in a single pass, character by character.
+    * Groups representing destinations which do not form part of the 
+    * document text, for example font tables and embedded objects, are
+    * skipped entirely. Control words representing characters are replaced
+    * by the equivalent character, and all other control words are removed.
+    * This method holds no state between calls, so a single instance may
+    * be shared between threads.
     *
     * @param text Text from which the RTF formatting is to be removed.
     * @return Plain text
     */
    public String strip(String text)
    {
-      text = processDoubleByteChars(text);
-      text = regexpStrip(text);
-      return text;
-   }
-
-   /**
-    * This method converts any encoded double byte characters
-    * to Unicode.
-    * 
-    * @param text RTF text
-    * @return RTF text with Unicode characters
-    */
-   private String processDoubleByteChars(String text)
-   {
-      String[] tokens = text.split("\\\\");
+      StringBuilder result = new StringBuilder(text.length());
+      PendingBytes bytes = new PendingBytes();
+      Charset encoding = DEFAULT_ENCODING;
+      int length = text.length();
       int index = 0;
-      String currentEncoding = null;
-      StringBuffer result = new StringBuffer(text.length());
-      boolean collectingBytes = false;
-      LinkedList<String> bytes = new LinkedList<String>();
-      boolean firstWord = true;
-
-      while (index < tokens.length)
+      int depth = 0;
+      int skipDepth = -1;
+      boolean groupStart = false;
+      int[] unicodeSkip = new int[8];
+      unicodeSkip[0] = 1;
+      int pendingSkip = 0;
+
+      while (index < length)
       {
-         String token = tokens[index];
-         if (token.length() != 0)
+         char c = text.charAt(index++);
+         switch (c)
          {
-            if (token.charAt(0) == '\'')
+            case '{':
             {
-               if (!collectingBytes)
+               flushBytes(result, bytes, encoding);
+               ++depth;
+               if (depth == unicodeSkip.length)
                {
-                  collectingBytes = true;
+                  int[] newUnicodeSkip = new int[unicodeSkip.length * 2];
+                  System.arraycopy(unicodeSkip, 0, newUnicodeSkip, 0, unicodeSkip.length);
+                  unicodeSkip = newUnicodeSkip;
                }
-               bytes.add(token.substring(1, 3));
+               unicodeSkip[depth] = unicodeSkip[depth - 1];
+               groupStart = true;
+               pendingSkip = 0;
+               break;
+            }
 
-               if (token.length() > 3)
+            case '}':
+            {
+               flushBytes(result, bytes, encoding);
+               if (depth == skipDepth)
                {
-                  String decodedText = processBytes(bytes, currentEncoding);
-                  if (firstWord)
-                  {
-                     firstWord = false;
-                     result.append(' ');
-                  }
-                  result.append(decodedText);
-                  collectingBytes = false;
-                  bytes.clear();
-                  result.append(token.substring(3));
+                  skipDepth = -1;
                }
 
-               ++index;
-               continue;
+               if (depth > 0)
+               {
+                  --depth;
+               }
+               groupStart = false;
+               pendingSkip = 0;
+               break;
             }
 
-            if (collectingBytes)
+            case '\\':
             {
-               String decodedText = processBytes(bytes, currentEncoding);
-               if (firstWord)
+               if (index == length)
                {
-                  result.append(' ');
+                  break;
                }
-               result.append(decodedText);
-               collectingBytes = false;
-               bytes.clear();
+
+               char next = text.charAt(index);
+               if (isLetter(next))
+               {
+                  //
+                  // Control word, with an optional numeric parameter,
+                  // and an optional space delimiter
+                  //
+                  int wordStart = index;
+                  while (index < length && isLetter(text.charAt(index)))
+                  {
+                     ++index;
+                  }
+                  String word = text.substring(wordStart, index);
+
+                  int parameterStart = index;
+                  if (index < length && text.charAt(index) == '-')
+                  {
+                     ++index;
+                  }
+                  while (index < length && Character.isDigit(text.charAt(index)))
+                  {
+                     ++index;
+                  }
+                  String parameter = text.substring(parameterStart, index);
+
+                  if (index < length && text.charAt(index) == ' ')
+                  {
+                     ++index;
+                  }
+
+                  if (word.equals("bin"))
+                  {
+                     index = Math.min(length, index + getParameter(parameter, 0));
+                     break;
+                  }
+
+                  if (groupStart && DESTINATIONS.contains(word))
+                  {
+                     skipDepth = depth;
+                  }
+                  groupStart = false;
+
+                  if (skipDepth != -1)
+                  {
+                     break;
+                  }
+
+                  if (pendingSkip != 0)
+                  {
+                     --pendingSkip;
+                     break;
+                  }
+
+                  if (word.equals("u"))
+                  {
+                     flushBytes(result, bytes, encoding);
+                     int value = getParameter(parameter, 0);
+                     if (value < 0)
+                     {
+                        value += 65536;
+                     }
+                     result.append((char) value);
+                     pendingSkip = unicodeSkip[depth];
+                     break;
+                  }
+
+                  if (word.equals("uc"))
+                  {
+                     unicodeSkip[depth] = getParameter(parameter, 1);
+                     break;
+                  }
+
+                  if (word.startsWith("lang") || word.startsWith("deflang"))
+                  {
+                     flushBytes(result, bytes, encoding);
+                     encoding = getEncoding(parameter);
+                     break;
+                  }
+
+                  String mapped = RTF_MAPPING.get(word);
+                  if (mapped != null)
+                  {
+                     flushBytes(result, bytes, encoding);
+                     result.append(mapped);
+                  }
+               }
+               else
+               {
+                  //
+                  // Control symbol
+                  //
+                  ++index;
+                  if (next == '*')
+                  {
+                     if (groupStart)
+                     {
+                        skipDepth = depth;
+                     }
+                     groupStart = false;
+                     break;
+                  }
+                  groupStart = false;
+
+                  if (next == '\'')
+                  {
+                     int value = -1;
+                     if (index + 2 <= length)
+                     {
+                        value = getHexValue(text.charAt(index), text.charAt(index + 1));
+                     }
+                     else
+                     {
+                        //
+                        // Truncated escape, discard the remaining text
+                        //
+                        index = length;
+                     }
+
+                     if (value != -1)
+                     {
+                        index += 2;
+                        if (skipDepth == -1)
+                        {
+                           if (pendingSkip != 0)
+                           {
+                              --pendingSkip;
+                           }
+                           else
+                           {
+                              bytes.add(value);
+                           }
+                        }
+                     }
+                     break;
+                  }
+
+                  if (skipDepth != -1)
+                  {
+                     break;
+                  }
+
+                  if (pendingSkip != 0)
+                  {
+                     --pendingSkip;
+                     break;
+                  }
+
+                  flushBytes(result, bytes, encoding);
+                  switch (next)
+                  {
+                     case '\\':
+                     case '{':
+                     case '}':
+                     {
+                        result.append(next);
+                        break;
+                     }
+
+                     case '~':
+                     {
+                        result.append('\u00A0');
+                        break;
+                     }
+
+                     case '_':
+                     {
+                        result.append('-');
+                        break;
+                     }
+
+                     case '\r':
+                     case '\n':
+                     {
+                        result.append('\n');
+                        break;
+                     }
+
+                     default:
+                     {
+                        break;
+                     }
+                  }
+               }
+               break;
             }
 
-            if (token.startsWith("lang") || token.startsWith("deflang"))
+            case '\r':
+            case '\n':
             {
-               currentEncoding = processEncoding(token);
+               break;
             }
-         }
 
-         firstWord = true;
-         if (index != 0)
-         {
-            result.append('\\');
+            default:
+            {
+               groupStart = false;
+               if (skipDepth == -1)
+               {
+                  if (pendingSkip != 0)
+                  {
+                     --pendingSkip;
+                  }
+                  else
+                  {
+                     flushBytes(result, bytes, encoding);
+                     result.append(c);
+                  }
+               }
+               break;
+            }
          }
-         result.append(token);
-         index++;
       }
 
+      flushBytes(result, bytes, encoding);
+
       return (result.toString());
    }
 
    /**
-    * Extracts a locale ID from an RTF command and converts 
-    * it to a character encoding.
+    * Converts any pending bytes from hex escapes to Unicode using
+    * the current encoding, and appends the resulting text. Consecutive
+    * hex escapes are decoded together so that double byte characters
+    * are handled correctly.
     * 
-    * @param token RTF command
-    * @return encoding
+    * @param result output text
+    * @param bytes pending bytes
+    * @param encoding current character set encoding
     */
-   private String processEncoding(String token)
+   private void flushBytes(StringBuilder result, PendingBytes bytes, Charset encoding)
    {
-      String localeID = null;
-
-      int index = 0;
-      while (index < token.length() && !Character.isDigit(token.charAt(index)))
-      {
-         ++index;
-      }
-
-      if (index != token.length())
+      if (bytes.m_size != 0)
       {
-         StringBuffer sb = new StringBuffer(token.length());
-         while (index < token.length() && Character.isDigit(token.charAt(index)))
-         {
-            sb.append(token.charAt(index));
-            ++index;
-         }
-         localeID = sb.toString();
+         result.append(new String(bytes.m_data, 0, bytes.m_size, encoding));
+         bytes.m_size = 0;
       }
+   }
 
+   /**
+    * Converts a locale ID to a character encoding.
+    * 
+    * @param localeID locale ID
+    * @return encoding
+    */
+   private Charset getEncoding(String localeID)
+   {
       //
       // Default to Cp1252 if we don't have an explicit mapping
       //
-      String encoding = LOCALEID_MAPPING.get(localeID);
-      if (encoding == null)
+      Charset encoding = DEFAULT_ENCODING;
+      String name = LOCALEID_MAPPING.get(localeID);
+      if (name != null)
       {
-         encoding = "Cp1252";
+         try
+         {
+            encoding = Charset.forName(name);
+         }
+
+         catch (IllegalArgumentException ex)
+         {
+            ex.printStackTrace();
+         }
       }
 
       return (encoding);
    }
 
    /**
-    * Takes the string representation of a collection of bytes
-    * and converts it to a Unicode string.
+    * Retrieve the numeric parameter of a control word.
     * 
-    * @param bytes list of bytes represented by strings of hex digits
-    * @param currentEncoding current character set encoding
-    * @return Unicode string
+    * @param parameter parameter text
+    * @param defaultValue value used if the control word has no parameter
+    * @return parameter value
     */
-   private String processBytes(LinkedList<String> bytes, String currentEncoding)
+   private int getParameter(String parameter, int defaultValue)
    {
-      byte[] raw = new byte[bytes.size()];
-      int byteIndex = 0;
-      for (String hexByte : bytes)
-      {
-         raw[byteIndex++] = Integer.decode("0x" + hexByte).byteValue();
-      }
-
-      String result = "";
-
-      try
+      int result = defaultValue;
+      if (parameter.length() != 0 && !parameter.equals("-"))
       {
-         result = new String(raw, currentEncoding);
-      }
+         try
+         {
+            result = Integer.parseInt(parameter);
+         }
 
-      catch (UnsupportedEncodingException ex)
-      {
-         ex.printStackTrace();
+         catch (NumberFormatException ex)
+         {
+            // Parameter out of range, use the default
+         }
       }
-
       return (result);
    }
 
    /**
-    * Strip RTF file using regular expressions to remove most
-    * of the RTF commands.
+    * Determine if a character is an ASCII letter, as used in RTF control words.
     * 
-    * @param rtf input RTF text
-    * @return stripped text
+    * @param c character
+    * @return true if the character is a letter
     */
-   private String regexpStrip(String rtf)
+   private boolean isLetter(char c)
    {
-      rtf = stripCommands("{\\object", rtf);
-
-      //System.out.println(RTF_PATTERN.pattern());
-      StringBuffer sb = new StringBuffer();
-      try
-      {
-         Matcher m = RTF_PATTERN.matcher(rtf);
-         int index = 0;
-
-         while (m.find())
-         {
-            if (m.start() != index)
-            {
-               String value = rtf.substring(index, m.start());
-               sb.append(value);
-            }
-
-            String group = m.group().trim();
-            String mapped = RTF_MAPPING.get(group);
-            if (mapped != null)
-            {
-               sb.append(mapped);
-            }
+      return ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'));
+   }
 
-            index = m.end();
-         }
-      }
-      catch (Exception ex)
+   /**
+    * Convert a pair of hex digits to a byte value.
+    * 
+    * @param high high order digit
+    * @param low low order digit
+    * @return byte value, or -1 if the characters are not hex digits
+    */
+   private int getHexValue(char high, char low)
+   {
+      int result = -1;
+      int highValue = Character.digit(high, 16);
+      int lowValue = Character.digit(low, 16);
+      if (highValue != -1 && lowValue != -1)
       {
-         System.out.println(ex);
+         result = (highValue << 4) | lowValue;
       }
-
-      return sb.toString();
+      return (result);
    }
 
    /**
-    * Utility method to explicitly strip individual commands not managed 
-    * by the regular expression.
-    * 
-    * @param command command to strip
-    * @param rtf RTF text
-    * @return stripped text
+    * Bytes from consecutive hex escapes, waiting to be decoded.
     */
-   private String stripCommands(String command, String rtf)
+   private static final class PendingBytes
    {
-      //
-      // Do we have embedded binary data?
-      //
-      int startIndex = rtf.indexOf(command);
-      if (startIndex != -1)
+      /**
+       * Add a byte.
+       * 
+       * @param value byte value
+       */
+      public void add(int value)
       {
-         StringBuffer sb = new StringBuffer(rtf);
-         do
+         if (m_size == m_data.length)
          {
-            //
-            // Find the end of the enclosing block
-            //
-            int endIndex = startIndex + 1;
-            int nesting = 1;
-            while (nesting != 0 && endIndex < sb.length())
-            {
-               char c = sb.charAt(endIndex);
-               switch (c)
-               {
-                  case '{':
-                  {
-                     ++nesting;
-                     break;
-                  }
-
-                  case '}':
-                  {
-                     --nesting;
-                     break;
-                  }
-               }
-
-               ++endIndex;
-            }
-
-            //
-            // Unexpected format - bail out
-            //
-            if (nesting != 0)
-            {
-               break;
-            }
-            --endIndex;
-
-            //
-            // Remove the block
-            //
-            sb.replace(startIndex, endIndex, "");
-
-            //
-            // Find the next entry
-            //
-            startIndex = sb.indexOf(command, startIndex);
+            byte[] data = new byte[m_data.length * 2];
+            System.arraycopy(m_data, 0, data, 0, m_size);
+            m_data = data;
          }
-         while (startIndex != -1);
-
-         rtf = sb.toString();
+         m_data[m_size++] = (byte) value;
       }
 
-      return rtf;
+      byte[] m_data = new byte[16];
+      int m_size;
    }
 
+   private static final Charset DEFAULT_ENCODING = Charset.forName("Cp1252");
+
    /**
-    * Pattern used to match RTF syntax.
+    * Mapping between control words and the text they represent.
     */
-   private static final Pattern RTF_PATTERN = Pattern.compile("(\\\\\\\\)|(\\\\~)|(\\{\\\\stylesheet.*\\{.*\\}\\{.*\\}\\})|(\\{\\\\[A-Za-z]* .*\\})|(\\\\[A-Za-z]* .*;\\})|(\\\\[A-Za-z]*-?[0-9]* .*;\\})|(\\\\[A-Za-z]*-?[0-9]+ )|(\\\\[A-Za-z]*-?[0-9]+)|(\\\\\\*)|(\\\\[A-Za-z]* )|(\\\\[A-Za-z]*)|(\\\\\\{)|(\\\\\\})|(\\{)|(\\})|(\\r\\n)");
-
    private static final Map<String, String> RTF_MAPPING = new HashMap<String, String>();
    static
    {
-      RTF_MAPPING.put("\\par", "\n");
-      RTF_MAPPING.put("\\tab", "\t");
-      RTF_MAPPING.put("\\\\", "\\");
-      RTF_MAPPING.put("\\{", "{");
-      RTF_MAPPING.put("\\}", "}");
-      RTF_MAPPING.put("\\rquote", "");
-      RTF_MAPPING.put("\\endash", "");
-      RTF_MAPPING.put("\\ldblquote", "");
-      RTF_MAPPING.put("\\rdblquote", "");
-      RTF_MAPPING.put("\\~", "");
+      RTF_MAPPING.put("par", "\n");
+      RTF_MAPPING.put("line", "\n");
+      RTF_MAPPING.put("tab", "\t");
+      RTF_MAPPING.put("lquote", "\u2018");
+      RTF_MAPPING.put("rquote", "\u2019");
+      RTF_MAPPING.put("ldblquote", "\u201C");
+      RTF_MAPPING.put("rdblquote", "\u201D");
+      RTF_MAPPING.put("endash", "\u2013");
+      RTF_MAPPING.put("emdash", "\u2014");
+      RTF_MAPPING.put("bullet", "\u2022");
+   }
+
+   /**
+    * Destination control words introducing groups which do not contain
+    * document text.
+    */
+   private static final Set<String> DESTINATIONS = new HashSet<String>();
+   static
+   {
+      String[] destinations =
+      {
+         "fonttbl",
+         "colortbl",
+         "stylesheet",
+         "listtable",
+         "listoverridetable",
+         "revtbl",
+         "rsidtbl",
+         "info",
+         "pict",
+         "object",
+         "nonshppict",
+         "header",
+         "headerl",
+         "headerr",
+         "headerf",
+         "footer",
+         "footerl",
+         "footerr",
+         "footerf",
+         "fldinst",
+         "xmlnstbl",
+         "filetbl"
+      };
+
+      for (String destination : destinations)
+      {
+         DESTINATIONS.add(destination);
+      }
    }
 
    /**
@@ -50,5 +50,13 @@ public final class ReaderTokenizer extends Tokenizer
       return (m_reader.read());
    }
 
+   /**
+    * {@inheritDoc}
+    */
+   @Override protected int read(char[] buffer, int offset, int length) throws IOException
+   {
+      return (m_reader.read(buffer, offset, length));
+   }
+
    private Reader m_reader;
 }
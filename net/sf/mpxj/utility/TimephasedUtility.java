@@ -36,6 +36,7 @@ import net.sf.mpxj.TimeUnit;
 import net.sf.mpxj.TimephasedCost;
 import net.sf.mpxj.TimephasedItem;
 import net.sf.mpxj.TimephasedWork;
+import net.sf.mpxj.TimephasedWorkArray;
 import net.sf.mpxj.mpp.TimescaleUnits;
 
 /**
@@ -55,6 +56,23 @@ public final class TimephasedUtility
     * @return list of durations, one per timescale date range
     */
    public ArrayList<Duration> segmentWork(ProjectCalendar projectCalendar, List<TimephasedWork> work, TimescaleUnits rangeUnits, ArrayList<DateRange> dateList)
+   {
+      return segmentWork(projectCalendar, work == null ? null : new TimephasedWorkArray(work), rangeUnits, dateList);
+   }
+
+   /**
+    * This is the main entry point used to convert the compact representation
+    * of timephased work into an external form which can be displayed to 
+    * the user. This avoids the need to create a list of TimephasedWork 
+    * instances.
+    * 
+    * @param projectCalendar calendar used by the resource assignment 
+    * @param work timephased resource assignment data
+    * @param rangeUnits timescale units
+    * @param dateList timescale date ranges
+    * @return list of durations, one per timescale date range
+    */
+   public ArrayList<Duration> segmentWork(ProjectCalendar projectCalendar, TimephasedWorkArray work, TimescaleUnits rangeUnits, ArrayList<DateRange> dateList)
    {
       ArrayList<Duration> result = new ArrayList<Duration>(dateList.size());
       int lastStartIndex = 0;
@@ -108,6 +126,22 @@ public final class TimephasedUtility
       return segmentWork(file.getBaselineCalendar(), work, rangeUnits, dateList);
    }
 
+   /**
+    * This is the main entry point used to convert the compact representation
+    * of timephased baseline work into an external form which can
+    * be displayed to the user.
+    *  
+    * @param file parent project file
+    * @param work timephased resource assignment data
+    * @param rangeUnits timescale units
+    * @param dateList timescale date ranges
+    * @return list of durations, one per timescale date range
+    */
+   public ArrayList<Duration> segmentBaselineWork(ProjectFile file, TimephasedWorkArray work, TimescaleUnits rangeUnits, ArrayList<DateRange> dateList)
+   {
+      return segmentWork(file.getBaselineCalendar(), work, rangeUnits, dateList);
+   }
+
    /**
     * This is the main entry point used to convert the internal representation
     * of timephased cost into an external form which can
@@ -231,6 +265,62 @@ public final class TimephasedUtility
       return result;
    }
 
+   /**
+    * Used to locate the first timephased resource assignment block which
+    * intersects with the target date range.
+    * 
+    * @param range target date range
+    * @param assignments timephased resource assignments
+    * @param startIndex index at which to start the search
+    * @return index of timephased resource assignment which intersects with the target date range
+    */
+   private int getStartIndex(DateRange range, TimephasedWorkArray assignments, int startIndex)
+   {
+      int result = -1;
+      if (assignments != null)
+      {
+         long rangeStart = range.getStart().getTime();
+         long rangeEnd = range.getEnd().getTime();
+
+         for (int loop = startIndex; loop < assignments.size(); loop++)
+         {
+            long assignmentStart = assignments.getStart(loop);
+            long assignmentFinish = assignments.getFinish(loop);
+
+            //
+            // The start of the target range falls after the assignment end - 
+            // move on to test the next assignment.
+            //
+            if (rangeStart > assignmentFinish && rangeStart >= assignmentStart)
+            {
+               continue;
+            }
+
+            //
+            // The start of the target range  falls within the assignment -
+            // return the index of this assignment to the caller.
+            //
+            if (rangeStart >= assignmentStart)
+            {
+               result = loop;
+               break;
+            }
+
+            //
+            // At this point, we know that the start of the target range is before
+            // the assignment start. We need to determine if the end of the
+            // target range overlaps the assignment.
+            //
+            if (rangeEnd >= assignmentStart)
+            {
+               result = loop;
+               break;
+            }
+         }
+      }
+      return result;
+   }
+
    /**
     * For a given date range, determine the duration of work, based on the
     * timephased resource assignment data.
@@ -242,7 +332,7 @@ public final class TimephasedUtility
     * @param startIndex index at which to start searching through the timephased resource assignments
     * @return work duration
     */
-   private Duration getRangeDuration(ProjectCalendar projectCalendar, TimescaleUnits rangeUnits, DateRange range, List<TimephasedWork> assignments, int startIndex)
+   private Duration getRangeDuration(ProjectCalendar projectCalendar, TimescaleUnits rangeUnits, DateRange range, TimephasedWorkArray assignments, int startIndex)
    {
       Duration result;
 
@@ -278,7 +368,7 @@ public final class TimephasedUtility
     * @param startIndex index at which to start searching through the timephased resource assignments
     * @return work duration
     */
-   private Duration getRangeDurationSubDay(ProjectCalendar projectCalendar, TimescaleUnits rangeUnits, DateRange range, List<TimephasedWork> assignments, int startIndex)
+   private Duration getRangeDurationSubDay(ProjectCalendar projectCalendar, TimescaleUnits rangeUnits, DateRange range, TimephasedWorkArray assignments, int startIndex)
    {
       throw new UnsupportedOperationException("Please request this functionality from the MPXJ maintainer");
    }
@@ -296,7 +386,7 @@ public final class TimephasedUtility
     * @param startIndex index at which to start searching through the timephased resource assignments
     * @return work duration
     */
-   private Duration getRangeDurationWholeDay(ProjectCalendar projectCalendar, TimescaleUnits rangeUnits, DateRange range, List<TimephasedWork> assignments, int startIndex)
+   private Duration getRangeDurationWholeDay(ProjectCalendar projectCalendar, TimescaleUnits rangeUnits, DateRange range, TimephasedWorkArray assignments, int startIndex)
    {
       // option 1:
       // Our date range starts before the start of the TRA at the start index.
@@ -321,7 +411,6 @@ public final class TimephasedUtility
 
       int totalDays = 0;
       double totalWork = 0;
-      TimephasedWork assignment = assignments.get(startIndex);
       boolean done = false;
 
       do
@@ -330,14 +419,14 @@ public final class TimephasedUtility
          // Select the correct start date
          //      
          long startDate = range.getStart().getTime();
-         long assignmentStart = assignment.getStart().getTime();
+         long assignmentStart = assignments.getStart(startIndex);
          if (startDate < assignmentStart)
          {
             startDate = assignmentStart;
          }
 
          long rangeEndDate = range.getEnd().getTime();
-         long traEndDate = assignment.getFinish().getTime();
+         long traEndDate = assignments.getFinish(startIndex);
 
          Calendar cal = Calendar.getInstance();
          cal.setTimeInMillis(startDate);
@@ -362,13 +451,12 @@ public final class TimephasedUtility
          // check to see if the next TRA can be used.
          //
          done = true;
-         totalWork += (assignment.getAmountPerDay().getDuration() * totalDays);
+         totalWork += (assignments.getAmountPerDay(startIndex) * totalDays);
          if (startDate < rangeEndDate)
          {
-            ++startIndex;
-            if (startIndex < assignments.size())
+            if (startIndex + 1 < assignments.size())
             {
-               assignment = assignments.get(startIndex);
+               ++startIndex;
                totalDays = 0;
                done = false;
             }
@@ -376,7 +464,7 @@ public final class TimephasedUtility
       }
       while (!done);
 
-      return Duration.getInstance(totalWork, assignment.getAmountPerDay().getUnits());
+      return Duration.getInstance(totalWork, assignments.getAmountPerDayUnits(startIndex));
    }
 
    /**
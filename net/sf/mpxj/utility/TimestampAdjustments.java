@@ -0,0 +1,137 @@
+/*
+ * file:       TimestampAdjustments.java
+ * author:     Jon Iles
+ * copyright:  (c) Packwood Software 2012
+ * date:       18/10/2012
+ */
+
+/*
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation; either version 2.1 of the License, or (at your
+ * option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software Foundation, Inc.,
+ * 59 Temple Place, Suite 330, Boston, MA 02111-1307, USA.
+ */
+
+package net.sf.mpxj.utility;
+
+import java.util.TimeZone;
+
+/**
+ * Caches the adjustments required to convert timestamps expressed as
+ * long integers into Date instances for a specific time zone. The 
+ * adjustment is constant for most days, so this is calculated once per
+ * day, avoiding the cost of evaluating the time zone's daylight savings
+ * rules for every timestamp read. Days on which the adjustment changes
+ * are always calculated in full.
+ * 
+ * Adjustments are held in blocks which are allocated on demand, so 
+ * only the date ranges actually used take up space. The cache may be 
+ * shared between threads: concurrent updates can only result in the
+ * same value being calculated more than once.
+ */
+final class TimestampAdjustments
+{
+   /**
+    * Constructor.
+    * 
+    * @param tz time zone
+    */
+   public TimestampAdjustments(TimeZone tz)
+   {
+      m_timeZone = tz;
+   }
+
+   /**
+    * Determines if this cache can be used for the supplied time zone.
+    * 
+    * @param tz time zone
+    * @return true if this cache can be used
+    */
+   public boolean matches(TimeZone tz)
+   {
+      return (m_timeZone.getID().equals(tz.getID()) && m_timeZone.hasSameRules(tz));
+   }
+
+   /**
+    * Retrieves the adjustment for a timestamp.
+    * 
+    * @param timestamp timestamp expressed as a long integer
+    * @return adjustment in milliseconds
+    */
+   public long getAdjustment(long timestamp)
+   {
+      long result;
+
+      long day = timestamp / MS_PER_DAY;
+      if (timestamp < 0 || day >= BLOCK_SIZE * BLOCK_COUNT)
+      {
+         result = DateUtility.getTimestampAdjustment(m_timeZone, timestamp);
+      }
+      else
+      {
+         int blockIndex = (int) (day / BLOCK_SIZE);
+         int[] block = m_blocks[blockIndex];
+         if (block == null)
+         {
+            block = new int[BLOCK_SIZE];
+            m_blocks[blockIndex] = block;
+         }
+
+         int index = (int) (day % BLOCK_SIZE);
+         int value = block[index];
+         if (value == UNKNOWN)
+         {
+            long dayStart = day * MS_PER_DAY;
+            long startAdjustment = DateUtility.getTimestampAdjustment(m_timeZone, dayStart);
+            long endAdjustment = DateUtility.getTimestampAdjustment(m_timeZone, dayStart + MS_PER_DAY - 1);
+            value = (startAdjustment == endAdjustment ? (int) (startAdjustment + BIAS) : VARIABLE);
+            block[index] = value;
+         }
+
+         if (value == VARIABLE)
+         {
+            result = DateUtility.getTimestampAdjustment(m_timeZone, timestamp);
+         }
+         else
+         {
+            result = value - BIAS;
+         }
+      }
+
+      return (result);
+   }
+
+   private final TimeZone m_timeZone;
+   private final int[][] m_blocks = new int[BLOCK_COUNT][];
+
+   /**
+    * Number of milliseconds per day.
+    */
+   private static final long MS_PER_DAY = 24 * 60 * 60 * 1000;
+
+   /**
+    * Number of days in each block, and the number of blocks. Together these
+    * cover all dates from 1970 to beyond the last date supported by 
+    * Microsoft Project.
+    */
+   private static final int BLOCK_SIZE = 1024;
+   private static final int BLOCK_COUNT = 128;
+
+   /**
+    * Adjustments are stored with a bias applied, so that the zero
+    * value of a newly allocated block represents an unknown adjustment. 
+    * This is larger than any time zone offset.
+    */
+   private static final int BIAS = 1 << 30;
+   private static final int UNKNOWN = 0;
+   private static final int VARIABLE = -1;
+}
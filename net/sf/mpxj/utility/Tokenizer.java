@@ -30,6 +30,11 @@ import java.io.IOException;
  * java.io.StreamTokenizer. This tokenizer is designed to parse records from
  * an MPX file correctly. In particular it will handle empty fields,
  * represented by adjacent field delimiters.
+ *
+ * Characters are read from the data source in blocks into a window, and
+ * delimiters are located by scanning the window directly. The text of each
+ * token is held in place within the window, so a String is only created
+ * when the token is requested by the caller.
  */
 public abstract class Tokenizer
 {
@@ -42,6 +47,31 @@ public abstract class Tokenizer
     */
    protected abstract int read() throws IOException;
 
+   /**
+    * This method reads a block of characters from the data source. The
+    * default implementation reads a single character using the read()
+    * method, which means that characters are not consumed from the data
+    * source ahead of the tokens being read. Subclasses should override this
+    * method to read larger blocks where possible.
+    *
+    * @param buffer target buffer
+    * @param offset offset into the buffer
+    * @param length maximum number of characters to read
+    * @return number of characters read, or -1 at the end of the data source
+    * @throws IOException
+    */
+   protected int read(char[] buffer, int offset, int length) throws IOException
+   {
+      int result = -1;
+      int c = read();
+      if (c != -1)
+      {
+         buffer[offset] = (char) c;
+         result = 1;
+      }
+      return (result);
+   }
+
    /**
     * This method retrieves the next token and returns a constant representing
     * the type of token found.
@@ -50,8 +80,6 @@ public abstract class Tokenizer
     */
    public int nextToken() throws IOException
    {
-      int c;
-      int nextc = -1;
       boolean quoted = false;
       int result = m_next;
       if (m_next != 0)
@@ -59,98 +87,87 @@ public abstract class Tokenizer
          m_next = 0;
       }
 
-      m_buffer.setLength(0);
+      //
+      // The token text is written back into the window starting at
+      // the position of the first character of the token. As quote
+      // characters are skipped, the text may lag behind the read
+      // position, but will never overtake it.
+      //
+      m_tokenStart = m_position;
+      m_tokenLength = 0;
 
       while (result == 0)
       {
-         if (nextc != -1)
-         {
-            c = nextc;
-            nextc = -1;
-         }
-         else
+         if (m_position == m_limit && !fill())
          {
-            c = read();
+            if (m_tokenLength != 0)
+            {
+               result = TT_WORD;
+               m_next = TT_EOF;
+            }
+            else
+            {
+               result = TT_EOF;
+            }
+            break;
          }
 
-         switch (c)
+         char c = m_data[m_position++];
+
+         if (c == TT_EOL)
          {
-            case TT_EOF:
+            if (m_tokenLength != 0 && m_data[m_tokenStart + m_tokenLength - 1] == '\r')
             {
-               if (m_buffer.length() != 0)
-               {
-                  result = TT_WORD;
-                  m_next = TT_EOF;
-               }
-               else
-               {
-                  result = TT_EOF;
-               }
-               break;
+               --m_tokenLength;
             }
 
-            case TT_EOL:
+            if (m_tokenLength == 0)
             {
-               int length = m_buffer.length();
-
-               if (length != 0 && m_buffer.charAt(length - 1) == '\r')
-               {
-                  --length;
-                  m_buffer.setLength(length);
-               }
-
-               if (length == 0)
+               result = TT_EOL;
+            }
+            else
+            {
+               result = TT_WORD;
+               m_next = TT_EOL;
+            }
+         }
+         else
+         {
+            if (c == m_quote)
+            {
+               if (quoted == false && m_tokenLength == 0)
                {
-                  result = TT_EOL;
+                  quoted = true;
                }
                else
                {
-                  result = TT_WORD;
-                  m_next = TT_EOL;
-               }
-
-               break;
-            }
-
-            default:
-            {
-               if (c == m_quote)
-               {
-                  if (quoted == false && m_buffer.length() == 0)
+                  if (quoted == false)
                   {
-                     quoted = true;
+                     m_data[m_tokenStart + m_tokenLength++] = c;
                   }
                   else
                   {
-                     if (quoted == false)
+                     if ((m_position < m_limit || fill()) && m_data[m_position] == m_quote)
                      {
-                        m_buffer.append((char) c);
+                        m_data[m_tokenStart + m_tokenLength++] = c;
+                        ++m_position;
                      }
                      else
                      {
-                        nextc = read();
-                        if (nextc == m_quote)
-                        {
-                           m_buffer.append((char) c);
-                           nextc = -1;
-                        }
-                        else
-                        {
-                           quoted = false;
-                        }
+                        quoted = false;
                      }
                   }
                }
+            }
+            else
+            {
+               if (c == m_delimiter && quoted == false)
+               {
+                  result = TT_WORD;
+               }
                else
                {
-                  if (c == m_delimiter && quoted == false)
-                  {
-                     result = TT_WORD;
-                  }
-                  else
-                  {
-                     m_buffer.append((char) c);
-                  }
+                  m_data[m_tokenStart + m_tokenLength++] = c;
                }
             }
          }
@@ -168,7 +185,7 @@ public abstract class Tokenizer
     */
    public String getToken()
    {
-      return (m_buffer.toString());
+      return (new String(m_data, m_tokenStart, m_tokenLength));
    }
 
    /**
@@ -192,13 +209,51 @@ public abstract class Tokenizer
       m_delimiter = delimiter;
    }
 
+   /**
+    * Called when all of the characters in the window have been consumed.
+    * The text of the current token is moved to the start of the window,
+    * the window is enlarged if the token fills it, and the remainder
+    * of the window is filled from the data source.
+    *
+    * @return false if the end of the data source has been reached
+    * @throws IOException
+    */
+   private boolean fill() throws IOException
+   {
+      System.arraycopy(m_data, m_tokenStart, m_data, 0, m_tokenLength);
+      m_tokenStart = 0;
+      m_position = m_tokenLength;
+      m_limit = m_tokenLength;
+
+      if (m_limit == m_data.length)
+      {
+         char[] data = new char[m_data.length * 2];
+         System.arraycopy(m_data, 0, data, 0, m_limit);
+         m_data = data;
+      }
+
+      int count = read(m_data, m_limit, m_data.length - m_limit);
+      if (count > 0)
+      {
+         m_limit += count;
+      }
+
+      return (count > 0);
+   }
+
    public static final int TT_EOL = '\n';
    public static final int TT_EOF = -1;
    public static final int TT_WORD = -3;
 
+   private static final int BUFFER_SIZE = 8192;
+
    private char m_quote = '"';
    private char m_delimiter = ',';
    private int m_next;
    private int m_type;
-   private StringBuffer m_buffer = new StringBuffer();
+   private char[] m_data = new char[BUFFER_SIZE];
+   private int m_position;
+   private int m_limit;
+   private int m_tokenStart;
+   private int m_tokenLength;
 }